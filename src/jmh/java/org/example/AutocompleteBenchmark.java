@@ -0,0 +1,65 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// One keystroke in the search box: the top 10 completions of a 1 to 8 character prefix of a
+// cataloged title or author, against the searchBook call the storefront used to make instead.
+// For the 10M-entry case run with -p catalogSize=5000000 (titles plus authors) and a heap of a
+// few gigabytes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutocompleteBenchmark {
+
+    private static final int PREFIXES = 4_096;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private BookService service;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        service = new BookService();
+        List<Book> books = BenchmarkData.books(catalogSize, 42);
+        service.addBooks(books);
+        service.enableAutocomplete();
+
+        SplittableRandom random = new SplittableRandom(5);
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            Book book = books.get(random.nextInt(books.size()));
+            String text = random.nextBoolean() ? book.getTitle() : book.getAuthor();
+            prefixes[i] = text.substring(0, Math.min(text.length(), 1 + random.nextInt(8)));
+        }
+    }
+
+    @Benchmark
+    public List<Completion> autocomplete() {
+        return service.autocomplete(prefixes[next++ & (PREFIXES - 1)], 10);
+    }
+
+    @Benchmark
+    public List<Book> keystrokeSearch() {
+        return service.searchBook(prefixes[next++ & (PREFIXES - 1)]);
+    }
+}
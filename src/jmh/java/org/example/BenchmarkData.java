@@ -0,0 +1,56 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic synthetic catalogs and users shared by the benchmarks
+final class BenchmarkData {
+
+    static final String[] WORDS = {
+            "Shadow", "River", "Garden", "Empire", "Winter", "Silent", "Golden", "Broken", "Hidden", "Last",
+            "Night", "Ocean", "Crown", "Stone", "Glass", "Fire", "Storm", "Forest", "Iron", "Dream",
+            "City", "Road", "House", "Secret", "Light", "Memory", "Song", "Wolf", "Star", "Mountain"
+    };
+    static final String[] GENRES = {
+            "Fiction", "Dystopian", "Fantasy", "Mystery", "Romance", "History", "Science", "Biography",
+            "Horror", "Poetry", "Travel", "Thriller"
+    };
+
+    // A keyword that occurs in a fraction of the catalog, and one that occurs nowhere
+    static final String HIT_KEYWORD = "Golden Storm";
+    static final String MISS_KEYWORD = "Quixotic Zephyr";
+
+    private BenchmarkData() {
+    }
+
+    static List<Book> books(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Book> books = new ArrayList<>(count);
+        int authors = Math.max(count / 20, 1);
+        for (int i = 0; i < count; i++) {
+            books.add(book(random, i, authors));
+        }
+        return books;
+    }
+
+    static Book book(SplittableRandom random, int id, int authors) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+        String author = "Author " + random.nextInt(authors);
+        String genre = GENRES[random.nextInt(GENRES.length)];
+        double price = 1 + random.nextInt(5000) / 100.0;
+        return new Book(title, author, genre, price);
+    }
+
+    static BookService bookService(int count) {
+        BookService service = new BookService();
+        for (Book book : books(count, 42)) {
+            service.addBook(book);
+        }
+        return service;
+    }
+
+    static User user(int id) {
+        return new User("user" + id, "password" + id, "user" + id + "@example.com");
+    }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Catalog hot paths: search hits and misses, add/remove churn and reviews.
+// The 10M catalog needs a large heap, e.g. -jvmArgsAppend -Xmx8g, or pick sizes with -p catalogSize=...
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int catalogSize;
+
+    private BookService service;
+    private List<Book> churn;
+    private int next;
+
+    private User reviewer;
+    private Book reviewed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkData.bookService(catalogSize);
+        churn = BenchmarkData.books(1024, 7);
+        for (Book book : churn) {
+            book.setTitle("Churn " + book.getTitle()); // Keep them distinct from the catalog
+        }
+    }
+
+    // Reviews accumulate, so start every iteration from an empty review list. The reviewer is a
+    // heavy buyer, so the purchase check has a long history to look through.
+    @Setup(Level.Iteration)
+    public void setUpReviews() {
+        reviewed = service.searchBook(BenchmarkData.HIT_KEYWORD).get(0);
+        reviewed.setReviews(new ArrayList<>());
+        reviewer = new User("reviewer", "password", "reviewer@example.com", new ArrayList<>());
+        for (Book book : service.searchBook("", 0, 10_000)) {
+            service.purchaseBook(reviewer, book);
+        }
+        service.purchaseBook(reviewer, reviewed);
+    }
+
+    @Benchmark
+    public List<Book> searchHit() {
+        return service.searchBook(BenchmarkData.HIT_KEYWORD);
+    }
+
+    @Benchmark
+    public List<Book> searchMiss() {
+        return service.searchBook(BenchmarkData.MISS_KEYWORD);
+    }
+
+    @Benchmark
+    public List<Book> searchFirstPage() {
+        return service.searchBook(BenchmarkData.HIT_KEYWORD, 0, 20);
+    }
+
+    @Benchmark
+    public List<Book> searchCheapestTen() {
+        return service.searchTopK(BenchmarkData.HIT_KEYWORD, 10, Comparator.comparingDouble(Book::getPrice));
+    }
+
+    @Benchmark
+    public boolean addRemoveBook() {
+        Book book = churn.get(next++ & (churn.size() - 1));
+        return service.addBook(book) & service.removeBook(book);
+    }
+
+    @Benchmark
+    public boolean addBookReview() {
+        return service.addBookReview(reviewer, reviewed, "Great read");
+    }
+}
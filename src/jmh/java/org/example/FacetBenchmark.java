@@ -0,0 +1,78 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// "N books in Fiction, avg price X": the maintained genre facet and one-pass search facets,
+// against searching and then grouping the returned list as catalog pages used to.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FacetBenchmark {
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    // A narrow and a broad search
+    @Param({"Golden Storm", "Golden"})
+    public String keyword;
+
+    private BookService service;
+
+    @Setup
+    public void setUp() {
+        service = new BookService();
+        service.addBooks(BenchmarkData.books(catalogSize, 42));
+        service.enableFacets();
+    }
+
+    @Benchmark
+    public FacetStats genreFacet() {
+        return service.genreFacet("Fiction");
+    }
+
+    @Benchmark
+    public Map<String, DoubleSummaryStatistics> groupCatalog() {
+        return service.searchBook("").stream()
+                .collect(Collectors.groupingBy(Book::getGenre, Collectors.summarizingDouble(Book::getPrice)));
+    }
+
+    @Benchmark
+    public Facets searchFacets() {
+        return service.searchFacets(keyword);
+    }
+
+    @Benchmark
+    public Object[] searchThenGroup() {
+        List<Book> result = service.searchBook(keyword);
+        return new Object[] {
+                result.stream().collect(Collectors.groupingBy(Book::getGenre, Collectors.summarizingDouble(Book::getPrice))),
+                result.stream().collect(Collectors.groupingBy(Book::getAuthor, Collectors.summarizingDouble(Book::getPrice)))
+        };
+    }
+
+    @Benchmark
+    public void addRemove() {
+        Book book = new Book("Facet Probe", "Probe Author", "Fiction", 9.99);
+        service.addBook(book);
+        service.removeBook(book);
+    }
+}
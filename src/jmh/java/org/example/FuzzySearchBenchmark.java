@@ -0,0 +1,99 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// A misspelled title (one edit in every word of three letters or more) through searchFuzzy with
+// up to two edits, against comparing the query words with the words of every book in turn.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FuzzySearchBenchmark {
+
+    private static final int QUERIES = 1_024;
+    private static final int MAX_DISTANCE = 2;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private BookService service;
+    private List<Book> books;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(catalogSize, 42);
+        service = new BookService();
+        service.addBooks(books);
+        service.enableFuzzySearch();
+
+        SplittableRandom random = new SplittableRandom(9);
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            StringBuilder query = new StringBuilder();
+            for (String word : books.get(random.nextInt(books.size())).getTitle().split(" ")) {
+                if (word.length() >= 3) {
+                    char[] chars = word.toCharArray();
+                    chars[random.nextInt(chars.length)] = 'x';
+                    word = new String(chars);
+                }
+                query.append(query.length() == 0 ? "" : " ").append(word);
+            }
+            queries[i] = query.toString();
+        }
+    }
+
+    @Benchmark
+    public List<Book> searchFuzzy() {
+        return service.searchFuzzy(queries[next++ & (QUERIES - 1)], MAX_DISTANCE, 10);
+    }
+
+    @Benchmark
+    public List<Book> linearScan() {
+        Set<String> words = FuzzyIndex.words(queries[next++ & (QUERIES - 1)], null);
+        int[] previous = new int[64];
+        int[] current = new int[64];
+        List<Book> result = new ArrayList<>();
+        for (Book book : books) {
+            Set<String> bookWords = FuzzyIndex.words(book.getTitle(), book.getAuthor());
+            boolean all = true;
+            for (String word : words) {
+                int allowed = FuzzyIndex.allowedEdits(word, MAX_DISTANCE);
+                boolean any = false;
+                for (String bookWord : bookWords) {
+                    if (BKTree.distance(bookWord, word, allowed, previous, current) <= allowed) {
+                        any = true;
+                        break;
+                    }
+                }
+                if (!any) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Measures retained heap per book for each catalog store by building a catalog and comparing
+// used heap after full GCs. Strings are copied so no two books share an instance, as with
+// books parsed from an import file.
+//   java -cp target/benchmarks.jar org.example.HeapFootprint [books]
+public final class HeapFootprint {
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-12s %14s%n", "store", "bytes/book");
+        report("hash", count, new HashCatalogStore(count));
+        report("compact", count, new CompactCatalogStore(count));
+    }
+
+    private static void report(String name, int count, CatalogStore store) {
+        long before = usedHeap();
+        BookService service = new BookService(store);
+        SplittableRandom random = new SplittableRandom(42);
+        int authors = Math.max(count / 20, 1);
+        List<Book> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            Book book = BenchmarkData.book(random, i, authors);
+            batch.add(new Book(new String(book.getTitle()), new String(book.getAuthor()), new String(book.getGenre()), book.getPrice()));
+            if (batch.size() == 10_000) {
+                service.addBooks(batch);
+                batch.clear();
+            }
+        }
+        service.addBooks(batch);
+        batch = null;
+        long after = usedHeap();
+        System.out.printf("%-12s %14.1f%n", name, (after - before) / (double) count);
+        if (service.searchBook(BenchmarkData.MISS_KEYWORD).size() != 0) {
+            throw new IllegalStateException(); // Keeps the service reachable until measured
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bulk import into an empty catalog: one addBook call per book against one addBooks batch,
+// for both the default and the concurrent store
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int batchSize;
+
+    @Param({"hash", "concurrent"})
+    public String store;
+
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(batchSize, 11);
+    }
+
+    private BookService newService() {
+        return store.equals("concurrent") ? new ConcurrentBookService() : new BookService();
+    }
+
+    @Benchmark
+    public BookService addOneByOne() {
+        BookService service = newService();
+        for (Book book : books) {
+            service.addBook(book);
+        }
+        return service;
+    }
+
+    @Benchmark
+    public BookService addBatch() {
+        BookService service = newService();
+        service.addBooks(books);
+        return service;
+    }
+}
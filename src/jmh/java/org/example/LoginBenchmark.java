@@ -0,0 +1,57 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// Logins per second on one core at each PBKDF2 cost, with and without the verified-login cache
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    @Param({"10000", "100000", "310000", "600000"})
+    public int iterations;
+
+    private UserService uncached;
+    private UserService cached;
+
+    @Setup
+    public void setUp() {
+        uncached = service();
+        cached = service();
+        cached.enableLoginCache(TimeUnit.MINUTES.toMillis(5), 10_000);
+    }
+
+    private UserService service() {
+        UserService service = new UserService(new HashMap<>(), new PasswordHasher(iterations));
+        service.registerUser(new User("john_doe", "password123", "john@example.com"));
+        return service;
+    }
+
+    @Benchmark
+    public User login() {
+        return uncached.loginUser("john_doe", "password123");
+    }
+
+    @Benchmark
+    public User loginWithinCacheWindow() {
+        return cached.loginUser("john_doe", "password123");
+    }
+}
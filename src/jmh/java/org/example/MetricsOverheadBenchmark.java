@@ -0,0 +1,63 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of ServiceMetrics on the hot paths: compare the metrics=on and metrics=off rows.
+// The login uses a single PBKDF2 round so the KDF does not hide the instrumentation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    private BookService bookService;
+    private UserService userService;
+    private final Histogram histogram = new Histogram();
+    private long value;
+
+    @Setup
+    public void setUp() {
+        bookService = BenchmarkData.bookService(100_000);
+        userService = new UserService(new HashMap<>(), new PasswordHasher(1));
+        userService.registerUser(BenchmarkData.user(0));
+        if (metrics.equals("on")) {
+            ServiceMetrics serviceMetrics = new ServiceMetrics();
+            bookService.setMetrics(serviceMetrics);
+            userService.setMetrics(serviceMetrics);
+        }
+    }
+
+    @Benchmark
+    public List<Book> searchHit() {
+        return bookService.searchBook(BenchmarkData.HIT_KEYWORD);
+    }
+
+    @Benchmark
+    public User login() {
+        return userService.loginUser("user0", "password0");
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(value++ & 0xFFFFF);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Case-insensitive search three ways: a prepared NormalizedQuery over the precomputed folded
+// fields (gc.alloc.rate.norm should read 0), searchNormalized with a fresh query and result list,
+// and the lowercase-per-comparison workaround clients used before
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizedSearchBenchmark {
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    @Param({"golden storm", "author 77"})
+    public String keyword;
+
+    private BookService service;
+    private NormalizedQuery query;
+    private Consumer<Book> sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        service = BenchmarkData.bookService(catalogSize);
+        query = NormalizedQuery.of(keyword);
+        sink = blackhole::consume;
+        service.searchNormalized(query, sink); // Folds every book once, as the first search would
+    }
+
+    @Benchmark
+    public void preparedQuery() {
+        service.searchNormalized(query, sink);
+    }
+
+    @Benchmark
+    public List<Book> searchNormalized() {
+        return service.searchNormalized(keyword);
+    }
+
+    @Benchmark
+    public List<Book> lowercaseWorkaround() {
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        return service.streamSearch("").filter(book -> book.getTitle().toLowerCase(Locale.ROOT).contains(lower)
+                || book.getAuthor().toLowerCase(Locale.ROOT).contains(lower)
+                || book.getGenre().toLowerCase(Locale.ROOT).contains(lower)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Speedup of searchBookParallel over pool sizes on a catalog scan the trigram index cannot answer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+public class ParallelSearchBenchmark {
+
+    @Param({"5000000"})
+    public int catalogSize;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private BookService service;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkData.bookService(catalogSize);
+        pool = new ForkJoinPool(threads);
+        service.setSearchPool(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // Two characters are below the trigram length, so this is always a full scan
+    @Benchmark
+    public List<Book> shortKeyword() {
+        return service.searchBookParallel("ld");
+    }
+
+    @Benchmark
+    public List<Book> predicate() {
+        return service.searchBookParallel(book -> book.getPrice() < 2 && book.getGenre().equals("Poetry"));
+    }
+}
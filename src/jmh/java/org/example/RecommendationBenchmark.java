@@ -0,0 +1,105 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Ten "customers also bought" books for a product page from the maintained co-purchase index,
+// against counting co-occurrences over every user's purchases on demand, and the cost the index
+// adds to a purchase. Users buy 1 to 20 books, half of their picks from the 1% most popular.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationBenchmark {
+
+    private static final int PAGES = 1_024;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"20000"})
+    public int userCount;
+
+    private BookService service;
+    private List<Book> books;
+    private User[] users;
+    private Book[] pages;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(catalogSize, 42);
+        service = new BookService();
+        service.addBooks(books);
+        service.enableRecommendations();
+
+        random = new SplittableRandom(13);
+        users = new User[userCount];
+        for (int u = 0; u < userCount; u++) {
+            users[u] = BenchmarkData.user(u);
+            for (int n = 1 + random.nextInt(20); n > 0; n--) {
+                service.purchaseBook(users[u], pick());
+            }
+        }
+        pages = new Book[PAGES];
+        for (int i = 0; i < PAGES; i++) {
+            pages[i] = pick();
+        }
+    }
+
+    @Benchmark
+    public List<Book> alsoBought() {
+        return service.alsoBought(pages[next++ & (PAGES - 1)], 10);
+    }
+
+    @Benchmark
+    public List<Book> recomputeFromPurchases() {
+        Book page = pages[next++ & (PAGES - 1)];
+        Map<Book, Integer> counts = new HashMap<>();
+        service.purchaseLedger().forEach((user, bought) -> {
+            if (bought.contains(page)) {
+                for (Book other : bought) {
+                    if (other != page) {
+                        counts.merge(other, 1, Integer::sum);
+                    }
+                }
+            }
+        });
+        List<Map.Entry<Book, Integer>> ranked = new ArrayList<>(counts.entrySet());
+        ranked.sort(Map.Entry.<Book, Integer>comparingByValue().reversed());
+        List<Book> result = new ArrayList<>(10);
+        for (int i = 0; i < ranked.size() && i < 10; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean purchase() {
+        return service.purchaseBook(users[random.nextInt(userCount)], pick());
+    }
+
+    private Book pick() {
+        int popular = Math.max(books.size() / 100, 1);
+        return books.get(random.nextBoolean() ? random.nextInt(popular) : random.nextInt(books.size()));
+    }
+}
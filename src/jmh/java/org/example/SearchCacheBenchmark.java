@@ -0,0 +1,94 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// searchBook under a skewed keyword mix: keyword ranks follow a Zipf distribution (s = 1) over
+// 2,000 keywords, so a few hundred of them carry most of the traffic. writesPerMillion adds and
+// removes a book every so many searches, which invalidates the cache.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchCacheBenchmark {
+
+    private static final int KEYWORDS = 2_000;
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    @Param({"off", "on"})
+    public String cache;
+
+    @Param({"0", "100"})
+    public int writesPerMillion;
+
+    private BookService service;
+    private String[] workload;
+    private int next;
+    private Book churn;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkData.bookService(catalogSize);
+        if (cache.equals("on")) {
+            service.enableSearchCache(catalogSize);
+        }
+        churn = new Book("Churn", "Churn Author", "Fiction", 1);
+
+        String[] keywords = new String[KEYWORDS];
+        for (int i = 0; i < KEYWORDS; i++) {
+            keywords[i] = i % 2 == 0 ? "Author " + i : BenchmarkData.WORDS[i % BenchmarkData.WORDS.length] + " "
+                    + BenchmarkData.WORDS[(i / BenchmarkData.WORDS.length) % BenchmarkData.WORDS.length];
+        }
+        double[] cumulative = new double[KEYWORDS];
+        double total = 0;
+        for (int rank = 0; rank < KEYWORDS; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        SplittableRandom random = new SplittableRandom(11);
+        workload = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            workload[i] = keywords[rank < 0 ? -rank - 1 : rank];
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SearchCache searchCache = service.getSearchCache();
+        if (searchCache != null) {
+            System.out.println(searchCache);
+        }
+    }
+
+    @Benchmark
+    public List<Book> skewedSearch() {
+        int i = next++ & (SAMPLES - 1);
+        if (writesPerMillion > 0 && i % (1_000_000 / writesPerMillion) == 0) {
+            if (!service.addBook(churn)) {
+                service.removeBook(churn);
+            }
+        }
+        return service.searchBook(workload[i]);
+    }
+}
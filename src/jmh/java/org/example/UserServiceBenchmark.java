@@ -0,0 +1,72 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// Account hot paths against a pre-populated user base
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int userCount;
+
+    private UserService service;
+    private User loginTarget;
+    private String loginPassword;
+    private int next;
+
+    // Registrations and renames add keys, so every iteration starts from the same user base.
+    // Hashing is kept at a single PBKDF2 round here to measure the service itself; LoginBenchmark
+    // measures the real KDF cost.
+    @Setup(Level.Iteration)
+    public void setUp() {
+        service = new UserService(new HashMap<>(), new PasswordHasher(1));
+        for (int i = 0; i < userCount; i++) {
+            service.registerUser(BenchmarkData.user(i));
+        }
+        loginTarget = BenchmarkData.user(userCount / 2);
+        loginPassword = loginTarget.getPassword();
+        next = userCount;
+    }
+
+    @Benchmark
+    public boolean registerUser() {
+        return service.registerUser(BenchmarkData.user(next++));
+    }
+
+    @Benchmark
+    public User loginUser() {
+        return service.loginUser(loginTarget.getUsername(), loginPassword);
+    }
+
+    @Benchmark
+    public User loginUserWrongPassword() {
+        return service.loginUser(loginTarget.getUsername(), "wrong");
+    }
+
+    // Renames a freshly registered user, so the score includes one registration
+    @Benchmark
+    public boolean updateUserProfile() {
+        User user = BenchmarkData.user(next++);
+        service.registerUser(user);
+        return service.updateUserProfile(user, "renamed" + user.getUsername(), "newPassword", user.getEmail());
+    }
+}
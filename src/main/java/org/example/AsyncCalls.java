@@ -0,0 +1,36 @@
+package org.example;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+// Runs blocking service calls on a caller-supplied executor for the xxxAsync methods
+final class AsyncCalls {
+
+    private AsyncCalls() {
+    }
+
+    // Unlike CompletableFuture.supplyAsync, a future cancelled (or otherwise completed) before the
+    // executor gets to it skips the operation, so an abandoned login never runs its KDF. An
+    // executor that rejects the task fails the future with RejectedExecutionException instead of
+    // throwing at the caller.
+    static <T> CompletableFuture<T> supply(Supplier<T> operation, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(operation.get());
+                } catch (RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
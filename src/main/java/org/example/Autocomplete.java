@@ -0,0 +1,53 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Title and author completions for a BookService catalog. Each cataloged book adds its
+// popularity (one plus its number of buyers) to the weight of its title and of its author, so a
+// term weighs as much as all the books it appears on together.
+final class Autocomplete {
+
+    private final CompletionTrie titles = new CompletionTrie(Book.Field.TITLE);
+    private final CompletionTrie authors = new CompletionTrie(Book.Field.AUTHOR);
+
+    void add(Book book, long popularity) {
+        titles.add(book.getTitle(), popularity);
+        authors.add(book.getAuthor(), popularity);
+    }
+
+    void remove(Book book, long popularity) {
+        titles.remove(book.getTitle(), popularity);
+        authors.remove(book.getAuthor(), popularity);
+    }
+
+    // A cataloged book got one more buyer
+    void purchased(Book book) {
+        add(book, 1);
+    }
+
+    // Moves a book's weight from its old title or author to the new one
+    void renamed(Book.Field field, String oldValue, String newValue, long popularity) {
+        CompletionTrie trie = field == Book.Field.TITLE ? titles : authors;
+        trie.remove(oldValue, popularity);
+        trie.add(newValue, popularity);
+    }
+
+    // The heaviest titles and authors starting with the prefix; titles first on equal weight
+    List<Completion> complete(String prefix, int limit) {
+        List<Completion> fromTitles = titles.top(prefix, limit);
+        List<Completion> fromAuthors = authors.top(prefix, limit);
+        List<Completion> merged = new ArrayList<>(Math.min(limit, fromTitles.size() + fromAuthors.size()));
+        int t = 0;
+        int a = 0;
+        while (merged.size() < limit && (t < fromTitles.size() || a < fromAuthors.size())) {
+            if (a == fromAuthors.size()
+                    || (t < fromTitles.size() && fromTitles.get(t).getWeight() >= fromAuthors.get(a).getWeight())) {
+                merged.add(fromTitles.get(t++));
+            } else {
+                merged.add(fromAuthors.get(a++));
+            }
+        }
+        return merged;
+    }
+}
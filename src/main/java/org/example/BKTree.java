@@ -0,0 +1,189 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+// Burkhard-Keller tree of terms under Levenshtein distance, for finding every term within k edits
+// of a query without comparing against all of them. Each child hangs off its parent at its
+// distance d from the parent's term; by the triangle inequality only children at d - k to d + k
+// can hold a match, which prunes most of the tree for small k.
+// Terms cannot be unlinked from a BK-tree, so remove marks them dead and the tree rebuilds itself
+// from the live terms once dead ones are the majority. Not thread-safe.
+public class BKTree {
+
+    private Node root;
+    private int live;
+    private int dead;
+
+    // Adds the term; false if it is already present
+    public boolean add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            live++;
+            return true;
+        }
+        Node node = root;
+        int[] previous = new int[term.length() + 1];
+        int[] current = new int[term.length() + 1];
+        while (true) {
+            int distance = distance(node.term, term, Integer.MAX_VALUE, previous, current);
+            if (distance == 0) {
+                if (node.live) {
+                    return false;
+                }
+                node.live = true; // Revive the dead entry rather than adding a second one
+                dead--;
+                live++;
+                return true;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.setChild(distance, new Node(term));
+                live++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    // Removes the term; false if it is not present
+    public boolean remove(String term) {
+        Node node = root;
+        int[] previous = new int[term.length() + 1];
+        int[] current = new int[term.length() + 1];
+        while (node != null) {
+            int distance = distance(node.term, term, Integer.MAX_VALUE, previous, current);
+            if (distance == 0) {
+                if (!node.live) {
+                    return false;
+                }
+                node.live = false;
+                live--;
+                dead++;
+                if (dead > live) {
+                    rebuild();
+                }
+                return true;
+            }
+            node = node.child(distance);
+        }
+        return false;
+    }
+
+    // Hands every live term within maxDistance edits of the query to the action, with its distance
+    public void search(String query, int maxDistance, ObjIntConsumer<String> action) {
+        if (root == null) {
+            return;
+        }
+        int[] previous = new int[query.length() + 1];
+        int[] current = new int[query.length() + 1];
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // Past the farthest child plus maxDistance neither this term nor any child can match,
+            // so the distance need not be exact beyond that
+            int farthest = node.children == null ? 0 : node.children.length - 1;
+            int distance = distance(node.term, query, saturatedSum(farthest, maxDistance), previous, current);
+            if (distance <= maxDistance && node.live) {
+                action.accept(node.term, distance);
+            }
+            if (node.children != null) {
+                int low = Math.max(1, distance - maxDistance);
+                int high = Math.min(node.children.length - 1, saturatedSum(distance, maxDistance));
+                for (int d = low; d <= high; d++) {
+                    if (node.children[d] != null) {
+                        pending.push(node.children[d]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Live terms
+    public int size() {
+        return live;
+    }
+
+    // a + b for non-negative values, held below Integer.MAX_VALUE so that a maxDistance meaning
+    // "any distance" cannot wrap around, and limit + 1 in distance cannot either
+    private static int saturatedSum(int a, int b) {
+        return (int) Math.min((long) a + b, Integer.MAX_VALUE - 1);
+    }
+
+    // Levenshtein distance between a and b, or any value above limit once it is certain to exceed
+    // it. The rows are scratch space of at least b.length() + 1 entries.
+    static int distance(String a, String b, int limit, int[] previous, int[] current) {
+        int n = b.length();
+        if (Math.abs(a.length() - n) > limit) {
+            return limit + 1;
+        }
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            char c = a.charAt(i - 1);
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= n; j++) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+
+    private void rebuild() {
+        Node old = root;
+        root = null;
+        live = 0;
+        dead = 0;
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(old);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.live) {
+                add(node.term);
+            }
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (child != null) {
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        final String term;
+        boolean live = true;
+        Node[] children; // Indexed by distance from this term
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            return children != null && distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, Node child) {
+            if (children == null) {
+                children = new Node[Math.max(distance + 1, 4)];
+            } else if (distance >= children.length) {
+                children = Arrays.copyOf(children, Math.max(distance + 1, children.length * 2));
+            }
+            children[distance] = child;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Encoding and file helpers shared by the write-ahead log, the snapshot format and the shard protocol. Strings are written as
+// an int byte length (-1 for null) followed by UTF-8, so unlike writeUTF there is no 64KB limit.
+final class BinaryIO {
+
+    // Longest string, in UTF-8 bytes, that is written or read. The length comes from files and
+    // sockets, so it is checked before the buffer for it is allocated.
+    static final int MAX_STRING_BYTES = 16 << 20;
+
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private BinaryIO() {
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException("String of " + bytes.length + " bytes exceeds " + MAX_STRING_BYTES);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Forces the directory holding the file, so a rename into it survives a crash
+    static void syncDirectory(Path file) throws IOException {
+        try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    static void writeBook(DataOutputStream out, Book book) throws IOException {
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        writeString(out, book.getGenre());
+        out.writeDouble(book.getPrice());
+    }
+
+    static Book readBook(DataInputStream in) throws IOException {
+        return new Book(readString(in), readString(in), readString(in), in.readDouble());
+    }
+
+    static void writeReview(DataOutputStream out, Review review) throws IOException {
+        writeString(out, review.getUsername());
+        writeString(out, review.getText());
+        out.writeByte(review.getRating());
+        out.writeLong(review.getCreatedAt());
+    }
+
+    static Review readReview(DataInputStream in) throws IOException {
+        return new Review(readString(in), readString(in), in.readByte(), in.readLong());
+    }
+}
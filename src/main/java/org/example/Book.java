@@ -1,16 +1,33 @@
 package org.example;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class Book {
 
+    // The fields that change listeners are told about
+    public enum Field {
+        TITLE, AUTHOR, GENRE, PRICE
+    }
+
+    // Shared by every book without reviews; replaced by a real list the first time it is asked for
+    private static final List<String> NO_REVIEWS = Collections.emptyList();
+
     private String title;
     private String author;
     private String genre;
     private double price;
-    private List<String> reviews = new ArrayList<>();
+    private List<String> reviews = NO_REVIEWS;
 
+    // Null, a single BookChangeListener, or a BookChangeListener[] for several; most books are
+    // watched by exactly one catalog, so this avoids an array per book
+    private volatile Object listeners;
+
+    // Title, author and genre folded for searchNormalized; built on the first normalized search
+    // that reaches the book and dropped whenever one of them changes
+    private volatile byte[] normalizedFields;
 
     public Book(String title, String author, String genre, double price) {
         this.title = title;
@@ -32,7 +49,11 @@ public class Book {
     }
 
     public void setTitle(String title) {
+        String old = this.title;
+        fireChanging(Field.TITLE, title);
         this.title = title;
+        normalizedFields = null;
+        fireChanged(Field.TITLE, old);
     }
 
     public String getAuthor() {
@@ -40,7 +61,11 @@ public class Book {
     }
 
     public void setAuthor(String author) {
+        String old = this.author;
+        fireChanging(Field.AUTHOR, author);
         this.author = author;
+        normalizedFields = null;
+        fireChanged(Field.AUTHOR, old);
     }
 
     public String getGenre() {
@@ -48,22 +73,110 @@ public class Book {
     }
 
     public void setGenre(String genre) {
+        String old = this.genre;
+        fireChanging(Field.GENRE, genre);
         this.genre = genre;
+        normalizedFields = null;
+        fireChanged(Field.GENRE, old);
     }
 
     public List<String> getReviews() {
+        if (reviews == NO_REVIEWS) {
+            reviews = new ArrayList<>();
+        }
         return reviews;
     }
 
+    // The reviews for reading only, without allocating a list for a book that has none
+    List<String> peekReviews() {
+        return reviews == null ? NO_REVIEWS : reviews;
+    }
+
     public void setReviews(List<String> reviews) {
         this.reviews = reviews;
     }
 
+    // See TextFolding.foldFields
+    byte[] normalizedFields() {
+        byte[] fields = normalizedFields;
+        if (fields == null) {
+            fields = TextFolding.foldFields(this);
+            normalizedFields = fields;
+        }
+        return fields;
+    }
+
+    // For subclasses that keep their search fields elsewhere and change them without the setters above
+    void dropNormalizedFields() {
+        normalizedFields = null;
+    }
+
     public double getPrice() {
         return price;
     }
 
     public void setPrice(double price) {
+        double old = this.price;
+        if (listeners == null) {
+            this.price = price; // Skips boxing the prices when nobody listens
+            return;
+        }
+        fireChanging(Field.PRICE, price);
         this.price = price;
+        fireChanged(Field.PRICE, old);
+    }
+
+    // Starts notifying the listener of changes made through the setters
+    public synchronized void addChangeListener(BookChangeListener listener) {
+        Object current = listeners;
+        if (current == null) {
+            listeners = listener;
+        } else if (current instanceof BookChangeListener) {
+            listeners = new BookChangeListener[]{(BookChangeListener) current, listener};
+        } else {
+            BookChangeListener[] array = (BookChangeListener[]) current;
+            BookChangeListener[] grown = Arrays.copyOf(array, array.length + 1);
+            grown[array.length] = listener;
+            listeners = grown;
+        }
+    }
+
+    public synchronized void removeChangeListener(BookChangeListener listener) {
+        Object current = listeners;
+        if (current == listener) {
+            listeners = null;
+        } else if (current instanceof BookChangeListener[]) {
+            BookChangeListener[] array = (BookChangeListener[]) current;
+            int index = Arrays.asList(array).indexOf(listener);
+            if (index < 0) {
+                return;
+            }
+            BookChangeListener[] shrunk = new BookChangeListener[array.length - 1];
+            System.arraycopy(array, 0, shrunk, 0, index);
+            System.arraycopy(array, index + 1, shrunk, index, shrunk.length - index);
+            listeners = shrunk.length == 1 ? shrunk[0] : shrunk;
+        }
+    }
+
+    void fireChanging(Field field, Object newValue) {
+        Object current = listeners;
+        if (current instanceof BookChangeListener) {
+            ((BookChangeListener) current).bookChanging(this, field, newValue);
+        } else if (current != null) {
+            for (BookChangeListener listener : (BookChangeListener[]) current) {
+                listener.bookChanging(this, field, newValue);
+            }
+        }
+    }
+
+    void fireChanged(Field field, Object oldValue) {
+        Object current = listeners;
+        if (current instanceof BookChangeListener) {
+            ((BookChangeListener) current).bookChanged(this, field, oldValue);
+        } else if (current != null) {
+            for (BookChangeListener listener : (BookChangeListener[]) current) {
+                listener.bookChanged(this, field, oldValue);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.example;
+
+// Notified when a book's fields are changed through its setters, so anything keyed or indexed by
+// those fields can be updated in place instead of rebuilt. Listeners run on the thread that calls
+// the setter, in the order they were added.
+public interface BookChangeListener {
+
+    // Called before the field changes; throwing rejects the change and leaves the book as it was
+    default void bookChanging(Book book, Book.Field field, Object newValue) {
+    }
+
+    // Called after the field changed, with its previous value
+    void bookChanged(Book book, Book.Field field, Object oldValue);
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import java.util.Objects;
+
+// Stable identity of a book in the catalog: two Book objects with the same title and author
+// are the same catalog entry
+public final class BookKey {
+
+    private final String title;
+    private final String author;
+    private final int hash;
+
+    public BookKey(String title, String author) {
+        this.title = title;
+        this.author = author;
+        this.hash = 31 * Objects.hashCode(title) + Objects.hashCode(author);
+    }
+
+    public static BookKey of(Book book) {
+        return new BookKey(book.getTitle(), book.getAuthor());
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BookKey)) {
+            return false;
+        }
+        BookKey other = (BookKey) o;
+        return hash == other.hash && Objects.equals(title, other.title) && Objects.equals(author, other.author);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return title + " by " + author;
+    }
+}
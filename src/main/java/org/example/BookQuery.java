@@ -0,0 +1,402 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Structured catalog query: field-scoped substring terms, price ranges and AND/OR/NOT.
+// Queries are built with the static factories or parsed from text, for example
+//   author:Orwell AND NOT genre:Fiction
+//   (title:"Brave New" OR Dystopian) price:[5 TO 12.5]
+//   genre:Fantasy AND price:<10
+// A bare word matches title, author or genre like searchBook; adjacent clauses are ANDed.
+public abstract class BookQuery {
+
+    public enum Field {
+        TITLE, AUTHOR, GENRE, ANY
+    }
+
+    BookQuery() {
+    }
+
+    // Returns true if the book satisfies the query
+    public abstract boolean matches(Book book);
+
+    // ---------------------- factories ----------------------
+
+    // Substring match on any of title, author or genre, like searchBook
+    public static BookQuery keyword(String text) {
+        return new Term(Field.ANY, text);
+    }
+
+    public static BookQuery title(String text) {
+        return new Term(Field.TITLE, text);
+    }
+
+    public static BookQuery author(String text) {
+        return new Term(Field.AUTHOR, text);
+    }
+
+    public static BookQuery genre(String text) {
+        return new Term(Field.GENRE, text);
+    }
+
+    // Inclusive price range; use Double.NEGATIVE_INFINITY or POSITIVE_INFINITY for open ends
+    public static BookQuery priceBetween(double min, double max) {
+        return new PriceRange(min, true, max, true);
+    }
+
+    public static BookQuery and(BookQuery... clauses) {
+        return new And(Arrays.asList(clauses));
+    }
+
+    public static BookQuery or(BookQuery... clauses) {
+        return new Or(Arrays.asList(clauses));
+    }
+
+    public static BookQuery not(BookQuery clause) {
+        return new Not(clause);
+    }
+
+    // Parses the query syntax described above; throws IllegalArgumentException on malformed input
+    public static BookQuery parse(String text) {
+        Parser parser = new Parser(text);
+        BookQuery query = parser.parseOr();
+        if (parser.hasMore()) {
+            throw parser.error("unexpected input");
+        }
+        return query;
+    }
+
+    // ---------------------- query nodes ----------------------
+
+    static final class Term extends BookQuery {
+        final Field field;
+        final String text;
+
+        Term(Field field, String text) {
+            this.field = field;
+            this.text = text;
+        }
+
+        @Override
+        public boolean matches(Book book) {
+            switch (field) {
+                case TITLE:
+                    return book.getTitle().contains(text);
+                case AUTHOR:
+                    return book.getAuthor().contains(text);
+                case GENRE:
+                    return book.getGenre().contains(text);
+                default:
+                    return BookService.matches(book, text);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return field == Field.ANY ? '"' + text + '"' : field.name().toLowerCase(Locale.ROOT) + ":\"" + text + '"';
+        }
+    }
+
+    static final class PriceRange extends BookQuery {
+        final double min;
+        final boolean minInclusive;
+        final double max;
+        final boolean maxInclusive;
+
+        PriceRange(double min, boolean minInclusive, double max, boolean maxInclusive) {
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+        }
+
+        @Override
+        public boolean matches(Book book) {
+            double price = book.getPrice();
+            return (minInclusive ? price >= min : price > min) && (maxInclusive ? price <= max : price < max);
+        }
+
+        @Override
+        public String toString() {
+            return "price:" + (minInclusive ? '[' : '{') + min + " TO " + max + (maxInclusive ? ']' : '}');
+        }
+    }
+
+    static final class And extends BookQuery {
+        final List<BookQuery> clauses;
+
+        And(List<BookQuery> clauses) {
+            this.clauses = Collections.unmodifiableList(new ArrayList<>(clauses));
+        }
+
+        @Override
+        public boolean matches(Book book) {
+            for (BookQuery clause : clauses) {
+                if (!clause.matches(book)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return join(clauses, " AND ");
+        }
+    }
+
+    static final class Or extends BookQuery {
+        final List<BookQuery> clauses;
+
+        Or(List<BookQuery> clauses) {
+            this.clauses = Collections.unmodifiableList(new ArrayList<>(clauses));
+        }
+
+        @Override
+        public boolean matches(Book book) {
+            for (BookQuery clause : clauses) {
+                if (clause.matches(book)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return join(clauses, " OR ");
+        }
+    }
+
+    static final class Not extends BookQuery {
+        final BookQuery clause;
+
+        Not(BookQuery clause) {
+            this.clause = clause;
+        }
+
+        @Override
+        public boolean matches(Book book) {
+            return !clause.matches(book);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + clause;
+        }
+    }
+
+    private static String join(List<BookQuery> clauses, String operator) {
+        StringBuilder text = new StringBuilder("(");
+        for (int i = 0; i < clauses.size(); i++) {
+            if (i > 0) {
+                text.append(operator);
+            }
+            text.append(clauses.get(i));
+        }
+        return text.append(')').toString();
+    }
+
+    // ---------------------- parser ----------------------
+
+    // Recursive descent over: or := and (OR and)* ; and := unary ((AND)? unary)* ;
+    // unary := NOT unary | '(' or ')' | clause
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        BookQuery parseOr() {
+            List<BookQuery> clauses = new ArrayList<>();
+            clauses.add(parseAnd());
+            while (acceptWord("OR")) {
+                clauses.add(parseAnd());
+            }
+            return clauses.size() == 1 ? clauses.get(0) : new Or(clauses);
+        }
+
+        private BookQuery parseAnd() {
+            List<BookQuery> clauses = new ArrayList<>();
+            clauses.add(parseUnary());
+            while (true) {
+                if (acceptWord("AND")) {
+                    clauses.add(parseUnary());
+                } else if (hasMore() && peek() != ')' && !atWord("OR")) {
+                    clauses.add(parseUnary()); // Implicit AND
+                } else {
+                    break;
+                }
+            }
+            return clauses.size() == 1 ? clauses.get(0) : new And(clauses);
+        }
+
+        private BookQuery parseUnary() {
+            if (acceptWord("NOT")) {
+                return new Not(parseUnary());
+            }
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == '(') {
+                pos++;
+                BookQuery inner = parseOr();
+                skipSpaces();
+                expect(')');
+                return inner;
+            }
+            return parseClause();
+        }
+
+        private BookQuery parseClause() {
+            skipSpaces();
+            int colon = fieldEnd();
+            if (colon < 0) {
+                return new Term(Field.ANY, value());
+            }
+
+            String field = text.substring(pos, colon).toLowerCase(Locale.ROOT);
+            pos = colon + 1;
+            switch (field) {
+                case "title":
+                    return new Term(Field.TITLE, value());
+                case "author":
+                    return new Term(Field.AUTHOR, value());
+                case "genre":
+                    return new Term(Field.GENRE, value());
+                case "price":
+                    return priceRange();
+                default:
+                    throw error("unknown field '" + field + "'");
+            }
+        }
+
+        // price:[a TO b], price:{a TO b}, price:<a, price:<=a, price:>a, price:>=a, price:a
+        private BookQuery priceRange() {
+            if (pos < text.length() && (text.charAt(pos) == '[' || text.charAt(pos) == '{')) {
+                boolean minInclusive = text.charAt(pos++) == '[';
+                double min = number();
+                if (!acceptWord("TO")) {
+                    throw error("expected TO");
+                }
+                double max = number();
+                skipSpaces();
+                if (pos >= text.length() || (text.charAt(pos) != ']' && text.charAt(pos) != '}')) {
+                    throw error("expected ] or }");
+                }
+                boolean maxInclusive = text.charAt(pos++) == ']';
+                return new PriceRange(min, minInclusive, max, maxInclusive);
+            }
+            if (text.startsWith("<=", pos)) {
+                pos += 2;
+                return new PriceRange(Double.NEGATIVE_INFINITY, true, number(), true);
+            }
+            if (text.startsWith(">=", pos)) {
+                pos += 2;
+                return new PriceRange(number(), true, Double.POSITIVE_INFINITY, true);
+            }
+            if (text.startsWith("<", pos)) {
+                pos++;
+                return new PriceRange(Double.NEGATIVE_INFINITY, true, number(), false);
+            }
+            if (text.startsWith(">", pos)) {
+                pos++;
+                return new PriceRange(number(), false, Double.POSITIVE_INFINITY, true);
+            }
+            double price = number();
+            return new PriceRange(price, true, price, true);
+        }
+
+        private double number() {
+            skipSpaces();
+            int start = pos;
+            while (pos < text.length() && "0123456789.-+eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("expected a number");
+            }
+        }
+
+        // A quoted string, or a bare word up to whitespace or a parenthesis
+        private String value() {
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                int close = text.indexOf('"', pos + 1);
+                if (close < 0) {
+                    throw error("unterminated quote");
+                }
+                String value = text.substring(pos + 1, close);
+                pos = close + 1;
+                return value;
+            }
+            int start = pos;
+            while (pos < text.length() && !Character.isWhitespace(text.charAt(pos))
+                    && text.charAt(pos) != '(' && text.charAt(pos) != ')') {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a term");
+            }
+            return text.substring(start, pos);
+        }
+
+        // Position of the ':' ending a field name at the cursor, or -1 for a plain term
+        private int fieldEnd() {
+            int i = pos;
+            while (i < text.length() && Character.isLetter(text.charAt(i))) {
+                i++;
+            }
+            return i > pos && i < text.length() && text.charAt(i) == ':' ? i : -1;
+        }
+
+        private boolean acceptWord(String word) {
+            if (atWord(word)) {
+                skipSpaces();
+                pos += word.length();
+                return true;
+            }
+            return false;
+        }
+
+        // Operators are upper case and must stand alone
+        private boolean atWord(String word) {
+            skipSpaces();
+            int end = pos + word.length();
+            return text.startsWith(word, pos)
+                    && (end == text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(');
+        }
+
+        private void expect(char c) {
+            if (pos >= text.length() || text.charAt(pos) != c) {
+                throw error("expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return text.charAt(pos);
+        }
+
+        boolean hasMore() {
+            skipSpaces();
+            return pos < text.length();
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in query: " + text);
+        }
+    }
+}
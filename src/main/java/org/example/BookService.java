@@ -1,58 +1,1027 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BookService {
-    private List<Book> bookDatabase;
+    private CatalogStore bookDatabase;
 
-    // Default constructor initializes the bookDatabase as a new ArrayList
+    // Set when the bookDatabase hands out document ids, which lets us keep search indexes over it
+    private HashCatalogStore indexedDatabase;
+    private NGramIndex searchIndex;
+    private GenreIndex genreIndex;
+    private PriceIndex priceIndex;
+    private long indexedGeneration;
+    private QueryPlanner queryPlanner;
+
+    // Parallel search runs on its own pool (never the common pool) once the catalog is big enough
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+    private static final int MIN_CHUNK = 8_192;
+    private ForkJoinPool searchPool;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    // Reviews posted through addBookReview. By default each review text is also appended to the
+    // book's own review list, as before the store existed; see setReviewsOnBooks.
+    private final ReviewStore reviewStore = new ReviewStore();
+    private volatile boolean reviewsOnBooks = true;
+
+    // Purchases made through purchaseBook; addBookReview checks it before the user's own list
+    private final PurchaseLedger purchaseLedger = new PurchaseLedger();
+
+    // Receives every successful mutation, e.g. a WriteAheadLog; null when nothing is journaled
+    private Journal journal;
+
+    // Latency and result-size recording; null (the default) skips timing altogether
+    private volatile ServiceMetrics metrics;
+
+    // Optional cache of searchBook results, cleared by every catalog change; null searches every time
+    private volatile SearchCache searchCache;
+
+    // Type-ahead index over titles and authors; null until enableAutocomplete or the first
+    // autocomplete call
+    private volatile Autocomplete autocomplete;
+
+    // Term dictionary for typo-tolerant search; null until enableFuzzySearch or the first
+    // searchFuzzy call
+    private volatile FuzzyIndex fuzzyIndex;
+
+    // Per-genre and per-author counts and price statistics; null until enableFacets or the first
+    // facets call
+    private volatile FacetIndex facetIndex;
+
+
+    // Listens to every cataloged book when the store keeps them, so changes made through the
+    // book's setters reach the store, the indexes, the ledger and the journal
+    private final CatalogListener catalogListener = new CatalogListener();
+
+    // Default constructor initializes the bookDatabase as a new hash-indexed store
     public BookService() {
-        this.bookDatabase = new ArrayList<>();
+        this(new HashCatalogStore());
     }
 
-    // Constructor for injecting a custom bookDatabase (useful for testing)
+    // Constructor for injecting a custom bookDatabase (useful for testing). The list is used as is,
+    // so it is never indexed: the caller may change it without going through this service.
     public BookService(List<Book> bookDatabase) {
+        this.bookDatabase = new ListCatalogStore(bookDatabase);
+        this.queryPlanner = new QueryPlanner(null, null, null, null);
+    }
+
+    // Constructor for plugging in a different catalog store; the service takes ownership of it
+    public BookService(CatalogStore bookDatabase) {
         this.bookDatabase = bookDatabase;
+        if (bookDatabase instanceof HashCatalogStore) {
+            this.indexedDatabase = (HashCatalogStore) bookDatabase;
+            this.searchIndex = new NGramIndex();
+            this.genreIndex = new GenreIndex();
+            this.priceIndex = new PriceIndex();
+            rebuildIndexes();
+        }
+        this.queryPlanner = new QueryPlanner(indexedDatabase, searchIndex, genreIndex, priceIndex);
+        for (Book book : bookDatabase.trackedBooks()) {
+            book.addChangeListener(catalogListener);
+        }
+        bookDatabase.setChangeListener(catalogListener);
+    }
+
+    // Opens a catalog file written by writeCatalog. The file is memory-mapped rather than loaded,
+    // so this returns immediately and the books stay off the heap. Changes are kept in memory.
+    public static BookService openCatalog(Path catalogFile) throws IOException {
+        return new BookService(new MappedCatalogStore(MappedCatalog.open(catalogFile)));
+    }
+
+    // Writes the current catalog to a file that openCatalog can map
+    public void writeCatalog(Path catalogFile) throws IOException {
+        MappedCatalog.write(catalogFile, bookDatabase);
     }
 
     // Search book by title, author, or genre
     public List<Book> searchBook(String keyword) {
-        return bookDatabase.stream()
-                .filter(book -> book.getTitle().contains(keyword) ||
-                        book.getAuthor().contains(keyword) ||
-                        book.getGenre().contains(keyword))
-                .collect(Collectors.toList());
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = cachedSearch(keyword);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_BOOK, start, result.size());
+        }
+        return result;
+    }
+
+    private List<Book> cachedSearch(String keyword) {
+        SearchCache cache = searchCache;
+        if (cache == null) {
+            return streamSearch(keyword).collect(Collectors.toList());
+        }
+        long epoch = cache.epoch();
+        List<Book> cached = cache.get(keyword);
+        if (cached != null) {
+            return new ArrayList<>(cached); // Callers own the list they get back
+        }
+        List<Book> result = streamSearch(keyword).collect(Collectors.toList());
+        cache.put(keyword, result, epoch);
+        return result;
     }
 
-    // Simulates a book purchase
+    // Returns one page of the searchBook results without collecting the matches before it
+    public List<Book> searchBook(String keyword, int offset, int limit) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = streamSearch(keyword).skip(offset).limit(limit).collect(Collectors.toList());
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_BOOK, start, result.size());
+        }
+        return result;
+    }
+
+    // searchBook ignoring case and accents: "orwell" finds "George Orwell" and "emile zola" finds
+    // "Émile Zola". Books are matched on a folded copy of their title, author and genre that is
+    // made once per book and kept until one of those fields changes.
+    public List<Book> searchNormalized(String keyword) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = new ArrayList<>();
+        searchNormalized(NormalizedQuery.of(keyword), result::add);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_NORMALIZED, start, result.size());
+        }
+        return result;
+    }
+
+    // Hands every match of a prepared query to the action, in catalog order. Nothing is allocated
+    // per book, so with a query and an action that are reused a search makes no garbage at all.
+    public void searchNormalized(NormalizedQuery query, Consumer<? super Book> action) {
+        HashCatalogStore indexed = indexedDatabase;
+        if (indexed != null) {
+            for (int docId = 0, end = indexed.end(); docId < end; docId++) {
+                Book book = indexed.book(docId);
+                if (book != null && query.matches(book.normalizedFields())) {
+                    action.accept(book);
+                }
+            }
+            return;
+        }
+        for (Book book : bookDatabase) {
+            if (query.matches(book.normalizedFields())) {
+                action.accept(book);
+            }
+        }
+    }
+
+    // Lazily evaluated searchBook: matches are found as the stream is consumed, so short-circuiting
+    // operations like limit or findFirst stop the scan early. The catalog must not change while
+    // the stream is open unless the store is a ConcurrentCatalogStore.
+    public Stream<Book> streamSearch(String keyword) {
+        if (searchIndex != null) {
+            PrimitiveIterator.OfInt candidates = searchIndex.candidates(keyword);
+            if (candidates != null) {
+                return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(candidates, Spliterator.ORDERED), false)
+                        .mapToObj(indexedDatabase::book)
+                        .filter(book -> book != null && matches(book, keyword));
+            }
+        }
+
+        // Keywords shorter than a trigram (or an unindexed database) need a full scan
+        return bookDatabase.search(keyword);
+    }
+
+    // Non-blocking streamSearch: each subscriber runs its own search on the executor, which finds
+    // matches only as fast as the subscriber requests them and stops when it cancels. The same
+    // rule about catalog changes as for streamSearch applies while a subscription is open.
+    public Flow.Publisher<Book> searchBookAsync(String keyword, Executor executor) {
+        return new SearchPublisher(() -> streamSearch(keyword).iterator(), executor);
+    }
+
+    // Opens a cursor that hands out the searchBook results page by page
+    public SearchCursor openSearch(String keyword) {
+        return new SearchCursor(streamSearch(keyword).iterator());
+    }
+
+    // Returns the k best matches under the given order (e.g. cheapest first), best first.
+    // Only k books are held at a time; ties keep catalog order.
+    public List<Book> searchTopK(String keyword, int k, Comparator<Book> order) {
+        return TopK.select(streamSearch(keyword), k, order);
+    }
+
+    // Returns the books matching a structured query, in catalog order
+    public List<Book> query(BookQuery query) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = streamQuery(query).collect(Collectors.toList());
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.QUERY, start, result.size());
+        }
+        return result;
+    }
+
+    // Parses and runs a query such as: author:Orwell AND price:[5 TO 10]
+    public List<Book> query(String query) {
+        return query(BookQuery.parse(query));
+    }
+
+    // Lazily evaluated query; the most selective indexed clause drives the lookup
+    public Stream<Book> streamQuery(BookQuery query) {
+        return plan(query).execute(indexedDatabase, bookDatabase);
+    }
+
+    // Shows how a query would be evaluated
+    public QueryPlan plan(BookQuery query) {
+        return queryPlanner.plan(query);
+    }
+
+    // Searches like searchBook, but a catalog scan is split into chunks that run on the search
+    // pool. Results come back in the same order; keywords the index can answer still use it.
+    public List<Book> searchBookParallel(String keyword) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = searchIndex != null && keyword.length() >= NGramIndex.GRAM_LENGTH
+                ? cachedSearch(keyword)
+                : scan(book -> matches(book, keyword));
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_PARALLEL, start, result.size());
+        }
+        return result;
+    }
+
+    // Returns every book accepted by the filter, in catalog order, scanning in parallel when the
+    // catalog holds at least the parallel threshold of books
+    public List<Book> searchBookParallel(Predicate<Book> filter) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Book> result = scan(filter);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_PARALLEL, start, result.size());
+        }
+        return result;
+    }
+
+    private List<Book> scan(Predicate<Book> filter) {
+        if (bookDatabase.size() < parallelThreshold) {
+            return bookDatabase.stream().filter(filter).collect(Collectors.toList());
+        }
+
+        ForkJoinPool pool = searchPool();
+        long chunk = Math.max(bookDatabase.size() / (pool.getParallelism() * 4L), MIN_CHUNK);
+        return pool.invoke(new ParallelScan(bookDatabase.spliterator(), filter, chunk));
+    }
+
+    // Uses the given pool for parallel searches; the caller owns its lifecycle
+    public void setSearchPool(ForkJoinPool searchPool) {
+        this.searchPool = searchPool;
+    }
+
+    // Catalogs smaller than this are scanned on the calling thread
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    private synchronized ForkJoinPool searchPool() {
+        if (searchPool == null) {
+            searchPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return searchPool;
+    }
+
+    // The search predicate: the keyword appears in the title, author, or genre
+    static boolean matches(Book book, String keyword) {
+        return book.getTitle().contains(keyword) ||
+                book.getAuthor().contains(keyword) ||
+                book.getGenre().contains(keyword);
+    }
+
+    // Simulates a book purchase and records it in the purchase ledger
     public boolean purchaseBook(User user, Book book) {
-        return bookDatabase.contains(book);
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean purchased = recordPurchase(user, book);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.PURCHASE_BOOK, start, purchased);
+        }
+        return purchased;
+    }
+
+    // purchaseBook on the executor; completes with false if the book is not in the catalog
+    public CompletableFuture<Boolean> purchaseBookAsync(User user, Book book, Executor executor) {
+        return AsyncCalls.supply(() -> purchaseBook(user, book), executor);
+    }
+
+    // Under the book's catalog lock, so a purchase cannot reach the ledger after the book's removal
+    // has cleared it there
+    private boolean recordPurchase(User user, Book book) {
+        return book != null && bookDatabase.locked(keysOf(Collections.singletonList(book)), () -> purchaseLocked(user, book));
+    }
+
+    private boolean purchaseLocked(User user, Book book) {
+        if (!bookDatabase.contains(book)) {
+            return false;
+        }
+        if (user != null) {
+            restorePurchase(user, book);
+            if (journal != null) {
+                journal.bookPurchased(user, book);
+            }
+        }
+        return true;
+    }
+
+    // Returns true if the user bought the book through purchaseBook
+    public boolean hasPurchased(User user, Book book) {
+        return purchaseLedger.hasPurchased(user, book);
+    }
+
+    // Users who bought the book through purchaseBook
+    public List<User> getBuyers(Book book) {
+        return purchaseLedger.buyersOf(book);
     }
 
     // Adds a book review if the user has purchased the book
     public boolean addBookReview(User user, Book book, String review) {
-        if (!user.getPurchasedBooks().contains(book)) {
+        return addBookReview(user, book, review, Review.NO_RATING);
+    }
+
+    // Adds a review with a star rating (1 to Review.MAX_RATING, or Review.NO_RATING)
+    public boolean addBookReview(User user, Book book, String review, int rating) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean posted = postReview(user, book, review, rating);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.ADD_REVIEW, start, posted);
+        }
+        return posted;
+    }
+
+    // addBookReview on the executor; completes with false if the user has not bought the book
+    public CompletableFuture<Boolean> addBookReviewAsync(User user, Book book, String review, int rating, Executor executor) {
+        return AsyncCalls.supply(() -> addBookReview(user, book, review, rating), executor);
+    }
+
+    private boolean postReview(User user, Book book, String review, int rating) {
+        // The ledger answers in constant time; the user's list holds purchases made elsewhere
+        if (!purchaseLedger.hasPurchased(user, book) && !user.getPurchasedBooks().contains(book)) {
             return false; // User has not purchased this book
         }
 
-        book.getReviews().add(review);
+        Review posted = new Review(user.getUsername(), review, rating, System.currentTimeMillis());
+        restoreReview(book, posted, true);
+        if (journal != null) {
+            journal.reviewAdded(user, book, posted);
+        }
         return true; // Review added successfully
     }
 
+    // Returns up to limit reviews of the book older than the cursor, newest first. Start with
+    // ReviewStore.NEWEST and continue with the page's next cursor.
+    public ReviewPage getReviews(Book book, long cursor, int limit) {
+        return reviewStore.page(book, cursor, limit);
+    }
+
+    // Review count and rating aggregates of the book, read without touching its reviews
+    public ReviewStats getReviewStats(Book book) {
+        return reviewStore.stats(book);
+    }
+
+    // When false, reviews are kept only in the review store and Book.getReviews() no longer
+    // grows, which keeps popular books small. Reviews already on books are left where they are.
+    public void setReviewsOnBooks(boolean reviewsOnBooks) {
+        this.reviewsOnBooks = reviewsOnBooks;
+    }
+
     // Adds a book to the database
     public boolean addBook(Book book) {
-        if (bookDatabase.contains(book)) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean added = insertBook(book);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.ADD_BOOK, start, added);
+        }
+        return added;
+    }
+
+    public CompletableFuture<Boolean> addBookAsync(Book book, Executor executor) {
+        return AsyncCalls.supply(() -> addBook(book), executor);
+    }
+
+    // The store holds the book's key for the whole change, so another writer of the same book
+    // cannot journal its change ahead of this one
+    private boolean insertBook(Book book) {
+        return book != null && bookDatabase.locked(keysOf(Collections.singletonList(book)), () -> addLocked(book));
+    }
+
+    private boolean addLocked(Book book) {
+        if (!bookDatabase.add(book)) {
             return false; // Book is already in the database
         }
 
-        bookDatabase.add(book);
+        if (indexedDatabase != null) {
+            indexBook(indexedDatabase.docId(book), book);
+        }
+        track(book);
+        invalidateSearches();
+        Autocomplete completions = autocomplete;
+        if (completions != null) {
+            completions.add(book, popularity(book));
+        }
+        FuzzyIndex fuzzy = fuzzyIndex;
+        if (fuzzy != null) {
+            fuzzy.add(book);
+        }
+        FacetIndex facets = facetIndex;
+        if (facets != null) {
+            facets.add(book);
+        }
+        if (journal != null) {
+            journal.bookAdded(book);
+        }
         return true; // Book added successfully
     }
 
-    // Removes a book from the database
+    // Removes a book from the database, forgetting its reviews and who bought it
     public boolean removeBook(Book book) {
-        return bookDatabase.remove(book); // Book removed successfully if it was in the database
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean removed = deleteBook(book);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.REMOVE_BOOK, start, removed);
+        }
+        return removed;
+    }
+
+    public CompletableFuture<Boolean> removeBookAsync(Book book, Executor executor) {
+        return AsyncCalls.supply(() -> removeBook(book), executor);
+    }
+
+    private boolean deleteBook(Book book) {
+        return book != null && bookDatabase.locked(keysOf(Collections.singletonList(book)), () -> removeLocked(book));
+    }
+
+    private boolean removeLocked(Book book) {
+        int docId = indexedDatabase != null ? indexedDatabase.docId(book) : -1;
+        Book stored = docId >= 0 ? indexedDatabase.book(docId) : storedBook(book);
+        if (!bookDatabase.remove(book)) {
+            return false; // Book was not in the database
+        }
+
+        if (docId >= 0 && stored != null) {
+            unindexBook(docId, stored);
+            if (indexedGeneration != indexedDatabase.generation()) {
+                rebuildIndexes();
+            }
+        }
+        untrack(stored);
+        reviewStore.remove(book);
+        purchaseLedger.remove(book);
+        invalidateSearches();
+        Autocomplete completions = autocomplete;
+        if (completions != null) {
+            completions.remove(book, popularity(book));
+        }
+        FuzzyIndex fuzzy = fuzzyIndex;
+        if (fuzzy != null) {
+            fuzzy.remove(book);
+        }
+        FacetIndex facets = facetIndex;
+        if (facets != null) {
+            facets.remove(book);
+        }
+        if (journal != null) {
+            journal.bookRemoved(book);
+        }
+        return true; // Book removed successfully
+    }
+
+    // Adds many books at once, e.g. for an import. Duplicates (of the catalog or of an earlier
+    // book in the batch) are skipped; result[i] tells whether the i-th book was added. The store
+    // is sized once for the batch, and a batch larger than the catalog rebuilds the indexes once
+    // instead of updating them book by book.
+    public boolean[] addBooks(Collection<Book> books) {
+        List<Book> batch = new ArrayList<>(books);
+        return bookDatabase.locked(keysOf(batch), () -> addAllLocked(batch));
+    }
+
+    private boolean[] addAllLocked(List<Book> batch) {
+        int before = bookDatabase.size();
+        boolean[] added = bookDatabase.addAll(batch);
+        List<Book> accepted = select(batch, added);
+
+        if (indexedDatabase != null && !accepted.isEmpty()) {
+            if (accepted.size() > before) {
+                rebuildIndexes();
+            } else {
+                for (Book book : accepted) {
+                    indexBook(indexedDatabase.docId(book), book);
+                }
+            }
+        }
+        Autocomplete completions = autocomplete;
+        FuzzyIndex fuzzy = fuzzyIndex;
+        FacetIndex facets = facetIndex;
+        for (Book book : accepted) {
+            track(book);
+            if (completions != null) {
+                completions.add(book, popularity(book));
+            }
+            if (fuzzy != null) {
+                fuzzy.add(book);
+            }
+            if (facets != null) {
+                facets.add(book);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            invalidateSearches();
+        }
+        if (journal != null && !accepted.isEmpty()) {
+            journal.booksAdded(accepted);
+        }
+        return added;
+    }
+
+    // Removes many books at once; result[i] tells whether the i-th book was removed
+    public boolean[] removeBooks(Collection<Book> books) {
+        List<Book> batch = new ArrayList<>(books);
+        return bookDatabase.locked(keysOf(batch), () -> removeAllLocked(batch));
+    }
+
+    private boolean[] removeAllLocked(List<Book> batch) {
+        int[] docIds = new int[batch.size()];
+        Book[] stored = new Book[batch.size()];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = indexedDatabase != null ? indexedDatabase.docId(batch.get(i)) : -1;
+            stored[i] = docIds[i] >= 0 ? indexedDatabase.book(docIds[i]) : storedBook(batch.get(i));
+        }
+        boolean[] removed = bookDatabase.removeAll(batch);
+        List<Book> dropped = select(batch, removed);
+
+        if (indexedDatabase != null && !dropped.isEmpty()) {
+            if (indexedGeneration != indexedDatabase.generation()) {
+                rebuildIndexes(); // The store renumbered its documents partway through the batch
+            } else {
+                for (int i = 0; i < docIds.length; i++) {
+                    if (removed[i] && docIds[i] >= 0 && stored[i] != null) {
+                        unindexBook(docIds[i], stored[i]);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < stored.length; i++) {
+            if (removed[i]) {
+                untrack(stored[i]);
+            }
+        }
+        Autocomplete completions = autocomplete;
+        FuzzyIndex fuzzy = fuzzyIndex;
+        FacetIndex facets = facetIndex;
+        for (Book book : dropped) {
+            reviewStore.remove(book);
+            purchaseLedger.remove(book);
+            if (completions != null) {
+                completions.remove(book, popularity(book));
+            }
+            if (fuzzy != null) {
+                fuzzy.remove(book);
+            }
+            if (facets != null) {
+                facets.remove(book);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            invalidateSearches();
+        }
+        if (journal != null && !dropped.isEmpty()) {
+            journal.booksRemoved(dropped);
+        }
+        return removed;
+    }
+
+    // Returns the catalog's book with this title and author, or null
+    public Book findBook(String title, String author) {
+        return bookDatabase.get(new Book(title, author, null, 0));
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Starts recording per-operation metrics; null stops it
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Caches up to maxWeight worth of searchBook results (one unit per book in a result plus one
+    // per keyword). Any addBook/removeBook or title, author or genre change drops them all.
+    public void enableSearchCache(long maxWeight) {
+        this.searchCache = new SearchCache(maxWeight);
+    }
+
+    // Titles and authors starting with the prefix (ignoring case), most popular first. A title's or
+    // author's popularity counts each of its cataloged books once plus once per buyer, so a
+    // bestseller's title ranks above a book nobody bought. The first call builds the index if
+    // enableAutocomplete has not; from then on it follows every catalog change.
+    public List<Completion> autocomplete(String prefix, int limit) {
+        Autocomplete completions = autocomplete;
+        if (completions == null) {
+            enableAutocomplete();
+            completions = autocomplete;
+        }
+        return completions.complete(prefix, limit);
+    }
+
+    // Builds the autocomplete index over the current catalog, e.g. at startup so the first
+    // keystroke does not pay for it
+    public synchronized void enableAutocomplete() {
+        if (autocomplete != null) {
+            return;
+        }
+        Autocomplete completions = new Autocomplete();
+        for (Book book : bookDatabase) {
+            completions.add(book, popularity(book));
+        }
+        autocomplete = completions;
+    }
+
+    // Books whose title and author words come within maxDistance edits (insertions, deletions or
+    // substitutions, ignoring case and accents) of every word of the keyword, closest first, so
+    // "Orwel" finds Orwell and "Mockingbrd" finds To Kill a Mockingbird. Words shorter than six
+    // letters get at most one edit and words shorter than three none. The first call builds the
+    // index if enableFuzzySearch has not; from then on it follows every catalog change.
+    public List<Book> searchFuzzy(String keyword, int maxDistance) {
+        return searchFuzzy(keyword, maxDistance, Integer.MAX_VALUE);
+    }
+
+    // The limit closest matches of searchFuzzy(keyword, maxDistance)
+    public List<Book> searchFuzzy(String keyword, int maxDistance, int limit) {
+        if (keyword == null) {
+            throw new IllegalArgumentException("keyword must not be null");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative: " + maxDistance);
+        }
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        FuzzyIndex fuzzy = fuzzyIndex;
+        if (fuzzy == null) {
+            enableFuzzySearch();
+            fuzzy = fuzzyIndex;
+        }
+        List<Book> result = fuzzy.search(keyword, maxDistance, limit);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_FUZZY, start, result.size());
+        }
+        return result;
+    }
+
+    // Builds the fuzzy search dictionary over the current catalog
+    public synchronized void enableFuzzySearch() {
+        if (fuzzyIndex != null) {
+            return;
+        }
+        FuzzyIndex fuzzy = new FuzzyIndex();
+        for (Book book : bookDatabase) {
+            fuzzy.add(book);
+        }
+        fuzzyIndex = fuzzy;
+    }
+
+    // Book counts and price statistics for every genre and author in the catalog. The first call
+    // builds the facet index if enableFacets has not; from then on every add, remove and change
+    // of author, genre or price updates it, so this costs a copy of the counts rather than a pass
+    // over the catalog.
+    public Facets facets() {
+        return facetIndex().snapshot();
+    }
+
+    // Statistics for one genre, or null if no cataloged book has it
+    public FacetStats genreFacet(String genre) {
+        return facetIndex().genre(genre);
+    }
+
+    // Statistics for one author, or null if no cataloged book has them
+    public FacetStats authorFacet(String author) {
+        return facetIndex().author(author);
+    }
+
+    // Facets of the searchBook results, tallied as the matches are found in one pass without
+    // building the result list
+    public Facets searchFacets(String keyword) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        FacetIndex.Tally tally = new FacetIndex.Tally();
+        streamSearch(keyword).forEach(tally);
+        Facets facets = tally.facets();
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.SEARCH_FACETS, start, facets.getTotal());
+        }
+        return facets;
+    }
+
+    // Builds the facet index over the current catalog
+    public synchronized void enableFacets() {
+        if (facetIndex != null) {
+            return;
+        }
+        FacetIndex facets = new FacetIndex();
+        for (Book book : bookDatabase) {
+            facets.add(book);
+        }
+        facetIndex = facets;
+    }
+
+    private FacetIndex facetIndex() {
+        FacetIndex facets = facetIndex;
+        if (facets == null) {
+            enableFacets();
+            facets = facetIndex;
+        }
+        return facets;
+    }
+
+    // Up to limit cataloged books most often bought by the buyers of this book, most often first.
+    // Only the perBook most frequent co-purchases are kept per book (see enableRecommendations),
+    // so this reads at most that many entries however many users there are. The first call
+    // builds the index from the purchases so far if enableRecommendations has not.
+    public List<Book> alsoBought(Book book, int limit) {
+        if (!purchaseLedger.countsCoPurchases()) {
+            enableRecommendations();
+        }
+        List<Book> result = new ArrayList<>();
+        if (book == null || limit <= 0) {
+            return result;
+        }
+        // Read the whole row: books that left the catalog are skipped. The ledger keeps the first
+        // object bought under each key, so return the one the catalog holds now.
+        for (Book bought : purchaseLedger.alsoBought(book)) {
+            Book other = bookDatabase.get(bought);
+            if (other != null) {
+                result.add(other);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Builds the co-purchase index from the purchases so far, keeping the default number of
+    // co-purchased books per book
+    public void enableRecommendations() {
+        enableRecommendations(CoPurchaseIndex.DEFAULT_PER_BOOK);
+    }
+
+    // Builds the co-purchase index keeping up to perBook co-purchased books per book; more gives
+    // longer and more exact lists for more memory. Does nothing if the index already exists.
+    public void enableRecommendations(int perBook) {
+        purchaseLedger.enableCoPurchases(perBook);
+    }
+
+    // The search cache with its hit and miss counts, or null when it is not enabled
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    // Every book in catalog order, for snapshots
+    Iterable<Book> books() {
+        return bookDatabase;
+    }
+
+    int bookCount() {
+        return bookDatabase.size();
+    }
+
+    ReviewStore reviewStore() {
+        return reviewStore;
+    }
+
+    PurchaseLedger purchaseLedger() {
+        return purchaseLedger;
+    }
+
+    // Records a purchase that already passed the catalog check, e.g. one replayed from a log
+    void restorePurchase(User user, Book book) {
+        if (!purchaseLedger.record(user, book)) {
+            return;
+        }
+        Autocomplete completions = autocomplete;
+        if (completions != null && bookDatabase.contains(book)) {
+            completions.purchased(book);
+        }
+    }
+
+    // Records a review that already passed the purchase check, e.g. one replayed from a log.
+    // The text is copied onto the book's own list only when asked and reviewsOnBooks is on.
+    void restoreReview(Book book, Review review, boolean onBook) {
+        reviewStore.add(book, review);
+        if (onBook && reviewsOnBooks) {
+            book.getReviews().add(review.getText());
+        }
+    }
+
+    // Weight of a book in the autocomplete index
+    private long popularity(Book book) {
+        return 1L + purchaseLedger.buyerCount(book);
+    }
+
+    // The stored object for a book that is about to be removed, when the service tracks books
+    private Book storedBook(Book book) {
+        return bookDatabase.tracksBooks() ? bookDatabase.get(book) : null;
+    }
+
+    private void track(Book book) {
+        if (bookDatabase.tracksBooks()) {
+            book.addChangeListener(catalogListener);
+        }
+    }
+
+    private void untrack(Book book) {
+        if (book != null) {
+            book.removeChangeListener(catalogListener);
+        }
+    }
+
+    // Called after the catalog changed, so a search that read the old catalog cannot be cached
+    private void invalidateSearches() {
+        SearchCache cache = searchCache;
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    private static List<BookKey> keysOf(List<Book> books) {
+        List<BookKey> keys = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (book != null) {
+                keys.add(BookKey.of(book));
+            }
+        }
+        return keys;
+    }
+
+    private static <T> List<T> select(List<T> items, boolean[] selected) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                result.add(items.get(i));
+            }
+        }
+        return result;
+    }
+
+    private void indexBook(int docId, Book book) {
+        searchIndex.add(docId, book);
+        genreIndex.add(docId, book.getGenre());
+        priceIndex.add(docId, book.getPrice());
+    }
+
+    // The trigram index keeps the removed id until the store renumbers its documents
+    private void unindexBook(int docId, Book book) {
+        genreIndex.remove(docId, book.getGenre());
+        priceIndex.remove(docId, book.getPrice());
+    }
+
+    private void rebuildIndexes() {
+        searchIndex.clear();
+        genreIndex.clear();
+        priceIndex.clear();
+        for (int docId = 0; docId < indexedDatabase.end(); docId++) {
+            Book book = indexedDatabase.book(docId);
+            if (book != null) {
+                indexBook(docId, book);
+            }
+        }
+        indexedGeneration = indexedDatabase.generation();
+    }
+
+    // Applies a change made through a cataloged book's setters to everything derived from the
+    // book's fields, touching only the entries of the changed field. A title or author that
+    // would collide with another cataloged book is rejected before the book changes.
+    private final class CatalogListener implements BookChangeListener {
+
+        @Override
+        public void bookChanging(Book book, Book.Field field, Object newValue) {
+            if (field == Book.Field.TITLE || field == Book.Field.AUTHOR) {
+                Book renamed = field == Book.Field.TITLE
+                        ? new Book((String) newValue, book.getAuthor(), null, 0)
+                        : new Book(book.getTitle(), (String) newValue, null, 0);
+                Book holder = bookDatabase.get(renamed);
+                if (holder != null && holder != book) {
+                    throw new IllegalArgumentException("Another book is already cataloged as " + BookKey.of(renamed));
+                }
+            }
+        }
+
+        @Override
+        public void bookChanged(Book book, Book.Field field, Object oldValue) {
+            BookKey oldKey = BookKey.of(book);
+            if (field == Book.Field.TITLE) {
+                oldKey = new BookKey((String) oldValue, book.getAuthor());
+            } else if (field == Book.Field.AUTHOR) {
+                oldKey = new BookKey(book.getTitle(), (String) oldValue);
+            }
+            BookKey renamedFrom = oldKey;
+            bookDatabase.locked(Arrays.asList(oldKey, BookKey.of(book)), () -> {
+                changed(book, field, oldValue, renamedFrom);
+                return null;
+            });
+        }
+
+        private void changed(Book book, Book.Field field, Object oldValue, BookKey oldKey) {
+            if (!oldKey.equals(BookKey.of(book))) {
+                bookDatabase.rekey(book, oldKey);
+                purchaseLedger.rekey(book, oldKey);
+                reviewStore.rekey(book, oldKey);
+                Autocomplete completions = autocomplete;
+                if (completions != null) {
+                    completions.renamed(field, (String) oldValue, field == Book.Field.TITLE ? book.getTitle() : book.getAuthor(),
+                            popularity(book));
+                }
+                FuzzyIndex fuzzy = fuzzyIndex;
+                if (fuzzy != null) {
+                    fuzzy.renamed(book, oldKey.getTitle(), oldKey.getAuthor());
+                }
+            }
+            FacetIndex facets = facetIndex;
+            if (facets != null) {
+                facets.changed(oldKey, book);
+            }
+
+            int docId = indexedDatabase != null ? indexedDatabase.docId(book) : -1;
+            if (docId >= 0 && indexedDatabase.book(docId) == book) {
+                switch (field) {
+                    case TITLE:
+                        searchIndex.update(docId, (String) oldValue, book.getTitle(), book);
+                        break;
+                    case AUTHOR:
+                        searchIndex.update(docId, (String) oldValue, book.getAuthor(), book);
+                        break;
+                    case GENRE:
+                        searchIndex.update(docId, (String) oldValue, book.getGenre(), book);
+                        genreIndex.remove(docId, (String) oldValue);
+                        genreIndex.add(docId, book.getGenre());
+                        break;
+                    case PRICE:
+                        priceIndex.remove(docId, (Double) oldValue);
+                        priceIndex.add(docId, book.getPrice());
+                        break;
+                }
+            }
+            if (field != Book.Field.PRICE) {
+                invalidateSearches(); // The book may now match other keywords
+            }
+            if (journal != null) {
+                journal.bookUpdated(oldKey, book);
+            }
+        }
+    }
+
+    // Splits the catalog into a prefix and a suffix until chunks are small, scans the chunks in
+    // parallel and concatenates prefix results before suffix results to keep catalog order
+    private static final class ParallelScan extends RecursiveTask<List<Book>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<Book> books;
+        private final Predicate<Book> filter;
+        private final long chunk;
+
+        ParallelScan(Spliterator<Book> books, Predicate<Book> filter, long chunk) {
+            this.books = books;
+            this.filter = filter;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected List<Book> compute() {
+            Spliterator<Book> prefix = books.estimateSize() > chunk ? books.trySplit() : null;
+            if (prefix == null) {
+                List<Book> result = new ArrayList<>();
+                books.forEachRemaining(book -> {
+                    if (filter.test(book)) {
+                        result.add(book);
+                    }
+                });
+                return result;
+            }
+
+            ParallelScan left = new ParallelScan(prefix, filter, chunk);
+            left.fork();
+            List<Book> right = compute();
+            List<Book> result = left.join();
+            result.addAll(right);
+            return result;
+        }
     }
 }
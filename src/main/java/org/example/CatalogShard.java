@@ -0,0 +1,28 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.List;
+
+// One partition of a ShardedBookService catalog: a BookService in this JVM (LocalShard) or one
+// behind a ShardServer in another process (RemoteShard). Implementations are called from several
+// threads at once, and a hedged search may run the same search on a shard twice. A remote shard
+// that cannot be reached throws UncheckedIOException.
+public interface CatalogShard {
+
+    // Up to limit books matching the keyword as BookService.searchBook does, in
+    // ShardedBookService.ORDER
+    List<Book> search(String keyword, int limit);
+
+    // Adds the book unless one with the same title and author is already in the shard
+    boolean add(Book book);
+
+    // Adds the books in one call and returns how many were not in the shard yet
+    int addAll(Collection<Book> books);
+
+    boolean remove(BookKey key);
+
+    // The shard's book with this key, or null
+    Book find(BookKey key);
+
+    int size();
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Storage behind BookService. Implementations decide how books are kept and how
+// membership is checked; iteration order must be the order books were added in.
+public interface CatalogStore extends Iterable<Book> {
+
+    // Returns true if the catalog holds this book
+    boolean contains(Book book);
+
+    // Returns the stored book with the same identity (title and author), or null
+    default Book get(Book book) {
+        if (book == null) {
+            return null;
+        }
+        BookKey key = BookKey.of(book);
+        return stream().filter(stored -> BookKey.of(stored).equals(key)).findFirst().orElse(null);
+    }
+
+    // Adds the book unless the catalog already holds it
+    boolean add(Book book);
+
+    // Removes the book if the catalog holds it
+    boolean remove(Book book);
+
+    // Adds every book in order, as add would; result[i] tells whether books.get(i) was added.
+    // A later duplicate of an earlier book in the same batch is rejected like any duplicate.
+    default boolean[] addAll(List<Book> books) {
+        boolean[] added = new boolean[books.size()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = add(books.get(i));
+        }
+        return added;
+    }
+
+    // Removes every book in order, as remove would; result[i] tells whether books.get(i) was removed
+    default boolean[] removeAll(List<Book> books) {
+        boolean[] removed = new boolean[books.size()];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = remove(books.get(i));
+        }
+        return removed;
+    }
+
+    int size();
+
+    // True if the store keeps the very Book objects handed to add and finds them by BookKey.
+    // BookService then listens to those books and calls rekey when a title or author changes.
+    // Stores that copy books (or look them up by identity) return false.
+    default boolean tracksBooks() {
+        return false;
+    }
+
+    // The stored books BookService should listen to when it takes over the store: all of them by
+    // default, or none when the store does not track books. A store whose books are partly
+    // read-only returns only the ones that can change.
+    default Iterable<Book> trackedBooks() {
+        return tracksBooks() ? this : Collections.emptyList();
+    }
+
+    // Stores that hand out views of their own rows instead of keeping the books given to add tell
+    // this listener about changes made through the views' setters. BookService sets it when it
+    // takes over the store; stores that keep the books themselves ignore it.
+    default void setChangeListener(BookChangeListener listener) {
+    }
+
+    // Moves a stored book whose title or author changed from its old key to its current one
+    default void rekey(Book book, BookKey oldKey) {
+    }
+
+    // Runs action so that no add, remove or rekey of these keys by another thread interleaves
+    // with it. BookService applies and journals each change inside it, so changes to one book
+    // reach the journal in the order they were applied. Single-threaded stores just run it.
+    default <T> T locked(Collection<BookKey> keys, Supplier<T> action) {
+        return action.get();
+    }
+
+    Stream<Book> stream();
+
+    // Lazily returns the books matching BookService.matches, in catalog order. Stores that can
+    // answer this without visiting every book override it.
+    default Stream<Book> search(String keyword) {
+        return stream().filter(book -> BookService.matches(book, keyword));
+    }
+}
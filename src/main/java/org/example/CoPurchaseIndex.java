@@ -0,0 +1,156 @@
+package org.example;
+
+import java.util.Arrays;
+
+// "Customers also bought" counts for a BookService, keyed by the dense book ids of its
+// PurchaseLedger. Every purchase counts one co-purchase between the new book and each book the
+// buyer already had, in both directions.
+// - Each book keeps at most perBook counters, as parallel int arrays sorted by count, so the top
+//   n is the first n entries and memory grows with the catalog, never with the number of users.
+// - A full row makes room the Space-Saving way: a new book replaces the least counted one and
+//   inherits its count plus one. Counts may be overestimated at the tail, but any book bought
+//   with this one in more than 1/perBook of its co-purchases always keeps its place.
+// - A purchase pairs with at most MAX_HISTORY of the buyer's earlier books, so one heavy buyer
+//   costs no more per purchase than anyone else.
+// - A removed book's row is dropped and its id taken out of the other rows, so the ledger can
+//   hand the id to another book.
+// Thread-safe.
+final class CoPurchaseIndex {
+
+    static final int DEFAULT_PER_BOOK = 32;
+    static final int MAX_HISTORY = 64;
+
+    private final int perBook;
+    private Row[] rows = new Row[16];
+
+    CoPurchaseIndex(int perBook) {
+        if (perBook <= 0) {
+            throw new IllegalArgumentException("perBook must be positive: " + perBook);
+        }
+        this.perBook = perBook;
+    }
+
+    // The buyer of bookId owns the books in history, which may include bookId itself
+    synchronized void purchased(int bookId, int[] history) {
+        int paired = 0;
+        for (int i = 0; i < history.length && paired < MAX_HISTORY; i++) {
+            if (history[i] != bookId) {
+                pair(bookId, history[i]);
+                paired++;
+            }
+        }
+    }
+
+    // Counts the purchases of one buyer made before the index existed, as if they had been made
+    // one after another in the given order
+    synchronized void bought(int[] bookIds) {
+        for (int j = 1; j < bookIds.length; j++) {
+            for (int i = Math.max(0, j - MAX_HISTORY); i < j; i++) {
+                pair(bookIds[j], bookIds[i]);
+            }
+        }
+    }
+
+    // Forgets bookId; related must include every book it may still be paired with
+    synchronized void remove(int bookId, int[] related) {
+        for (int id : related) {
+            Row row = id < rows.length ? rows[id] : null;
+            if (row != null) {
+                row.remove(bookId);
+            }
+        }
+        if (bookId < rows.length) {
+            rows[bookId] = null;
+        }
+    }
+
+    // Ids of up to n books most often bought with bookId, most often first
+    synchronized int[] top(int bookId, int n) {
+        Row row = bookId < rows.length ? rows[bookId] : null;
+        if (row == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(row.ids, Math.min(Math.max(n, 0), row.size));
+    }
+
+    // The co-purchase count kept for the two books; 0 if either row does not hold the other
+    synchronized int count(int bookId, int otherId) {
+        Row row = bookId < rows.length ? rows[bookId] : null;
+        int at = row == null ? -1 : row.indexOf(otherId);
+        return at < 0 ? 0 : row.counts[at];
+    }
+
+    int perBook() {
+        return perBook;
+    }
+
+    private void pair(int a, int b) {
+        row(a).increment(b, perBook);
+        row(b).increment(a, perBook);
+    }
+
+    private Row row(int bookId) {
+        if (bookId >= rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(bookId + 1, rows.length * 2));
+        }
+        Row row = rows[bookId];
+        if (row == null) {
+            row = new Row();
+            rows[bookId] = row;
+        }
+        return row;
+    }
+
+    private static final class Row {
+        int[] ids = new int[4];
+        int[] counts = new int[4];
+        int size;
+
+        void increment(int id, int capacity) {
+            int at = indexOf(id);
+            if (at < 0) {
+                if (size < capacity) {
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, Math.min(size * 2, capacity));
+                        counts = Arrays.copyOf(counts, ids.length);
+                    }
+                    at = size++;
+                    counts[at] = 0;
+                } else {
+                    at = size - 1; // Evict the least counted; the newcomer keeps its count
+                }
+                ids[at] = id;
+            }
+            counts[at]++;
+            // Move up past entries with a lower count; among equal counts the older one stays first
+            while (at > 0 && counts[at] > counts[at - 1]) {
+                int swapId = ids[at - 1];
+                int swapCount = counts[at - 1];
+                ids[at - 1] = ids[at];
+                counts[at - 1] = counts[at];
+                ids[at] = swapId;
+                counts[at] = swapCount;
+                at--;
+            }
+        }
+
+        // Closes the gap, so the rest stay sorted by count
+        void remove(int id) {
+            int at = indexOf(id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                System.arraycopy(counts, at + 1, counts, at, size - at - 1);
+                size--;
+            }
+        }
+
+        int indexOf(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example;
+
+import java.util.List;
+import java.util.Objects;
+
+// Flyweight view of one row of a CompactCatalogStore. Price, genre and reviews can be changed
+// through it; title and author form the catalog key, so change them by removing the book and
+// adding it again. Two views of the same row are equal.
+// The view also carries the row's fields as they were when it was made. After the store
+// compacts, it finds its row again by title and author; if the book was compacted away, it
+// answers from those fields instead.
+public class CompactBook extends Book {
+
+    private final CompactCatalogStore store;
+    private int row;
+    private int generation;
+
+    CompactBook(CompactCatalogStore store, int row) {
+        super(store.title(row), store.author(row), store.genre(row), store.price(row));
+        this.store = store;
+        this.row = row;
+        this.generation = store.generation();
+    }
+
+    CompactCatalogStore store() {
+        return store;
+    }
+
+    // The view's current row, or -1 if its book was compacted away
+    int row() {
+        if (generation != store.generation()) {
+            row = row < 0 ? -1 : store.rowOf(super.getTitle(), super.getAuthor());
+            generation = store.generation();
+        }
+        return row;
+    }
+
+    @Override
+    public void setTitle(String title) {
+        throw keyChange();
+    }
+
+    @Override
+    public void setAuthor(String author) {
+        throw keyChange();
+    }
+
+    @Override
+    public String getGenre() {
+        int current = row();
+        return current < 0 ? super.getGenre() : store.genre(current);
+    }
+
+    // Tells the catalog, through the store's listener, as well as any listener of this view
+    @Override
+    public void setGenre(String genre) {
+        int current = row();
+        if (current < 0) {
+            super.setGenre(genre);
+            return;
+        }
+        String old = store.genre(current);
+        BookChangeListener listener = store.listenerFor(current);
+        if (listener != null) {
+            listener.bookChanging(this, Field.GENRE, genre);
+        }
+        fireChanging(Field.GENRE, genre);
+        store.setGenre(current, genre);
+        dropNormalizedFields();
+        if (listener != null) {
+            listener.bookChanged(this, Field.GENRE, old);
+        }
+        fireChanged(Field.GENRE, old);
+    }
+
+    @Override
+    public double getPrice() {
+        int current = row();
+        return current < 0 ? super.getPrice() : store.price(current);
+    }
+
+    @Override
+    public void setPrice(double price) {
+        int current = row();
+        if (current < 0) {
+            super.setPrice(price);
+            return;
+        }
+        double old = store.price(current);
+        BookChangeListener listener = store.listenerFor(current);
+        if (listener != null) {
+            listener.bookChanging(this, Field.PRICE, price);
+        }
+        fireChanging(Field.PRICE, price);
+        store.setPrice(current, price);
+        if (listener != null) {
+            listener.bookChanged(this, Field.PRICE, old);
+        }
+        fireChanged(Field.PRICE, old);
+    }
+
+    @Override
+    public List<String> getReviews() {
+        int current = row();
+        return current < 0 ? super.getReviews() : store.reviews(current);
+    }
+
+    @Override
+    List<String> peekReviews() {
+        int current = row();
+        return current < 0 ? super.peekReviews() : store.reviews(current);
+    }
+
+    @Override
+    public void setReviews(List<String> reviews) {
+        int current = row();
+        if (current < 0) {
+            super.setReviews(reviews);
+        } else {
+            store.setReviews(current, reviews);
+        }
+    }
+
+    // Views of a book that was compacted away are equal if they carry the same key
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactBook)) {
+            return false;
+        }
+        CompactBook other = (CompactBook) o;
+        return store == other.store && row() == other.row()
+                && (row >= 0 || (Objects.equals(getTitle(), other.getTitle()) && Objects.equals(getAuthor(), other.getAuthor())));
+    }
+
+    // By key rather than row, so it stays the same when a compaction renumbers the row
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(getTitle()) + Objects.hashCode(getAuthor());
+    }
+
+    private static UnsupportedOperationException keyChange() {
+        return new UnsupportedOperationException("Title and author of a compact catalog book are its key; remove and re-add it instead");
+    }
+}
@@ -0,0 +1,315 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Catalog store that keeps books in columns instead of Book objects: titles in a String array,
+// authors and genres as int codes into a StringDictionary, prices in a double array, and
+// membership in an open-addressed int table of row numbers. A catalog with heavily repeated
+// authors and genres takes a fraction of the heap of HashCatalogStore. Books are handed out
+// as CompactBook views; the Book passed to add is copied, not kept.
+// Removed rows keep their slot until they outnumber the live ones (and there are at least
+// MIN_COMPACTION of them); the store then compacts itself, as compact() does, and renumbers the
+// rows. A view handed out before a compaction finds its row again by title and author; a view of
+// a book that was compacted away keeps the fields it had when the view was made. Not thread-safe.
+public class CompactCatalogStore implements CatalogStore {
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private String[] titles;
+    private int[] authors;
+    private int[] genres;
+    private double[] prices;
+    private int end;
+
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    // Row + 1 per slot, 0 for empty. Entries of removed rows stay until the table is rebuilt.
+    private int[] table;
+    private int tableEntries;
+
+    private final StringDictionary authorDictionary = new StringDictionary();
+    private final StringDictionary genreDictionary = new StringDictionary();
+    private final RowReviews reviews = new RowReviews();
+
+    // Bumped by every compaction, so views know to look their row up again
+    private int generation;
+
+    // Told about price and genre changes made through views of live rows; see setChangeListener
+    private BookChangeListener changeListener;
+
+    public CompactCatalogStore() {
+        this(16);
+    }
+
+    // Pre-sizes the store for the expected number of books
+    public CompactCatalogStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        titles = new String[capacity];
+        authors = new int[capacity];
+        genres = new int[capacity];
+        prices = new double[capacity];
+        table = new int[tableCapacityFor(capacity)];
+    }
+
+    @Override
+    public boolean contains(Book book) {
+        return find(book) >= 0;
+    }
+
+    @Override
+    public Book get(Book book) {
+        int row = find(book);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (book == null || find(book) >= 0) {
+            return false; // A book with the same identity is already stored
+        }
+        ensureCapacity(end + 1);
+
+        int row = end++;
+        titles[row] = book.getTitle();
+        authors[row] = authorDictionary.encode(book.getAuthor());
+        genres[row] = genreDictionary.encode(book.getGenre());
+        prices[row] = book.getPrice();
+        List<String> bookReviews = book.peekReviews();
+        if (!bookReviews.isEmpty()) {
+            reviews.get(row).addAll(bookReviews);
+        }
+        insert(row);
+        return true;
+    }
+
+    @Override
+    public boolean[] addAll(List<Book> books) {
+        ensureCapacity(end + books.size());
+        return CatalogStore.super.addAll(books);
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        int row = find(book);
+        if (row < 0) {
+            return false;
+        }
+        removed.set(row);
+        removedCount++;
+        if (removedCount > MIN_COMPACTION && removedCount > end - removedCount) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    public void setChangeListener(BookChangeListener listener) {
+        this.changeListener = listener;
+    }
+
+    @Override
+    public int size() {
+        return end - removedCount;
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return liveRows().mapToObj(this::view);
+    }
+
+    // Authors and genres are tested once per distinct value, then rows are matched by code
+    @Override
+    public Stream<Book> search(String keyword) {
+        BitSet authorHits = authorDictionary.matching(keyword);
+        BitSet genreHits = genreDictionary.matching(keyword);
+        return liveRows()
+                .filter(row -> (titles[row] != null && titles[row].contains(keyword))
+                        || StringDictionary.hit(authorHits, authors[row])
+                        || StringDictionary.hit(genreHits, genres[row]))
+                .mapToObj(this::view);
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return stream().iterator();
+    }
+
+    @Override
+    public Spliterator<Book> spliterator() {
+        return stream().spliterator();
+    }
+
+    // Makes room for the given number of rows without further resizing
+    public void ensureCapacity(int rows) {
+        if (rows > titles.length) {
+            int capacity = Math.max(rows, titles.length + (titles.length >> 1));
+            titles = Arrays.copyOf(titles, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            genres = Arrays.copyOf(genres, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        if (tableCapacityFor(tableEntries + rows - end) > table.length) {
+            rebuildTable(rows);
+        }
+    }
+
+    // Drops removed rows and renumbers the rest, keeping their order. Happens on its own once
+    // removed rows outnumber live ones; views handed out before it look their rows up again.
+    public void compact() {
+        int[] newRows = new int[end];
+        int live = 0;
+        for (int row = 0; row < end; row++) {
+            if (removed.get(row)) {
+                newRows[row] = -1;
+                continue;
+            }
+            newRows[row] = live;
+            titles[live] = titles[row];
+            authors[live] = authors[row];
+            genres[live] = genres[row];
+            prices[live] = prices[row];
+            live++;
+        }
+        Arrays.fill(titles, live, end, null);
+        reviews.renumber(newRows);
+        removed.clear();
+        removedCount = 0;
+        end = live;
+        generation++;
+        rebuildTable(end);
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    // Live row holding this title and author, or -1
+    int rowOf(String title, String author) {
+        return find(new Book(title, author, null, 0));
+    }
+
+    // The listener to tell about a change to this row; null for removed rows, which no catalog
+    // holds any more
+    BookChangeListener listenerFor(int row) {
+        return removed.get(row) ? null : changeListener;
+    }
+
+    String title(int row) {
+        return titles[row];
+    }
+
+    String author(int row) {
+        return authorDictionary.decode(authors[row]);
+    }
+
+    String genre(int row) {
+        return genreDictionary.decode(genres[row]);
+    }
+
+    void setGenre(int row, String genre) {
+        genres[row] = genreDictionary.encode(genre);
+    }
+
+    double price(int row) {
+        return prices[row];
+    }
+
+    void setPrice(int row, double price) {
+        prices[row] = price;
+    }
+
+    List<String> reviews(int row) {
+        return reviews.get(row);
+    }
+
+    void setReviews(int row, List<String> list) {
+        reviews.set(row, list);
+    }
+
+    private CompactBook view(int row) {
+        return new CompactBook(this, row);
+    }
+
+    private IntStream liveRows() {
+        return IntStream.range(0, end).filter(row -> !removed.get(row));
+    }
+
+    // Live row holding the book's title and author, or -1
+    private int find(Book book) {
+        if (book == null) {
+            return -1;
+        }
+        if (book instanceof CompactBook && ((CompactBook) book).store() == this) {
+            int row = ((CompactBook) book).row();
+            if (row >= 0 && !removed.get(row)) {
+                return row;
+            }
+        }
+        String title = book.getTitle();
+        int author = authorDictionary.find(book.getAuthor());
+        if (author == StringDictionary.ABSENT) {
+            return -1; // No stored book has this author
+        }
+
+        int mask = table.length - 1;
+        int slot = hash(title, book.getAuthor()) & mask;
+        while (table[slot] != 0) {
+            int row = table[slot] - 1;
+            if (authors[row] == author && Objects.equals(titles[row], title) && !removed.get(row)) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int row) {
+        if (tableCapacityFor(tableEntries + 1) > table.length) {
+            rebuildTable(end); // Covers the new row too
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = hash(titles[row], author(row)) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row + 1;
+        tableEntries++;
+    }
+
+    // Rebuilds the table with entries for live rows only, sized for the given number of rows
+    private void rebuildTable(int rows) {
+        table = new int[tableCapacityFor(Math.max(rows - removedCount, 1))];
+        tableEntries = 0;
+        int mask = table.length - 1;
+        for (int row = 0; row < end; row++) {
+            if (removed.get(row)) {
+                continue;
+            }
+            int slot = hash(titles[row], author(row)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = row + 1;
+            tableEntries++;
+        }
+    }
+
+    // Load factor of at most one half
+    private static int tableCapacityFor(int entries) {
+        return Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+    }
+
+    private static int hash(String title, String author) {
+        int h = 31 * Objects.hashCode(title) + Objects.hashCode(author);
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+// One autocomplete suggestion: a title or author that starts with what the user typed, and its
+// popularity weight (see BookService.autocomplete)
+public final class Completion {
+
+    private final String text;
+    private final Book.Field field;
+    private final long weight;
+
+    public Completion(String text, Book.Field field, long weight) {
+        this.text = text;
+        this.field = field;
+        this.weight = weight;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // TITLE or AUTHOR
+    public Book.Field getField() {
+        return field;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return text + " (" + field + ", " + weight + ")";
+    }
+}
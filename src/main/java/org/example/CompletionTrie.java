@@ -0,0 +1,259 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Weighted radix trie for type-ahead: maps terms to weights and returns the heaviest terms that
+// start with a prefix. Matching ignores case and accents (see TextFolding); a term is shown as
+// it was first added.
+// - Compact: edges carry whole label runs, so a node exists only where terms branch or end, and
+//   children are a sorted array searched by their first char rather than a map.
+// - Every node keeps the heaviest weight below it, so top(prefix, n) is a best-first walk that
+//   visits about n paths however many terms share the prefix.
+// Thread-safe.
+public class CompletionTrie {
+
+    private final Book.Field field;
+    private final Node root = new Node(new char[0]);
+    private int size;
+
+    // The field reported on the completions, e.g. Book.Field.TITLE
+    public CompletionTrie(Book.Field field) {
+        this.field = field;
+    }
+
+    // Adds weight to the term, adding the term if it is new; weight must be positive
+    public synchronized void add(String term, long weight) {
+        if (term != null && weight > 0) {
+            update(term, weight);
+        }
+    }
+
+    // Takes weight off the term and drops it once nothing is left
+    public synchronized void remove(String term, long weight) {
+        if (term != null && weight > 0) {
+            update(term, -weight);
+        }
+    }
+
+    // The current weight of the term, 0 if it is not in the trie
+    public synchronized long weight(String term) {
+        Node node = find(key(term), true);
+        return node == null || node.display == null ? 0 : node.weight;
+    }
+
+    // Up to n terms starting with the prefix, heaviest first; equal weights in trie order
+    public synchronized List<Completion> top(String prefix, int n) {
+        List<Completion> result = new ArrayList<>(Math.min(Math.max(n, 0), 16));
+        Node start = n > 0 ? find(key(prefix), false) : null;
+        if (start == null) {
+            return result;
+        }
+        // A node stands for its whole subtree (ranked by the best weight below it) until it is
+        // expanded, and for its own term afterwards; terms win ties, so lighter subtrees wait
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start, start.best, false));
+        while (!queue.isEmpty() && result.size() < n) {
+            Candidate next = queue.poll();
+            Node node = next.node;
+            if (next.term) {
+                result.add(new Completion(node.display, field, node.weight));
+                continue;
+            }
+            if (node.display != null) {
+                queue.add(new Candidate(node, node.weight, true));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                queue.add(new Candidate(node.children[i], node.children[i].best, false));
+            }
+        }
+        return result;
+    }
+
+    // Number of terms
+    public synchronized int size() {
+        return size;
+    }
+
+    private static String key(String term) {
+        return TextFolding.fold(term);
+    }
+
+    // The node a key ends at. With exact false, a key ending partway along an edge finds the
+    // node below that edge, which is what a prefix lookup wants.
+    private Node find(String key, boolean exact) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int slot = node.slot(key.charAt(i));
+            if (slot < 0) {
+                return null;
+            }
+            Node child = node.children[slot];
+            int common = common(child.label, key, i);
+            if (common < child.label.length) {
+                return !exact && i + common == key.length() ? child : null;
+            }
+            i += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private void update(String term, long delta) {
+        String key = key(term);
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int slot = node.slot(key.charAt(i));
+            if (slot < 0) {
+                if (delta < 0) {
+                    return;
+                }
+                Node leaf = new Node(key.substring(i).toCharArray());
+                node.insert(-slot - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[slot];
+            int common = common(child.label, key, i);
+            if (common < child.label.length) {
+                if (delta < 0) {
+                    return;
+                }
+                // Split the edge where the key leaves it
+                Node split = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                split.insert(0, child);
+                split.best = child.best;
+                node.children[slot] = split;
+                child = split;
+            }
+            i += common;
+            node = child;
+            path.add(node);
+        }
+
+        if (node.display == null) {
+            if (delta < 0) {
+                return;
+            }
+            node.display = term;
+            size++;
+        }
+        node.weight += delta;
+        if (node.weight <= 0) {
+            node.weight = 0;
+            node.display = null;
+            size--;
+        }
+
+        // Drop nodes that no longer lead anywhere, merge pass-through nodes into their child, and
+        // refresh the best weights on the way up
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node current = path.get(p);
+            Node parent = path.get(p - 1);
+            if (current.display == null && current.childCount == 0) {
+                parent.delete(parent.slot(current.label[0]));
+            } else if (current.display == null && current.childCount == 1) {
+                Node only = current.children[0];
+                char[] label = Arrays.copyOf(current.label, current.label.length + only.label.length);
+                System.arraycopy(only.label, 0, label, current.label.length, only.label.length);
+                only.label = label;
+                parent.children[parent.slot(label[0])] = only;
+            } else {
+                current.refreshBest();
+            }
+        }
+        root.refreshBest();
+    }
+
+    private static int common(char[] label, String key, int offset) {
+        int max = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < max && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        char[] label;
+        Node[] children;
+        int childCount;
+        String display; // The term ending here as first added; null if no term ends here
+        long weight;
+        long best; // Heaviest term weight in this subtree
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        // Index of the child whose label starts with c, or -(insertion point) - 1
+        int slot(char c) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].label[0];
+                if (first < c) {
+                    low = mid + 1;
+                } else if (first > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insert(int at, Node child) {
+            if (children == null) {
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            System.arraycopy(children, at, children, at + 1, childCount - at);
+            children[at] = child;
+            childCount++;
+        }
+
+        void delete(int at) {
+            System.arraycopy(children, at + 1, children, at, childCount - at - 1);
+            children[--childCount] = null;
+        }
+
+        void refreshBest() {
+            long max = display != null ? weight : 0;
+            for (int i = 0; i < childCount; i++) {
+                max = Math.max(max, children[i].best);
+            }
+            best = max;
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final long weight;
+        final boolean term;
+
+        Candidate(Node node, long weight, boolean term) {
+            this.node = node;
+            this.weight = weight;
+            this.term = term;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (weight != other.weight) {
+                return Long.compare(other.weight, weight);
+            }
+            return Boolean.compare(other.term, term);
+        }
+    }
+}
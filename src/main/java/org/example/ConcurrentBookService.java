@@ -0,0 +1,25 @@
+package org.example;
+
+// BookService variant that is safe to share between request threads. The catalog is a
+// ConcurrentCatalogStore, so insertion and removal are atomic per book without a global lock
+// and searches scan a consistent view without blocking writers. Each change is journaled while
+// the store still holds its book's stripe, so the journal sees one book's changes in order.
+public class ConcurrentBookService extends BookService {
+
+    public ConcurrentBookService() {
+        this(new ConcurrentCatalogStore());
+    }
+
+    public ConcurrentBookService(ConcurrentCatalogStore bookDatabase) {
+        super(bookDatabase);
+    }
+
+    // The review store takes concurrent appends, but a book's own review list is a plain
+    // ArrayList, so reviewers of the same book take turns
+    @Override
+    public boolean addBookReview(User user, Book book, String review, int rating) {
+        synchronized (book) {
+            return super.addBookReview(user, book, review, rating);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Thread-safe catalog store. Membership lives in a ConcurrentHashMap keyed by BookKey and the
+// books themselves in a skip list ordered by an insertion sequence number. Writers only lock
+// the stripe their key hashes to, so mutations of different books proceed in parallel.
+// Readers never lock: a stream or iterator only sees books whose sequence number was handed out
+// before it started, so books added during a search are never returned and none shows up twice.
+public class ConcurrentCatalogStore implements CatalogStore {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ConcurrentHashMap<BookKey, Long> sequenceByKey = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Book> books = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentCatalogStore() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // The stripe count is rounded up to a power of two
+    public ConcurrentCatalogStore(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public boolean contains(Book book) {
+        return book != null && sequenceByKey.containsKey(BookKey.of(book));
+    }
+
+    @Override
+    public Book get(Book book) {
+        Long sequence = book == null ? null : sequenceByKey.get(BookKey.of(book));
+        return sequence == null ? null : books.get(sequence);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (book == null) {
+            return false;
+        }
+        BookKey key = BookKey.of(book);
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            if (sequenceByKey.containsKey(key)) {
+                return false; // A book with the same identity is already stored
+            }
+            long sequence = nextSequence.getAndIncrement();
+            books.put(sequence, book);
+            sequenceByKey.put(key, sequence);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        if (book == null) {
+            return false;
+        }
+        BookKey key = BookKey.of(book);
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            Long sequence = sequenceByKey.remove(key);
+            if (sequence == null) {
+                return false;
+            }
+            books.remove(sequence);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tracksBooks() {
+        return true;
+    }
+
+    // Holds the stripes of both keys, taken in index order so two renames cannot deadlock. The
+    // book keeps its sequence number, so it keeps its place in the catalog order.
+    @Override
+    public void rekey(Book book, BookKey oldKey) {
+        BookKey newKey = BookKey.of(book);
+        int first = stripeIndex(oldKey);
+        int second = stripeIndex(newKey);
+        stripes[Math.min(first, second)].lock();
+        stripes[Math.max(first, second)].lock();
+        try {
+            Long sequence = sequenceByKey.get(oldKey);
+            // A book added under the new key since BookService checked it keeps the key; the
+            // renamed book then stays reachable under its old one
+            if (sequence != null && books.get(sequence) == book && sequenceByKey.putIfAbsent(newKey, sequence) == null) {
+                sequenceByKey.remove(oldKey);
+            }
+        } finally {
+            stripes[Math.max(first, second)].unlock();
+            stripes[Math.min(first, second)].unlock();
+        }
+    }
+
+    // Holds the stripes of all the keys, taken in index order like rekey. The locks are
+    // reentrant, so the store's own methods called from the action take them again freely.
+    @Override
+    public <T> T locked(Collection<BookKey> keys, Supplier<T> action) {
+        boolean[] held = new boolean[stripes.length];
+        for (BookKey key : keys) {
+            held[stripeIndex(key)] = true;
+        }
+        for (int s = 0; s < held.length; s++) {
+            if (held[s]) {
+                stripes[s].lock();
+            }
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int s = held.length - 1; s >= 0; s--) {
+                if (held[s]) {
+                    stripes[s].unlock();
+                }
+            }
+        }
+    }
+
+    // Locks each stripe once for all the batch's books that hash to it. The batch reserves a
+    // block of sequence numbers up front, so its books keep their input order in the catalog;
+    // readers may see the batch appear book by book.
+    @Override
+    public boolean[] addAll(List<Book> books) {
+        boolean[] added = new boolean[books.size()];
+        long base = nextSequence.getAndAdd(books.size());
+        forEachStripe(books, (key, i) -> {
+            if (!sequenceByKey.containsKey(key)) {
+                this.books.put(base + i, books.get(i));
+                sequenceByKey.put(key, base + i);
+                added[i] = true;
+            }
+        });
+        return added;
+    }
+
+    @Override
+    public boolean[] removeAll(List<Book> books) {
+        boolean[] removed = new boolean[books.size()];
+        forEachStripe(books, (key, i) -> {
+            Long sequence = sequenceByKey.remove(key);
+            if (sequence != null) {
+                this.books.remove(sequence);
+                removed[i] = true;
+            }
+        });
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return sequenceByKey.size();
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return snapshot().stream();
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    public Spliterator<Book> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    // Books added before this call, skipping any removed while the view is being read
+    private Collection<Book> snapshot() {
+        return books.headMap(nextSequence.get()).values();
+    }
+
+    private ReentrantLock stripeFor(BookKey key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private int stripeIndex(BookKey key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    // Buckets the batch by stripe (a counting sort, so each bucket keeps input order), then runs
+    // the action for every non-null book while holding its stripe's lock
+    private void forEachStripe(List<Book> books, StripeAction action) {
+        int n = books.size();
+        BookKey[] keys = new BookKey[n];
+        int[] stripeOf = new int[n];
+        int[] starts = new int[stripes.length + 1];
+        for (int i = 0; i < n; i++) {
+            Book book = books.get(i);
+            if (book != null) {
+                keys[i] = BookKey.of(book);
+                stripeOf[i] = stripeIndex(keys[i]);
+                starts[stripeOf[i] + 1]++;
+            }
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            starts[s + 1] += starts[s];
+        }
+        int[] order = new int[starts[stripes.length]];
+        int[] fill = Arrays.copyOf(starts, stripes.length);
+        for (int i = 0; i < n; i++) {
+            if (keys[i] != null) {
+                order[fill[stripeOf[i]]++] = i;
+            }
+        }
+
+        for (int s = 0; s < stripes.length; s++) {
+            if (starts[s] == starts[s + 1]) {
+                continue;
+            }
+            stripes[s].lock();
+            try {
+                for (int j = starts[s]; j < starts[s + 1]; j++) {
+                    action.apply(keys[order[j]], order[j]);
+                }
+            } finally {
+                stripes[s].unlock();
+            }
+        }
+    }
+
+    private interface StripeAction {
+        void apply(BookKey key, int index);
+    }
+}
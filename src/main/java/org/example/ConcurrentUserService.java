@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// UserService variant that is safe to share between request threads. Usernames are claimed
+// with putIfAbsent, so two racing registrations of the same name can never both succeed.
+public class ConcurrentUserService extends UserService {
+
+    private final ConcurrentMap<String, User> users;
+
+    public ConcurrentUserService() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    public ConcurrentUserService(ConcurrentMap<String, User> userDatabase) {
+        this(userDatabase, new PasswordHasher());
+    }
+
+    public ConcurrentUserService(ConcurrentMap<String, User> userDatabase, PasswordHasher passwordHasher) {
+        super(userDatabase, passwordHasher);
+        this.users = userDatabase;
+    }
+
+    // Registers a new user if nobody holds the username yet, atomically. The username is claimed
+    // with a placeholder first, so a caller whose registration fails keeps its User as it was,
+    // and the User is published only once it carries the hash, never the plaintext.
+    @Override
+    boolean register(User user, boolean keepHash) {
+        if (!isAcceptablePassword(user.getPassword())) {
+            return false;
+        }
+        String hash = encodePassword(user.getPassword(), keepHash);
+        if (users.putIfAbsent(user.getUsername(), RESERVED) != null) {
+            return false;
+        }
+        publish(user, hash);
+        journalRegistered(user);
+        return true;
+    }
+
+    @Override
+    boolean[] registerAll(Collection<User> batch, boolean keepHash) {
+        boolean[] registered = new boolean[batch.size()];
+        List<User> accepted = new ArrayList<>();
+        int i = 0;
+        for (User user : batch) {
+            if (user != null && isAcceptablePassword(user.getPassword())) {
+                String hash = encodePassword(user.getPassword(), keepHash);
+                if (users.putIfAbsent(user.getUsername(), RESERVED) == null) {
+                    publish(user, hash);
+                    accepted.add(user);
+                    registered[i] = true;
+                }
+            }
+            i++;
+        }
+        journalRegistered(accepted);
+        return registered;
+    }
+
+    // Replaces the placeholder holding the user's name with the user, which is not tracked yet
+    private void publish(User user, String hash) {
+        user.setPassword(hash);
+        track(user);
+        users.put(user.getUsername(), user);
+    }
+
+    // Claims the new username atomically before touching the user, then releases the old one
+    @Override
+    boolean updateProfile(User user, String newUsername, String newPassword, String newEmail, boolean keepHash) {
+        if (newUsername == null || !isAcceptablePassword(newPassword)) {
+            return false; // Rejected before anything changes
+        }
+        String hash = encodePassword(newPassword, keepHash);
+        String oldUsername = user.getUsername();
+        if (users.putIfAbsent(newUsername, user) != null) {
+            return false; // New username is already taken, so update fails
+        }
+
+        // The old username stays claimed until the update is journaled, so a registration that
+        // reuses it can only reach the journal after the rename
+        beginRename(user);
+        try {
+            user.setUsername(newUsername);
+            user.setPassword(hash);
+            user.setEmail(newEmail);
+            forgetLogin(user);
+
+            // Re-publish so readers that look the user up afterwards see the new fields
+            users.put(newUsername, user);
+            journalUpdated(oldUsername, user);
+        } finally {
+            endRename(user);
+            if (!Objects.equals(oldUsername, user.getUsername())) {
+                users.remove(oldUsername, user);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Per-genre and per-author book counts and price statistics for a BookService catalog, kept up
+// to date book by book instead of being grouped from scratch per request. Each genre and author
+// keeps its prices in a sorted multiset, so removing the cheapest or dearest book still leaves
+// the exact min and max. The index remembers the genre, author and price it filed each book
+// under, so removals and changes need only the book's key.
+// Thread-safe.
+final class FacetIndex {
+
+    private static final Comparator<FacetStats> LARGEST_FIRST = Comparator.comparingInt(FacetStats::getCount).reversed()
+            .thenComparing(FacetStats::getValue);
+
+    private final Map<BookKey, Filed> filed = new HashMap<>();
+    private final Map<String, Bucket> genres = new HashMap<>();
+    private final Map<String, Bucket> authors = new HashMap<>();
+
+    synchronized void add(Book book) {
+        Filed entry = new Filed(book.getGenre(), book.getAuthor(), book.getPrice());
+        Filed previous = filed.put(BookKey.of(book), entry);
+        if (previous != null) {
+            unfile(previous); // Re-added under the same key: count it once
+        }
+        file(entry);
+    }
+
+    synchronized void remove(Book book) {
+        remove(BookKey.of(book));
+    }
+
+    // Re-files a cataloged book after a change to any of its fields; oldKey is its key before
+    synchronized void changed(BookKey oldKey, Book book) {
+        remove(oldKey);
+        add(book);
+    }
+
+    synchronized Facets snapshot() {
+        return new Facets(filed.size(), stats(genres), stats(authors));
+    }
+
+    synchronized FacetStats genre(String genre) {
+        Bucket bucket = genres.get(genre);
+        return bucket == null ? null : bucket.stats(genre);
+    }
+
+    synchronized FacetStats author(String author) {
+        Bucket bucket = authors.get(author);
+        return bucket == null ? null : bucket.stats(author);
+    }
+
+    private void remove(BookKey key) {
+        Filed entry = filed.remove(key);
+        if (entry != null) {
+            unfile(entry);
+        }
+    }
+
+    private void file(Filed entry) {
+        if (entry.genre != null) {
+            genres.computeIfAbsent(entry.genre, g -> new Bucket()).add(entry.price);
+        }
+        if (entry.author != null) {
+            authors.computeIfAbsent(entry.author, a -> new Bucket()).add(entry.price);
+        }
+    }
+
+    private void unfile(Filed entry) {
+        if (entry.genre != null && genres.get(entry.genre).remove(entry.price)) {
+            genres.remove(entry.genre);
+        }
+        if (entry.author != null && authors.get(entry.author).remove(entry.price)) {
+            authors.remove(entry.author);
+        }
+    }
+
+    private static Map<String, FacetStats> stats(Map<String, Bucket> buckets) {
+        List<FacetStats> stats = new ArrayList<>(buckets.size());
+        for (Map.Entry<String, Bucket> bucket : buckets.entrySet()) {
+            stats.add(bucket.getValue().stats(bucket.getKey()));
+        }
+        return ordered(stats);
+    }
+
+    private static Map<String, FacetStats> ordered(List<FacetStats> stats) {
+        stats.sort(LARGEST_FIRST);
+        Map<String, FacetStats> ordered = new LinkedHashMap<>(stats.size() * 2);
+        for (FacetStats facet : stats) {
+            ordered.put(facet.getValue(), facet);
+        }
+        return ordered;
+    }
+
+    // What a book was filed under
+    private static final class Filed {
+        final String genre;
+        final String author;
+        final double price;
+
+        Filed(String genre, String author, double price) {
+            this.genre = genre;
+            this.author = author;
+            this.price = price;
+        }
+    }
+
+    private static final class Bucket {
+        int count;
+        double sum;
+        final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        void add(double price) {
+            count++;
+            sum += price;
+            prices.merge(price, 1, Integer::sum);
+        }
+
+        // True once the bucket is empty
+        boolean remove(double price) {
+            count--;
+            sum -= price;
+            prices.computeIfPresent(price, (p, n) -> n == 1 ? null : n - 1);
+            return count == 0;
+        }
+
+        FacetStats stats(String value) {
+            return new FacetStats(value, count, sum, prices.firstKey(), prices.lastKey());
+        }
+    }
+
+    // Tallies facets over books handed to it one at a time, e.g. the matches of a search as they
+    // are found, so the matches never have to be collected
+    static final class Tally implements Consumer<Book> {
+        private final Map<String, double[]> genres = new HashMap<>();
+        private final Map<String, double[]> authors = new HashMap<>();
+        private int total;
+
+        @Override
+        public void accept(Book book) {
+            total++;
+            count(genres, book.getGenre(), book.getPrice());
+            count(authors, book.getAuthor(), book.getPrice());
+        }
+
+        Facets facets() {
+            return new Facets(total, stats(genres), stats(authors));
+        }
+
+        // Count, sum, min and max in one array per facet value
+        private static void count(Map<String, double[]> tallies, String value, double price) {
+            if (value == null) {
+                return;
+            }
+            double[] tally = tallies.get(value);
+            if (tally == null) {
+                tallies.put(value, new double[] {1, price, price, price});
+            } else {
+                tally[0]++;
+                tally[1] += price;
+                tally[2] = Math.min(tally[2], price);
+                tally[3] = Math.max(tally[3], price);
+            }
+        }
+
+        private static Map<String, FacetStats> stats(Map<String, double[]> tallies) {
+            List<FacetStats> stats = new ArrayList<>(tallies.size());
+            for (Map.Entry<String, double[]> tally : tallies.entrySet()) {
+                double[] t = tally.getValue();
+                stats.add(new FacetStats(tally.getKey(), (int) t[0], t[1], t[2], t[3]));
+            }
+            return ordered(stats);
+        }
+    }
+}
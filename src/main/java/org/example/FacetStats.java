@@ -0,0 +1,50 @@
+package org.example;
+
+// Book count and price statistics for one genre or author. Immutable.
+public final class FacetStats {
+
+    private final String value;
+    private final int count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    public FacetStats(String value, int count, double sum, double min, double max) {
+        this.value = value;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    // The genre or author
+    public String getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getPriceSum() {
+        return sum;
+    }
+
+    public double getMinPrice() {
+        return min;
+    }
+
+    public double getMaxPrice() {
+        return max;
+    }
+
+    public double getAveragePrice() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return value + ": " + count + " books, " + String.format("%.2f", min) + " to " + String.format("%.2f", max)
+                + ", avg " + String.format("%.2f", getAveragePrice());
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Per-genre and per-author statistics over a set of books, e.g. the catalog or one search's
+// results. Both maps list the largest facet first, equal counts by name. Immutable.
+public final class Facets {
+
+    private final int total;
+    private final Map<String, FacetStats> genres;
+    private final Map<String, FacetStats> authors;
+
+    Facets(int total, Map<String, FacetStats> genres, Map<String, FacetStats> authors) {
+        this.total = total;
+        this.genres = Collections.unmodifiableMap(genres);
+        this.authors = Collections.unmodifiableMap(authors);
+    }
+
+    // Books counted, including any without a genre or author
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<String, FacetStats> getGenres() {
+        return genres;
+    }
+
+    public Map<String, FacetStats> getAuthors() {
+        return authors;
+    }
+
+    // Statistics for one genre, or null if no counted book has it
+    public FacetStats genre(String genre) {
+        return genres.get(genre);
+    }
+
+    // Statistics for one author, or null if no counted book has them
+    public FacetStats author(String author) {
+        return authors.get(author);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+// When WriteAheadLog forces appended records to disk
+public final class FsyncPolicy {
+
+    enum Mode {
+        PER_OPERATION, BATCHED, INTERVAL
+    }
+
+    final Mode mode;
+    final int batchSize;
+    final long intervalMillis;
+
+    private FsyncPolicy(Mode mode, int batchSize, long intervalMillis) {
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+    }
+
+    // Every mutation is durable before it returns. Concurrent writers share one fsync.
+    public static FsyncPolicy perOperation() {
+        return new FsyncPolicy(Mode.PER_OPERATION, 1, 0);
+    }
+
+    // The writer whose record completes a batch of this many pending records forces the log;
+    // a crash can lose at most one batch
+    public static FsyncPolicy batched(int records) {
+        if (records < 1) {
+            throw new IllegalArgumentException("batch size must be positive: " + records);
+        }
+        return new FsyncPolicy(Mode.BATCHED, records, 0);
+    }
+
+    // A background thread forces the log every intervalMillis; writers never wait for the disk
+    public static FsyncPolicy interval(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("interval must be positive: " + intervalMillis);
+        }
+        return new FsyncPolicy(Mode.INTERVAL, Integer.MAX_VALUE, intervalMillis);
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case BATCHED:
+                return "batched(" + batchSize + ")";
+            case INTERVAL:
+                return "interval(" + intervalMillis + "ms)";
+            default:
+                return "perOperation";
+        }
+    }
+}
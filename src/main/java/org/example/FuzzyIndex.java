@@ -0,0 +1,166 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Typo-tolerant lookup for a BookService catalog. Titles and authors are split into folded words
+// (see TextFolding); the distinct words form a term dictionary held in a BK-tree, and each term
+// lists the books it appears on. A query word finds its near terms in the tree and through them
+// the books, so a search never compares the query against every book.
+// Thread-safe.
+final class FuzzyIndex {
+
+    // Best total distance first, then title and author
+    private static final Comparator<Match> RANKING = Comparator.comparingInt((Match m) -> m.distance)
+            .thenComparing(m -> m.book.getTitle())
+            .thenComparing(m -> m.book.getAuthor());
+
+    private final BKTree dictionary = new BKTree();
+    private final Map<String, Map<BookKey, Book>> postings = new HashMap<>();
+
+    synchronized void add(Book book) {
+        BookKey key = BookKey.of(book);
+        for (String word : words(book.getTitle(), book.getAuthor())) {
+            postings.computeIfAbsent(word, w -> {
+                dictionary.add(w);
+                return new LinkedHashMap<>(4);
+            }).put(key, book);
+        }
+    }
+
+    synchronized void remove(Book book) {
+        remove(BookKey.of(book), book.getTitle(), book.getAuthor());
+    }
+
+    // Re-files a book whose title or author changed from the old values
+    synchronized void renamed(Book book, String oldTitle, String oldAuthor) {
+        remove(new BookKey(oldTitle, oldAuthor), oldTitle, oldAuthor);
+        add(book);
+    }
+
+    // Books with, for every word of the query, a title or author word within maxDistance edits,
+    // ranked by the edits summed over the query's words. Short words get fewer edits, as one edit
+    // in a three-letter word already matches most of the dictionary: none below three letters
+    // and at most one below six.
+    synchronized List<Book> search(String query, int maxDistance, int limit) {
+        Set<String> words = words(query, null);
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // Look up every word first and intersect from the one with the fewest books, so the
+        // common words only probe the candidates the rare ones left
+        List<Expansion> expansions = new ArrayList<>(words.size());
+        for (String word : words) {
+            Expansion expansion = new Expansion();
+            dictionary.search(word, allowedEdits(word, maxDistance), (term, distance) -> {
+                expansion.terms.add(term);
+                expansion.distances.add(distance);
+                expansion.books += postings.get(term).size();
+            });
+            if (expansion.books == 0) {
+                return new ArrayList<>();
+            }
+            expansions.add(expansion);
+        }
+        expansions.sort(Comparator.comparingInt(e -> e.books));
+
+        Map<BookKey, Match> matches = null;
+        for (Expansion expansion : expansions) {
+            Map<BookKey, Match> next = new HashMap<>(matches == null ? expansion.books * 2 : matches.size() * 2);
+            for (int i = 0; i < expansion.terms.size(); i++) {
+                int distance = expansion.distances.get(i);
+                for (Map.Entry<BookKey, Book> posting : postings.get(expansion.terms.get(i)).entrySet()) {
+                    Match previous = null;
+                    if (matches != null && (previous = matches.get(posting.getKey())) == null) {
+                        continue; // Missed an earlier word
+                    }
+                    int total = distance + (previous == null ? 0 : previous.distance);
+                    Match match = next.get(posting.getKey());
+                    if (match == null) {
+                        next.put(posting.getKey(), new Match(posting.getValue(), total));
+                    } else if (total < match.distance) {
+                        match.distance = total;
+                    }
+                }
+            }
+            if (next.isEmpty()) {
+                return new ArrayList<>();
+            }
+            matches = next;
+        }
+
+        List<Match> ranked = new ArrayList<>(matches.values());
+        ranked.sort(RANKING);
+        List<Book> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && result.size() < limit; i++) {
+            result.add(ranked.get(i).book);
+        }
+        return result;
+    }
+
+    // Distinct terms in the dictionary
+    synchronized int termCount() {
+        return dictionary.size();
+    }
+
+    static int allowedEdits(String word, int maxDistance) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        return word.length() < 6 ? Math.min(maxDistance, 1) : maxDistance;
+    }
+
+    // The distinct folded words of the texts, split at anything but letters and digits
+    static Set<String> words(String first, String second) {
+        Set<String> words = new LinkedHashSet<>();
+        split(TextFolding.fold(first), words);
+        split(TextFolding.fold(second), words);
+        return words;
+    }
+
+    private void remove(BookKey key, String title, String author) {
+        for (String word : words(title, author)) {
+            Map<BookKey, Book> books = postings.get(word);
+            if (books != null && books.remove(key) != null && books.isEmpty()) {
+                postings.remove(word);
+                dictionary.remove(word);
+            }
+        }
+    }
+
+    private static void split(String text, Set<String> words) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    // The dictionary terms near one query word, with their distances and how many books they hold
+    private static final class Expansion {
+        final List<String> terms = new ArrayList<>();
+        final List<Integer> distances = new ArrayList<>();
+        int books;
+    }
+
+    private static final class Match {
+        final Book book;
+        int distance;
+
+        Match(Book book, int distance) {
+            this.book = book;
+            this.distance = distance;
+        }
+    }
+}
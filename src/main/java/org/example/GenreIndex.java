@@ -0,0 +1,68 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// One bitmap of document ids per distinct genre. Catalogs have few genres, so a genre term
+// is answered by OR-ing the bitmaps of every genre name that contains it.
+public class GenreIndex {
+
+    private final Map<String, Bitmap> byGenre = new HashMap<>();
+
+    public void add(int docId, String genre) {
+        byGenre.computeIfAbsent(genre, g -> new Bitmap()).set(docId);
+    }
+
+    public void remove(int docId, String genre) {
+        Bitmap bitmap = byGenre.get(genre);
+        if (bitmap != null && bitmap.clear(docId) && bitmap.count == 0) {
+            byGenre.remove(genre);
+        }
+    }
+
+    public void clear() {
+        byGenre.clear();
+    }
+
+    // Number of books whose genre contains the text
+    public int count(String text) {
+        int count = 0;
+        for (Map.Entry<String, Bitmap> entry : byGenre.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().contains(text)) {
+                count += entry.getValue().count;
+            }
+        }
+        return count;
+    }
+
+    // Sets the bit of every book whose genre contains the text
+    public void collect(String text, BitSet into) {
+        for (Map.Entry<String, Bitmap> entry : byGenre.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().contains(text)) {
+                into.or(entry.getValue().bits);
+            }
+        }
+    }
+
+    private static final class Bitmap {
+        private final BitSet bits = new BitSet();
+        private int count;
+
+        void set(int docId) {
+            if (!bits.get(docId)) {
+                bits.set(docId);
+                count++;
+            }
+        }
+
+        boolean clear(int docId) {
+            if (!bits.get(docId)) {
+                return false;
+            }
+            bits.clear(docId);
+            count--;
+            return true;
+        }
+    }
+}
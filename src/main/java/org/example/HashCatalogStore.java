@@ -0,0 +1,260 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Default catalog store: books live in an append-only slot array in insertion order and a
+// hash map from BookKey to slot gives O(1) membership, insertion and removal.
+// The slot number doubles as a dense document id for search indexes. Removed slots are left
+// empty and compacted away once they outnumber the live ones; every compaction renumbers the
+// slots and bumps generation(), so anything keyed by document id has to be rebuilt.
+public class HashCatalogStore implements CatalogStore {
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private Book[] slots;
+    private int end;
+    private Map<BookKey, Integer> slotsByKey;
+    private long generation;
+
+    public HashCatalogStore() {
+        this(16);
+    }
+
+    // Pre-sizes the store for the expected number of books
+    public HashCatalogStore(int expectedSize) {
+        this.slots = new Book[Math.max(expectedSize, 16)];
+        this.slotsByKey = new HashMap<>(Math.max((int) (expectedSize / 0.75f) + 1, 16));
+    }
+
+    @Override
+    public boolean contains(Book book) {
+        return book != null && slotsByKey.containsKey(BookKey.of(book));
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (book == null) {
+            return false;
+        }
+        Integer existing = slotsByKey.putIfAbsent(BookKey.of(book), end);
+        if (existing != null) {
+            return false; // A book with the same identity is already stored
+        }
+
+        if (end == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length + (slots.length >> 1));
+        }
+        slots[end++] = book;
+        return true;
+    }
+
+    // Grows the slot array and the key map once for the whole batch instead of doubling repeatedly
+    @Override
+    public boolean[] addAll(List<Book> books) {
+        ensureCapacity(slotsByKey.size() + books.size());
+        boolean[] added = new boolean[books.size()];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = add(books.get(i));
+        }
+        return added;
+    }
+
+    // Makes room for the given number of books without further resizing
+    public void ensureCapacity(int expectedSize) {
+        int slotsNeeded = end + Math.max(expectedSize - slotsByKey.size(), 0);
+        if (slotsNeeded > slots.length) {
+            slots = Arrays.copyOf(slots, slotsNeeded);
+        }
+        // A HashMap cannot be resized in place; rehash into one big enough for the batch
+        if (expectedSize > 2 * slotsByKey.size() && expectedSize > 1024) {
+            Map<BookKey, Integer> resized = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+            resized.putAll(slotsByKey);
+            slotsByKey = resized;
+        }
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        if (book == null) {
+            return false;
+        }
+        Integer slot = slotsByKey.remove(BookKey.of(book));
+        if (slot == null) {
+            return false;
+        }
+
+        slots[slot] = null;
+        int removed = end - slotsByKey.size();
+        if (removed > MIN_COMPACTION && removed > slotsByKey.size()) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tracksBooks() {
+        return true;
+    }
+
+    // The book keeps its slot, and with it its document id
+    @Override
+    public void rekey(Book book, BookKey oldKey) {
+        Integer slot = slotsByKey.get(oldKey);
+        if (slot != null && slots[slot] == book) {
+            slotsByKey.remove(oldKey);
+            slotsByKey.put(BookKey.of(book), slot);
+        }
+    }
+
+    @Override
+    public Book get(Book book) {
+        int slot = docId(book);
+        return slot < 0 ? null : slots[slot];
+    }
+
+    // Returns the document id of the book, or -1 if it is not stored
+    public int docId(Book book) {
+        Integer slot = book == null ? null : slotsByKey.get(BookKey.of(book));
+        return slot == null ? -1 : slot;
+    }
+
+    // Returns the book in a slot, or null if that book has been removed
+    public Book book(int docId) {
+        return docId < end ? slots[docId] : null;
+    }
+
+    // One past the highest document id in use
+    public int end() {
+        return end;
+    }
+
+    // Incremented every time document ids are reassigned
+    public long generation() {
+        return generation;
+    }
+
+    @Override
+    public int size() {
+        return slotsByKey.size();
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < end && slots[from] == null) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Book next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                Book book = slots[next];
+                next = advance(next + 1);
+                return book;
+            }
+        };
+    }
+
+    // Splits by slot range, so a parallel scan divides the catalog into contiguous, ordered chunks
+    @Override
+    public Spliterator<Book> spliterator() {
+        return new SlotSpliterator(0, end);
+    }
+
+    // Slides the live books to the front, keeping their order
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < end; slot++) {
+            Book book = slots[slot];
+            if (book != null) {
+                slots[live] = book;
+                slotsByKey.put(BookKey.of(book), live);
+                live++;
+            }
+        }
+        Arrays.fill(slots, live, end, null);
+        end = live;
+        generation++;
+    }
+
+    private final class SlotSpliterator implements Spliterator<Book> {
+        private int from;
+        private final int to;
+
+        SlotSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Book> action) {
+            while (from < to) {
+                Book book = slots[from++];
+                if (book != null) {
+                    action.accept(book);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Book> action) {
+            Book[] books = slots;
+            for (int slot = from; slot < to; slot++) {
+                if (books[slot] != null) {
+                    action.accept(books[slot]);
+                }
+            }
+            from = to;
+        }
+
+        @Override
+        public Spliterator<Book> trySplit() {
+            int middle = (from + to) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            Spliterator<Book> prefix = new SlotSpliterator(from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        // Upper bound: empty slots are counted too
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Open-addressing set of non-negative ints in a single int array, about 4-8 bytes per element
+// instead of the ~50 of a HashSet<Integer>. Not thread-safe.
+final class IntHashSet {
+
+    private static final int EMPTY = -1;
+
+    private int[] slots;
+    private int size;
+
+    IntHashSet() {
+        this(2);
+    }
+
+    IntHashSet(int expectedSize) {
+        slots = new int[capacityFor(expectedSize)];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    // Returns false if the value was already present
+    boolean add(int value) {
+        if ((size + 1) * 4 > slots.length * 3) {
+            grow();
+        }
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(int value) {
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns false if the value was not present
+    boolean remove(int value) {
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != value) {
+            if (slots[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift later values of the probe run into the hole, so lookups never stop short at it.
+        // A value may move back only if the hole lies between its home slot and where it is.
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = mix(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Up to max of the values, in no particular order
+    int[] toArray(int max) {
+        int[] values = new int[Math.min(size, Math.max(max, 0))];
+        int n = 0;
+        for (int i = 0; i < slots.length && n < values.length; i++) {
+            if (slots[i] != EMPTY) {
+                values[n++] = slots[i];
+            }
+        }
+        return values;
+    }
+
+    void forEach(IntConsumer action) {
+        for (int value : slots) {
+            if (value != EMPTY) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        for (int value : old) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Ids are dense and sequential, so spread them before masking
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
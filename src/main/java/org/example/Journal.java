@@ -0,0 +1,39 @@
+package org.example;
+
+import java.util.List;
+
+// Receives every successful mutation of BookService and UserService, after it has been applied.
+// Implementations such as WriteAheadLog make the services' state durable.
+public interface Journal {
+
+    void bookAdded(Book book);
+
+    // Batch operations report everything they changed in one call, so a journal can commit the
+    // whole batch at once
+    default void booksAdded(List<Book> books) {
+        books.forEach(this::bookAdded);
+    }
+
+    void bookRemoved(Book book);
+
+    default void booksRemoved(List<Book> books) {
+        books.forEach(this::bookRemoved);
+    }
+
+    // A cataloged book was changed through one of its setters; oldKey is its title and author
+    // before the change, the book already carries the new values
+    void bookUpdated(BookKey oldKey, Book book);
+
+    void bookPurchased(User user, Book book);
+
+    void reviewAdded(User user, Book book, Review review);
+
+    void userRegistered(User user);
+
+    default void usersRegistered(List<User> users) {
+        users.forEach(this::userRegistered);
+    }
+
+    // The user already carries the new username, password hash and email
+    void userUpdated(String oldUsername, User user);
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+// Adapter that keeps a caller-supplied List as the catalog. Membership uses the list's own
+// contains/remove, so every operation is a linear scan; use HashCatalogStore for large catalogs.
+public class ListCatalogStore implements CatalogStore {
+
+    private final List<Book> books;
+
+    public ListCatalogStore(List<Book> books) {
+        this.books = books;
+    }
+
+    @Override
+    public boolean contains(Book book) {
+        return books.contains(book);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (books.contains(book)) {
+            return false; // Book is already in the list
+        }
+
+        books.add(book);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        return books.remove(book);
+    }
+
+    @Override
+    public int size() {
+        return books.size();
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return books.stream();
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return books.iterator();
+    }
+
+    @Override
+    public Spliterator<Book> spliterator() {
+        return books.spliterator();
+    }
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays a synthetic storefront workload against a RequestFrontEnd and reports the sustained
+// throughput. Each client is a closed loop: it sends a request, waits for the response and sends
+// the next, backing off for a millisecond when the front end rejects it. The request mix is 60% search,
+// 15% purchase, 10% review, 10% login and 5% registration of a new user.
+public class LoadGenerator {
+
+    private static final String[] WORDS = {
+            "Shadow", "River", "Garden", "Empire", "Winter", "Silent", "Golden", "Broken", "Hidden", "Last",
+            "Night", "Ocean", "Crown", "Stone", "Glass", "Fire", "Storm", "Forest", "Iron", "Dream"
+    };
+    private static final String[] GENRES = {"Fiction", "Dystopian", "Fantasy", "Mystery", "Romance", "History"};
+
+    private final String[] titles;
+    private final String[] authors;
+    private final int userCount;
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    // Fills the services with a catalog of bookCount books and userCount users to replay against.
+    // User i has the username "user<i>" and the password "password<i>".
+    public LoadGenerator(BookService bookService, UserService userService, int bookCount, int userCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.titles = new String[bookCount];
+        this.authors = new String[bookCount];
+        this.userCount = userCount;
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            titles[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            authors[i] = "Author " + random.nextInt(Math.max(bookCount / 20, 1));
+            books.add(new Book(titles[i], authors[i], GENRES[random.nextInt(GENRES.length)], 1 + random.nextInt(5000) / 100.0));
+        }
+        bookService.addBooks(books);
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User("user" + i, "password" + i, "user" + i + "@example.com"));
+        }
+        userService.registerUsers(users);
+    }
+
+    // Runs the given number of clients for the duration and returns what they saw
+    public Report run(RequestFrontEnd frontEnd, int clients, long durationMillis) throws InterruptedException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        long deadline = start + durationMillis * 1_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            SplittableRandom random = new SplittableRandom(31L * c + 7);
+            threads[c] = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    ServiceResponse response = frontEnd.handle(next(random));
+                    report.record(response);
+                    if (response.getStatus() == ServiceResponse.Status.REJECTED) {
+                        LockSupport.parkNanos(1_000_000); // Back off and let admitted requests drain
+                    }
+                }
+            }, "load-client-" + c);
+            threads[c].setDaemon(true);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Purchases and reviews of a user go to a handful of books, so most reviews follow a purchase
+    ServiceRequest next(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        int user = random.nextInt(userCount);
+        int book = (user * 31 + random.nextInt(4)) % titles.length;
+        if (roll < 60) {
+            return ServiceRequest.search(random.nextBoolean() ? authors[random.nextInt(authors.length)]
+                    : WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+        } else if (roll < 75) {
+            return ServiceRequest.purchase("user" + user, titles[book], authors[book]);
+        } else if (roll < 85) {
+            return ServiceRequest.review("user" + user, titles[book], authors[book], "Review by user" + user, 1 + random.nextInt(5));
+        } else if (roll < 95) {
+            return ServiceRequest.login("user" + user, "password" + user);
+        }
+        int id = userCount + registrations.getAndIncrement();
+        return ServiceRequest.register("user" + id, "password" + id, "user" + id + "@example.com");
+    }
+
+    // Counts by status and request type, and the latency of the requests that ran
+    public static final class Report {
+        private final Map<ServiceResponse.Status, LongAdder> byStatus = new EnumMap<>(ServiceResponse.Status.class);
+        private final Map<ServiceRequest.Type, LongAdder> byType = new EnumMap<>(ServiceRequest.Type.class);
+        private final Histogram latency = new Histogram();
+        private long elapsedNanos;
+
+        Report() {
+            for (ServiceResponse.Status status : ServiceResponse.Status.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+            for (ServiceRequest.Type type : ServiceRequest.Type.values()) {
+                byType.put(type, new LongAdder());
+            }
+        }
+
+        void record(ServiceResponse response) {
+            byStatus.get(response.getStatus()).increment();
+            if (ran(response.getStatus())) {
+                byType.get(response.getRequest().getType()).increment();
+                latency.record(response.getLatencyNanos());
+            }
+        }
+
+        public long count(ServiceResponse.Status status) {
+            return byStatus.get(status).sum();
+        }
+
+        public long count(ServiceRequest.Type type) {
+            return byType.get(type).sum();
+        }
+
+        // Requests that ran to an answer (OK or FAILED) per second
+        public double getThroughput() {
+            return (count(ServiceResponse.Status.OK) + count(ServiceResponse.Status.FAILED)) * 1e9 / elapsedNanos;
+        }
+
+        public Histogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        @Override
+        public String toString() {
+            Histogram.Snapshot snapshot = latency.snapshot();
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Throughput: %.0f requests/s over %.1f s%n", getThroughput(), elapsedNanos / 1e9));
+            out.append(String.format("Latency (us): p50 %.0f  p99 %.0f  p99.9 %.0f  max %.0f%n",
+                    snapshot.getValueAtPercentile(50) / 1e3, snapshot.getValueAtPercentile(99) / 1e3,
+                    snapshot.getValueAtPercentile(99.9) / 1e3, snapshot.getMax() / 1e3));
+            out.append("Status:");
+            for (ServiceResponse.Status status : ServiceResponse.Status.values()) {
+                out.append(' ').append(status).append('=').append(count(status));
+            }
+            out.append(String.format("%nRequests:"));
+            for (ServiceRequest.Type type : ServiceRequest.Type.values()) {
+                out.append(' ').append(type).append('=').append(count(type));
+            }
+            return out.toString();
+        }
+
+        private static boolean ran(ServiceResponse.Status status) {
+            return status == ServiceResponse.Status.OK || status == ServiceResponse.Status.FAILED;
+        }
+    }
+}
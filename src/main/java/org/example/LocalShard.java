@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// A catalog shard held in this JVM. Also what a ShardServer serves to other processes.
+public class LocalShard implements CatalogShard {
+
+    private final BookService books;
+
+    public LocalShard() {
+        this(new ConcurrentBookService());
+    }
+
+    // The service must be safe to share between threads, e.g. a ConcurrentBookService
+    public LocalShard(BookService books) {
+        this.books = books;
+    }
+
+    @Override
+    public List<Book> search(String keyword, int limit) {
+        return books.searchTopK(keyword, limit, ShardedBookService.ORDER);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        return books.addBook(book);
+    }
+
+    @Override
+    public int addAll(Collection<Book> books) {
+        int added = 0;
+        for (boolean result : this.books.addBooks(new ArrayList<>(books))) {
+            if (result) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public boolean remove(BookKey key) {
+        Book book = find(key);
+        return book != null && books.removeBook(book);
+    }
+
+    @Override
+    public Book find(BookKey key) {
+        return books.findBook(key.getTitle(), key.getAuthor());
+    }
+
+    @Override
+    public int size() {
+        return books.bookCount();
+    }
+
+    // The service behind the shard, for reviews, purchases and everything else that is per book
+    public BookService getBookService() {
+        return books;
+    }
+}
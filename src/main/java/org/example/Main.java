@@ -1,9 +1,16 @@
 package org.example;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        // "--load [seconds] [clients] [maxInFlight]" replays a synthetic workload instead of the demo
+        if (args.length > 0 && args[0].equals("--load")) {
+            runLoad(args);
+            return;
+        }
+
         // Creating an instance of UserService
         UserService userService = new UserService();
 
@@ -61,4 +68,22 @@ public class Main {
             System.out.println("Failed to add review. The user might not have purchased this book.");
         }
     }
-}
\ No newline at end of file
+
+    // Drives thread-safe services through a RequestFrontEnd with a synthetic workload and prints
+    // the sustained throughput. Passwords are hashed with a reduced KDF cost so the run is not
+    // all key stretching.
+    private static void runLoad(String[] args) throws InterruptedException {
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int maxInFlight = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        ConcurrentBookService bookService = new ConcurrentBookService();
+        ConcurrentUserService userService = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(10_000));
+        LoadGenerator generator = new LoadGenerator(bookService, userService, 100_000, 1_000, 42);
+        try (RequestFrontEnd frontEnd = new RequestFrontEnd(bookService, userService, maxInFlight, 1_000)) {
+            System.out.printf("Replaying for %d s with %d clients, %d requests in flight at most, on %s threads%n",
+                    seconds, clients, maxInFlight, frontEnd.usesVirtualThreads() ? "virtual" : "platform");
+            System.out.println(generator.run(frontEnd, clients, seconds * 1000L));
+        }
+    }
+}
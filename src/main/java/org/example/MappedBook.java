@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.List;
+
+// Flyweight view of one row of a MappedCatalog: it holds only the catalog and the row number and
+// decodes fields on access. Catalog fields are read-only; reviews can still be added.
+// Two views of the same row are equal, so either can be used to look the book up.
+public class MappedBook extends Book {
+
+    private final MappedCatalog catalog;
+    private final int row;
+
+    MappedBook(MappedCatalog catalog, int row) {
+        super(null, null, null, 0, null);
+        this.catalog = catalog;
+        this.row = row;
+    }
+
+    MappedCatalog catalog() {
+        return catalog;
+    }
+
+    int row() {
+        return row;
+    }
+
+    @Override
+    public String getTitle() {
+        return catalog.title(row);
+    }
+
+    @Override
+    public void setTitle(String title) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getAuthor() {
+        return catalog.author(row);
+    }
+
+    @Override
+    public void setAuthor(String author) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getGenre() {
+        return catalog.genre(row);
+    }
+
+    @Override
+    public void setGenre(String genre) {
+        throw readOnly();
+    }
+
+    @Override
+    public double getPrice() {
+        return catalog.price(row);
+    }
+
+    @Override
+    public void setPrice(double price) {
+        throw readOnly();
+    }
+
+    @Override
+    public List<String> getReviews() {
+        return catalog.reviews(row);
+    }
+
+    @Override
+    List<String> peekReviews() {
+        return catalog.reviews(row);
+    }
+
+    @Override
+    public void setReviews(List<String> reviews) {
+        catalog.setReviews(row, reviews);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MappedBook)) {
+            return false;
+        }
+        MappedBook other = (MappedBook) o;
+        return catalog == other.catalog && row == other.row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(catalog) + row;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Books of a mapped catalog are read-only");
+    }
+}
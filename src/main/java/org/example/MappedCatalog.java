@@ -0,0 +1,344 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Read-only columnar catalog file that is memory-mapped instead of loaded. Layout:
+//   header        magic, version, row count, dictionary size, hash capacity, section offsets
+//   price column  one double per row
+//   title, author and genre columns   one int per row: an id in the string dictionary, -1 for null
+//   dictionary    int offset of every distinct string into the string data, plus an end offset
+//   string data   UTF-8 bytes of every distinct string
+//   hash table    open-addressed row+1 per slot (0 is empty), keyed by title and author
+// Opening the file costs one mmap; rows are decoded on access by MappedBook flyweights, so the
+// catalog stays in the page cache rather than on the heap. One mapping holds at most 2 GB.
+// Reviews are not part of the file: reviews added to mapped books are kept on the heap.
+public final class MappedCatalog {
+
+    private static final int MAGIC = 0x424B4D43; // "BKMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int dictionarySize;
+    private final int hashMask;
+    private final int priceOffset;
+    private final int titleOffset;
+    private final int authorOffset;
+    private final int genreOffset;
+    private final int dictionaryOffset;
+    private final int stringsOffset;
+    private final int hashOffset;
+
+    private final RowReviews reviews = new RowReviews();
+
+    private MappedCatalog(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped catalog file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported mapped catalog version " + version);
+        }
+        this.rows = buffer.getInt(8);
+        this.dictionarySize = buffer.getInt(12);
+        this.hashMask = buffer.getInt(16) - 1;
+        this.priceOffset = buffer.getInt(20);
+        this.titleOffset = buffer.getInt(24);
+        this.authorOffset = buffer.getInt(28);
+        this.genreOffset = buffer.getInt(32);
+        this.dictionaryOffset = buffer.getInt(36);
+        this.stringsOffset = buffer.getInt(40);
+        this.hashOffset = buffer.getInt(44);
+        if (hashOffset + 4L * (hashMask + 1) != buffer.capacity()) {
+            throw new IOException("Truncated mapped catalog file");
+        }
+    }
+
+    // Maps a catalog file written by write
+    public static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mapped catalog files are limited to 2 GB: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCatalog(mapped); // The mapping stays valid after the channel closes
+        }
+    }
+
+    // Writes the books to a catalog file in the order given; later books with the title and
+    // author of an earlier one are skipped. The file is replaced atomically.
+    public static void write(Path file, Iterable<Book> books) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        Set<BookKey> seen = new HashSet<>();
+        IntColumn titles = new IntColumn();
+        IntColumn authors = new IntColumn();
+        IntColumn genres = new IntColumn();
+        List<Double> prices = new ArrayList<>();
+        for (Book book : books) {
+            if (!seen.add(BookKey.of(book))) {
+                continue;
+            }
+            titles.add(intern(book.getTitle(), ids, strings));
+            authors.add(intern(book.getAuthor(), ids, strings));
+            genres.add(intern(book.getGenre(), ids, strings));
+            prices.add(book.getPrice());
+        }
+
+        int count = prices.size();
+        long stringBytes = 0;
+        for (byte[] string : strings) {
+            stringBytes += string.length;
+        }
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        long priceOffset = HEADER_BYTES;
+        long titleOffset = priceOffset + 8L * count;
+        long authorOffset = titleOffset + 4L * count;
+        long genreOffset = authorOffset + 4L * count;
+        long dictionaryOffset = genreOffset + 4L * count;
+        long stringsOffset = dictionaryOffset + 4L * (strings.size() + 1);
+        long hashOffset = stringsOffset + stringBytes;
+        if (hashOffset + 4L * capacity > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for one mapped file: " + count + " books");
+        }
+
+        int[] table = new int[capacity];
+        for (int row = 0; row < count; row++) {
+            int slot = hash(titles.get(row) < 0 ? null : strings.get(titles.get(row)),
+                    authors.get(row) < 0 ? null : strings.get(authors.get(row))) & (capacity - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = row + 1;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            int[] header = {MAGIC, VERSION, count, strings.size(), capacity, (int) priceOffset, (int) titleOffset,
+                    (int) authorOffset, (int) genreOffset, (int) dictionaryOffset, (int) stringsOffset, (int) hashOffset};
+            for (int value : header) {
+                out.writeInt(value);
+            }
+            out.write(new byte[HEADER_BYTES - 4 * header.length]);
+
+            for (double price : prices) {
+                out.writeDouble(price);
+            }
+            titles.writeTo(out);
+            authors.writeTo(out);
+            genres.writeTo(out);
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            for (int slot : table) {
+                out.writeInt(slot);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    // Returns a flyweight view of the row
+    public Book book(int row) {
+        return new MappedBook(this, row);
+    }
+
+    // Returns the row holding the book with this title and author, or -1
+    public int find(String title, String author) {
+        byte[] titleBytes = title == null ? null : title.getBytes(StandardCharsets.UTF_8);
+        byte[] authorBytes = author == null ? null : author.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(titleBytes, authorBytes) & hashMask;
+        while (true) {
+            int row = buffer.getInt(hashOffset + 4 * slot) - 1;
+            if (row < 0) {
+                return -1;
+            }
+            if (stringEquals(buffer.getInt(titleOffset + 4 * row), titleBytes)
+                    && stringEquals(buffer.getInt(authorOffset + 4 * row), authorBytes)) {
+                return row;
+            }
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    String title(int row) {
+        return string(buffer.getInt(titleOffset + 4 * row));
+    }
+
+    String author(int row) {
+        return string(buffer.getInt(authorOffset + 4 * row));
+    }
+
+    String genre(int row) {
+        return string(buffer.getInt(genreOffset + 4 * row));
+    }
+
+    double price(int row) {
+        return buffer.getDouble(priceOffset + 8 * row);
+    }
+
+    // Marks the dictionary ids of the strings containing the keyword. A search tests every
+    // distinct string once and then checks rows against the hits with rowMatches, so most of
+    // the scan only reads the int columns.
+    BitSet matchingStrings(String keyword) {
+        byte[] pattern = keyword.getBytes(StandardCharsets.UTF_8);
+        BitSet hits = new BitSet(dictionarySize);
+        for (int id = 0; id < dictionarySize; id++) {
+            if (stringContains(id, pattern)) {
+                hits.set(id);
+            }
+        }
+        return hits;
+    }
+
+    boolean rowMatches(int row, BitSet hits) {
+        return hit(hits, buffer.getInt(titleOffset + 4 * row))
+                || hit(hits, buffer.getInt(authorOffset + 4 * row))
+                || hit(hits, buffer.getInt(genreOffset + 4 * row));
+    }
+
+    // Reviews of a row. Rows nobody reviewed share no storage until the first review is added.
+    List<String> reviews(int row) {
+        return reviews.get(row);
+    }
+
+    void setReviews(int row, List<String> list) {
+        reviews.set(row, list);
+    }
+
+    private static boolean hit(BitSet hits, int id) {
+        return id >= 0 && hits.get(id);
+    }
+
+    private String string(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int start = buffer.getInt(dictionaryOffset + 4 * id);
+        int end = buffer.getInt(dictionaryOffset + 4 * (id + 1));
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(stringsOffset + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int id, byte[] expected) {
+        if (id < 0 || expected == null) {
+            return id < 0 && expected == null;
+        }
+        int start = stringsOffset + buffer.getInt(dictionaryOffset + 4 * id);
+        int end = stringsOffset + buffer.getInt(dictionaryOffset + 4 * (id + 1));
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // UTF-8 is self-synchronizing, so a byte-level substring match is a character-level one
+    private boolean stringContains(int id, byte[] pattern) {
+        int start = stringsOffset + buffer.getInt(dictionaryOffset + 4 * id);
+        int last = stringsOffset + buffer.getInt(dictionaryOffset + 4 * (id + 1)) - pattern.length;
+        for (int from = start; from <= last; from++) {
+            int i = 0;
+            while (i < pattern.length && buffer.get(from + i) == pattern[i]) {
+                i++;
+            }
+            if (i == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<byte[]> strings) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    // FNV-1a over the UTF-8 bytes, so the writer and reader agree without decoding strings
+    private static int hash(byte[] title, byte[] author) {
+        int hash = 0x811C9DC5;
+        hash = fnv(hash, title);
+        hash = fnv(hash ^ 0xFF, author);
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int fnv(int hash, byte[] bytes) {
+        if (bytes == null) {
+            return hash * 0x01000193;
+        }
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static final class IntColumn {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Catalog store over a MappedCatalog. The mapped rows are the base catalog; books added later
+// live in an in-memory HashCatalogStore and removed rows are marked in a bitmap, so the file
+// itself is never written. Write a new file (MappedCatalog.write) to fold the changes in.
+public class MappedCatalogStore implements CatalogStore {
+
+    private final MappedCatalog base;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private final HashCatalogStore added = new HashCatalogStore();
+
+    public MappedCatalogStore(MappedCatalog base) {
+        this.base = base;
+    }
+
+    @Override
+    public boolean contains(Book book) {
+        return liveRow(book) >= 0 || added.contains(book);
+    }
+
+    @Override
+    public Book get(Book book) {
+        int row = liveRow(book);
+        return row >= 0 ? base.book(row) : added.get(book);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (liveRow(book) >= 0) {
+            return false; // Book is already in the mapped catalog
+        }
+        return added.add(book);
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        int row = liveRow(book);
+        if (row < 0) {
+            return added.remove(book);
+        }
+        removed.set(row);
+        removedCount++;
+        return true;
+    }
+
+    // Only books added since the file was opened can change; mapped books are read-only
+    @Override
+    public boolean tracksBooks() {
+        return true;
+    }
+
+    // Skips the mapped rows, so opening a large file does not visit every one of them
+    @Override
+    public Iterable<Book> trackedBooks() {
+        return added;
+    }
+
+    @Override
+    public void rekey(Book book, BookKey oldKey) {
+        added.rekey(book, oldKey);
+    }
+
+    @Override
+    public int size() {
+        return base.size() - removedCount + added.size();
+    }
+
+    @Override
+    public Stream<Book> stream() {
+        return Stream.concat(liveRows().mapToObj(base::book), added.stream());
+    }
+
+    // Tests each distinct string of the mapped catalog once, then filters rows by dictionary id
+    @Override
+    public Stream<Book> search(String keyword) {
+        BitSet hits = base.matchingStrings(keyword);
+        Stream<Book> mapped = hits.isEmpty() ? Stream.empty()
+                : liveRows().filter(row -> base.rowMatches(row, hits)).mapToObj(base::book);
+        return Stream.concat(mapped, added.search(keyword));
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return stream().iterator();
+    }
+
+    @Override
+    public Spliterator<Book> spliterator() {
+        return stream().spliterator();
+    }
+
+    private IntStream liveRows() {
+        return IntStream.range(0, base.size()).filter(row -> !removed.get(row));
+    }
+
+    // Row of the book in the mapped catalog, or -1 if it is not there or was removed
+    private int liveRow(Book book) {
+        if (book == null) {
+            return -1;
+        }
+        int row = book instanceof MappedBook && ((MappedBook) book).catalog() == base
+                ? ((MappedBook) book).row()
+                : base.find(book.getTitle(), book.getAuthor());
+        return row >= 0 && !removed.get(row) ? row : -1;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example;
+
+// Receives periodic ServiceMetrics snapshots, e.g. to publish them to a monitoring system
+public interface MetricsExporter {
+
+    void export(ServiceMetrics.Snapshot snapshot);
+}
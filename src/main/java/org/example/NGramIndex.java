@@ -0,0 +1,233 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// In-memory trigram inverted index over the title, author and genre of every book.
+// Books are identified by the document id their store assigned them, and every trigram maps
+// to a sorted list of the ids whose fields contain it. A substring search intersects the
+// posting lists of the keyword's trigrams; the caller checks the surviving candidates.
+// Ids of removed books stay in the lists until the owner rebuilds the index, so candidates
+// must always be resolved against the store.
+public class NGramIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    // Indexes a book under its document id; ids must be added in increasing order
+    public void add(int docId, Book book) {
+        indexField(docId, book.getTitle());
+        indexField(docId, book.getAuthor());
+        indexField(docId, book.getGenre());
+    }
+
+    // Re-indexes one changed field of an indexed book in place: the id joins the posting lists of
+    // the new value's trigrams and leaves those of old trigrams that no field of the book still has
+    public void update(int docId, String oldValue, String newValue, Book book) {
+        if (oldValue != null && oldValue.length() >= GRAM_LENGTH) {
+            Set<Long> current = new HashSet<>();
+            collectGrams(book.getTitle(), current);
+            collectGrams(book.getAuthor(), current);
+            collectGrams(book.getGenre(), current);
+            for (int i = 0; i + GRAM_LENGTH <= oldValue.length(); i++) {
+                long gram = gram(oldValue, i);
+                Postings list = current.contains(gram) ? null : postings.get(gram);
+                if (list != null && list.remove(docId) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        if (newValue != null) {
+            for (int i = 0; i + GRAM_LENGTH <= newValue.length(); i++) {
+                postings.computeIfAbsent(gram(newValue, i), g -> new Postings()).insert(docId);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    // Returns, in increasing order, the ids of the books that contain every trigram of the
+    // keyword in one of their fields, or null when the keyword is too short to use the index.
+    // The intersection is computed lazily as the iterator is consumed.
+    public PrimitiveIterator.OfInt candidates(String keyword) {
+        if (keyword.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        Postings[] lists = postingsFor(keyword);
+        if (lists == null) {
+            return IntStream.empty().iterator(); // Some trigram of the keyword appears in no book
+        }
+        return new Intersection(lists);
+    }
+
+    // Upper bound on the number of candidates for the keyword: the length of its shortest posting
+    // list. Returns -1 when the keyword is too short to use the index.
+    public int estimate(String keyword) {
+        if (keyword.length() < GRAM_LENGTH) {
+            return -1;
+        }
+        Postings[] lists = postingsFor(keyword);
+        return lists == null ? 0 : lists[0].size;
+    }
+
+    // Looks up the posting list of every distinct trigram in the keyword, shortest first,
+    // or returns null if any of them is missing
+    private Postings[] postingsFor(String keyword) {
+        int grams = keyword.length() - GRAM_LENGTH + 1;
+        List<Postings> lists = new ArrayList<>(grams);
+        for (int i = 0; i < grams; i++) {
+            Postings list = postings.get(gram(keyword, i));
+            if (list == null) {
+                return null;
+            }
+            if (!lists.contains(list)) {
+                lists.add(list);
+            }
+        }
+
+        Postings[] sorted = lists.toArray(new Postings[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.size, b.size));
+        return sorted;
+    }
+
+    private void indexField(int docId, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            postings.computeIfAbsent(gram(value, i), g -> new Postings()).add(docId);
+        }
+    }
+
+    private static void collectGrams(String value, Set<Long> into) {
+        if (value != null) {
+            for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+                into.add(gram(value, i));
+            }
+        }
+    }
+
+    // Packs three UTF-16 chars into one key
+    static long gram(String value, int offset) {
+        return ((long) value.charAt(offset) << 32)
+                | ((long) value.charAt(offset + 1) << 16)
+                | value.charAt(offset + 2);
+    }
+
+    // Walks the shortest posting list and probes the others; their cursors only move forward
+    // because candidates arrive in increasing id order
+    private static final class Intersection implements PrimitiveIterator.OfInt {
+        private final Postings[] lists;
+        private final int[] cursors;
+        private int position;
+        private int next = -1;
+
+        Intersection(Postings[] lists) {
+            this.lists = lists;
+            this.cursors = new int[lists.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            Postings shortest = lists[0];
+            while (next < 0 && position < shortest.size) {
+                int docId = shortest.ids[position++];
+                if (containsAll(docId)) {
+                    next = docId;
+                }
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int docId = next;
+            next = -1;
+            return docId;
+        }
+
+        private boolean containsAll(int docId) {
+            for (int l = 1; l < lists.length; l++) {
+                Postings list = lists[l];
+                int cursor = list.seek(cursors[l], docId);
+                cursors[l] = cursor;
+                if (cursor == list.size || list.ids[cursor] != docId) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Growable sorted array of document ids
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size > 0 && ids[size - 1] == docId) {
+                return; // Same trigram seen twice in one book
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+
+        // Adds an id anywhere in the list, keeping it sorted
+        void insert(int docId) {
+            int pos = Arrays.binarySearch(ids, 0, size, docId);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = docId;
+            size++;
+        }
+
+        boolean remove(int docId) {
+            int pos = Arrays.binarySearch(ids, 0, size, docId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        // Returns the first position at or after from holding an id >= docId, galloping then
+        // binary searching so long runs of non-matching ids are skipped quickly
+        int seek(int from, int docId) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < docId) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            int pos = Arrays.binarySearch(ids, low, high, docId);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+// A keyword prepared for BookService.searchNormalized: folded like the books' search fields (see
+// TextFolding) and matched against their folded bytes with Boyer-Moore-Horspool. Matching
+// allocates nothing, so a query prepared once can be run any number of times without garbage.
+// Immutable and safe to share between threads.
+public final class NormalizedQuery {
+
+    private final String keyword;
+    private final byte[] pattern;
+    // How far the pattern may move when the text byte under its last position is b
+    private final int[] shift = new int[256];
+
+    private NormalizedQuery(String keyword) {
+        this.keyword = keyword;
+        this.pattern = TextFolding.foldToBytes(keyword);
+        int last = pattern.length - 1;
+        for (int b = 0; b < shift.length; b++) {
+            shift[b] = pattern.length;
+        }
+        for (int i = 0; i < last; i++) {
+            shift[pattern[i] & 0xFF] = last - i;
+        }
+    }
+
+    public static NormalizedQuery of(String keyword) {
+        if (keyword == null) {
+            throw new IllegalArgumentException("keyword must not be null");
+        }
+        return new NormalizedQuery(keyword);
+    }
+
+    // True if the folded keyword occurs in the folded text; an empty keyword matches everything
+    public boolean matches(byte[] text) {
+        int length = pattern.length;
+        if (length == 0) {
+            return true;
+        }
+        int last = length - 1;
+        byte tail = pattern[last];
+        int end = text.length - length;
+        int at = 0;
+        while (at <= end) {
+            byte b = text[at + last];
+            if (b == tail) {
+                int i = last - 1;
+                while (i >= 0 && text[at + i] == pattern[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return true;
+                }
+            }
+            at += shift[b & 0xFF];
+        }
+        return false;
+    }
+
+    public boolean matches(Book book) {
+        return matches(book.normalizedFields());
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    @Override
+    public String toString() {
+        return "NormalizedQuery[" + keyword + "]";
+    }
+}
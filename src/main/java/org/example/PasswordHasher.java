@@ -0,0 +1,118 @@
+package org.example;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Salted PBKDF2-HMAC-SHA256 password hashing. Hashes are self-describing strings of the form
+//   pbkdf2-sha256$<iterations>$<salt>$<hash>
+// so the cost can be raised later: verify() accepts any iteration count up to a maximum and
+// needsRehash() tells the caller when a stored hash is weaker than the current setting. The
+// maximum bounds what one verification can cost, whatever a stored string claims.
+public class PasswordHasher {
+
+    // OWASP's current recommendation for PBKDF2-HMAC-SHA256
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final int maxIterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    // Hashes with the given cost and verifies hashes up to the greater of it and the default
+    public PasswordHasher(int iterations) {
+        this(iterations, Math.max(iterations, DEFAULT_ITERATIONS));
+    }
+
+    public PasswordHasher(int iterations, int maxIterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        }
+        if (maxIterations < iterations) {
+            throw new IllegalArgumentException("maxIterations must be at least iterations: " + maxIterations);
+        }
+        this.iterations = iterations;
+        this.maxIterations = maxIterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    // Hashes the password with a fresh random salt
+    public String hash(String password) {
+        if (password == null) {
+            throw new IllegalArgumentException("password must not be null");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + base64.encodeToString(salt) + '$' + base64.encodeToString(hash);
+    }
+
+    // Checks a password against a stored hash in constant time. Hashes naming an iteration count
+    // outside 1 to maxIterations are rejected without running the KDF.
+    public boolean verify(String password, String stored) {
+        String[] parts = split(stored);
+        if (parts == null || password == null) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            if (storedIterations < 1 || storedIterations > maxIterations) {
+                return false;
+            }
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false; // Corrupt hash
+        }
+    }
+
+    // True if the stored hash was made with a different cost than this hasher uses
+    public boolean needsRehash(String stored) {
+        String[] parts = split(stored);
+        return parts == null || !parts[0].equals(Integer.toString(iterations));
+    }
+
+    // True if the value is a hash produced by this class rather than a plaintext password
+    public static boolean isHash(String value) {
+        return split(value) != null;
+    }
+
+    private static String[] split(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        return parts.length == 3 ? parts : null;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
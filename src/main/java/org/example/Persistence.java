@@ -0,0 +1,115 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Durable state for a BookService and a UserService kept in one directory:
+//   snapshot.bin  the state as of the last checkpoint (see SnapshotFile)
+//   wal.log       every mutation since then (see WriteAheadLog)
+// open() restores the services by loading the snapshot and replaying the log records it does not
+// hold, then attaches the log as their journal. checkpoint() folds the log into a new snapshot.
+public class Persistence implements Closeable {
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String LOG_FILE = "wal.log";
+
+    private final Path directory;
+    private final BookService bookService;
+    private final UserService userService;
+    private final WriteAheadLog log;
+    private final long replayedRecords;
+    private ScheduledExecutorService checkpointer;
+
+    private Persistence(Path directory, BookService bookService, UserService userService,
+                        WriteAheadLog log, long replayedRecords) {
+        this.directory = directory;
+        this.bookService = bookService;
+        this.userService = userService;
+        this.log = log;
+        this.replayedRecords = replayedRecords;
+    }
+
+    // Restores the given (empty) services from the directory and journals them from now on
+    public static Persistence open(Path directory, FsyncPolicy policy,
+                                   BookService bookService, UserService userService) throws IOException {
+        Files.createDirectories(directory);
+        SnapshotFile.Coverage coverage = SnapshotFile.load(directory.resolve(SNAPSHOT_FILE), bookService, userService);
+        WriteAheadLog.Replayed replayed = WriteAheadLog.replay(directory.resolve(LOG_FILE), bookService, userService, coverage);
+
+        // New records are numbered past everything the snapshot and the log have seen
+        WriteAheadLog log = new WriteAheadLog(directory.resolve(LOG_FILE), policy,
+                Math.max(coverage.lastLsn, replayed.lastLsn));
+        bookService.setJournal(log);
+        userService.setJournal(log);
+        return new Persistence(directory, bookService, userService, log, replayed.records);
+    }
+
+    public BookService getBookService() {
+        return bookService;
+    }
+
+    public UserService getUserService() {
+        return userService;
+    }
+
+    // Number of log records applied on top of the snapshot when the directory was opened
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    // Writes a fresh snapshot and empties the log. Appends carry on while the snapshot is written,
+    // but only the Concurrent* services may be changed meanwhile: the others are read without
+    // locks, so call this while nothing else uses them.
+    public void checkpoint() throws IOException {
+        log.checkpoint(coveredLsn -> SnapshotFile.write(directory.resolve(SNAPSHOT_FILE), bookService, userService,
+                coveredLsn, log::lastLsn));
+    }
+
+    // Checkpoints in the background every intervalMillis and hands any failure to onFailure. The
+    // snapshot is read while requests keep changing the services, so both must be the Concurrent*
+    // variants.
+    public synchronized void startPeriodicCheckpoints(long intervalMillis, Consumer<IOException> onFailure) {
+        if (!(bookService instanceof ConcurrentBookService) || !(userService instanceof ConcurrentUserService)) {
+            throw new IllegalStateException("Background checkpoints need a ConcurrentBookService and a ConcurrentUserService");
+        }
+        if (checkpointer != null) {
+            return;
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                // Keep the schedule alive; the log still holds everything, so the next run retries
+                onFailure.accept(e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Forces outstanding log records and detaches the journal
+    @Override
+    public synchronized void close() throws IOException {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            try {
+                // A checkpoint already running finishes before the log is closed under it
+                checkpointer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        bookService.setJournal(null);
+        userService.setJournal(null);
+        log.close();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Sorted index from price to the document ids of the books at that price, for range predicates
+public class PriceIndex {
+
+    private final TreeMap<Double, Ids> byPrice = new TreeMap<>();
+
+    public void add(int docId, double price) {
+        byPrice.computeIfAbsent(price, p -> new Ids()).add(docId);
+    }
+
+    public void remove(int docId, double price) {
+        Ids ids = byPrice.get(price);
+        if (ids != null && ids.remove(docId) && ids.size == 0) {
+            byPrice.remove(price);
+        }
+    }
+
+    public void clear() {
+        byPrice.clear();
+    }
+
+    // Counts the books priced in the range, giving up once the count exceeds limit
+    public int count(double min, boolean minInclusive, double max, boolean maxInclusive, int limit) {
+        int count = 0;
+        for (Ids ids : range(min, minInclusive, max, maxInclusive).values()) {
+            count += ids.size;
+            if (count > limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Sets the bit of every book priced in the range
+    public void collect(double min, boolean minInclusive, double max, boolean maxInclusive, BitSet into) {
+        for (Map.Entry<Double, Ids> entry : range(min, minInclusive, max, maxInclusive).entrySet()) {
+            Ids ids = entry.getValue();
+            for (int i = 0; i < ids.size; i++) {
+                into.set(ids.values[i]);
+            }
+        }
+    }
+
+    private NavigableMap<Double, Ids> range(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        if (min > max || (min == max && !(minInclusive && maxInclusive))) {
+            return new TreeMap<>();
+        }
+        return byPrice.subMap(min, minInclusive, max, maxInclusive);
+    }
+
+    // Unordered growable set of ids; books sharing one price are few compared to the catalog
+    private static final class Ids {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int docId) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = docId;
+        }
+
+        boolean remove(int docId) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == docId) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+// Record of who bought which book. Users (by identity) and books (by title and author) get dense
+// int ids on their first purchase; each user keeps an IntHashSet of book ids and each book an
+// IntHashSet of buyer ids, so "has this user bought this book" is one hash probe whatever the
+// user's history, and "who bought this book" never scans the users. Removing a book forgets its
+// purchases and hands its id, and the id of any user left without purchases, to the next newcomer,
+// so the ledger grows with the catalog and its buyers rather than with everything ever sold.
+// Thread-safe: each set is guarded by its own entry; purchases share releaseLock and removals
+// take it exclusively, so no purchase is holding an id while it is released.
+public class PurchaseLedger {
+
+    private final Map<UserKey, Entry> users = new ConcurrentHashMap<>();
+    private final Map<BookKey, Entry> books = new ConcurrentHashMap<>();
+    private final ReadWriteLock releaseLock = new ReentrantReadWriteLock();
+
+    // Id -> user or book, for turning id sets back into objects
+    private final Ids<User> userIds = new Ids<>();
+    private final Ids<Book> bookIds = new Ids<>();
+
+    // "Customers also bought" counts keyed by the book ids; null until enableCoPurchases
+    private volatile CoPurchaseIndex coPurchases;
+
+    // Records the purchase; returns false if the user had already bought the book. Takes the
+    // buyer's entry and then the book's, always in that order, so both sides change together.
+    public boolean record(User user, Book book) {
+        releaseLock.readLock().lock();
+        try {
+            Entry buyer = users.computeIfAbsent(new UserKey(user), key -> new Entry(userIds.assign(user)));
+            Entry bought = books.computeIfAbsent(BookKey.of(book), key -> new Entry(bookIds.assign(book)));
+            CoPurchaseIndex recommendations = coPurchases;
+            int[] history = null;
+            synchronized (buyer) {
+                synchronized (bought) {
+                    if (!buyer.ids.add(bought.id)) {
+                        return false;
+                    }
+                    bought.ids.add(buyer.id);
+                }
+                if (recommendations != null) {
+                    history = buyer.ids.toArray(CoPurchaseIndex.MAX_HISTORY + 1);
+                }
+            }
+            if (recommendations != null) {
+                recommendations.purchased(bought.id, history);
+            }
+            return true;
+        } finally {
+            releaseLock.readLock().unlock();
+        }
+    }
+
+    // Forgets every purchase of the book, e.g. once it leaves the catalog, and releases its id
+    // along with the ids of buyers who have nothing else left
+    public void remove(Book book) {
+        releaseLock.writeLock().lock();
+        try {
+            Entry bought = books.remove(BookKey.of(book));
+            if (bought == null) {
+                return;
+            }
+            // The rows that count this book are those of the books its buyers also own
+            IntHashSet related = new IntHashSet();
+            int[] buyerIds;
+            synchronized (bought) {
+                buyerIds = bought.ids.toArray(Integer.MAX_VALUE);
+            }
+            for (int buyerId : buyerIds) {
+                User user = userIds.get(buyerId);
+                Entry buyer = users.get(new UserKey(user));
+                boolean empty;
+                synchronized (buyer) {
+                    buyer.ids.remove(bought.id);
+                    buyer.ids.forEach(related::add);
+                    empty = buyer.ids.size() == 0;
+                }
+                if (empty) {
+                    users.remove(new UserKey(user));
+                    userIds.release(buyer.id);
+                }
+            }
+            CoPurchaseIndex recommendations = coPurchases;
+            if (recommendations != null) {
+                recommendations.remove(bought.id, related.toArray(Integer.MAX_VALUE));
+            }
+            bookIds.release(bought.id);
+        } finally {
+            releaseLock.writeLock().unlock();
+        }
+    }
+
+    // Moves the purchase history of a book whose title or author changed to its current key
+    public void rekey(Book book, BookKey oldKey) {
+        Entry bought = books.remove(oldKey);
+        if (bought != null) {
+            books.put(BookKey.of(book), bought);
+        }
+    }
+
+    public boolean hasPurchased(User user, Book book) {
+        if (user == null || book == null) {
+            return false;
+        }
+        Entry buyer = users.get(new UserKey(user));
+        Entry bought = buyer == null ? null : books.get(BookKey.of(book));
+        if (bought == null) {
+            return false;
+        }
+        synchronized (buyer) {
+            return buyer.ids.contains(bought.id);
+        }
+    }
+
+    // Books the user has bought, in no particular order
+    public List<Book> purchasesOf(User user) {
+        Entry buyer = users.get(new UserKey(user));
+        return buyer == null ? new ArrayList<>() : resolve(buyer, bookIds);
+    }
+
+    // Users who bought the book, in no particular order
+    public List<User> buyersOf(Book book) {
+        Entry bought = books.get(BookKey.of(book));
+        return bought == null ? new ArrayList<>() : resolve(bought, userIds);
+    }
+
+    public int buyerCount(Book book) {
+        Entry bought = books.get(BookKey.of(book));
+        if (bought == null) {
+            return 0;
+        }
+        synchronized (bought) {
+            return bought.ids.size();
+        }
+    }
+
+    // Starts counting co-purchases, first replaying the purchases so far buyer by buyer. Does
+    // nothing if they are already counted. Purchases wait until the replay is done.
+    void enableCoPurchases(int perBook) {
+        CoPurchaseIndex recommendations = new CoPurchaseIndex(perBook);
+        releaseLock.writeLock().lock();
+        try {
+            if (coPurchases != null) {
+                return;
+            }
+            for (Entry buyer : users.values()) {
+                recommendations.bought(bookIdsOf(buyer));
+            }
+            coPurchases = recommendations;
+        } finally {
+            releaseLock.writeLock().unlock();
+        }
+    }
+
+    boolean countsCoPurchases() {
+        return coPurchases != null;
+    }
+
+    // Every book kept in the book's co-purchase row, most often bought with it first; empty if
+    // nobody bought it or co-purchases are not counted
+    List<Book> alsoBought(Book book) {
+        List<Book> result = new ArrayList<>();
+        CoPurchaseIndex recommendations = coPurchases;
+        if (recommendations == null) {
+            return result;
+        }
+        // Under the read lock no id in the row can be released and handed to another book
+        releaseLock.readLock().lock();
+        try {
+            Entry bought = books.get(BookKey.of(book));
+            if (bought != null) {
+                for (int id : recommendations.top(bought.id, recommendations.perBook())) {
+                    result.add(bookIds.get(id));
+                }
+            }
+            return result;
+        } finally {
+            releaseLock.readLock().unlock();
+        }
+    }
+
+    // Visits every buyer with the books they bought, for snapshots
+    void forEach(BiConsumer<User, List<Book>> action) {
+        Object[] byId = userIds.table();
+        for (Object user : byId) {
+            if (user != null) {
+                action.accept((User) user, purchasesOf((User) user));
+            }
+        }
+    }
+
+    private static int[] bookIdsOf(Entry buyer) {
+        synchronized (buyer) {
+            return buyer.ids.toArray(Integer.MAX_VALUE);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> resolve(Entry entry, Ids<T> ids) {
+        List<T> result = new ArrayList<>();
+        synchronized (entry) {
+            // Read the table under the entry: none of its ids can be released until we let go
+            Object[] byId = ids.table();
+            entry.ids.forEach(id -> result.add((T) byId[id]));
+        }
+        return result;
+    }
+
+    // Dense ids for users or books. Released ids are handed out again before new ones, so the
+    // table is only as large as the most users or books holding purchases at one time.
+    private static final class Ids<T> {
+        private Object[] byId = new Object[16];
+        private int[] free = new int[16];
+        private int freeCount;
+        private int count;
+
+        synchronized int assign(T value) {
+            int id;
+            if (freeCount > 0) {
+                id = free[--freeCount];
+            } else {
+                if (count == byId.length) {
+                    byId = Arrays.copyOf(byId, count * 2);
+                }
+                id = count++;
+            }
+            byId[id] = value;
+            return id;
+        }
+
+        synchronized void release(int id) {
+            byId[id] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = id;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized T get(int id) {
+            return (T) byId[id];
+        }
+
+        // The table only grows by copying and a slot changes only once its id is released, so
+        // the current array resolves every id still held in a set
+        synchronized Object[] table() {
+            return byId;
+        }
+    }
+
+    // A user's set of book ids, or a book's set of buyer ids
+    private static final class Entry {
+        final int id;
+        final IntHashSet ids = new IntHashSet();
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+
+    // Users are compared by identity: their username can change after a purchase
+    private static final class UserKey {
+        private final User user;
+
+        UserKey(User user) {
+            this.user = user;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof UserKey && ((UserKey) o).user == user;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(user);
+        }
+    }
+}
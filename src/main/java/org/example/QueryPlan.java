@@ -0,0 +1,61 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+// The way BookService evaluates a BookQuery: either an index-driven lookup that checks the
+// filters on a candidate bitmap, or a full scan. toString() explains the plan.
+public class QueryPlan {
+
+    private final BookQuery driver;
+    private final BitSet candidates;
+    private final int estimate;
+    private final List<BookQuery> filters;
+
+    QueryPlan(BookQuery driver, BitSet candidates, int estimate, List<BookQuery> filters) {
+        this.driver = driver;
+        this.candidates = candidates;
+        this.estimate = estimate;
+        this.filters = filters;
+    }
+
+    // The indexed clause that produces the candidates, or null for a full scan
+    public BookQuery getDriver() {
+        return driver;
+    }
+
+    // Estimated number of candidates, or Integer.MAX_VALUE for a full scan
+    public int getEstimate() {
+        return estimate;
+    }
+
+    // The clauses in the order they are checked on every candidate
+    public List<BookQuery> getFilters() {
+        return filters;
+    }
+
+    boolean test(Book book) {
+        for (BookQuery filter : filters) {
+            if (!filter.matches(book)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Stream<Book> execute(HashCatalogStore indexed, CatalogStore all) {
+        if (candidates == null) {
+            return all.stream().filter(this::test);
+        }
+        return candidates.stream()
+                .mapToObj(indexed::book)
+                .filter(book -> book != null && test(book));
+    }
+
+    @Override
+    public String toString() {
+        String source = driver == null ? "scan" : "index " + driver + " (~" + estimate + " candidates)";
+        return source + " then filter " + filters;
+    }
+}
@@ -0,0 +1,157 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+// Turns a BookQuery into a QueryPlan. The top-level AND is split into conjuncts and each gets a
+// cardinality estimate from the indexes (trigram postings, genre bitmaps, the sorted price index).
+// The most selective indexed conjunct drives the plan: its candidate bitmap is built and every
+// conjunct is then checked on the candidates only, cheapest-to-reject first. Without a usable
+// index the plan falls back to a scan that still evaluates the conjuncts in that order.
+final class QueryPlanner {
+
+    static final int UNINDEXED = Integer.MAX_VALUE;
+
+    private final HashCatalogStore store;
+    private final NGramIndex searchIndex;
+    private final GenreIndex genreIndex;
+    private final PriceIndex priceIndex;
+
+    // Any of the arguments may be null when the catalog is not indexed
+    QueryPlanner(HashCatalogStore store, NGramIndex searchIndex, GenreIndex genreIndex, PriceIndex priceIndex) {
+        this.store = store;
+        this.searchIndex = searchIndex;
+        this.genreIndex = genreIndex;
+        this.priceIndex = priceIndex;
+    }
+
+    QueryPlan plan(BookQuery query) {
+        List<BookQuery> conjuncts = new ArrayList<>();
+        flatten(query, conjuncts);
+
+        int[] estimates = new int[conjuncts.size()];
+        int driver = -1;
+        int best = UNINDEXED;
+        for (int i = 0; i < conjuncts.size(); i++) {
+            estimates[i] = estimate(conjuncts.get(i), best);
+            if (estimates[i] < best) {
+                best = estimates[i];
+                driver = i;
+            }
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < conjuncts.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingInt(i -> estimates[i]).thenComparingInt(i -> staticCost(conjuncts.get(i))));
+        List<BookQuery> filters = new ArrayList<>();
+        for (int i : order) {
+            filters.add(conjuncts.get(i));
+        }
+
+        if (driver < 0) {
+            return new QueryPlan(null, null, UNINDEXED, filters);
+        }
+        BitSet candidates = new BitSet(store.end());
+        collect(conjuncts.get(driver), candidates);
+        return new QueryPlan(conjuncts.get(driver), candidates, best, filters);
+    }
+
+    private static void flatten(BookQuery query, List<BookQuery> into) {
+        if (query instanceof BookQuery.And) {
+            for (BookQuery clause : ((BookQuery.And) query).clauses) {
+                flatten(clause, into);
+            }
+        } else {
+            into.add(query);
+        }
+    }
+
+    // Estimated number of candidates the indexes would produce for the query, UNINDEXED when
+    // some part of it can only be answered by a scan. Counting stops early past limit.
+    private int estimate(BookQuery query, int limit) {
+        if (store == null) {
+            return UNINDEXED;
+        }
+        if (query instanceof BookQuery.Term) {
+            BookQuery.Term term = (BookQuery.Term) query;
+            if (term.field == BookQuery.Field.GENRE) {
+                return genreIndex.count(term.text);
+            }
+            int estimate = searchIndex.estimate(term.text);
+            return estimate < 0 ? UNINDEXED : estimate;
+        }
+        if (query instanceof BookQuery.PriceRange) {
+            BookQuery.PriceRange range = (BookQuery.PriceRange) query;
+            return priceIndex.count(range.min, range.minInclusive, range.max, range.maxInclusive, limit);
+        }
+        if (query instanceof BookQuery.Or) {
+            long total = 0;
+            for (BookQuery clause : ((BookQuery.Or) query).clauses) {
+                int estimate = estimate(clause, limit);
+                if (estimate == UNINDEXED) {
+                    return UNINDEXED;
+                }
+                total += estimate;
+            }
+            return (int) Math.min(total, UNINDEXED - 1);
+        }
+        if (query instanceof BookQuery.And) {
+            int best = UNINDEXED;
+            for (BookQuery clause : ((BookQuery.And) query).clauses) {
+                best = Math.min(best, estimate(clause, Math.min(best, limit)));
+            }
+            return best;
+        }
+        return UNINDEXED; // NOT needs to see every book
+    }
+
+    // Sets the bit of every candidate for an indexed query
+    private void collect(BookQuery query, BitSet into) {
+        if (query instanceof BookQuery.Term) {
+            BookQuery.Term term = (BookQuery.Term) query;
+            if (term.field == BookQuery.Field.GENRE) {
+                genreIndex.collect(term.text, into);
+            } else {
+                PrimitiveIterator.OfInt ids = searchIndex.candidates(term.text);
+                while (ids.hasNext()) {
+                    into.set(ids.nextInt());
+                }
+            }
+        } else if (query instanceof BookQuery.PriceRange) {
+            BookQuery.PriceRange range = (BookQuery.PriceRange) query;
+            priceIndex.collect(range.min, range.minInclusive, range.max, range.maxInclusive, into);
+        } else if (query instanceof BookQuery.Or) {
+            for (BookQuery clause : ((BookQuery.Or) query).clauses) {
+                collect(clause, into);
+            }
+        } else if (query instanceof BookQuery.And) {
+            // The cheapest indexed clause is enough; the plan re-checks the whole query anyway
+            BookQuery best = null;
+            int bestEstimate = UNINDEXED;
+            for (BookQuery clause : ((BookQuery.And) query).clauses) {
+                int estimate = estimate(clause, bestEstimate);
+                if (estimate < bestEstimate) {
+                    best = clause;
+                    bestEstimate = estimate;
+                }
+            }
+            collect(best, into);
+        }
+    }
+
+    // Relative cost of evaluating a predicate on one book, used when estimates tie
+    private static int staticCost(BookQuery query) {
+        if (query instanceof BookQuery.PriceRange) {
+            return 0;
+        }
+        if (query instanceof BookQuery.Term) {
+            return ((BookQuery.Term) query).field == BookQuery.Field.ANY ? 2 : 1;
+        }
+        return 3;
+    }
+}
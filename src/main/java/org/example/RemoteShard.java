@@ -0,0 +1,178 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Client side of a ShardServer. Connections are pooled: a call takes an idle connection or opens
+// a new one, so concurrent and hedged calls never queue behind each other, and a connection
+// that fails is dropped rather than reused. Books read back are copies of the server's books.
+public class RemoteShard implements CatalogShard, Closeable {
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    public RemoteShard(String host, int port) {
+        this(host, port, 5_000);
+    }
+
+    // Connecting and waiting for each response give up after timeoutMillis
+    public RemoteShard(String host, int port, int timeoutMillis) {
+        this.address = new InetSocketAddress(host, port);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public List<Book> search(String keyword, int limit) {
+        return call(ShardServer.SEARCH, out -> {
+            BinaryIO.writeString(out, keyword);
+            out.writeInt(limit);
+        }, in -> {
+            int count = in.readInt();
+            List<Book> books = new ArrayList<>(Math.min(Math.max(count, 0), 1024));
+            for (int i = 0; i < count; i++) {
+                books.add(BinaryIO.readBook(in));
+            }
+            return books;
+        });
+    }
+
+    @Override
+    public boolean add(Book book) {
+        return call(ShardServer.ADD, out -> BinaryIO.writeBook(out, book), DataInputStream::readBoolean);
+    }
+
+    @Override
+    public int addAll(Collection<Book> books) {
+        return call(ShardServer.ADD_ALL, out -> {
+            out.writeInt(books.size());
+            for (Book book : books) {
+                BinaryIO.writeBook(out, book);
+            }
+        }, DataInputStream::readInt);
+    }
+
+    @Override
+    public boolean remove(BookKey key) {
+        return call(ShardServer.REMOVE, out -> writeKey(out, key), DataInputStream::readBoolean);
+    }
+
+    @Override
+    public Book find(BookKey key) {
+        return call(ShardServer.FIND, out -> writeKey(out, key), in -> in.readBoolean() ? BinaryIO.readBook(in) : null);
+    }
+
+    @Override
+    public int size() {
+        return call(ShardServer.SIZE, out -> {
+        }, DataInputStream::readInt);
+    }
+
+    // Closes the idle connections; ones in use are closed when their call returns
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.closeQuietly();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteShard[" + address.getHostString() + ":" + address.getPort() + "]";
+    }
+
+    private <T> T call(byte op, BinaryIO.Writer request, Reader<T> response) {
+        if (closed) {
+            throw new IllegalStateException(this + " is closed");
+        }
+        Connection connection = null;
+        boolean inStep = false; // Whether the connection can carry the next request
+        try {
+            connection = idle.poll();
+            if (connection == null) {
+                connection = new Connection(address, timeoutMillis);
+            }
+            connection.out.writeByte(op);
+            request.write(connection.out);
+            connection.out.flush();
+
+            byte status = connection.in.readByte();
+            if (status == ShardServer.FAILED) {
+                String message = BinaryIO.readString(connection.in);
+                inStep = true;
+                throw new IllegalStateException(this + " failed: " + message);
+            }
+            T result = response.read(connection.in);
+            inStep = true;
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(this + " is unreachable", e);
+        } finally {
+            if (connection != null) {
+                if (inStep) {
+                    release(connection);
+                } else {
+                    connection.closeQuietly();
+                }
+            }
+        }
+    }
+
+    private void release(Connection connection) {
+        idle.offer(connection);
+        if (closed && idle.remove(connection)) {
+            connection.closeQuietly();
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, BookKey key) throws IOException {
+        BinaryIO.writeString(out, key.getTitle());
+        BinaryIO.writeString(out, key.getAuthor());
+    }
+
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(InetSocketAddress address, int timeoutMillis) throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(address, timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to do with a broken connection
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.example;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Request-processing front end for BookService and UserService: every ServiceRequest runs on its
+// own thread, so a slow login or a big search never holds up the caller.
+// - Threads: a virtual thread per request on Java 21+, otherwise a fixed pool of platform threads
+//   (the pom targets Java 11, so virtual threads are looked up reflectively).
+// - Admission: at most maxInFlight requests run or wait for a thread at once. Beyond that,
+//   submit answers REJECTED right away instead of queueing, so overload turns into fast
+//   rejections the client can back off from rather than growing latency.
+// - Timeouts: a request that has not finished within the timeout is answered TIMED_OUT. Service
+//   calls cannot be interrupted halfway, so the operation still runs to completion and keeps its
+//   admission slot until then; one that times out while waiting for a thread is skipped.
+// Use services that are safe to share between threads (ConcurrentBookService and
+// ConcurrentUserService).
+public class RequestFrontEnd implements Closeable {
+
+    private final BookService bookService;
+    private final UserService userService;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long timeoutNanos;
+    private final ScheduledThreadPoolExecutor timer;
+    private volatile boolean closed;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    // Runs requests on virtual threads when the JVM has them, else on a platform thread pool.
+    // A timeout of 0 waits for every request however long it takes.
+    public RequestFrontEnd(BookService bookService, UserService userService, int maxInFlight, long timeoutMillis) {
+        this(bookService, userService, maxInFlight, timeoutMillis, null);
+    }
+
+    // Runs requests on the given executor, which the caller keeps ownership of; null picks one as
+    // the constructor above does
+    public RequestFrontEnd(BookService bookService, UserService userService, int maxInFlight, long timeoutMillis,
+                           ExecutorService executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.bookService = bookService;
+        this.userService = userService;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        ExecutorService virtual = executor == null ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.ownsExecutor = executor == null;
+        if (executor != null) {
+            this.executor = executor;
+        } else if (virtual != null) {
+            this.executor = virtual;
+        } else {
+            this.executor = Executors.newFixedThreadPool(platformThreads(maxInFlight), daemonThreads("request"));
+        }
+
+        this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("request-timeouts"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    // Admits the request if fewer than maxInFlight are in flight and runs it asynchronously.
+    // The future always completes normally; failures are reported through the response status.
+    public CompletableFuture<ServiceResponse> submit(ServiceRequest request) {
+        long start = System.nanoTime();
+        if (closed || !permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(rejected(request, start, null));
+        }
+
+        CompletableFuture<ServiceResponse> response = new CompletableFuture<>();
+        ScheduledFuture<?> timeout;
+        try {
+            timeout = timeoutNanos <= 0 ? null : timer.schedule(() -> {
+                timedOut.increment(); // Counted first, so a caller who sees the response sees the count
+                if (!response.complete(new ServiceResponse(request, ServiceResponse.Status.TIMED_OUT, null, null,
+                        System.nanoTime() - start))) {
+                    timedOut.decrement();
+                }
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            permits.release(); // Closed in the meantime
+            return CompletableFuture.completedFuture(rejected(request, start, e));
+        }
+
+        try {
+            executor.execute(() -> run(request, start, response, timeout));
+        } catch (RejectedExecutionException e) {
+            finish(timeout);
+            response.complete(rejected(request, start, e));
+        }
+        return response;
+    }
+
+    // Submits the request and waits for its response
+    public ServiceResponse handle(ServiceRequest request) {
+        return submit(request).join();
+    }
+
+    // True if the front end picked virtual threads itself
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Requests admitted and not yet finished, including any that already timed out
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    // Requests that ran to the end, including any whose caller was already told TIMED_OUT
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    // Stops admitting requests and waits up to the timeout (or 30 seconds) for admitted ones
+    @Override
+    public void close() {
+        closed = true;
+        if (ownsExecutor) {
+            executor.shutdown();
+            try {
+                long waitNanos = timeoutNanos > 0 ? timeoutNanos : TimeUnit.SECONDS.toNanos(30);
+                executor.awaitTermination(waitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        timer.shutdownNow();
+    }
+
+    // The slot is given back before the response completes, so a caller who sees the response
+    // can immediately submit again
+    private void run(ServiceRequest request, long start, CompletableFuture<ServiceResponse> response, ScheduledFuture<?> timeout) {
+        if (response.isDone()) {
+            finish(timeout);
+            return; // Timed out while waiting for a thread; nobody is waiting for the answer
+        }
+        ServiceResponse answer;
+        try {
+            Object result = request.execute(bookService, userService);
+            answer = ServiceResponse.completed(request, result, System.nanoTime() - start);
+        } catch (RuntimeException | Error e) {
+            answer = new ServiceResponse(request, ServiceResponse.Status.ERROR, null, e, System.nanoTime() - start);
+        } finally {
+            completed.increment();
+            finish(timeout);
+        }
+        response.complete(answer);
+    }
+
+    private ServiceResponse rejected(ServiceRequest request, long start, Throwable cause) {
+        rejected.increment();
+        return new ServiceResponse(request, ServiceResponse.Status.REJECTED, null, cause, System.nanoTime() - start);
+    }
+
+    private void finish(ScheduledFuture<?> timeout) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        permits.release();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() on Java 21+, or null when it is not available
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null; // Older JVM, or virtual threads still a preview feature
+        }
+    }
+
+    // Platform threads are expensive, so the pool stops growing with maxInFlight at a few per
+    // core; admitted requests beyond that wait in the pool's queue
+    private static int platformThreads(int maxInFlight) {
+        return Math.min(maxInFlight, Math.max(4, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.Objects;
+
+// One review of a book: who wrote it, the text, an optional star rating and when it was posted
+public class Review {
+
+    public static final int NO_RATING = 0;
+    public static final int MAX_RATING = 5;
+
+    private final String username;
+    private final String text;
+    private final int rating;
+    private final long createdAt;
+
+    public Review(String username, String text, int rating, long createdAt) {
+        if (rating < NO_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating must be between 1 and " + MAX_RATING + ", or 0 for none: " + rating);
+        }
+        this.username = username;
+        this.text = text;
+        this.rating = rating;
+        this.createdAt = createdAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // Stars from 1 to MAX_RATING, or NO_RATING
+    public int getRating() {
+        return rating;
+    }
+
+    public boolean isRated() {
+        return rating != NO_RATING;
+    }
+
+    // Milliseconds since the epoch
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    // Reviews are values: the same author, text, rating and time make the same review
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Review)) {
+            return false;
+        }
+        Review other = (Review) o;
+        return rating == other.rating && createdAt == other.createdAt
+                && Objects.equals(username, other.username) && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(username, text, rating, createdAt);
+    }
+}
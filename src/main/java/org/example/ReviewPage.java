@@ -0,0 +1,28 @@
+package org.example;
+
+import java.util.List;
+
+// One page of a book's reviews, newest first. Pass getNextCursor to the next call to continue
+// with older reviews; reviews posted in the meantime do not shift the pages.
+public class ReviewPage {
+
+    private final List<Review> reviews;
+    private final long nextCursor;
+
+    ReviewPage(List<Review> reviews, long nextCursor) {
+        this.reviews = reviews;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor > 0;
+    }
+}
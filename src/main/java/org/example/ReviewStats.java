@@ -0,0 +1,44 @@
+package org.example;
+
+// Immutable aggregate over a book's reviews. ReviewStore publishes a new one with every review,
+// so reading it never touches the reviews themselves.
+public final class ReviewStats {
+
+    static final ReviewStats EMPTY = new ReviewStats(0, 0, new int[Review.MAX_RATING + 1]);
+
+    private final int count;
+    private final long ratingSum;
+    private final int[] ratingCounts;
+
+    private ReviewStats(int count, long ratingSum, int[] ratingCounts) {
+        this.count = count;
+        this.ratingSum = ratingSum;
+        this.ratingCounts = ratingCounts;
+    }
+
+    // The stats after one more review
+    ReviewStats plus(Review review) {
+        int[] counts = ratingCounts.clone();
+        counts[review.getRating()]++;
+        return new ReviewStats(count + 1, ratingSum + review.getRating(), counts);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getRatedCount() {
+        return count - ratingCounts[Review.NO_RATING];
+    }
+
+    // Number of reviews with the given number of stars (NO_RATING counts the unrated ones)
+    public int getRatingCount(int stars) {
+        return ratingCounts[stars];
+    }
+
+    // Mean star rating of the rated reviews, or 0 when none is rated
+    public double getAverageRating() {
+        int rated = getRatedCount();
+        return rated == 0 ? 0 : (double) ratingSum / rated;
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reviews of every book, kept apart from the Book objects and keyed by title and author.
+// Each book has an append-only log: appends to one book are serialized, while readers never
+// lock and see a consistent prefix of the log. Pages are addressed by position in the log, so
+// a cursor stays valid while new reviews arrive, and the aggregates are maintained per append.
+public class ReviewStore {
+
+    // Cursor for the first (newest) page
+    public static final long NEWEST = Long.MAX_VALUE;
+
+    private final Map<BookKey, ReviewLog> logs = new ConcurrentHashMap<>();
+
+    public void add(Book book, Review review) {
+        logs.computeIfAbsent(BookKey.of(book), key -> new ReviewLog()).append(review);
+    }
+
+    // Returns up to limit reviews older than the cursor, newest first
+    public ReviewPage page(Book book, long cursor, int limit) {
+        if (cursor < 0 || limit < 0) {
+            throw new IllegalArgumentException("Cursor and limit must not be negative: " + cursor + ", " + limit);
+        }
+        ReviewLog log = logs.get(BookKey.of(book));
+        if (log == null) {
+            return new ReviewPage(Collections.emptyList(), 0);
+        }
+        return log.page(cursor, limit);
+    }
+
+    public ReviewStats stats(Book book) {
+        ReviewLog log = logs.get(BookKey.of(book));
+        return log == null ? ReviewStats.EMPTY : log.stats;
+    }
+
+    // Drops every review of the book
+    public void remove(Book book) {
+        logs.remove(BookKey.of(book));
+    }
+
+    // Moves the reviews of a book whose title or author changed to its current key
+    public void rekey(Book book, BookKey oldKey) {
+        ReviewLog log = logs.remove(oldKey);
+        if (log != null) {
+            logs.put(BookKey.of(book), log);
+        }
+    }
+
+    // Every review of the book, oldest first, for snapshots
+    List<Review> all(Book book) {
+        ReviewLog log = logs.get(BookKey.of(book));
+        return log == null ? Collections.emptyList() : log.all();
+    }
+
+    // True if the book already has this very review, e.g. one a snapshot holds
+    boolean contains(Book book, Review review) {
+        return all(book).contains(review);
+    }
+
+    private static final class ReviewLog {
+        // Writers fill entries before publishing size, so a reader that reads size first sees
+        // at least that many reviews in whichever array it reads afterwards
+        private volatile Review[] entries = new Review[4];
+        private volatile int size;
+        private volatile ReviewStats stats = ReviewStats.EMPTY;
+
+        synchronized void append(Review review) {
+            Review[] current = entries;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+                entries = current;
+            }
+            current[size] = review;
+            stats = stats.plus(review);
+            size = size + 1;
+        }
+
+        ReviewPage page(long cursor, int limit) {
+            int end = (int) Math.min(cursor, size);
+            Review[] current = entries;
+            int start = Math.max(0, end - limit);
+            List<Review> page = new ArrayList<>(end - start);
+            for (int i = end - 1; i >= start; i--) {
+                page.add(current[i]);
+            }
+            return new ReviewPage(page, start);
+        }
+
+        List<Review> all() {
+            int end = size;
+            return Arrays.asList(Arrays.copyOf(entries, end));
+        }
+    }
+}
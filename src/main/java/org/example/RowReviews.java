@@ -0,0 +1,73 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Review lists of the rows of a columnar catalog, held only for rows that have reviews. The list
+// handed out for an unreviewed row is an empty view that creates the row's real list on the
+// first add, so reading reviews never allocates storage.
+final class RowReviews {
+
+    private final Map<Integer, List<String>> lists = new ConcurrentHashMap<>();
+
+    List<String> get(int row) {
+        List<String> list = lists.get(row);
+        return list != null ? list : new Pending(row);
+    }
+
+    void set(int row, List<String> list) {
+        if (list == null) {
+            lists.remove(row);
+        } else {
+            lists.put(row, list);
+        }
+    }
+
+    // Renumbers rows after a compaction: old row r becomes newRows[r], or is dropped at -1
+    void renumber(int[] newRows) {
+        Map<Integer, List<String>> old = new ConcurrentHashMap<>(lists);
+        lists.clear();
+        old.forEach((row, list) -> {
+            if (row < newRows.length && newRows[row] >= 0) {
+                lists.put(newRows[row], list);
+            }
+        });
+    }
+
+    private final class Pending extends AbstractList<String> {
+        private final int row;
+
+        Pending(int row) {
+            this.row = row;
+        }
+
+        private List<String> current() {
+            List<String> list = lists.get(row);
+            return list != null ? list : Collections.emptyList();
+        }
+
+        @Override
+        public String get(int index) {
+            return current().get(index);
+        }
+
+        @Override
+        public int size() {
+            return current().size();
+        }
+
+        @Override
+        public void add(int index, String review) {
+            lists.computeIfAbsent(row, r -> Collections.synchronizedList(new ArrayList<>())).add(index, review);
+        }
+
+        @Override
+        public String remove(int index) {
+            return current().remove(index);
+        }
+    }
+}
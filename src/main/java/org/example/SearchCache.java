@@ -0,0 +1,162 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bounded cache of searchBook results keyed by keyword. Capacity is a weight budget, one unit
+// per cached book plus one per entry, so a few broad keywords cannot crowd out many narrow ones.
+// Eviction is segmented LRU: a new entry starts in the probation segment and moves to the
+// protected segment (80% of the budget) on its second hit, so one-off keywords are evicted
+// before the popular ones they would otherwise push out.
+// Invalidation is coarse: invalidate() moves the cache to a new epoch and drops every entry.
+// A result computed before an invalidation is refused by put, so a search racing a mutation
+// cannot store a stale result. Thread-safe.
+public class SearchCache {
+
+    private final long maxWeight;
+    private final long protectedMaxWeight;
+
+    // Least recently used first; probation keeps insertion order, protected keeps access order
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationWeight;
+    private long protectedWeight;
+
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SearchCache(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.protectedMaxWeight = maxWeight * 4 / 5;
+    }
+
+    // Returns the epoch to pass to put for a result computed from now on
+    public synchronized long epoch() {
+        return epoch;
+    }
+
+    // Returns the cached result for the keyword, or null. The list is shared: do not modify it.
+    public synchronized List<Book> get(String keyword) {
+        Entry entry = protectedEntries.get(keyword);
+        if (entry == null) {
+            entry = probation.remove(keyword);
+            if (entry != null) {
+                probationWeight -= entry.weight;
+                protect(keyword, entry);
+            }
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.books;
+    }
+
+    // Caches a result computed in the given epoch; results from an earlier epoch are dropped.
+    // A result heavier than the probation segment is not cached at all.
+    public synchronized void put(String keyword, List<Book> books, long epoch) {
+        long weight = books.size() + 1L;
+        if (epoch != this.epoch || weight > maxWeight - protectedMaxWeight) {
+            return;
+        }
+        Entry stale = probation.remove(keyword);
+        if (stale != null) {
+            probationWeight -= stale.weight;
+        }
+        stale = protectedEntries.remove(keyword);
+        if (stale != null) {
+            protectedWeight -= stale.weight;
+        }
+        probation.put(keyword, new Entry(Collections.unmodifiableList(new ArrayList<>(books)), weight));
+        probationWeight += weight;
+        evict();
+    }
+
+    // Drops every entry; results computed before this call can no longer be cached
+    public synchronized void invalidate() {
+        epoch++;
+        probation.clear();
+        protectedEntries.clear();
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Share of lookups answered from the cache, 0 before the first lookup
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedEntries.size();
+    }
+
+    public synchronized long weight() {
+        return probationWeight + protectedWeight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SearchCache[entries=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                size(), weight(), maxWeight, hits, misses, evictions);
+    }
+
+    // Promotes an entry on its second hit; the protected segment's least recently used entries
+    // go back to probation as the most recently used ones there
+    private void protect(String keyword, Entry entry) {
+        protectedEntries.put(keyword, entry);
+        protectedWeight += entry.weight;
+        Iterator<Map.Entry<String, Entry>> oldest = protectedEntries.entrySet().iterator();
+        while (protectedWeight > protectedMaxWeight) {
+            Map.Entry<String, Entry> demoted = oldest.next();
+            oldest.remove();
+            protectedWeight -= demoted.getValue().weight;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationWeight += demoted.getValue().weight;
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> oldest = probation.values().iterator();
+        while (probationWeight + protectedWeight > maxWeight) {
+            Entry evicted = oldest.next();
+            oldest.remove();
+            probationWeight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    private static final class Entry {
+        final List<Book> books;
+        final long weight;
+
+        Entry(List<Book> books, long weight) {
+            this.books = books;
+            this.weight = weight;
+        }
+    }
+}
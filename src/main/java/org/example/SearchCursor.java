@@ -0,0 +1,29 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Forward-only cursor over search results. Each page continues where the previous one stopped,
+// so paging through a large result set never rescans the matches already handed out.
+public class SearchCursor {
+
+    private final Iterator<Book> matches;
+
+    SearchCursor(Iterator<Book> matches) {
+        this.matches = matches;
+    }
+
+    public boolean hasNext() {
+        return matches.hasNext();
+    }
+
+    // Returns up to pageSize further matches; an empty page means the search is exhausted
+    public List<Book> nextPage(int pageSize) {
+        List<Book> page = new ArrayList<>(Math.min(pageSize, 64));
+        while (page.size() < pageSize && matches.hasNext()) {
+            page.add(matches.next());
+        }
+        return page;
+    }
+}
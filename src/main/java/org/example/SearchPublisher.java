@@ -0,0 +1,131 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Publishes search matches as they are found, for BookService.searchBookAsync. Every subscriber
+// gets its own search, which starts on the executor at the first request and only advances as
+// far as the subscriber has asked for: a subscriber that requests 10 books causes at most the
+// scan up to the 11th match (looked ahead to signal completion early). Cancelling stops the
+// scan before the next match. Signals to a subscriber never overlap, and a long burst of demand
+// is handed out in batches that go back to the executor in between, so one huge search cannot
+// keep an executor thread to itself.
+final class SearchPublisher implements Flow.Publisher<Book> {
+
+    static final int BATCH = 256;
+
+    private final Supplier<Iterator<Book>> search;
+    private final Executor executor;
+
+    SearchPublisher(Supplier<Iterator<Book>> search, Executor executor) {
+        this.search = search;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Book> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new SearchSubscription(subscriber));
+    }
+
+    private final class SearchSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Book> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Number of drain requests not yet seen by the drain loop; only the thread that moves it
+        // off zero schedules a drain, which keeps the signals serial
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean done;
+        private volatile Throwable badRequest;
+        private Iterator<Book> matches;
+
+        SearchSubscription(Flow.Subscriber<? super Book> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void drain() {
+            if (pending.getAndIncrement() == 0) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (!done) {
+                if (badRequest != null) {
+                    fail(badRequest);
+                    return;
+                }
+                try {
+                    if (matches == null) {
+                        matches = search.get();
+                    }
+                    long requested = demand.get();
+                    long emitted = 0;
+                    while (emitted < requested && emitted < BATCH && !done && matches.hasNext()) {
+                        subscriber.onNext(matches.next());
+                        emitted++;
+                    }
+                    if (done) {
+                        return;
+                    }
+                    if (emitted < BATCH && !matches.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (requested != Long.MAX_VALUE) {
+                        requested = demand.addAndGet(-emitted);
+                    }
+                    if (emitted == BATCH && requested > 0) {
+                        schedule(); // More to hand out; give other tasks a turn first
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (!done) {
+                done = true;
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Per-operation call counts, failure counts, latency histograms and result-size histograms for
+// BookService and UserService. Attach one with setMetrics; services without metrics skip the
+// timing entirely. Recording is lock-free and allocation-free, so one instance can be shared
+// by many services and threads. Read it with snapshot(), or push snapshots to an exporter.
+public class ServiceMetrics implements Closeable {
+
+    public enum Operation {
+        SEARCH_BOOK, SEARCH_NORMALIZED, SEARCH_PARALLEL, SEARCH_FUZZY, SEARCH_FACETS, QUERY,
+        ADD_BOOK, REMOVE_BOOK, PURCHASE_BOOK, ADD_REVIEW, REGISTER_USER, LOGIN_USER, UPDATE_PROFILE
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final OperationMetrics[] operations = new OperationMetrics[OPERATIONS.length];
+    private ScheduledExecutorService exporter;
+
+    public ServiceMetrics() {
+        for (Operation operation : OPERATIONS) {
+            operations[operation.ordinal()] = new OperationMetrics();
+        }
+    }
+
+    // Records one call that started at startNanos (from System.nanoTime)
+    public void record(Operation operation, long startNanos, boolean success) {
+        OperationMetrics metrics = operations[operation.ordinal()];
+        metrics.latency.record(System.nanoTime() - startNanos);
+        metrics.calls.increment();
+        if (!success) {
+            metrics.failures.increment();
+        }
+    }
+
+    // Records one call that returned resultSize results
+    public void record(Operation operation, long startNanos, int resultSize) {
+        record(operation, startNanos, true);
+        operations[operation.ordinal()].resultSizes.record(resultSize);
+    }
+
+    public Snapshot snapshot() {
+        Map<Operation, OperationSnapshot> snapshots = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONS) {
+            OperationMetrics metrics = operations[operation.ordinal()];
+            snapshots.put(operation, new OperationSnapshot(metrics.calls.sum(), metrics.failures.sum(),
+                    metrics.latency.snapshot(), metrics.resultSizes.snapshot()));
+        }
+        return new Snapshot(snapshots);
+    }
+
+    // Hands a snapshot to the exporter every periodMillis on a daemon thread until close. An
+    // export that throws goes to onFailure and the next one still runs.
+    public synchronized void startExporting(MetricsExporter metricsExporter, long periodMillis,
+                                            Consumer<? super RuntimeException> onFailure) {
+        if (exporter != null) {
+            return;
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                metricsExporter.export(snapshot());
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; a failing exporter must not stop later exports
+                onFailure.accept(e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (exporter != null) {
+            exporter.shutdown();
+            exporter = null;
+        }
+    }
+
+    private static final class OperationMetrics {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final Histogram latency = new Histogram();
+        final Histogram resultSizes = new Histogram();
+    }
+
+    // Counters and histograms of every operation at one point in time
+    public static final class Snapshot {
+        private final Map<Operation, OperationSnapshot> operations;
+
+        private Snapshot(Map<Operation, OperationSnapshot> operations) {
+            this.operations = operations;
+        }
+
+        public OperationSnapshot get(Operation operation) {
+            return operations.get(operation);
+        }
+
+        // One line per operation that has been called, latencies in microseconds
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<Operation, OperationSnapshot> entry : operations.entrySet()) {
+                OperationSnapshot operation = entry.getValue();
+                if (operation.getCalls() == 0) {
+                    continue;
+                }
+                Histogram.Snapshot latency = operation.getLatency();
+                text.append(String.format("%-15s calls=%d failures=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                        entry.getKey(), operation.getCalls(), operation.getFailures(),
+                        latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3,
+                        latency.getValueAtPercentile(99.9) / 1e3, latency.getMax() / 1e3));
+            }
+            return text.toString();
+        }
+    }
+
+    public static final class OperationSnapshot {
+        private final long calls;
+        private final long failures;
+        private final Histogram.Snapshot latency;
+        private final Histogram.Snapshot resultSizes;
+
+        private OperationSnapshot(long calls, long failures, Histogram.Snapshot latency, Histogram.Snapshot resultSizes) {
+            this.calls = calls;
+            this.failures = failures;
+            this.latency = latency;
+            this.resultSizes = resultSizes;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        // Calls that returned false or null, e.g. a login with a wrong password
+        public long getFailures() {
+            return failures;
+        }
+
+        // Nanoseconds
+        public Histogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        // Number of results, for operations that return a list
+        public Histogram.Snapshot getResultSizes() {
+            return resultSizes;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+// One client request to the services, as handled by RequestFrontEnd. Requests carry plain
+// values (usernames, titles and authors) rather than objects, the way they arrive over the
+// wire; the books and users they refer to are looked up when the request runs.
+public final class ServiceRequest {
+
+    public enum Type {
+        SEARCH, PURCHASE, REVIEW, REGISTER, LOGIN
+    }
+
+    private final Type type;
+    private final String username;
+    private final String password;
+    private final String email;
+    private final String keyword;
+    private final String title;
+    private final String author;
+    private final String text;
+    private final int rating;
+
+    private ServiceRequest(Type type, String username, String password, String email, String keyword,
+                           String title, String author, String text, int rating) {
+        this.type = type;
+        this.username = username;
+        this.password = password;
+        this.email = email;
+        this.keyword = keyword;
+        this.title = title;
+        this.author = author;
+        this.text = text;
+        this.rating = rating;
+    }
+
+    public static ServiceRequest search(String keyword) {
+        return new ServiceRequest(Type.SEARCH, null, null, null, keyword, null, null, null, 0);
+    }
+
+    public static ServiceRequest purchase(String username, String title, String author) {
+        return new ServiceRequest(Type.PURCHASE, username, null, null, null, title, author, null, 0);
+    }
+
+    public static ServiceRequest review(String username, String title, String author, String text, int rating) {
+        return new ServiceRequest(Type.REVIEW, username, null, null, null, title, author, text, rating);
+    }
+
+    public static ServiceRequest register(String username, String password, String email) {
+        return new ServiceRequest(Type.REGISTER, username, password, email, null, null, null, null, 0);
+    }
+
+    public static ServiceRequest login(String username, String password) {
+        return new ServiceRequest(Type.LOGIN, username, password, null, null, null, null, null, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // Runs the request and returns its result: the matching books for a search, the User for a
+    // login, or a Boolean for the other requests. A failed login or a purchase of an unknown
+    // book returns null or false, as the services do.
+    Object execute(BookService books, UserService users) {
+        switch (type) {
+            case SEARCH:
+                return books.searchBook(keyword);
+            case PURCHASE: {
+                User user = users.findUser(username);
+                Book book = books.findBook(title, author);
+                return user != null && book != null && books.purchaseBook(user, book);
+            }
+            case REVIEW: {
+                User user = users.findUser(username);
+                Book book = books.findBook(title, author);
+                return user != null && book != null && books.addBookReview(user, book, text, rating);
+            }
+            case REGISTER:
+                return users.registerUser(new User(username, password, email));
+            case LOGIN:
+                return users.loginUser(username, password);
+            default:
+                throw new IllegalStateException("Unknown request type " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case SEARCH:
+                return "SEARCH " + keyword;
+            case PURCHASE:
+            case REVIEW:
+                return type + " " + username + " " + title + " by " + author;
+            default:
+                return type + " " + username;
+        }
+    }
+}
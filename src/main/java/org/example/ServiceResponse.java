@@ -0,0 +1,66 @@
+package org.example;
+
+// Outcome of a ServiceRequest handled by RequestFrontEnd
+public final class ServiceResponse {
+
+    public enum Status {
+        // The operation ran and succeeded
+        OK,
+        // The operation ran and said no: a failed login, a duplicate registration, a review
+        // without a purchase
+        FAILED,
+        // Turned away at admission because too many requests were in flight
+        REJECTED,
+        // No answer within the front end's timeout; the operation may still complete
+        TIMED_OUT,
+        // The operation threw
+        ERROR
+    }
+
+    private final ServiceRequest request;
+    private final Status status;
+    private final Object result;
+    private final Throwable error;
+    private final long latencyNanos;
+
+    ServiceResponse(ServiceRequest request, Status status, Object result, Throwable error, long latencyNanos) {
+        this.request = request;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+        this.latencyNanos = latencyNanos;
+    }
+
+    // Maps an operation's return value to OK or FAILED
+    static ServiceResponse completed(ServiceRequest request, Object result, long latencyNanos) {
+        boolean ok = result != null && !Boolean.FALSE.equals(result);
+        return new ServiceResponse(request, ok ? Status.OK : Status.FAILED, result, null, latencyNanos);
+    }
+
+    public ServiceRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    // See ServiceRequest.execute; null unless the operation ran
+    public Object getResult() {
+        return result;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    // From submission to the response, including time spent waiting for a thread
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + request + (error != null ? " (" + error + ")" : "");
+    }
+}
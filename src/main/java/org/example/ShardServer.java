@@ -0,0 +1,208 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Serves a LocalShard to RemoteShard clients over loopback TCP, so a catalog too big for one heap
+// can be spread over several local JVMs:
+//   java -cp target/classes org.example.ShardServer 9001
+// The protocol is one request and one response at a time per connection. A request is an op
+// byte followed by its arguments, encoded with BinaryIO; a response is OK followed by the
+// result, or FAILED followed by the error message. A request that cannot be read in full is
+// answered FAILED and its connection closed. Each connection gets its own thread.
+public class ShardServer implements Closeable {
+
+    static final byte SEARCH = 1;
+    static final byte ADD = 2;
+    static final byte ADD_ALL = 3;
+    static final byte REMOVE = 4;
+    static final byte FIND = 5;
+    static final byte SIZE = 6;
+
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+
+    private final LocalShard shard;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    // Listens on the loopback interface; port 0 picks a free port (see getPort)
+    public ShardServer(LocalShard shard, int port) throws IOException {
+        this.shard = shard;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "shard-server-" + server.getLocalPort());
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public LocalShard getShard() {
+        return shard;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    // Runs a shard until the process is killed. Prints the port once it is listening, so a
+    // parent process that passed port 0 can read it from stdout.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        ShardServer server = new ShardServer(new LocalShard(), port);
+        System.out.println("ShardServer listening on " + server.getPort());
+        System.out.flush();
+        server.acceptor.join();
+    }
+
+    private void accept() {
+        while (!closed) {
+            Socket connection;
+            try {
+                connection = server.accept();
+            } catch (IOException e) {
+                return; // Closed
+            }
+            connections.add(connection);
+            Thread handler = new Thread(() -> serve(connection), "shard-connection-" + connection.getPort());
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    private void serve(Socket connection) {
+        try (Socket socket = connection) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            int op;
+            while ((op = in.read()) >= 0) {
+                if (!handle((byte) op, in, out)) {
+                    break;
+                }
+                out.flush();
+            }
+            out.flush();
+        } catch (EOFException e) {
+            // The client went away mid-request
+        } catch (IOException e) {
+            // Connection reset or server closed; the client sees the failure on its side
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    // Reads the whole request, then runs it and encodes the response in a buffer before sending
+    // any of it, so a failing operation sends FAILED and nothing else. Returns false when the
+    // request could not be read in full (an unknown op or bad arguments): the rest of it is
+    // still in the stream, so the connection is out of step and dropped after the FAILED reply.
+    private boolean handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        Call call;
+        try {
+            call = read(op, in);
+        } catch (RuntimeException e) {
+            out.write(failed(String.valueOf(e)));
+            return false;
+        }
+        if (call == null) {
+            out.write(failed("Unknown op " + op));
+            return false;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream response = new DataOutputStream(buffer);
+        try {
+            response.writeByte(OK);
+            call.run(response);
+            out.write(buffer.toByteArray());
+        } catch (RuntimeException e) {
+            out.write(failed(String.valueOf(e)));
+        }
+        return true;
+    }
+
+    // The request's arguments, bound to the operation that answers it; null for an unknown op
+    private Call read(byte op, DataInputStream in) throws IOException {
+        switch (op) {
+            case SEARCH: {
+                String keyword = BinaryIO.readString(in);
+                int limit = in.readInt();
+                return response -> {
+                    List<Book> books = shard.search(keyword, limit);
+                    response.writeInt(books.size());
+                    for (Book book : books) {
+                        BinaryIO.writeBook(response, book);
+                    }
+                };
+            }
+            case ADD: {
+                Book book = BinaryIO.readBook(in);
+                return response -> response.writeBoolean(shard.add(book));
+            }
+            case ADD_ALL: {
+                int count = in.readInt();
+                if (count < 0) {
+                    throw new IllegalArgumentException("Negative book count " + count);
+                }
+                List<Book> books = new ArrayList<>(Math.min(count, 1024));
+                for (int i = 0; i < count; i++) {
+                    books.add(BinaryIO.readBook(in));
+                }
+                return response -> response.writeInt(shard.addAll(books));
+            }
+            case REMOVE: {
+                BookKey key = new BookKey(BinaryIO.readString(in), BinaryIO.readString(in));
+                return response -> response.writeBoolean(shard.remove(key));
+            }
+            case FIND: {
+                BookKey key = new BookKey(BinaryIO.readString(in), BinaryIO.readString(in));
+                return response -> {
+                    Book book = shard.find(key);
+                    response.writeBoolean(book != null);
+                    if (book != null) {
+                        BinaryIO.writeBook(response, book);
+                    }
+                };
+            }
+            case SIZE:
+                return response -> response.writeInt(shard.size());
+            default:
+                return null;
+        }
+    }
+
+    private static byte[] failed(String message) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream response = new DataOutputStream(buffer);
+        response.writeByte(FAILED);
+        BinaryIO.writeString(response, message);
+        return buffer.toByteArray();
+    }
+
+    // Runs an operation whose request has been read and writes its result after the OK byte
+    private interface Call {
+        void run(DataOutputStream response) throws IOException;
+    }
+}
@@ -0,0 +1,457 @@
+package org.example;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// A catalog partitioned across N shards by a hash of each book's title and author, for catalogs
+// whose books and indexes do not fit in one heap. Shards are CatalogShards: in this JVM
+// (LocalShard) or in other local JVMs (RemoteShard talking to a ShardServer).
+// - Writes go to the book's shard, and to every replica of it, one after another. A replica that
+//   throws while another takes the write is marked stale: reads skip it and it stops being
+//   authoritative until repair() copies its shard back onto it. The first up-to-date replica of
+//   a shard is authoritative, and the result of a write is its answer. If no up-to-date replica
+//   takes a write, it throws after trying them all; the write may then have reached a replica
+//   or not, so retry it.
+// - searchBook scatters the search to all shards at once, asks each for at most limit results,
+//   and merges them in ORDER, so the result does not depend on how books are spread.
+// - Hedging: a shard that has not answered within the hedge delay gets the same search again on
+//   its next replica (or the same shard, over a new connection, when it has one replica); the
+//   first answer wins. A failed attempt moves on to the next replica right away.
+// Books are placed by title and author when they are added, so change them through this
+// service (remove, then add) rather than through their setters.
+public class ShardedBookService implements Closeable {
+
+    // Order of sharded search results: by title, then author (unique per book)
+    public static final Comparator<Book> ORDER = Comparator.comparing(Book::getTitle).thenComparing(Book::getAuthor);
+
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 50;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5_000;
+
+    // replicas[shard] holds the copies of one partition; they all receive every write
+    private final CatalogShard[][] replicas;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private volatile long hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_HEDGE_DELAY_MILLIS);
+    private volatile long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIMEOUT_MILLIS);
+
+    // Replicas that missed a write; they take later writes but answer no reads until repaired
+    private final Set<CatalogShard> stale = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    // One shard per element, without replicas
+    public ShardedBookService(List<? extends CatalogShard> shards) {
+        this(singletons(shards));
+    }
+
+    private ShardedBookService(CatalogShard[][] replicas) {
+        if (replicas.length == 0) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        for (CatalogShard[] group : replicas) {
+            if (group.length == 0) {
+                throw new IllegalArgumentException("Every shard needs at least one replica");
+            }
+        }
+        this.replicas = replicas;
+        ExecutorService virtual = RequestFrontEnd.newVirtualThreadExecutor();
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(RequestFrontEnd.daemonThreads("shard-search"));
+        this.timer = new ScheduledThreadPoolExecutor(1, RequestFrontEnd.daemonThreads("shard-hedges"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    // One shard per element of the outer list; the inner list holds that shard's replicas
+    public static ShardedBookService replicated(List<? extends List<? extends CatalogShard>> shards) {
+        CatalogShard[][] replicas = new CatalogShard[shards.size()][];
+        for (int i = 0; i < replicas.length; i++) {
+            replicas[i] = shards.get(i).toArray(new CatalogShard[0]);
+        }
+        return new ShardedBookService(replicas);
+    }
+
+    // shardCount LocalShards in this JVM
+    public static ShardedBookService inProcess(int shardCount) {
+        List<CatalogShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new LocalShard());
+        }
+        return new ShardedBookService(shards);
+    }
+
+    public int shardCount() {
+        return replicas.length;
+    }
+
+    // The shard a book with this title and author lives on. String hashes are the same in every
+    // JVM, so the placement survives restarts of the shard processes.
+    public int shardOf(BookKey key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), replicas.length);
+    }
+
+    // Adds the book to every replica of its shard; true if it was new there
+    public boolean addBook(Book book) {
+        return write(shardOf(BookKey.of(book)), shard -> shard.add(book));
+    }
+
+    // Adds the books with one call per shard replica; returns how many were new
+    public int addBooks(Collection<Book> books) {
+        List<List<Book>> byShard = new ArrayList<>(replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Book book : books) {
+            byShard.get(shardOf(BookKey.of(book))).add(book);
+        }
+        // Every shard gets its books even if an earlier one failed; the first failure is thrown last
+        int added = 0;
+        RuntimeException failure = null;
+        for (int i = 0; i < replicas.length; i++) {
+            List<Book> part = byShard.get(i);
+            if (part.isEmpty()) {
+                continue;
+            }
+            try {
+                added += write(i, shard -> shard.addAll(part));
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return added;
+    }
+
+    // Removes the book with this title and author from every replica of its shard
+    public boolean removeBook(Book book) {
+        BookKey key = BookKey.of(book);
+        return write(shardOf(key), shard -> shard.remove(key));
+    }
+
+    // Asks the book's shard, failing over to its other replicas; null if it is not cataloged
+    public Book findBook(String title, String author) {
+        BookKey key = new BookKey(title, author);
+        CatalogShard[] group = upToDate(replicas[shardOf(key)]);
+        RuntimeException failure = null;
+        for (CatalogShard shard : group) {
+            try {
+                return shard.find(key);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    // Books across all shards, counting each replicated book once
+    public int bookCount() {
+        int count = 0;
+        for (CatalogShard[] group : replicas) {
+            count += upToDate(group)[0].size();
+        }
+        return count;
+    }
+
+    // Replicas marked stale by a failed write and not repaired since
+    public int staleReplicas() {
+        return stale.size();
+    }
+
+    // Copies each shard's authoritative replica onto its stale ones: books missing there are
+    // added and books it should no longer hold are removed. Run it while writes are paused, or a
+    // write made during the copy may be undone. A replica that fails again stays stale; the
+    // first such failure is thrown after every shard was tried.
+    public void repair() {
+        RuntimeException failure = null;
+        for (CatalogShard[] group : replicas) {
+            CatalogShard[] current = upToDate(group);
+            for (CatalogShard replica : group) {
+                if (!stale.contains(replica) || current[0] == replica) {
+                    continue;
+                }
+                try {
+                    List<Book> books = current[0].search("", Integer.MAX_VALUE);
+                    Set<BookKey> keep = new HashSet<>();
+                    for (Book book : books) {
+                        keep.add(BookKey.of(book));
+                    }
+                    for (Book held : replica.search("", Integer.MAX_VALUE)) {
+                        if (!keep.contains(BookKey.of(held))) {
+                            replica.remove(BookKey.of(held));
+                        }
+                    }
+                    replica.addAll(books);
+                    stale.remove(replica);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Every book matching the keyword on any shard, in ORDER
+    public List<Book> searchBook(String keyword) {
+        return searchBook(keyword, Integer.MAX_VALUE);
+    }
+
+    // The first limit books in ORDER matching the keyword. Every shard is asked for at most limit
+    // books, so no shard sends more than the merge can use. Throws IllegalStateException if a
+    // shard has not answered within the timeout, and the shard's error if all its attempts failed.
+    public List<Book> searchBook(String keyword, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<CompletableFuture<List<Book>>> parts = new ArrayList<>(replicas.length);
+        for (int i = 0; i < replicas.length; i++) {
+            parts.add(new ShardSearch(upToDate(replicas[i]), keyword, limit).start());
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<List<Book>> results = new ArrayList<>(replicas.length);
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                try {
+                    results.add(parts.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException("Shard " + i + " did not answer within "
+                            + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new IllegalStateException("Shard " + i + " failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        } finally {
+            for (CompletableFuture<List<Book>> part : parts) {
+                part.cancel(false); // Attempts not yet started are skipped
+            }
+        }
+        return merge(results, limit);
+    }
+
+    // 0 turns hedging off
+    public void setHedgeDelay(long hedgeDelayMillis) {
+        this.hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis);
+    }
+
+    public void setTimeout(long timeoutMillis) {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    // Duplicate searches sent because a shard was slow
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    // Shard searches answered by a hedge or failover rather than by the first attempt
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    // Stops the search threads; the shards themselves belong to the caller
+    @Override
+    public void close() {
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    // k-way merge of per-shard results that are each in ORDER
+    static List<Book> merge(List<List<Book>> results, int limit) {
+        int total = 0;
+        for (List<Book> result : results) {
+            total += result.size();
+        }
+        List<Book> merged = new ArrayList<>(Math.min(total, limit));
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, results.size()),
+                (a, b) -> ORDER.compare(results.get(a[0]).get(a[1]), results.get(b[0]).get(b[1])));
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Book> result = results.get(head[0]);
+            merged.add(result.get(head[1]));
+            if (++head[1] < result.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Runs the write on every replica of the shard in turn and returns the answer of the first
+    // up-to-date one that took it. Replicas that throw are marked stale once another has taken
+    // the write; if none up to date took it, nothing is marked and the first error is thrown.
+    private <T> T write(int shard, Function<CatalogShard, T> write) {
+        CatalogShard[] group = replicas[shard];
+        T result = null;
+        boolean answered = false;
+        List<CatalogShard> failed = new ArrayList<>();
+        RuntimeException failure = null;
+        for (CatalogShard replica : group) {
+            boolean wasStale = stale.contains(replica);
+            try {
+                T answer = write.apply(replica);
+                if (!answered && !wasStale) {
+                    result = answer;
+                    answered = true;
+                }
+            } catch (RuntimeException e) {
+                failed.add(replica);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (!answered) {
+            throw failure != null ? failure : new IllegalStateException("Shard " + shard + " has no up-to-date replica");
+        }
+        stale.addAll(failed);
+        return result;
+    }
+
+    // The replicas of a group that missed no write, or the whole group if every one did
+    private CatalogShard[] upToDate(CatalogShard[] group) {
+        if (stale.isEmpty()) {
+            return group;
+        }
+        List<CatalogShard> current = new ArrayList<>(group.length);
+        for (CatalogShard replica : group) {
+            if (!stale.contains(replica)) {
+                current.add(replica);
+            }
+        }
+        return current.isEmpty() ? group : current.toArray(new CatalogShard[0]);
+    }
+
+    private static CatalogShard[][] singletons(List<? extends CatalogShard> shards) {
+        CatalogShard[][] replicas = new CatalogShard[shards.size()][];
+        for (int i = 0; i < replicas.length; i++) {
+            replicas[i] = new CatalogShard[]{shards.get(i)};
+        }
+        return replicas;
+    }
+
+    // One shard's part of a scatter-gather search, with its hedges and failovers. Attempts go to
+    // the replicas in turn, starting at a rotating one so reads spread over the replicas.
+    private final class ShardSearch {
+        private final CatalogShard[] group;
+        private final String keyword;
+        private final int limit;
+        private final int first;
+        private final int maxAttempts;
+        private final CompletableFuture<List<Book>> result = new CompletableFuture<>();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile ScheduledFuture<?> hedge;
+
+        ShardSearch(CatalogShard[] group, String keyword, int limit) {
+            this.group = group;
+            this.keyword = keyword;
+            this.limit = limit;
+            this.first = Math.floorMod(rotation.getAndIncrement(), group.length);
+            this.maxAttempts = Math.max(2, group.length);
+        }
+
+        CompletableFuture<List<Book>> start() {
+            launch();
+            scheduleHedge();
+            result.whenComplete((books, error) -> {
+                ScheduledFuture<?> pending = hedge;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            });
+            return result;
+        }
+
+        private void launch() {
+            int attempt = started.getAndIncrement();
+            if (attempt >= maxAttempts) {
+                return;
+            }
+            CatalogShard shard = group[(first + attempt) % group.length];
+            try {
+                executor.execute(() -> run(shard, attempt));
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void run(CatalogShard shard, int attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                List<Book> books = shard.search(keyword, limit);
+                if (attempt == 0) {
+                    result.complete(books);
+                } else {
+                    hedgeWins.increment(); // Counted first, so a caller who sees the result sees the count
+                    if (!result.complete(books)) {
+                        hedgeWins.decrement();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (failed.incrementAndGet() >= maxAttempts) {
+                    result.completeExceptionally(e);
+                } else {
+                    launch(); // Fail over right away instead of waiting for the hedge
+                }
+            }
+        }
+
+        private void scheduleHedge() {
+            long delay = hedgeDelayNanos;
+            if (delay <= 0 || result.isDone() || started.get() >= maxAttempts) {
+                return;
+            }
+            try {
+                hedge = timer.schedule(() -> {
+                    if (!result.isDone() && started.get() < maxAttempts) {
+                        hedges.increment();
+                        launch();
+                        scheduleHedge();
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closing; the attempts already running still answer
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Compact binary image of both services:
+//   magic, version, book count, books (title, author, genre, price, review texts on the book),
+//   reviewed book count, review logs (book key, reviews), [version 2 and later]
+//   user count, users (username, password hash, email, purchased book keys),
+//   buyer count, ledger purchases (username, book keys), [version 3 and later]
+//   covered LSN, last LSN, [version 4 and later]
+//   CRC32
+// Snapshots are written to a temporary file, forced and then renamed over the old one, so a
+// crash mid-write leaves the previous snapshot intact. The directory is forced after the rename,
+// so a checkpoint never drops log records before the snapshot holding them is durable.
+// The snapshot holds every log record up to the covered LSN and none after the last LSN. Those
+// in between were appended while it was written and may or may not be in it; see Coverage.
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 4;
+
+    // The log records a snapshot accounts for. Replay skips those up to coveredLsn and applies
+    // those up to lastLsn only where the snapshot does not already hold their change.
+    static final class Coverage {
+        static final Coverage NONE = new Coverage(0, 0);
+
+        final long coveredLsn;
+        final long lastLsn;
+
+        Coverage(long coveredLsn, long lastLsn) {
+            this.coveredLsn = coveredLsn;
+            this.lastLsn = lastLsn;
+        }
+    }
+
+    private SnapshotFile() {
+    }
+
+    // Writes the services' state, which holds at least every log record up to coveredLsn. lastLsn
+    // is asked for the log's last LSN once everything has been read.
+    static void write(Path file, BookService bookService, UserService userService,
+                      long coveredLsn, LongSupplier lastLsn) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // Counted from the books actually visited, which may differ from the store's size when
+            // a concurrent service changes while a background checkpoint runs
+            List<Book> cataloged = new ArrayList<>();
+            bookService.books().forEach(cataloged::add);
+            out.writeInt(cataloged.size());
+            List<Book> reviewed = new ArrayList<>();
+            List<List<Review>> logs = new ArrayList<>();
+            for (Book book : cataloged) {
+                BinaryIO.writeString(out, book.getTitle());
+                BinaryIO.writeString(out, book.getAuthor());
+                BinaryIO.writeString(out, book.getGenre());
+                out.writeDouble(book.getPrice());
+                List<String> reviews;
+                List<Review> log;
+                // ConcurrentBookService adds and journals a review under the same lock, so every
+                // review read here was logged before lastLsn is asked for
+                synchronized (book) {
+                    reviews = new ArrayList<>(book.peekReviews());
+                    log = bookService.reviewStore().all(book);
+                }
+                out.writeInt(reviews.size());
+                for (String review : reviews) {
+                    BinaryIO.writeString(out, review);
+                }
+                if (!log.isEmpty()) {
+                    reviewed.add(book);
+                    logs.add(log);
+                }
+            }
+
+            out.writeInt(reviewed.size());
+            for (int i = 0; i < reviewed.size(); i++) {
+                BinaryIO.writeString(out, reviewed.get(i).getTitle());
+                BinaryIO.writeString(out, reviewed.get(i).getAuthor());
+                out.writeInt(logs.get(i).size());
+                for (Review review : logs.get(i)) {
+                    BinaryIO.writeReview(out, review);
+                }
+            }
+
+            // A user may be reachable under more than one key, but is written once
+            Set<User> users = Collections.newSetFromMap(new IdentityHashMap<>());
+            users.addAll(userService.users());
+            out.writeInt(users.size());
+            for (User user : users) {
+                BinaryIO.writeString(out, user.getUsername());
+                BinaryIO.writeString(out, user.getPassword());
+                BinaryIO.writeString(out, user.getEmail());
+                List<Book> purchased = user.getPurchasedBooks();
+                out.writeInt(purchased.size());
+                for (Book book : purchased) {
+                    BinaryIO.writeString(out, book.getTitle());
+                    BinaryIO.writeString(out, book.getAuthor());
+                }
+            }
+
+            List<User> buyers = new ArrayList<>();
+            List<List<Book>> purchases = new ArrayList<>();
+            bookService.purchaseLedger().forEach((user, books) -> {
+                buyers.add(user);
+                purchases.add(books);
+            });
+            out.writeInt(buyers.size());
+            for (int i = 0; i < buyers.size(); i++) {
+                BinaryIO.writeString(out, buyers.get(i).getUsername());
+                out.writeInt(purchases.get(i).size());
+                for (Book book : purchases.get(i)) {
+                    BinaryIO.writeString(out, book.getTitle());
+                    BinaryIO.writeString(out, book.getAuthor());
+                }
+            }
+
+            out.writeLong(coveredLsn);
+            out.writeLong(lastLsn.getAsLong());
+
+            out.flush();
+            new DataOutputStream(stream).writeInt((int) checked.getChecksum().getValue());
+            stream.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        BinaryIO.syncDirectory(file);
+    }
+
+    // Loads a snapshot into empty services and returns the log records it accounts for, which is
+    // none when there is no snapshot yet or it predates LSNs
+    static Coverage load(Path file, BookService bookService, UserService userService) throws IOException {
+        if (!Files.exists(file)) {
+            return Coverage.NONE;
+        }
+        Coverage coverage = Coverage.NONE;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+
+            int books = in.readInt();
+            for (int i = 0; i < books; i++) {
+                Book book = BinaryIO.readBook(in);
+                int reviews = in.readInt();
+                List<String> reviewList = new ArrayList<>(reviews);
+                for (int r = 0; r < reviews; r++) {
+                    reviewList.add(BinaryIO.readString(in));
+                }
+                book.setReviews(reviewList);
+                bookService.addBook(book);
+            }
+
+            // Review texts are already on the books, so the logs only go to the review store
+            int reviewed = version >= 2 ? in.readInt() : 0;
+            for (int i = 0; i < reviewed; i++) {
+                Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                int reviews = in.readInt();
+                for (int r = 0; r < reviews; r++) {
+                    Review review = BinaryIO.readReview(in);
+                    if (book != null) {
+                        bookService.restoreReview(book, review, false);
+                    }
+                }
+            }
+
+            int users = in.readInt();
+            for (int i = 0; i < users; i++) {
+                User user = new User(BinaryIO.readString(in), BinaryIO.readString(in), BinaryIO.readString(in));
+                int purchased = in.readInt();
+                for (int p = 0; p < purchased; p++) {
+                    Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                    if (book != null) {
+                        user.getPurchasedBooks().add(book);
+                    }
+                }
+                userService.restoreUser(user);
+            }
+
+            int buyers = version >= 3 ? in.readInt() : 0;
+            for (int i = 0; i < buyers; i++) {
+                User user = userService.findUser(BinaryIO.readString(in));
+                int purchased = in.readInt();
+                for (int p = 0; p < purchased; p++) {
+                    Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                    if (user != null && book != null) {
+                        bookService.restorePurchase(user, book);
+                    }
+                }
+            }
+
+            if (version >= 4) {
+                coverage = new Coverage(in.readLong(), in.readLong());
+            }
+
+            int expected = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(stream).readInt() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+        }
+        return coverage;
+    }
+}
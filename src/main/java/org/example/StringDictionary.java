@@ -0,0 +1,63 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// Dictionary encoding for a column with few distinct values (authors, genres): each distinct
+// string is stored once and rows keep its int code. Not thread-safe.
+final class StringDictionary {
+
+    static final int NULL_CODE = -1;
+    static final int ABSENT = -2;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] strings = new String[16];
+    private int size;
+
+    // Returns the code of the value, adding it if it is new
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            code = size;
+            strings[size++] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    // Returns the code of the value, or ABSENT if no row has ever used it
+    int find(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code == null ? ABSENT : code;
+    }
+
+    String decode(int code) {
+        return code == NULL_CODE ? null : strings[code];
+    }
+
+    // Codes of the strings containing the keyword; each distinct string is tested once
+    BitSet matching(String keyword) {
+        BitSet hits = new BitSet(size);
+        for (int code = 0; code < size; code++) {
+            if (strings[code].contains(keyword)) {
+                hits.set(code);
+            }
+        }
+        return hits;
+    }
+
+    static boolean hit(BitSet hits, int code) {
+        return code >= 0 && hits.get(code);
+    }
+}
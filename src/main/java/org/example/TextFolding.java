@@ -0,0 +1,63 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Case and accent folding for normalized search: "Émile", "EMILE" and "emile" fold to the same
+// text. Compatibility decomposition (NFKD) splits accented letters and ligatures into base
+// letters plus combining marks, the marks are dropped, and upper- then lower-casing folds case
+// including ß to ss.
+final class TextFolding {
+
+    private TextFolding() {
+    }
+
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        if (isPlainLowercase(text)) {
+            return text; // The common case, without the normalizer's copies
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+                    && type != Character.ENCLOSING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString().toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    // UTF-8 bytes of the folded text
+    static byte[] foldToBytes(String text) {
+        return fold(text).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Title, author and genre folded into one UTF-8 array, separated by zero bytes so that no
+    // match can run from one field into the next
+    static byte[] foldFields(Book book) {
+        byte[] title = foldToBytes(book.getTitle());
+        byte[] author = foldToBytes(book.getAuthor());
+        byte[] genre = foldToBytes(book.getGenre());
+        byte[] fields = new byte[title.length + author.length + genre.length + 2];
+        System.arraycopy(title, 0, fields, 0, title.length);
+        System.arraycopy(author, 0, fields, title.length + 1, author.length);
+        System.arraycopy(genre, 0, fields, title.length + author.length + 2, genre.length);
+        return fields;
+    }
+
+    private static boolean isPlainLowercase(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+// Bounded-heap top-K selection: the heap keeps the k best elements seen so far with the worst
+// on top, so each further element costs O(log k) and memory never exceeds k entries
+final class TopK {
+
+    private TopK() {
+    }
+
+    static <T> List<T> select(Stream<T> elements, int k, Comparator<? super T> order) {
+        List<T> result = new ArrayList<>();
+        if (k <= 0) {
+            return result;
+        }
+
+        // Arrival order breaks ties, so earlier elements win and the output is deterministic
+        Comparator<Ranked<T>> best = Comparator.<Ranked<T>, T>comparing(r -> r.element, order)
+                .thenComparingLong(r -> r.arrival);
+        PriorityQueue<Ranked<T>> heap = new PriorityQueue<>(Math.min(k, 1024), best.reversed());
+        long[] arrivals = {0};
+        elements.forEach(element -> {
+            if (heap.size() < k) {
+                heap.add(new Ranked<>(element, arrivals[0]++));
+            } else if (order.compare(element, heap.peek().element) < 0) {
+                heap.poll();
+                heap.add(new Ranked<>(element, arrivals[0]++));
+            } else {
+                arrivals[0]++;
+            }
+        });
+
+        List<Ranked<T>> ranked = new ArrayList<>(heap);
+        ranked.sort(best);
+        for (Ranked<T> r : ranked) {
+            result.add(r.element);
+        }
+        return result;
+    }
+
+    private static final class Ranked<T> {
+        final T element;
+        final long arrival;
+
+        Ranked(T element, long arrival) {
+            this.element = element;
+            this.arrival = arrival;
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package org.example;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class User {
+
+    // The fields that change listeners are told about
+    public enum Field {
+        USERNAME, PASSWORD, EMAIL
+    }
+
     private String username;
     private String password;
     private String email;
 
     private List<Book> purchasedBooks = new ArrayList<>();
 
+    // Null, a single UserChangeListener, or a UserChangeListener[] for several
+    private volatile Object listeners;
+
 
     public User(String username, String password, String email) {
         this.username = username;
@@ -29,7 +39,10 @@ public class User {
     }
 
     public void setUsername(String username) {
+        String old = this.username;
+        fireChanging(Field.USERNAME, username);
         this.username = username;
+        fireChanged(Field.USERNAME, old);
     }
 
     public String getPassword() {
@@ -37,7 +50,10 @@ public class User {
     }
 
     public void setPassword(String password) {
+        String old = this.password;
+        fireChanging(Field.PASSWORD, password);
         this.password = password;
+        fireChanged(Field.PASSWORD, old);
     }
 
     public String getEmail() {
@@ -45,7 +61,10 @@ public class User {
     }
 
     public void setEmail(String email) {
+        String old = this.email;
+        fireChanging(Field.EMAIL, email);
         this.email = email;
+        fireChanged(Field.EMAIL, old);
     }
 
     public List<Book> getPurchasedBooks() {
@@ -55,4 +74,58 @@ public class User {
     public void setPurchasedBooks(List<Book> purchasedBooks) {
         this.purchasedBooks = purchasedBooks;
     }
-}
\ No newline at end of file
+
+    // Starts notifying the listener of changes made through the setters
+    public synchronized void addChangeListener(UserChangeListener listener) {
+        Object current = listeners;
+        if (current == null) {
+            listeners = listener;
+        } else if (current instanceof UserChangeListener) {
+            listeners = new UserChangeListener[]{(UserChangeListener) current, listener};
+        } else {
+            UserChangeListener[] array = (UserChangeListener[]) current;
+            UserChangeListener[] grown = Arrays.copyOf(array, array.length + 1);
+            grown[array.length] = listener;
+            listeners = grown;
+        }
+    }
+
+    public synchronized void removeChangeListener(UserChangeListener listener) {
+        Object current = listeners;
+        if (current == listener) {
+            listeners = null;
+        } else if (current instanceof UserChangeListener[]) {
+            UserChangeListener[] array = (UserChangeListener[]) current;
+            int index = Arrays.asList(array).indexOf(listener);
+            if (index < 0) {
+                return;
+            }
+            UserChangeListener[] shrunk = new UserChangeListener[array.length - 1];
+            System.arraycopy(array, 0, shrunk, 0, index);
+            System.arraycopy(array, index + 1, shrunk, index, shrunk.length - index);
+            listeners = shrunk.length == 1 ? shrunk[0] : shrunk;
+        }
+    }
+
+    private void fireChanging(Field field, Object newValue) {
+        Object current = listeners;
+        if (current instanceof UserChangeListener) {
+            ((UserChangeListener) current).userChanging(this, field, newValue);
+        } else if (current != null) {
+            for (UserChangeListener listener : (UserChangeListener[]) current) {
+                listener.userChanging(this, field, newValue);
+            }
+        }
+    }
+
+    private void fireChanged(Field field, Object oldValue) {
+        Object current = listeners;
+        if (current instanceof UserChangeListener) {
+            ((UserChangeListener) current).userChanged(this, field, oldValue);
+        } else if (current != null) {
+            for (UserChangeListener listener : (UserChangeListener[]) current) {
+                listener.userChanged(this, field, oldValue);
+            }
+        }
+    }
+}
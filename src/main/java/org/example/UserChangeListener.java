@@ -0,0 +1,12 @@
+package org.example;
+
+// Notified when a user's fields are changed through its setters; see BookChangeListener
+public interface UserChangeListener {
+
+    // Called before the field changes; throwing rejects the change and leaves the user as it was
+    default void userChanging(User user, User.Field field, Object newValue) {
+    }
+
+    // Called after the field changed, with its previous value
+    void userChanged(User user, User.Field field, Object oldValue);
+}
@@ -1,67 +1,370 @@
 package org.example;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class UserService {
 
     // The userDatabase stores user data with the username as the key and the User object as the value
     private Map<String, User> userDatabase;
 
+    // Passwords are stored as salted PBKDF2 hashes; the hasher decides the cost of new hashes
+    private PasswordHasher passwordHasher;
+
+    // Optional cache that lets repeated logins within a short window skip the KDF
+    private VerifiedLoginCache loginCache;
+
+    // Receives every successful mutation, e.g. a WriteAheadLog; null when nothing is journaled
+    private Journal journal;
+
+    // Latency recording; null (the default) skips timing altogether
+    private volatile ServiceMetrics metrics;
+
+    // Listens to every registered user, so a username changed through setUsername moves the user
+    // to the new key in the userDatabase instead of leaving it under the old one
+    private final UserChangeListener accountListener = new AccountListener();
+
+    // Stands in for a user whose username is claimed but who is not published yet; lookups treat
+    // it as absent and claims as taken
+    static final User RESERVED = new User(null, null, null);
+
+    // Users that updateProfile is renaming. The listener leaves their old username claimed, and
+    // updateProfile releases it once the rename is journaled.
+    private final Set<User> renaming = ConcurrentHashMap.newKeySet();
+
     // Default constructor initializes the userDatabase as a new HashMap
     public UserService() {
-        this.userDatabase = new HashMap<>();
+        this(new HashMap<>());
     }
 
     // Constructor that allows injecting a custom userDatabase (used for testing)
     public UserService(Map<String, User> userDatabase) {
+        this(userDatabase, new PasswordHasher());
+    }
+
+    // Constructor that also sets the password hashing cost
+    public UserService(Map<String, User> userDatabase, PasswordHasher passwordHasher) {
         this.userDatabase = userDatabase;
+        this.passwordHasher = passwordHasher;
+        for (User user : userDatabase.values()) {
+            track(user);
+        }
     }
 
     // Registers a new user if the username doesn't already exist in the database
     public boolean registerUser(User user) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean registered = register(user, false);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.REGISTER_USER, start, registered);
+        }
+        return registered;
+    }
+
+    // registerUser on the executor, which also hashes the password there
+    public CompletableFuture<Boolean> registerUserAsync(User user, Executor executor) {
+        return AsyncCalls.supply(() -> registerUser(user), executor);
+    }
+
+    // Registers a user whose password comes from the service's own storage, e.g. a snapshot or
+    // the write-ahead log: a stored hash is kept as it is instead of being hashed again. Never
+    // use this for passwords a client supplied, as a hash names its own KDF cost.
+    boolean restoreUser(User user) {
+        return register(user, true);
+    }
+
+    // keepHash lets a password that is already a hash through unchanged (restores only)
+    boolean register(User user, boolean keepHash) {
+        // A user without a password cannot be registered
+        if (!isAcceptablePassword(user.getPassword())) {
+            return false;
+        }
+
         // Check if the username already exists
         if (userDatabase.containsKey(user.getUsername())) {
             return false; // User already exists, so registration fails
         }
 
-        // Add the user to the database
+        // Add the user to the database, keeping only a hash of the password
+        user.setPassword(encodePassword(user.getPassword(), keepHash));
         userDatabase.put(user.getUsername(), user);
+        track(user);
+        journalRegistered(user);
         return true; // User registered successfully
     }
 
+    // Registers many users at once; result[i] tells whether the i-th user was registered.
+    // Passwords are hashed one by one as in registerUser.
+    public boolean[] registerUsers(Collection<User> users) {
+        return registerAll(users, false);
+    }
+
+    // registerUsers for a migration from a trusted source: users that already carry a password
+    // hash keep it, so migrated users skip the KDF
+    boolean[] restoreUsers(Collection<User> users) {
+        return registerAll(users, true);
+    }
+
+    boolean[] registerAll(Collection<User> users, boolean keepHash) {
+        boolean[] registered = new boolean[users.size()];
+        List<User> accepted = new ArrayList<>();
+        int i = 0;
+        for (User user : users) {
+            if (user != null && isAcceptablePassword(user.getPassword()) && !userDatabase.containsKey(user.getUsername())) {
+                user.setPassword(encodePassword(user.getPassword(), keepHash));
+                userDatabase.put(user.getUsername(), user);
+                track(user);
+                accepted.add(user);
+                registered[i] = true;
+            }
+            i++;
+        }
+        journalRegistered(accepted);
+        return registered;
+    }
+
     // Logs in a user if the username exists and the password matches
     public User loginUser(String username, String password) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        User user = login(username, password);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.LOGIN_USER, start, user != null);
+        }
+        return user;
+    }
+
+    private User login(String username, String password) {
         // Retrieve the user from the database using the username
         User user = userDatabase.get(username);
 
         // If the user doesn't exist, return null
-        if (user == null) {
-            return null; // User not found
+        if (user == null || user == RESERVED || password == null) {
+            return null; // User not found, or no password given
         }
 
         // Check if the provided password matches the user's password
-        if (!user.getPassword().equals(password)) {
+        if (!checkPassword(user, password)) {
             return null; // Password is incorrect
         }
 
         return user; // Login successful, return the user
     }
 
+    // Runs loginUser on the given executor, so the KDF never blocks the calling thread. Use a
+    // bounded executor (see newLoginExecutor) to shed login bursts instead of queueing them:
+    // a rejected login completes exceptionally with RejectedExecutionException. Cancelling the
+    // future before the executor gets to it skips the login altogether.
+    public CompletableFuture<User> loginUserAsync(String username, String password, Executor executor) {
+        return AsyncCalls.supply(() -> loginUser(username, password), executor);
+    }
+
     // Updates the user's profile information (username, password, and email)
     public boolean updateUserProfile(User user, String newUsername, String newPassword, String newEmail) {
+        ServiceMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean updated = updateProfile(user, newUsername, newPassword, newEmail, false);
+        if (metrics != null) {
+            metrics.record(ServiceMetrics.Operation.UPDATE_PROFILE, start, updated);
+        }
+        return updated;
+    }
+
+    public CompletableFuture<Boolean> updateUserProfileAsync(User user, String newUsername, String newPassword,
+                                                             String newEmail, Executor executor) {
+        return AsyncCalls.supply(() -> updateUserProfile(user, newUsername, newPassword, newEmail), executor);
+    }
+
+    // updateUserProfile replayed from the write-ahead log, whose password is the stored hash
+    boolean restoreProfile(User user, String newUsername, String newPassword, String newEmail) {
+        return updateProfile(user, newUsername, newPassword, newEmail, true);
+    }
+
+    boolean updateProfile(User user, String newUsername, String newPassword, String newEmail, boolean keepHash) {
+        // Check every argument before anything changes, so a rejected update changes nothing
+        if (newUsername == null || !isAcceptablePassword(newPassword)) {
+            return false;
+        }
+
         // Check if the new username is already taken by another user
         if (userDatabase.containsKey(newUsername)) {
             return false; // New username is already taken, so update fails
         }
+        String hash = encodePassword(newPassword, keepHash);
 
-        // Update the user's information
-        user.setUsername(newUsername);
-        user.setPassword(newPassword);
-        user.setEmail(newEmail);
+        // Update the user's information; the old username is released only after the change is
+        // journaled, so no registration that reuses it can be journaled ahead of the rename
+        String oldUsername = user.getUsername();
+        beginRename(user);
+        try {
+            user.setUsername(newUsername);
+            user.setPassword(hash);
+            user.setEmail(newEmail);
+            forgetLogin(user);
 
-        // Store the updated user in the database with the new username
-        userDatabase.put(newUsername, user);
+            // Store the updated user in the database with the new username
+            userDatabase.put(newUsername, user);
+            journalUpdated(oldUsername, user);
+        } finally {
+            endRename(user);
+            if (!Objects.equals(oldUsername, user.getUsername())) {
+                userDatabase.remove(oldUsername, user);
+            }
+        }
         return true; // User profile updated successfully
     }
+
+    // Returns the user registered under the username, or null
+    public User findUser(String username) {
+        User user = userDatabase.get(username);
+        return user == RESERVED ? null : user;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    // Starts recording per-operation metrics; null stops it
+    public void setMetrics(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Every registered user, for snapshots
+    Collection<User> users() {
+        List<User> users = new ArrayList<>(userDatabase.size());
+        for (User user : userDatabase.values()) {
+            if (user != RESERVED) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    // Lets a user who logged in within the last ttlMillis log in again without running the KDF
+    public void enableLoginCache(long ttlMillis, int maxEntries) {
+        this.loginCache = new VerifiedLoginCache(ttlMillis, maxEntries);
+    }
+
+    // A fixed pool of login threads with a bounded queue: once the queue is full further logins
+    // are rejected instead of piling up and starving other work
+    public static ExecutorService newLoginExecutor(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // A password a user may register with or change to: present and not empty
+    static boolean isAcceptablePassword(String password) {
+        return password != null && !password.isEmpty();
+    }
+
+    // Hashes a password. With keepHash a value that is already a hash is kept as it is, which
+    // only restores from the service's own storage may ask for.
+    String encodePassword(String password, boolean keepHash) {
+        return keepHash && PasswordHasher.isHash(password) ? password : passwordHasher.hash(password);
+    }
+
+    void journalRegistered(User user) {
+        if (journal != null) {
+            journal.userRegistered(user);
+        }
+    }
+
+    void journalRegistered(List<User> users) {
+        if (journal != null && !users.isEmpty()) {
+            journal.usersRegistered(users);
+        }
+    }
+
+    void journalUpdated(String oldUsername, User user) {
+        if (journal != null) {
+            journal.userUpdated(oldUsername, user);
+        }
+    }
+
+    // Holds the user's current username until endRename, whatever setUsername does meanwhile
+    void beginRename(User user) {
+        renaming.add(user);
+    }
+
+    void endRename(User user) {
+        renaming.remove(user);
+    }
+
+    void track(User user) {
+        user.addChangeListener(accountListener);
+    }
+
+    // Drops any cached login after a password change
+    void forgetLogin(User user) {
+        if (loginCache != null) {
+            loginCache.forget(user);
+        }
+    }
+
+    private boolean checkPassword(User user, String password) {
+        String stored = user.getPassword();
+
+        // Users stored before hashing was introduced still hold plaintext; upgrade them on login
+        if (!PasswordHasher.isHash(stored)) {
+            byte[] expected = stored.getBytes(StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(expected, password.getBytes(StandardCharsets.UTF_8))) {
+                return false;
+            }
+            user.setPassword(passwordHasher.hash(password));
+            return true;
+        }
+
+        if (loginCache != null && loginCache.isVerified(user, password)) {
+            return true;
+        }
+        if (!passwordHasher.verify(password, stored)) {
+            return false;
+        }
+        if (passwordHasher.needsRehash(stored)) {
+            user.setPassword(passwordHasher.hash(password));
+        }
+        if (loginCache != null) {
+            loginCache.remember(user, password);
+        }
+        return true;
+    }
+
+    // Claims the new username before the user changes, atomically when the userDatabase is a
+    // ConcurrentMap, and releases the old one afterwards. Only the username is a key; the other
+    // fields are read from the user itself.
+    private final class AccountListener implements UserChangeListener {
+
+        @Override
+        public void userChanging(User user, User.Field field, Object newValue) {
+            if (field == User.Field.USERNAME) {
+                User holder = userDatabase.putIfAbsent((String) newValue, user);
+                if (holder != null && holder != user) {
+                    throw new IllegalArgumentException("Username is already taken: " + newValue);
+                }
+            }
+        }
+
+        @Override
+        public void userChanged(User user, User.Field field, Object oldValue) {
+            if (field == User.Field.USERNAME && !Objects.equals(oldValue, user.getUsername())
+                    && !renaming.contains(user)) {
+                userDatabase.remove(oldValue, user);
+            }
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Short-lived record of successful logins, so a client that logs in again within the TTL skips
+// the KDF. Only a keyed SHA-256 digest of the password is kept, and an entry is tied to the
+// stored hash it was verified against: changing the password invalidates it. When full, the
+// least recently used entry makes room.
+public class VerifiedLoginCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final byte[] key = new byte[32];
+    // In access order, so the eldest entry is the least recently used. Guarded by itself.
+    private final Map<User, Entry> entries;
+
+    public VerifiedLoginCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<User, VerifiedLoginCache.Entry> eldest) {
+                return size() > VerifiedLoginCache.this.maxEntries;
+            }
+        };
+        new SecureRandom().nextBytes(key);
+    }
+
+    // True if this password was verified for the user's current hash within the TTL
+    public boolean isVerified(User user, String password) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(user);
+            if (entry == null) {
+                return false;
+            }
+            if (System.nanoTime() - entry.verifiedAt > ttlNanos || !entry.storedHash.equals(user.getPassword())) {
+                entries.remove(user);
+                return false;
+            }
+        }
+        return MessageDigest.isEqual(entry.digest, digest(password));
+    }
+
+    // Remembers a successful verification, evicting the least recently used entry when full
+    public void remember(User user, String password) {
+        Entry entry = new Entry(user.getPassword(), digest(password), System.nanoTime());
+        synchronized (entries) {
+            entries.put(user, entry);
+        }
+    }
+
+    public void forget(User user) {
+        synchronized (entries) {
+            entries.remove(user);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private byte[] digest(String password) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(key);
+            return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final String storedHash;
+        final byte[] digest;
+        final long verifiedAt;
+
+        Entry(String storedHash, byte[] digest, long verifiedAt) {
+            this.storedHash = storedHash;
+            this.digest = digest;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+}
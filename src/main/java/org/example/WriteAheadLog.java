@@ -0,0 +1,577 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only log of service mutations. Each record is framed as
+//   [int payload length][int CRC32 of payload and LSN][payload][long LSN]
+// so replay stops cleanly at a torn or corrupt tail left by a crash. The LSN (log sequence
+// number) grows by one per record and carries on across restarts and checkpoints; a snapshot
+// notes the LSNs it covers, so replay skips the records it already holds.
+// Appends only copy the record into a pending buffer. Whoever forces the log (see FsyncPolicy)
+// writes everything pending with one write and one fsync, so concurrent writers are committed
+// as a group instead of paying one fsync each.
+public class WriteAheadLog implements Journal, Closeable {
+
+    static final byte BOOK_ADDED = 1;
+    static final byte BOOK_REMOVED = 2;
+    static final byte REVIEW_TEXT_ADDED = 3; // Written before reviews had ratings; replayed only
+    static final byte USER_REGISTERED = 4;
+    static final byte USER_UPDATED = 5;
+    static final byte REVIEW_ADDED = 6;
+    static final byte BOOK_PURCHASED = 7;
+    static final byte BOOK_UPDATED = 8;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int LSN_BYTES = 8;
+    private static final int FLUSH_BYTES = 4 << 20;
+
+    private final Path file;
+    private final FsyncPolicy policy;
+    private final ScheduledExecutorService flusher;
+
+    private final Object appendLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    // LSN of the last record appended
+    private long appended;
+    private final long opened;
+
+    private final Object syncLock = new Object();
+    // Replaced by every checkpoint. Guarded by syncLock.
+    private FileChannel channel;
+    private volatile long durable;
+    // Records taken from pending by a sync whose write or force failed, positioned at the first
+    // byte not yet written; the next sync writes them ahead of anything newer. Guarded by syncLock.
+    private ByteBuffer unsynced;
+
+    // Opens the log for appending; new records are numbered on from the last intact one
+    public WriteAheadLog(Path file, FsyncPolicy policy) throws IOException {
+        this(file, policy, Files.exists(file) ? read(file, (lsn, in) -> { }).lastLsn : 0);
+    }
+
+    // Opens the log with new records numbered from lastLsn + 1
+    WriteAheadLog(Path file, FsyncPolicy policy, long lastLsn) throws IOException {
+        this(file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                policy, lastLsn);
+    }
+
+    WriteAheadLog(Path file, FileChannel channel, FsyncPolicy policy, long lastLsn) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.channel.position(channel.size());
+        this.policy = policy;
+        this.appended = lastLsn;
+        this.opened = lastLsn;
+        this.durable = lastLsn;
+        if (policy.mode == FsyncPolicy.Mode.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncQuietly, policy.intervalMillis, policy.intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        append(BOOK_ADDED, out -> BinaryIO.writeBook(out, book));
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        List<Record> records = new ArrayList<>(books.size());
+        for (Book book : books) {
+            records.add(encode(BOOK_ADDED, out -> BinaryIO.writeBook(out, book)));
+        }
+        appendAll(records);
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        append(BOOK_REMOVED, out -> writeBookKey(out, book));
+    }
+
+    @Override
+    public void booksRemoved(List<Book> books) {
+        List<Record> records = new ArrayList<>(books.size());
+        for (Book book : books) {
+            records.add(encode(BOOK_REMOVED, out -> writeBookKey(out, book)));
+        }
+        appendAll(records);
+    }
+
+    @Override
+    public void bookUpdated(BookKey oldKey, Book book) {
+        append(BOOK_UPDATED, out -> {
+            BinaryIO.writeString(out, oldKey.getTitle());
+            BinaryIO.writeString(out, oldKey.getAuthor());
+            BinaryIO.writeBook(out, book);
+        });
+    }
+
+    @Override
+    public void bookPurchased(User user, Book book) {
+        append(BOOK_PURCHASED, out -> {
+            BinaryIO.writeString(out, user.getUsername());
+            BinaryIO.writeString(out, book.getTitle());
+            BinaryIO.writeString(out, book.getAuthor());
+        });
+    }
+
+    @Override
+    public void reviewAdded(User user, Book book, Review review) {
+        append(REVIEW_ADDED, out -> {
+            BinaryIO.writeString(out, book.getTitle());
+            BinaryIO.writeString(out, book.getAuthor());
+            BinaryIO.writeReview(out, review);
+        });
+    }
+
+    @Override
+    public void userRegistered(User user) {
+        append(USER_REGISTERED, out -> writeUser(out, user));
+    }
+
+    @Override
+    public void usersRegistered(List<User> users) {
+        List<Record> records = new ArrayList<>(users.size());
+        for (User user : users) {
+            records.add(encode(USER_REGISTERED, out -> writeUser(out, user)));
+        }
+        appendAll(records);
+    }
+
+    @Override
+    public void userUpdated(String oldUsername, User user) {
+        append(USER_UPDATED, out -> {
+            BinaryIO.writeString(out, oldUsername);
+            BinaryIO.writeString(out, user.getUsername());
+            BinaryIO.writeString(out, user.getPassword());
+            BinaryIO.writeString(out, user.getEmail());
+        });
+    }
+
+    // Writes out and forces every record appended so far
+    public void sync() throws IOException {
+        long target;
+        synchronized (appendLock) {
+            target = appended;
+        }
+        sync(target);
+    }
+
+    // Number of records appended since the log was opened
+    public long appendedRecords() {
+        synchronized (appendLock) {
+            return appended - opened;
+        }
+    }
+
+    // LSN of the last record appended
+    long lastLsn() {
+        synchronized (appendLock) {
+            return appended;
+        }
+    }
+
+    // Folds the log into a snapshot without blocking appends while the snapshot is written:
+    // - Writes out everything appended so far and notes the last LSN and where the file ends.
+    //   Services apply a mutation before journaling it, so the snapshot holds every record up to
+    //   that LSN; the writer stores it, and replay skips those records even if the log keeps them.
+    // - Runs the snapshot writer while appends and syncs carry on past that point.
+    // - Drops the covered records by writing the ones written since to a new file, forcing it and
+    //   renaming it over the log, so a crash at any point leaves one complete log or the other.
+    // A mutation applied while the snapshot is written may land in both the snapshot and the log
+    // tail; see SnapshotFile for how replay tells those apart. If the snapshot writer throws, the
+    // log is left as it was.
+    void checkpoint(SnapshotWriter snapshot) throws IOException {
+        long coveredLsn;
+        long covered;
+        synchronized (syncLock) {
+            coveredLsn = writePending();
+            covered = channel.position();
+        }
+        snapshot.write(coveredLsn);
+        synchronized (syncLock) {
+            ByteBuffer tail = ByteBuffer.allocate(Math.toIntExact(channel.position() - covered));
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, covered + tail.position()) < 0) {
+                    throw new EOFException("Log shrank during checkpoint");
+                }
+            }
+            tail.flip();
+            // Bytes a failed sync has yet to write belong right after the tail
+            ByteBuffer carry = tail;
+            if (unsynced != null) {
+                carry = ByteBuffer.allocate(tail.remaining() + unsynced.remaining());
+                carry.put(tail).put(unsynced.duplicate()).flip();
+            }
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            FileChannel rewritten = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                while (carry.hasRemaining()) {
+                    rewritten.write(carry);
+                }
+                rewritten.force(true);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // The old log is still in place and still complete
+                rewritten.close();
+                throw e;
+            }
+            FileChannel replaced = channel;
+            channel = rewritten;
+            unsynced = null;
+            replaced.close();
+            BinaryIO.syncDirectory(file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        sync();
+        synchronized (syncLock) {
+            channel.close();
+        }
+    }
+
+    private void append(byte type, BinaryIO.Writer payload) {
+        appendAll(Collections.singletonList(encode(type, payload)));
+    }
+
+    // Appends the records as one unit for the fsync policy: a batch costs one fsync, plus one
+    // per FLUSH_BYTES written so the pending buffer stays bounded
+    private void appendAll(List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long sequence = 0;
+        try {
+            for (Record record : records) {
+                boolean full;
+                synchronized (appendLock) {
+                    byte[] bytes = record.bytes;
+                    if (pending.remaining() < bytes.length) {
+                        ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes.length));
+                        pending.flip();
+                        grown.put(pending);
+                        pending = grown;
+                    }
+                    sequence = ++appended;
+                    record.seal(sequence);
+                    pending.put(bytes);
+                    full = pending.position() >= FLUSH_BYTES;
+                }
+                if (full) {
+                    sync(sequence);
+                }
+            }
+
+            if (policy.mode == FsyncPolicy.Mode.PER_OPERATION
+                    || (policy.mode == FsyncPolicy.Mode.BATCHED && sequence - durable >= policy.batchSize)) {
+                sync(sequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the write-ahead log", e);
+        }
+    }
+
+    // Group commit: the first writer in becomes the leader and writes the whole pending buffer;
+    // writers whose records it covered find durable already past their sequence and return.
+    // If the write fails, the unwritten rest of the batch stays behind in unsynced; either way a
+    // failed write or force makes the leader throw, and a writer that was waiting on it finds its
+    // records still not durable and tries itself, so every writer sees them durable or an error.
+    private void sync(long sequence) throws IOException {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            long upTo = writePending();
+            channel.force(false);
+            durable = upTo;
+        }
+    }
+
+    // Writes what a failed sync left in unsynced, then everything appended so far, without
+    // forcing it; returns the LSN of the last record written. The caller holds syncLock.
+    private long writePending() throws IOException {
+        ByteBuffer fresh;
+        long upTo;
+        synchronized (appendLock) {
+            fresh = pending;
+            upTo = appended;
+            pending = ByteBuffer.allocate(fresh.capacity());
+        }
+        fresh.flip();
+        ByteBuffer batch = fresh;
+        if (unsynced != null) {
+            batch = ByteBuffer.allocate(unsynced.remaining() + fresh.remaining());
+            batch.put(unsynced).put(fresh).flip();
+        }
+        unsynced = batch;
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        unsynced = null;
+        return upTo;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // The next interval retries; appends keep buffering meanwhile
+        }
+    }
+
+    private static void writeBookKey(DataOutputStream out, Book book) throws IOException {
+        BinaryIO.writeString(out, book.getTitle());
+        BinaryIO.writeString(out, book.getAuthor());
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        BinaryIO.writeString(out, user.getUsername());
+        BinaryIO.writeString(out, user.getPassword());
+        BinaryIO.writeString(out, user.getEmail());
+    }
+
+    // Encodes everything but the LSN, which is only known once the record is appended
+    private static Record encode(byte type, BinaryIO.Writer payload) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(type);
+            payload.write(out);
+            out.writeLong(0);
+            out.flush();
+            return new Record(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen with an in-memory stream
+        }
+    }
+
+    // A framed record whose payload is checksummed ahead of time, so sealing it with its LSN
+    // under the append lock only adds the LSN to the checksum
+    private static final class Record {
+        final byte[] bytes;
+        private final CRC32 crc = new CRC32();
+
+        Record(byte[] bytes) {
+            this.bytes = bytes;
+            crc.update(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES - LSN_BYTES);
+        }
+
+        void seal(long lsn) {
+            ByteBuffer frame = ByteBuffer.wrap(bytes);
+            frame.putLong(bytes.length - LSN_BYTES, lsn);
+            crc.update(bytes, bytes.length - LSN_BYTES, LSN_BYTES);
+            frame.putInt(0, bytes.length - HEADER_BYTES - LSN_BYTES);
+            frame.putInt(4, (int) crc.getValue());
+        }
+    }
+
+    // Writes a snapshot holding every record up to coveredLsn
+    interface SnapshotWriter {
+        void write(long coveredLsn) throws IOException;
+    }
+
+    // The outcome of reading a log: the records applied and the LSN of the last intact one
+    static final class Replayed {
+        final long records;
+        final long lastLsn;
+
+        Replayed(long records, long lastLsn) {
+            this.records = records;
+            this.lastLsn = lastLsn;
+        }
+    }
+
+    // Applies every intact record in the log that the snapshot does not hold, then cuts off any
+    // torn tail so new appends follow the last good record
+    static Replayed replay(Path file, BookService bookService, UserService userService,
+                           SnapshotFile.Coverage coverage) throws IOException {
+        if (!Files.exists(file)) {
+            return new Replayed(0, 0);
+        }
+        long[] applied = new long[1];
+        Scan scan = read(file, (lsn, in) -> {
+            if (lsn > coverage.coveredLsn) {
+                apply(in, bookService, userService, lsn <= coverage.lastLsn);
+                applied[0]++;
+            }
+        });
+
+        if (scan.good < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(scan.good);
+                channel.force(true);
+            }
+        }
+        return new Replayed(applied[0], scan.lastLsn);
+    }
+
+    // Replays a log that no snapshot covers
+    static Replayed replay(Path file, BookService bookService, UserService userService) throws IOException {
+        return replay(file, bookService, userService, SnapshotFile.Coverage.NONE);
+    }
+
+    private interface RecordHandler {
+        void handle(long lsn, DataInputStream payload) throws IOException;
+    }
+
+    private static final class Scan {
+        final long good;
+        final long lastLsn;
+
+        Scan(long good, long lastLsn) {
+            this.good = good;
+            this.lastLsn = lastLsn;
+        }
+    }
+
+    // Streams the intact records of the log to the handler, in order, stopping at the first torn
+    // or corrupt one; only one record is held in memory at a time
+    private static Scan read(Path file, RecordHandler handler) throws IOException {
+        long size = Files.size(file);
+        long good = 0;
+        long lastLsn = 0;
+        byte[] record = new byte[256];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (size - good >= HEADER_BYTES + LSN_BYTES) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > size - good - HEADER_BYTES - LSN_BYTES) {
+                    break; // Torn write
+                }
+                int framed = length + LSN_BYTES;
+                if (record.length < framed) {
+                    record = new byte[Math.max(framed, record.length * 2)];
+                }
+                in.readFully(record, 0, framed);
+                CRC32 crc = new CRC32();
+                crc.update(record, 0, framed);
+                if ((int) crc.getValue() != checksum) {
+                    break; // Corrupt record
+                }
+                lastLsn = ByteBuffer.wrap(record).getLong(length);
+                handler.handle(lastLsn, new DataInputStream(new ByteArrayInputStream(record, 0, length)));
+                good += HEADER_BYTES + framed;
+            }
+        }
+        return new Scan(good, lastLsn);
+    }
+
+    // A raced record may already be in the snapshot: its mutation was applied while the snapshot
+    // was written. Replaying such a record twice is harmless except for a review, which is added
+    // only if the snapshot does not hold it already.
+    private static void apply(DataInputStream in, BookService bookService, UserService userService,
+                              boolean raced) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case BOOK_ADDED:
+                bookService.addBook(BinaryIO.readBook(in));
+                break;
+            case BOOK_REMOVED:
+                bookService.removeBook(new Book(BinaryIO.readString(in), BinaryIO.readString(in), null, 0));
+                break;
+            case BOOK_UPDATED: {
+                // Going through the setters lets the service re-key and re-index the book
+                Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                String title = BinaryIO.readString(in);
+                String author = BinaryIO.readString(in);
+                String genre = BinaryIO.readString(in);
+                double price = in.readDouble();
+                if (book != null) {
+                    if (!Objects.equals(book.getTitle(), title)) {
+                        book.setTitle(title);
+                    }
+                    if (!Objects.equals(book.getAuthor(), author)) {
+                        book.setAuthor(author);
+                    }
+                    if (!Objects.equals(book.getGenre(), genre)) {
+                        book.setGenre(genre);
+                    }
+                    if (book.getPrice() != price) {
+                        book.setPrice(price);
+                    }
+                }
+                break;
+            }
+            case REVIEW_TEXT_ADDED: {
+                String username = BinaryIO.readString(in);
+                Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                Review review = new Review(username, BinaryIO.readString(in), Review.NO_RATING, 0);
+                if (book != null) {
+                    bookService.restoreReview(book, review, true);
+                }
+                break;
+            }
+            case REVIEW_ADDED: {
+                // The purchase check already passed when the review was logged
+                Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                Review review = BinaryIO.readReview(in);
+                if (book != null && !(raced && bookService.reviewStore().contains(book, review))) {
+                    bookService.restoreReview(book, review, true);
+                }
+                break;
+            }
+            case BOOK_PURCHASED: {
+                User user = userService.findUser(BinaryIO.readString(in));
+                Book book = bookService.findBook(BinaryIO.readString(in), BinaryIO.readString(in));
+                if (user != null && book != null) {
+                    bookService.restorePurchase(user, book);
+                }
+                break;
+            }
+            case USER_REGISTERED:
+                userService.restoreUser(new User(BinaryIO.readString(in), BinaryIO.readString(in), BinaryIO.readString(in)));
+                break;
+            case USER_UPDATED: {
+                User user = userService.findUser(BinaryIO.readString(in));
+                String username = BinaryIO.readString(in);
+                String password = BinaryIO.readString(in);
+                String email = BinaryIO.readString(in);
+                if (user != null) {
+                    userService.restoreProfile(user, username, password, email);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown write-ahead log record type " + type);
+        }
+    }
+}
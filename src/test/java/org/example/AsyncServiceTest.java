@@ -0,0 +1,193 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncServiceTest {
+
+    private BookService bookService;
+    private UserService userService;
+    private ManualExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+        userService = new UserService();
+        executor = new ManualExecutor();
+        for (int i = 0; i < 600; i++) {
+            bookService.addBook(new Book("Book " + i, "Author " + i, i % 2 == 0 ? "Dystopian" : "Fantasy", 9.99));
+        }
+    }
+
+    // ---------------------- searchBookAsync Tests ----------------------
+
+    @Test
+    void searchBookAsync_Positive() {
+        // Positive test: Unbounded demand gets every match in order, handed out in batches
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        bookService.searchBookAsync("Dystopian", executor).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.books.isEmpty()); // Nothing runs on the subscribing thread
+        assertEquals(2, executor.runAll()); // 300 matches: one full batch, then the rest
+        assertEquals(bookService.searchBook("Dystopian"), subscriber.books);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    void searchBookAsync_HonorsBackpressure() {
+        // Positive test: Matches are only found as they are requested
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        bookService.searchBookAsync("Book 59", executor).subscribe(subscriber);
+        assertEquals(0, executor.runAll()); // The search waits for the first request
+
+        subscriber.subscription.request(2);
+        executor.runAll();
+        assertEquals(2, subscriber.books.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(20);
+        executor.runAll();
+        assertEquals(bookService.searchBook("Book 59"), subscriber.books); // 59 and 590 to 599
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void searchBookAsync_Negative() {
+        // Negative test: A non-positive request and a rejecting executor end in onError
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        bookService.searchBookAsync("Dystopian", executor).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        executor.runAll();
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.books.isEmpty());
+
+        RecordingSubscriber rejected = new RecordingSubscriber();
+        bookService.searchBookAsync("Dystopian", task -> {
+            throw new RejectedExecutionException("full");
+        }).subscribe(rejected);
+        rejected.subscription.request(1);
+        assertTrue(rejected.error instanceof RejectedExecutionException);
+        assertFalse(rejected.completed);
+    }
+
+    @Test
+    void searchBookAsync_EdgeCase() {
+        // Edge test: Cancelling stops the search, and a keyword without matches completes at once
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        bookService.searchBookAsync("Dystopian", executor).subscribe(subscriber);
+        subscriber.subscription.request(3);
+        executor.runAll();
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+        executor.runAll();
+        assertEquals(3, subscriber.books.size());
+        assertFalse(subscriber.completed);
+
+        RecordingSubscriber empty = new RecordingSubscriber();
+        bookService.searchBookAsync("Nonexistent", executor).subscribe(empty);
+        empty.subscription.request(1);
+        executor.runAll();
+        assertTrue(empty.books.isEmpty());
+        assertTrue(empty.completed);
+    }
+
+    // ---------------------- CompletableFuture Operation Tests ----------------------
+
+    @Test
+    void operationsAsync_Positive() throws Exception {
+        // Positive test: Register, log in, purchase and review off the calling thread
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            User user = new User("john_doe", "password123", "john@example.com");
+            Book book = bookService.findBook("Book 1", "Author 1");
+            assertTrue(userService.registerUserAsync(user, pool).get(5, TimeUnit.SECONDS));
+            assertSame(user, userService.loginUserAsync("john_doe", "password123", pool).get(5, TimeUnit.SECONDS));
+            assertTrue(bookService.purchaseBookAsync(user, book, pool).get(5, TimeUnit.SECONDS));
+            assertTrue(bookService.addBookReviewAsync(user, book, "Great read", 5, pool).get(5, TimeUnit.SECONDS));
+            assertTrue(bookService.removeBookAsync(book, pool).get(5, TimeUnit.SECONDS));
+            assertFalse(bookService.addBookAsync(bookService.findBook("Book 2", "Author 2"), pool).get(5, TimeUnit.SECONDS));
+            assertTrue(userService.updateUserProfileAsync(user, "jane_doe", "secret", "jane@example.com", pool)
+                    .get(5, TimeUnit.SECONDS));
+            assertNull(userService.loginUserAsync("john_doe", "password123", pool).get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void operationsAsync_EdgeCase() {
+        // Edge test: A future cancelled before the executor runs it skips the operation
+        User user = new User("john_doe", "password123", "john@example.com");
+        CompletableFuture<Boolean> registration = userService.registerUserAsync(user, executor);
+        assertTrue(registration.cancel(false));
+        executor.runAll();
+        assertNull(userService.findUser("john_doe"));
+
+        CompletableFuture<Boolean> purchase = bookService.purchaseBookAsync(user, bookService.findBook("Book 1", "Author 1"), executor);
+        assertFalse(purchase.isDone());
+        executor.runAll();
+        assertTrue(purchase.join());
+    }
+
+    // Runs queued tasks only when asked, so each test decides when the executor gets a turn
+    private static final class ManualExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int runAll() {
+            int ran = 0;
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+                ran++;
+            }
+            return ran;
+        }
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<Book> {
+        final List<Book> books = new ArrayList<>();
+        Flow.Subscription subscription;
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Book book) {
+            books.add(book);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteTest {
+
+    private BookService service;
+    private Book orwell;
+    private Book animalFarm;
+    private Book huxley;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        animalFarm = new Book("Animal Farm", "George Orwell", "Satire", 5.99);
+        huxley = new Book("Brave New World", "Aldous Huxley", "Dystopian", 8.99);
+        service.addBook(orwell);
+        service.addBook(animalFarm);
+        service.addBook(huxley);
+    }
+
+    // ---------------------- autocomplete Tests ----------------------
+
+    @Test
+    void autocomplete_Positive() {
+        // Positive test: Titles and authors complete regardless of case, most popular first
+        assertEquals(Arrays.asList("George Orwell"), texts(service.autocomplete("geo", 5)));
+        assertEquals(2, service.autocomplete("George", 5).get(0).getWeight()); // Two books
+        assertEquals(Book.Field.AUTHOR, service.autocomplete("George", 5).get(0).getField());
+
+        service.addBook(new Book("Animal Dreams", "Barbara Kingsolver", "Fiction", 7.99));
+        User reader = new User("reader", "secret", "reader@example.com");
+        service.purchaseBook(reader, service.findBook("Animal Dreams", "Barbara Kingsolver"));
+        assertEquals(Arrays.asList("Animal Dreams", "Animal Farm", "Aldous Huxley"), texts(service.autocomplete("A", 5)));
+        assertEquals(Arrays.asList("Animal Dreams"), texts(service.autocomplete("a", 1)));
+    }
+
+    @Test
+    void autocomplete_Negative() {
+        // Negative test: Unknown prefixes and a zero limit find nothing
+        assertTrue(service.autocomplete("Tolkien", 5).isEmpty());
+        assertTrue(service.autocomplete("1985", 5).isEmpty());
+        assertTrue(service.autocomplete("19845", 5).isEmpty());
+        assertTrue(service.autocomplete("George", 0).isEmpty());
+    }
+
+    @Test
+    void autocomplete_FollowsCatalogChanges() {
+        // Edge test: Adds, removals and renames through setters reach the index
+        service.enableAutocomplete();
+        service.addBooks(Arrays.asList(new Book("Homage to Catalonia", "George Orwell", "Memoir", 6.99)));
+        assertEquals(3, service.autocomplete("george", 1).get(0).getWeight());
+
+        service.removeBook(new Book("1984", "George Orwell", null, 0));
+        assertTrue(service.autocomplete("198", 5).isEmpty());
+        assertEquals(2, service.autocomplete("george", 1).get(0).getWeight());
+
+        huxley.setTitle("Island");
+        assertTrue(service.autocomplete("Brave", 5).isEmpty());
+        assertEquals(Arrays.asList("Island"), texts(service.autocomplete("isl", 5)));
+        animalFarm.setAuthor("Eric Blair");
+        assertEquals(Arrays.asList("Eric Blair"), texts(service.autocomplete("Eric", 5)));
+        assertEquals(1, service.autocomplete("george", 1).get(0).getWeight());
+
+        service.removeBooks(Arrays.asList(animalFarm, huxley));
+        assertTrue(service.autocomplete("Eric", 5).isEmpty());
+        assertTrue(service.autocomplete("Isl", 5).isEmpty());
+    }
+
+    // ---------------------- CompletionTrie Tests ----------------------
+
+    @Test
+    void completionTrie_EdgeCase() {
+        // Edge test: Splitting and merging edges keeps every term reachable
+        CompletionTrie trie = new CompletionTrie(Book.Field.TITLE);
+        trie.add("romance", 1);
+        trie.add("romane", 2);
+        trie.add("rom", 3);
+        trie.add("Romulus", 4);
+        assertEquals(4, trie.size());
+        assertEquals(Arrays.asList("Romulus", "rom", "romane", "romance"), texts(trie.top("ro", 10)));
+        assertEquals(Arrays.asList("romane", "romance"), texts(trie.top("roman", 10)));
+
+        trie.remove("rom", 3);
+        trie.remove("romane", 1);
+        assertEquals(1, trie.weight("ROMANE"));
+        trie.remove("romane", 1);
+        assertEquals(0, trie.weight("rom"));
+        assertEquals(Arrays.asList("Romulus", "romance"), texts(trie.top("r", 10)));
+        assertEquals(Arrays.asList("romance"), texts(trie.top("romanc", 10)));
+        trie.remove("missing", 1);
+        trie.remove("romance", 5);
+        trie.remove("romulus", 4);
+        assertEquals(0, trie.size());
+        assertTrue(trie.top("", 10).isEmpty());
+    }
+
+    @Test
+    void completionTrie_MatchesBruteForce() {
+        // Edge test: Random adds and removes agree with a map scanned for every prefix
+        Random random = new Random(7);
+        CompletionTrie trie = new CompletionTrie(Book.Field.TITLE);
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String term = randomTerm(random);
+            long weight = 1 + random.nextInt(5);
+            if (random.nextInt(3) == 0) {
+                trie.remove(term, weight);
+                expected.computeIfPresent(term, (key, current) -> current > weight ? current - weight : null);
+            } else {
+                trie.add(term, weight);
+                expected.merge(term, weight, Long::sum);
+            }
+        }
+        assertEquals(expected.size(), trie.size());
+        for (String prefix : Arrays.asList("", "a", "ab", "ba", "cab", "abc", "zz")) {
+            List<Long> weights = expected.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .map(Map.Entry::getValue)
+                    .sorted(Comparator.reverseOrder())
+                    .limit(10)
+                    .collect(Collectors.toList());
+            List<Completion> top = trie.top(prefix, 10);
+            assertEquals(weights, top.stream().map(Completion::getWeight).collect(Collectors.toList()), prefix);
+            for (Completion completion : top) {
+                assertTrue(completion.getText().startsWith(prefix));
+                assertEquals(expected.get(completion.getText()), completion.getWeight());
+            }
+        }
+    }
+
+    private static String randomTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            term.append((char) ('a' + random.nextInt(3)));
+        }
+        return term.toString();
+    }
+
+    private static List<String> texts(List<Completion> completions) {
+        List<String> texts = new ArrayList<>();
+        for (Completion completion : completions) {
+            texts.add(completion.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,195 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchOperationsTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Title" + i, "Author" + (i % 7), "Genre" + (i % 3), i));
+        }
+        return books;
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // ---------------------- addBooks Tests ----------------------
+
+    @Test
+    void addBooks_Positive() {
+        // Positive test: A large batch is added and searchable through the rebuilt indexes
+        BookService service = new BookService();
+        service.addBook(new Book("Existing", "Author0", "Genre0", 1));
+
+        boolean[] added = service.addBooks(books(5000));
+
+        assertEquals(5000, count(added));
+        assertEquals(5001, service.searchBook("").size());
+        assertEquals(service.searchBookParallel(book -> book.getAuthor().contains("Author3")),
+                service.searchBook("Author3"));
+    }
+
+    @Test
+    void addBooks_DuplicatesRejected() {
+        // Negative test: Books already in the catalog or earlier in the batch are skipped
+        BookService service = new BookService();
+        service.addBook(new Book("Title1", "Author1", "Genre1", 1));
+
+        boolean[] added = service.addBooks(Arrays.asList(
+                new Book("Title0", "Author0", "Genre0", 0),
+                new Book("Title1", "Author1", "Genre1", 1),
+                new Book("Title0", "Author0", "Other", 5),
+                null));
+
+        assertArrayEquals(new boolean[]{true, false, false, false}, added);
+        assertEquals("Genre0", service.findBook("Title0", "Author0").getGenre());
+    }
+
+    @Test
+    void addBooks_SmallBatchIndexedIncrementally() {
+        // Edge test: A batch smaller than the catalog updates the indexes book by book
+        BookService service = new BookService();
+        service.addBooks(books(100));
+        service.addBooks(List.of(new Book("Dune", "Frank Herbert", "SciFi", 8.99)));
+
+        assertEquals(List.of("Dune"), titles(service.searchBook("Herbert")));
+        assertEquals(List.of("Dune"), titles(service.query("genre:SciFi AND price:<9")));
+    }
+
+    @Test
+    void addBooks_ConcurrentStoreKeepsOrder() {
+        // Edge test: The striped store locks per stripe but keeps the batch's input order
+        ConcurrentBookService service = new ConcurrentBookService();
+        List<Book> batch = books(2000);
+        batch.add(batch.get(10));
+
+        boolean[] added = service.addBooks(batch);
+
+        assertEquals(2000, count(added));
+        assertFalse(added[2000]);
+        assertEquals(titles(batch.subList(0, 2000)), titles(service.searchBook("")));
+    }
+
+    // ---------------------- removeBooks Tests ----------------------
+
+    @Test
+    void removeBooks_Positive() {
+        // Positive test: Removal past the compaction threshold rebuilds the indexes once
+        BookService service = new BookService();
+        List<Book> all = books(5000);
+        service.addBooks(all);
+
+        boolean[] removed = service.removeBooks(all.subList(0, 4000));
+
+        assertEquals(4000, count(removed));
+        assertEquals(titles(all.subList(4000, 5000)), titles(service.searchBook("Title")));
+        assertTrue(service.searchBook("Title12").isEmpty());
+    }
+
+    @Test
+    void removeBooks_Negative() {
+        // Negative test: Books not in the catalog report false and change nothing
+        ConcurrentBookService service = new ConcurrentBookService();
+        service.addBooks(books(10));
+
+        boolean[] removed = service.removeBooks(Arrays.asList(new Book("Missing", "Nobody", null, 0), null, books(1).get(0)));
+
+        assertArrayEquals(new boolean[]{false, false, true}, removed);
+        assertEquals(9, service.searchBook("").size());
+    }
+
+    // ---------------------- registerUsers Tests ----------------------
+
+    @Test
+    void registerUsers_Positive() {
+        // Positive test: New users are registered with hashed passwords; existing names are skipped
+        UserService service = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        service.registerUser(new User("taken", "password", "taken@example.com"));
+
+        boolean[] registered = service.registerUsers(List.of(
+                new User("alice", "secret1", "alice@example.com"),
+                new User("taken", "other", "other@example.com"),
+                new User("bob", "secret2", "bob@example.com"),
+                new User("alice", "again", "alice2@example.com")));
+
+        assertArrayEquals(new boolean[]{true, false, true, false}, registered);
+        assertNotNull(service.loginUser("bob", "secret2"));
+        assertTrue(PasswordHasher.isHash(service.findUser("alice").getPassword()));
+    }
+
+    @Test
+    void registerUsers_ConcurrentService() {
+        // Edge test: Users migrated through the trusted path keep their hash; hashes handed to
+        // registerUsers are treated as passwords like any other
+        PasswordHasher hasher = new PasswordHasher(1000);
+        String hash = hasher.hash("migrated");
+        ConcurrentUserService service = new ConcurrentUserService(new ConcurrentHashMap<>(), hasher);
+
+        boolean[] registered = service.restoreUsers(List.of(
+                new User("carol", hash, "carol@example.com"),
+                new User("carol", hash, "carol2@example.com")));
+
+        assertArrayEquals(new boolean[]{true, false}, registered);
+        assertEquals(hash, service.findUser("carol").getPassword());
+        assertNotNull(service.loginUser("carol", "migrated"));
+
+        service.registerUsers(List.of(new User("dan", hash, "dan@example.com")));
+        assertNotEquals(hash, service.findUser("dan").getPassword());
+        assertNull(service.loginUser("dan", "migrated"));
+        assertNotNull(service.loginUser("dan", hash));
+
+        // A user whose name is taken is not touched
+        User late = new User("dan", "plain", "late@example.com");
+        assertArrayEquals(new boolean[]{false}, service.registerUsers(List.of(late)));
+        assertEquals("plain", late.getPassword());
+    }
+
+    // ---------------------- Journal Tests ----------------------
+
+    @Test
+    void batches_AreJournaled() throws IOException {
+        // Positive test: Batch mutations replay like their one-by-one equivalents
+        List<Book> all = books(300);
+        try (Persistence persistence = Persistence.open(directory, FsyncPolicy.perOperation(),
+                new BookService(), new UserService(new HashMap<>(), new PasswordHasher(1000)))) {
+            persistence.getBookService().addBooks(all);
+            persistence.getBookService().removeBooks(all.subList(0, 100));
+            persistence.getUserService().registerUsers(List.of(new User("dave", "secret", "dave@example.com")));
+        }
+
+        try (Persistence restored = Persistence.open(directory, FsyncPolicy.perOperation(),
+                new BookService(), new UserService(new HashMap<>(), new PasswordHasher(1000)))) {
+            assertEquals(titles(all.subList(100, 300)), titles(restored.getBookService().searchBook("")));
+            assertNotNull(restored.getUserService().loginUser("dave", "secret"));
+            assertEquals(401, restored.getReplayedRecords());
+        }
+    }
+
+    private static int count(boolean[] results) {
+        int count = 0;
+        for (boolean result : results) {
+            if (result) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookQueryTest {
+
+    private BookService bookService;
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+        books = new ArrayList<>();
+        books.add(new Book("1984", "George Orwell", "Dystopian", 9.99));
+        books.add(new Book("Animal Farm", "George Orwell", "Satire", 7.50));
+        books.add(new Book("To Kill a Mockingbird", "Harper Lee", "Fiction", 14.99));
+        books.add(new Book("Brave New World", "Aldous Huxley", "Dystopian", 11.99));
+        books.add(new Book("Go Set a Watchman", "Harper Lee", "Fiction", 12.00));
+        for (Book book : books) {
+            bookService.addBook(book);
+        }
+    }
+
+    private List<String> titles(String query) {
+        return bookService.query(query).stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // ---------------------- parse and query Tests ----------------------
+
+    @Test
+    void query_Positive() {
+        // Positive test: Field terms, boolean operators and price ranges combine
+        assertEquals(List.of("1984", "Animal Farm"), titles("author:Orwell"));
+        assertEquals(List.of("1984"), titles("author:Orwell AND genre:Dystopian"));
+        assertEquals(List.of("Animal Farm"), titles("author:Orwell NOT genre:Dystopian"));
+        assertEquals(List.of("1984", "Animal Farm", "Brave New World"), titles("author:Orwell OR title:\"Brave New\""));
+        assertEquals(List.of("Go Set a Watchman"), titles("Lee price:[10 TO 12]"));
+        assertEquals(List.of("Animal Farm", "Go Set a Watchman"), titles("(Satire OR Watchman) AND price:<=12"));
+        assertEquals(List.of("To Kill a Mockingbird"), titles("price:>12"));
+    }
+
+    @Test
+    void query_Negative() {
+        // Negative test: Nothing satisfies contradictory clauses
+        assertTrue(titles("author:Orwell AND author:Lee").isEmpty());
+        assertTrue(titles("price:{9.99 TO 9.99]").isEmpty());
+    }
+
+    @Test
+    void query_EdgeCase() {
+        // Edge test: Malformed queries are rejected with the position of the problem
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("isbn:123"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("price:[5 10]"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("(author:Orwell"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("title:\"Brave"));
+    }
+
+    // ---------------------- plan Tests ----------------------
+
+    @Test
+    void plan_DrivesFromMostSelectiveIndex() {
+        // The author term matches two books, the price range four: the term drives the plan
+        BookQuery query = BookQuery.parse("price:[5 TO 13] AND author:Orwell");
+        QueryPlan plan = bookService.plan(query);
+
+        assertEquals("author:\"Orwell\"", plan.getDriver().toString());
+        assertEquals(2, plan.getEstimate());
+
+        // A narrow price range drives when the other clause is a negation, which needs a scan
+        plan = bookService.plan(BookQuery.parse("price:>14 AND NOT author:Orwell"));
+        assertTrue(plan.getDriver() instanceof BookQuery.PriceRange);
+    }
+
+    @Test
+    void plan_ScansWhenNothingIsIndexed() {
+        // Negations and short terms cannot use an index; list-backed services never can
+        assertNull(bookService.plan(BookQuery.parse("NOT Le")).getDriver());
+
+        BookService unindexed = new BookService(new ArrayList<>(books));
+        assertNull(unindexed.plan(BookQuery.parse("author:Orwell")).getDriver());
+        assertEquals(bookService.query("author:Orwell price:<9"), unindexed.query("author:Orwell price:<9"));
+    }
+
+    @Test
+    void query_IndexesFollowRemovals() {
+        bookService.removeBook(books.get(0));
+
+        assertEquals(List.of("Brave New World"), titles("genre:Dystopian"));
+        assertEquals(List.of("Animal Farm"), titles("price:<10"));
+    }
+}
@@ -0,0 +1,167 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeTrackingTest {
+
+    @TempDir
+    Path directory;
+
+    private BookService books;
+    private Book orwell;
+    private Book huxley;
+
+    @BeforeEach
+    void setUp() {
+        books = new BookService();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        huxley = new Book("Brave New World", "Aldous Huxley", "Dystopian", 8.99);
+        books.addBook(orwell);
+        books.addBook(huxley);
+    }
+
+    // ---------------------- Book setter Tests ----------------------
+
+    @Test
+    void bookSetters_Positive() {
+        // Positive test: A renamed book is found under its new title by every lookup, and its
+        // purchases and reviews follow it
+        User john = new User("john_doe", "password123", "john@example.com");
+        books.purchaseBook(john, orwell);
+        books.addBookReview(john, orwell, "Chilling", 5);
+
+        orwell.setTitle("Nineteen Eighty-Four");
+
+        assertSame(orwell, books.findBook("Nineteen Eighty-Four", "George Orwell"));
+        assertNull(books.findBook("1984", "George Orwell"));
+        assertEquals(Collections.singletonList(orwell), books.searchBook("Eighty"));
+        assertTrue(books.searchBook("1984").isEmpty());
+        assertTrue(books.hasPurchased(john, new Book("Nineteen Eighty-Four", "George Orwell", null, 0)));
+        assertEquals(1, books.getReviewStats(orwell).getCount());
+        assertTrue(books.removeBook(new Book("Nineteen Eighty-Four", "George Orwell", null, 0)));
+    }
+
+    @Test
+    void bookSetters_GenreAndPriceIndexes() {
+        // Positive test: Genre and price changes reach the query indexes without a rebuild
+        huxley.setGenre("Science Fiction");
+        orwell.setPrice(19.99);
+
+        assertEquals(Collections.singletonList(huxley), books.query("genre:Science"));
+        assertEquals(Collections.singletonList(orwell), books.query("genre:Dystopian"));
+        assertEquals(Collections.singletonList(orwell), books.query("price:[15 TO 25]"));
+        assertTrue(books.query("price:[9 TO 10]").isEmpty());
+    }
+
+    @Test
+    void bookSetters_Negative() {
+        // Negative test: A rename onto another cataloged book is rejected and changes nothing
+        huxley.setAuthor("George Orwell");
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+                () -> huxley.setTitle("1984"));
+        assertEquals("Another book is already cataloged as 1984 by George Orwell", failure.getMessage());
+
+        assertEquals("Brave New World", huxley.getTitle());
+        assertSame(huxley, books.findBook("Brave New World", "George Orwell"));
+        assertSame(orwell, books.findBook("1984", "George Orwell"));
+    }
+
+    @Test
+    void bookSetters_EdgeCase() {
+        // Edge test: A removed book is no longer tracked, and a concurrent store re-keys too
+        books.removeBook(orwell);
+        orwell.setTitle("Animal Farm");
+        assertNull(books.findBook("Animal Farm", "George Orwell"));
+        assertTrue(books.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+
+        ConcurrentBookService concurrent = new ConcurrentBookService();
+        concurrent.addBooks(List.of(orwell, huxley));
+        orwell.setAuthor("Eric Blair");
+        assertSame(orwell, concurrent.findBook("Animal Farm", "Eric Blair"));
+        assertEquals(List.of(orwell, huxley), concurrent.searchBook(""));
+    }
+
+    @Test
+    void bookSetters_SurviveRestart() throws IOException {
+        // Edge test: Setter changes are journaled and replayed through the setters
+        try (Persistence persistence = Persistence.open(directory, FsyncPolicy.perOperation(), new BookService(), new UserService())) {
+            Book emma = new Book("Emma", "Jane Austen", "Romance", 7.99);
+            persistence.getBookService().addBook(emma);
+            emma.setTitle("Persuasion");
+            emma.setPrice(6.49);
+        }
+
+        try (Persistence restored = Persistence.open(directory, FsyncPolicy.perOperation(), new BookService(), new UserService())) {
+            Book persuasion = restored.getBookService().findBook("Persuasion", "Jane Austen");
+            assertNotNull(persuasion);
+            assertEquals(6.49, persuasion.getPrice());
+            assertEquals(Collections.singletonList(persuasion), restored.getBookService().query("price:[6 TO 7]"));
+        }
+    }
+
+    // ---------------------- User setter Tests ----------------------
+
+    @Test
+    void userSetters_Positive() {
+        // Positive test: Renaming moves the user to the new key and frees the old one
+        HashMap<String, User> database = new HashMap<>();
+        UserService users = new UserService(database, new PasswordHasher(1000));
+        User john = new User("john_doe", "password123", "john@example.com");
+        users.registerUser(john);
+
+        john.setUsername("johnny");
+        assertSame(john, users.findUser("johnny"));
+        assertNull(users.findUser("john_doe"));
+
+        users.updateUserProfile(john, "jack", "secret", "jack@example.com");
+        assertEquals(Collections.singleton("jack"), database.keySet());
+        assertNotNull(users.loginUser("jack", "secret"));
+    }
+
+    @Test
+    void userSetters_Negative() {
+        // Negative test: A rename onto a taken username is rejected and changes nothing
+        UserService users = new ConcurrentUserService();
+        User john = new User("john_doe", "password123", "john@example.com");
+        User jane = new User("jane_doe", "password456", "jane@example.com");
+        users.registerUsers(List.of(john, jane));
+
+        assertThrows(IllegalArgumentException.class, () -> john.setUsername("jane_doe"));
+
+        assertEquals("john_doe", john.getUsername());
+        assertSame(john, users.findUser("john_doe"));
+        assertSame(jane, users.findUser("jane_doe"));
+    }
+
+    @Test
+    void userSetters_EdgeCase() {
+        // Edge test: A user known to two services is re-keyed in both; listeners can be removed
+        UserService first = new UserService();
+        UserService second = new UserService();
+        User john = new User("john_doe", "password123", "john@example.com");
+        first.registerUser(john);
+        second.registerUser(john);
+        List<User.Field> seen = new ArrayList<>();
+        UserChangeListener listener = (user, field, oldValue) -> seen.add(field);
+        john.addChangeListener(listener);
+        john.setEmail("johnny@example.com");
+        john.removeChangeListener(listener);
+
+        john.setUsername("johnny");
+        assertEquals(Collections.singletonList(User.Field.EMAIL), seen);
+        assertSame(john, first.findUser("johnny"));
+        assertSame(john, second.findUser("johnny"));
+        assertNull(second.findUser("john_doe"));
+    }
+}
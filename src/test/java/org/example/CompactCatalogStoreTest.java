@@ -0,0 +1,203 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCatalogStoreTest {
+
+    private CompactCatalogStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CompactCatalogStore();
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // ---------------------- add/get/remove Tests ----------------------
+
+    @Test
+    void add_Positive() {
+        // Positive test: A stored book reads back field by field through its view
+        assertTrue(store.add(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+
+        Book stored = store.get(new Book("1984", "George Orwell", null, 0));
+        assertEquals("1984", stored.getTitle());
+        assertEquals("George Orwell", stored.getAuthor());
+        assertEquals("Dystopian", stored.getGenre());
+        assertEquals(9.99, stored.getPrice());
+        assertEquals(stored, store.get(stored));
+    }
+
+    @Test
+    void add_Negative() {
+        // Negative test: Duplicates and null are rejected; unknown books are absent
+        store.add(new Book("1984", "George Orwell", "Dystopian", 9.99));
+
+        assertFalse(store.add(new Book("1984", "George Orwell", "Other", 1)));
+        assertFalse(store.add(null));
+        assertFalse(store.contains(new Book("1984", "Someone Else", null, 0)));
+        assertNull(store.get(new Book("Animal Farm", "George Orwell", null, 0)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void remove_ThenReAdd() {
+        // Edge test: A removed key can be added again; the old view keeps its fields
+        store.add(new Book("1984", "George Orwell", "Dystopian", 9.99));
+        Book old = store.get(new Book("1984", "George Orwell", null, 0));
+
+        assertTrue(store.remove(old));
+        assertFalse(store.remove(old));
+        assertFalse(store.contains(old));
+        assertTrue(store.add(new Book("1984", "George Orwell", "Classic", 7.5)));
+
+        assertEquals("Classic", store.get(old).getGenre());
+        assertEquals("Dystopian", old.getGenre());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void views_WriteThrough() {
+        // Edge test: Price, genre and reviews change the store; the key cannot change
+        store.add(new Book("1984", "George Orwell", "Dystopian", 9.99, new ArrayList<>(List.of("Chilling"))));
+        Book view = store.get(new Book("1984", "George Orwell", null, 0));
+
+        view.setPrice(5);
+        view.setGenre("Classic");
+        view.getReviews().add("Timeless");
+
+        Book again = store.get(view);
+        assertEquals(5, again.getPrice());
+        assertEquals("Classic", again.getGenre());
+        assertEquals(List.of("Chilling", "Timeless"), again.getReviews());
+        assertThrows(UnsupportedOperationException.class, () -> view.setTitle("Nineteen Eighty-Four"));
+    }
+
+    // ---------------------- search/compact Tests ----------------------
+
+    @Test
+    void search_MatchesHashStore() {
+        // Positive test: Dictionary-driven search agrees with a scan of the same catalog
+        Random random = new Random(7);
+        HashCatalogStore reference = new HashCatalogStore();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            books.add(new Book("Title" + random.nextInt(5000), "Author" + random.nextInt(50), "Genre" + random.nextInt(8), i));
+        }
+        store.addAll(books);
+        reference.addAll(books);
+        for (int i = 0; i < 1000; i++) {
+            Book victim = books.get(random.nextInt(books.size()));
+            store.remove(victim);
+            reference.remove(victim);
+        }
+
+        for (String keyword : List.of("Title12", "Author4", "Genre3", "itle", "missing")) {
+            assertEquals(titles(reference.search(keyword).collect(Collectors.toList())),
+                    titles(store.search(keyword).collect(Collectors.toList())), keyword);
+        }
+        assertEquals(reference.size(), store.size());
+    }
+
+    @Test
+    void compact_KeepsOrderAndReviews() {
+        // Positive test: Compaction drops removed rows and moves reviews with their books
+        for (int i = 0; i < 10; i++) {
+            store.add(new Book("Title" + i, "Author", "Genre", i));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            store.remove(new Book("Title" + i, "Author", null, 0));
+        }
+        store.get(new Book("Title7", "Author", null, 0)).getReviews().add("Seven");
+
+        store.compact();
+
+        assertEquals(List.of("Title1", "Title3", "Title5", "Title7", "Title9"), titles(store.stream().collect(Collectors.toList())));
+        assertEquals(List.of("Seven"), store.get(new Book("Title7", "Author", null, 0)).getReviews());
+        assertTrue(store.add(new Book("Title0", "Author", "Genre", 0)));
+    }
+
+    @Test
+    void compact_AutomaticOnceRemovedRowsOutnumberLive() {
+        // Edge test: Removing most of the catalog compacts it; views made before find their new
+        // row, and a view of a book compacted away keeps its fields
+        for (int i = 0; i < 3000; i++) {
+            store.add(new Book("Title" + i, "Author" + (i % 7), "Genre" + (i % 3), i));
+        }
+        Book kept = store.get(new Book("Title2999", "Author3", null, 0));
+        Book dropped = store.get(new Book("Title0", "Author0", null, 0));
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(store.remove(new Book("Title" + i, "Author" + (i % 7), null, 0)));
+        }
+
+        assertTrue(store.generation() > 0);
+        assertEquals(1000, store.size());
+        assertEquals(List.of("Title2999"), titles(store.search("Title2999").collect(Collectors.toList())));
+        kept.setPrice(1);
+        assertEquals(1, store.get(kept).getPrice());
+        assertEquals(kept, store.get(new Book("Title2999", "Author3", null, 0)));
+        assertEquals(kept.hashCode(), store.get(kept).hashCode());
+        assertEquals("Genre0", dropped.getGenre());
+        assertEquals(0, dropped.getPrice());
+        assertFalse(store.contains(dropped));
+    }
+
+    @Test
+    void views_ChangesReachServiceIndexes() {
+        // Positive test: Price and genre changes made through a view update the service's facets
+        BookService service = new BookService(new CompactCatalogStore());
+        service.addBooks(List.of(new Book("1984", "George Orwell", "Dystopian", 9.99),
+                new Book("Animal Farm", "George Orwell", "Satire", 6.5)));
+        service.enableFacets();
+        Book farm = service.findBook("Animal Farm", "George Orwell");
+
+        farm.setGenre("Dystopian");
+        farm.setPrice(20);
+        assertNull(service.genreFacet("Satire"));
+        assertEquals(2, service.genreFacet("Dystopian").getCount());
+        assertEquals(20, service.genreFacet("Dystopian").getMaxPrice());
+
+        // A view of a removed book no longer reaches the service
+        service.removeBook(farm);
+        farm.setPrice(30);
+        assertEquals(9.99, service.genreFacet("Dystopian").getMaxPrice());
+    }
+
+    @Test
+    void bookService_OverCompactStore() {
+        // Positive test: The service works unchanged on top of the compact store
+        BookService service = new BookService(new CompactCatalogStore());
+        service.addBooks(List.of(new Book("1984", "George Orwell", "Dystopian", 9.99),
+                new Book("Animal Farm", "George Orwell", "Satire", 6.5)));
+        User user = new User("john_doe", "password123", "john@example.com");
+        Book farm = service.findBook("Animal Farm", "George Orwell");
+
+        assertEquals(List.of("1984", "Animal Farm"), titles(service.searchBook("Orwell")));
+        assertTrue(service.purchaseBook(user, farm));
+        assertTrue(service.addBookReview(user, service.searchBook("Farm").get(0), "Short and sharp", 4));
+        assertEquals(List.of("Short and sharp"), farm.getReviews());
+    }
+
+    // ---------------------- Book Tests ----------------------
+
+    @Test
+    void book_ReviewListAllocatedLazily() {
+        // Edge test: Books share one empty review list until a review is added
+        Book book = new Book("1984", "George Orwell", "Dystopian", 9.99);
+
+        assertTrue(book.peekReviews().isEmpty());
+        assertSame(book.peekReviews(), new Book("Emma", "Jane Austen", "Romance", 7.99).peekReviews());
+        book.getReviews().add("Chilling");
+        assertEquals(List.of("Chilling"), book.peekReviews());
+    }
+}
@@ -0,0 +1,333 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentServicesStressTest {
+
+    private static final int THREADS = 64;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    // Starts every task at the same moment and waits for all of them
+    private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    // ---------------------- ConcurrentBookService Tests ----------------------
+
+    @Test
+    void addBook_NoLostUpdatesOrDuplicates() throws Exception {
+        // Every thread tries to add the same 2000 titles; each must be stored exactly once
+        ConcurrentBookService service = new ConcurrentBookService();
+        AtomicInteger successes = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    if (service.addBook(new Book("Title" + i, "Author", "Genre", i))) {
+                        successes.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        runTogether(tasks);
+
+        assertEquals(2000, successes.get());
+        assertEquals(2000, service.searchBook("Title").size());
+    }
+
+    @Test
+    void addAndRemoveBook_WhileSearching() throws Exception {
+        // Writers churn their own books while readers search; searches never see duplicates
+        ConcurrentBookService service = new ConcurrentBookService();
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            if (thread % 4 == 0) {
+                tasks.add(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        List<Book> hits = service.searchBook("Keep");
+                        if (new HashSet<>(hits).size() != hits.size()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            } else {
+                tasks.add(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Book keep = new Book("Keep" + thread + "-" + i, "Author", "Genre", i);
+                        Book drop = new Book("Drop" + thread + "-" + i, "Author", "Genre", i);
+                        service.addBook(keep);
+                        service.addBook(drop);
+                        if (!service.removeBook(drop)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+        }
+
+        for (boolean ok : runTogether(tasks)) {
+            assertTrue(ok);
+        }
+        assertEquals(48 * 500, service.searchBook("Keep").size());
+        assertTrue(service.searchBook("Drop").isEmpty());
+    }
+
+    @Test
+    void addAndRemoveBook_JournalInApplyOrder() throws Exception {
+        // Threads add and remove the same few books, singly and in batches; replaying the journal
+        // in order must end with exactly the books the store holds
+        ConcurrentBookService service = new ConcurrentBookService();
+        List<String> records = new ArrayList<>();
+        service.setJournal(new RecordingJournal(records));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                for (int i = 0; i < 500; i++) {
+                    Book book = new Book("Shared" + (i + thread) % 8, "Author", "Genre", i);
+                    if (thread % 8 == 0) {
+                        service.addBooks(List.of(book, new Book("Shared" + (i + 1) % 8, "Author", "Genre", i)));
+                    } else if (thread % 2 == 0) {
+                        service.addBook(book);
+                    } else {
+                        service.removeBook(book);
+                    }
+                }
+                return null;
+            });
+        }
+        runTogether(tasks);
+
+        Set<String> replayed = new HashSet<>();
+        for (String record : records) {
+            if (record.startsWith("+")) {
+                assertTrue(replayed.add(record.substring(1)), record);
+            } else {
+                assertTrue(replayed.remove(record.substring(1)), record);
+            }
+        }
+        Set<String> stored = new HashSet<>();
+        service.searchBook("Shared").forEach(book -> stored.add(book.getTitle()));
+        assertEquals(stored, replayed);
+    }
+
+    // ---------------------- ConcurrentUserService Tests ----------------------
+
+    @Test
+    void registerUser_NoDuplicateUsernames() throws Exception {
+        // All threads race to register the same 1000 usernames; exactly one wins each, and the
+        // others' users keep their passwords
+        ConcurrentUserService service = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1));
+        List<Callable<Map<User, String>>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String password = "password" + t;
+            tasks.add(() -> {
+                Map<User, String> won = new HashMap<>();
+                for (int i = 0; i < 1000; i++) {
+                    User user = new User("user" + i, password, "user" + i + "@example.com");
+                    if (service.registerUser(user)) {
+                        won.put(user, password);
+                    } else {
+                        assertEquals(password, user.getPassword()); // A loser's user is left as it was
+                    }
+                }
+                return won;
+            });
+        }
+
+        Set<String> winners = new HashSet<>();
+        for (Map<User, String> won : runTogether(tasks)) {
+            for (Map.Entry<User, String> entry : won.entrySet()) {
+                User user = entry.getKey();
+                assertTrue(winners.add(user.getUsername()), user.getUsername());
+                assertSame(user, service.loginUser(user.getUsername(), entry.getValue()));
+            }
+        }
+        assertEquals(1000, winners.size());
+    }
+
+    @Test
+    void registerUser_NeverPublishesPlaintext() {
+        // Every user the map receives already carries a hash, so no reader can ever see the
+        // plaintext it was registered with; the name is claimed with a placeholder first
+        ConcurrentMap<String, User> database = new ConcurrentHashMap<>() {
+            @Override
+            public User putIfAbsent(String key, User value) {
+                assertPublishable(value);
+                return super.putIfAbsent(key, value);
+            }
+
+            @Override
+            public User put(String key, User value) {
+                assertPublishable(value);
+                return super.put(key, value);
+            }
+        };
+        ConcurrentUserService service = new ConcurrentUserService(database, new PasswordHasher(1));
+
+        assertTrue(service.registerUser(new User("john_doe", "password123", "john@example.com")));
+        assertFalse(service.registerUser(new User("john_doe", "password456", "other@example.com")));
+        service.registerUsers(List.of(new User("jane_doe", "password456", "jane@example.com")));
+        assertNotNull(service.loginUser("john_doe", "password123"));
+        assertNotNull(service.loginUser("jane_doe", "password456"));
+    }
+
+    private static void assertPublishable(User user) {
+        assertTrue(user == UserService.RESERVED || PasswordHasher.isHash(user.getPassword()), user.getPassword());
+    }
+
+    @Test
+    void updateUserProfile_ContendedRename() throws Exception {
+        // Many users race to rename themselves to the same name; only one may get it
+        ConcurrentUserService service = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User user = new User("user" + i, "password", "user" + i + "@example.com");
+            service.registerUser(user);
+            users.add(user);
+        }
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (User user : users) {
+            tasks.add(() -> service.updateUserProfile(user, "taken", "secret", "taken@example.com"));
+        }
+        long renamed = runTogether(tasks).stream().filter(ok -> ok).count();
+
+        assertEquals(1, renamed);
+        User winner = service.loginUser("taken", "secret");
+        assertNotNull(winner);
+        assertNull(service.loginUser("user" + users.indexOf(winner), "password"));
+    }
+
+    @Test
+    void updateUserProfile_RenameJournaledBeforeOldNameIsReused() throws Exception {
+        // Users rename themselves while other threads register their old names; a registration of
+        // an old name must never reach the journal ahead of the rename that freed it
+        ConcurrentUserService service = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1));
+        List<String> records = new ArrayList<>();
+        service.setJournal(new RecordingJournal(records));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            User user = new User("old" + i, "password", "old" + i + "@example.com");
+            service.registerUser(user);
+            users.add(user);
+        }
+        records.clear();
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for (int i = 0; i < users.size(); i++) {
+                service.updateUserProfile(users.get(i), "new" + i, "secret", "new" + i + "@example.com");
+            }
+            return true;
+        });
+        for (int t = 1; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < users.size(); i++) {
+                    service.registerUser(new User("old" + i, "password", "other@example.com"));
+                }
+                return true;
+            });
+        }
+        runTogether(tasks);
+
+        for (int i = 0; i < users.size(); i++) {
+            int renamed = records.indexOf("~old" + i);
+            int registered = records.indexOf("*old" + i);
+            assertTrue(renamed >= 0);
+            assertTrue(registered < 0 || registered > renamed, "old" + i);
+        }
+    }
+
+    // Journals book additions as "+title", removals as "-title", registrations as "*username" and
+    // renames as "~oldUsername", in the order they arrive
+    private static final class RecordingJournal implements Journal {
+        private final List<String> records;
+
+        RecordingJournal(List<String> records) {
+            this.records = records;
+        }
+
+        @Override
+        public synchronized void bookAdded(Book book) {
+            records.add("+" + book.getTitle());
+        }
+
+        @Override
+        public synchronized void bookRemoved(Book book) {
+            records.add("-" + book.getTitle());
+        }
+
+        @Override
+        public void bookUpdated(BookKey oldKey, Book book) {
+        }
+
+        @Override
+        public void bookPurchased(User user, Book book) {
+        }
+
+        @Override
+        public void reviewAdded(User user, Book book, Review review) {
+        }
+
+        @Override
+        public synchronized void userRegistered(User user) {
+            records.add("*" + user.getUsername());
+        }
+
+        @Override
+        public synchronized void userUpdated(String oldUsername, User user) {
+            records.add("~" + oldUsername);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetsTest {
+
+    private BookService service;
+    private Book nineteen;
+    private Book farm;
+    private Book brave;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        nineteen = new Book("1984", "George Orwell", "Dystopian", 10.00);
+        farm = new Book("Animal Farm", "George Orwell", "Satire", 6.00);
+        brave = new Book("Brave New World", "Aldous Huxley", "Dystopian", 14.00);
+        service.addBooks(Arrays.asList(nineteen, farm, brave));
+    }
+
+    // ---------------------- facets Tests ----------------------
+
+    @Test
+    void facets_Positive() {
+        // Positive test: Counts and price statistics per genre and author, largest facet first
+        Facets facets = service.facets();
+        assertEquals(3, facets.getTotal());
+        assertEquals(Arrays.asList("Dystopian", "Satire"), new ArrayList<>(facets.getGenres().keySet()));
+        FacetStats dystopian = facets.genre("Dystopian");
+        assertEquals(2, dystopian.getCount());
+        assertEquals(24.00, dystopian.getPriceSum(), 1e-9);
+        assertEquals(10.00, dystopian.getMinPrice(), 1e-9);
+        assertEquals(14.00, dystopian.getMaxPrice(), 1e-9);
+        assertEquals(12.00, dystopian.getAveragePrice(), 1e-9);
+        assertEquals(2, service.authorFacet("George Orwell").getCount());
+        assertEquals(8.00, service.authorFacet("George Orwell").getAveragePrice(), 1e-9);
+    }
+
+    @Test
+    void facets_Negative() {
+        // Negative test: Unknown values have no facet, and removed books leave none behind
+        assertNull(service.genreFacet("Romance"));
+        assertNull(service.authorFacet("Nobody"));
+        service.removeBook(new Book("Animal Farm", "George Orwell", null, 0));
+        assertNull(service.genreFacet("Satire"));
+        assertFalse(service.facets().getGenres().containsKey("Satire"));
+        assertFalse(service.removeBook(new Book("Animal Farm", "George Orwell", null, 0)));
+        assertEquals(1, service.authorFacet("George Orwell").getCount());
+    }
+
+    @Test
+    void facets_EdgeCase() {
+        // Edge test: Removing the cheapest book and changing price, genre and author keep exact
+        // statistics; a snapshot taken earlier does not change
+        Facets before = service.facets();
+        service.removeBook(nineteen);
+        assertEquals(14.00, service.genreFacet("Dystopian").getMinPrice(), 1e-9);
+        service.addBook(new Book("We", "Yevgeny Zamyatin", "Dystopian", 14.00));
+        brave.setPrice(20.00);
+        FacetStats dystopian = service.genreFacet("Dystopian");
+        assertEquals(2, dystopian.getCount());
+        assertEquals(14.00, dystopian.getMinPrice(), 1e-9);
+        assertEquals(20.00, dystopian.getMaxPrice(), 1e-9);
+        farm.setGenre("Dystopian");
+        farm.setAuthor("Eric Blair");
+        assertNull(service.genreFacet("Satire"));
+        assertEquals(3, service.genreFacet("Dystopian").getCount());
+        assertEquals(6.00, service.genreFacet("Dystopian").getMinPrice(), 1e-9);
+        assertNull(service.authorFacet("George Orwell"));
+        assertEquals(1, service.authorFacet("Eric Blair").getCount());
+        assertEquals(2, before.genre("Dystopian").getCount());
+        assertEquals(10.00, before.genre("Dystopian").getMinPrice(), 1e-9);
+    }
+
+    @Test
+    void facets_MatchGrouping() {
+        // Edge test: After random adds, removes and price changes the maintained facets equal a
+        // fresh grouping of the catalog
+        Random random = new Random(17);
+        List<Book> cataloged = new ArrayList<>(Arrays.asList(nineteen, farm, brave));
+        for (int round = 0; round < 2_000; round++) {
+            int action = random.nextInt(3);
+            if (action == 0 || cataloged.isEmpty()) {
+                Book book = new Book("T" + round, "A" + random.nextInt(20), "G" + random.nextInt(5), random.nextInt(100));
+                service.addBook(book);
+                cataloged.add(book);
+            } else if (action == 1) {
+                service.removeBooks(Collections.singletonList(cataloged.remove(random.nextInt(cataloged.size()))));
+            } else {
+                cataloged.get(random.nextInt(cataloged.size())).setPrice(random.nextInt(100));
+            }
+        }
+        BookService fresh = new BookService();
+        fresh.addBooks(cataloged);
+        Facets expected = fresh.facets();
+        Facets actual = service.facets();
+        assertEquals(expected.getTotal(), actual.getTotal());
+        assertEquals(new ArrayList<>(expected.getGenres().keySet()), new ArrayList<>(actual.getGenres().keySet()));
+        for (FacetStats genre : expected.getGenres().values()) {
+            FacetStats maintained = actual.genre(genre.getValue());
+            assertEquals(genre.getCount(), maintained.getCount());
+            assertEquals(genre.getPriceSum(), maintained.getPriceSum(), 1e-6);
+            assertEquals(genre.getMinPrice(), maintained.getMinPrice(), 1e-9);
+            assertEquals(genre.getMaxPrice(), maintained.getMaxPrice(), 1e-9);
+        }
+        assertEquals(expected.getAuthors().keySet(), actual.getAuthors().keySet());
+    }
+
+    // ---------------------- searchFacets Tests ----------------------
+
+    @Test
+    void searchFacets_Positive() {
+        // Positive test: Facets of a search's matches only; no match gives empty facets
+        Facets facets = service.searchFacets("Orwell");
+        assertEquals(2, facets.getTotal());
+        assertEquals(1, facets.genre("Dystopian").getCount());
+        assertEquals(1, facets.genre("Satire").getCount());
+        assertEquals(6.00, facets.author("George Orwell").getMinPrice(), 1e-9);
+        assertEquals(10.00, facets.author("George Orwell").getMaxPrice(), 1e-9);
+        assertNull(facets.author("Aldous Huxley"));
+
+        Facets none = service.searchFacets("Tolstoy");
+        assertEquals(0, none.getTotal());
+        assertTrue(none.getGenres().isEmpty());
+    }
+}
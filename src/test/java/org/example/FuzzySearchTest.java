@@ -0,0 +1,145 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzySearchTest {
+
+    private BookService service;
+    private Book orwell;
+    private Book mockingbird;
+    private Book farm;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        mockingbird = new Book("To Kill a Mockingbird", "Harper Lee", "Fiction", 7.99);
+        farm = new Book("Animal Farm", "George Orwell", "Satire", 6.50);
+        service.addBooks(Arrays.asList(orwell, mockingbird, farm));
+    }
+
+    // ---------------------- searchFuzzy Tests ----------------------
+
+    @Test
+    void searchFuzzy_Positive() {
+        // Positive test: Misspellings find the book, closest first, ignoring case and accents
+        assertTrue(service.searchBook("Mockingbrd").isEmpty());
+        assertEquals(Collections.singletonList(mockingbird), service.searchFuzzy("Mockingbrd", 2));
+        assertEquals(Collections.singletonList(mockingbird), service.searchFuzzy("MOKINGBIRD", 2));
+        assertEquals(Arrays.asList(orwell, farm), service.searchFuzzy("Orwel", 1));
+        assertEquals(Collections.singletonList(farm), service.searchFuzzy("orwel farn", 2));
+        assertEquals(Collections.singletonList(orwell), service.searchFuzzy("Orwél", 1, 1));
+
+        Book orwellian = new Book("Orwel", "Anon", "Essay", 3.00);
+        service.addBook(orwellian);
+        assertEquals(orwellian, service.searchFuzzy("Orwel", 1).get(0)); // The exact word ranks first
+    }
+
+    @Test
+    void searchFuzzy_Negative() {
+        // Negative test: Too many edits, a word missing from the book, and bad arguments
+        assertTrue(service.searchFuzzy("Mockngbrd", 1).isEmpty());
+        assertTrue(service.searchFuzzy("Orwel Mockingbird", 2).isEmpty());
+        assertEquals(2, service.searchFuzzy("Orwell", 0).size());
+        assertTrue(service.searchFuzzy("Lix", 2).isEmpty()); // Three letters allow one edit, not two
+        assertThrows(IllegalArgumentException.class, () -> service.searchFuzzy(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> service.searchFuzzy("Orwell", -1));
+    }
+
+    @Test
+    void searchFuzzy_EdgeCase() {
+        // Edge test: The dictionary follows adds, removes and renames, and empty queries find nothing
+        assertEquals(2, service.searchFuzzy("Orwell", 0).size());
+        service.removeBook(new Book("1984", "George Orwell", null, 0));
+        assertEquals(Collections.singletonList(farm), service.searchFuzzy("Orwell", 0));
+        farm.setAuthor("Eric Blair");
+        assertTrue(service.searchFuzzy("Orwell", 1).isEmpty());
+        assertEquals(Collections.singletonList(farm), service.searchFuzzy("Blar", 1));
+        service.removeBooks(Collections.singletonList(farm));
+        assertTrue(service.searchFuzzy("Blair", 1).isEmpty());
+        assertTrue(service.searchFuzzy("", 2).isEmpty());
+        assertTrue(service.searchFuzzy(" - ", 2).isEmpty());
+        assertTrue(service.searchFuzzy("Mockingbird", 1, 0).isEmpty());
+        assertEquals(Collections.singletonList(mockingbird), service.searchFuzzy("Mockingbird", Integer.MAX_VALUE));
+    }
+
+    // ---------------------- BKTree Tests ----------------------
+
+    @Test
+    void bkTree_MatchesBruteForce() {
+        // Edge test: Random adds and removes, through rebuilds, find exactly the terms a linear
+        // scan finds
+        Random random = new Random(11);
+        BKTree tree = new BKTree();
+        Set<String> terms = new HashSet<>();
+        for (int round = 0; round < 3_000; round++) {
+            String term = randomWord(random);
+            if (random.nextInt(3) == 0) {
+                assertEquals(terms.remove(term), tree.remove(term));
+            } else {
+                assertEquals(terms.add(term), tree.add(term));
+            }
+        }
+        assertEquals(terms.size(), tree.size());
+        int[] previous = new int[8];
+        int[] current = new int[8];
+        for (int round = 0; round < 200; round++) {
+            String query = randomWord(random);
+            int k = random.nextInt(3);
+            Set<String> expected = new HashSet<>();
+            for (String term : terms) {
+                if (BKTree.distance(term, query, Integer.MAX_VALUE, previous, current) <= k) {
+                    expected.add(term);
+                }
+            }
+            Set<String> found = new HashSet<>();
+            tree.search(query, k, (term, distance) -> {
+                assertTrue(distance <= k);
+                found.add(term);
+            });
+            assertEquals(expected, found, query);
+        }
+    }
+
+    @Test
+    void bkTree_Distance() {
+        // Positive test: Levenshtein distances, and the early cut-off past the limit
+        int[] previous = new int[16];
+        int[] current = new int[16];
+        assertEquals(3, BKTree.distance("kitten", "sitting", Integer.MAX_VALUE, previous, current));
+        assertEquals(1, BKTree.distance("orwel", "orwell", Integer.MAX_VALUE, previous, current));
+        assertEquals(0, BKTree.distance("", "", Integer.MAX_VALUE, previous, current));
+        assertEquals(5, BKTree.distance("", "abcde", Integer.MAX_VALUE, previous, current));
+        assertTrue(BKTree.distance("kitten", "sitting", 1, previous, current) > 1);
+        List<String> found = new ArrayList<>();
+        new BKTree().search("anything", 3, (term, distance) -> found.add(term));
+        assertTrue(found.isEmpty());
+
+        // A limit of Integer.MAX_VALUE means any distance and must not wrap around
+        BKTree tree = new BKTree();
+        for (String term : List.of("orwell", "huxley", "austen", "a", "bradbury")) {
+            tree.add(term);
+        }
+        tree.search("orwel", Integer.MAX_VALUE, (term, distance) -> found.add(term));
+        assertEquals(5, found.size());
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[1 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = "abcd".charAt(random.nextInt(4));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashCatalogStoreTest {
+
+    private HashCatalogStore store;
+    private Book orwell;
+
+    @BeforeEach
+    void setUp() {
+        store = new HashCatalogStore();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+    }
+
+    // ---------------------- add Tests ----------------------
+
+    @Test
+    void add_Positive() {
+        // Positive test: A new book is stored and gets the next document id
+        assertTrue(store.add(orwell));
+
+        assertTrue(store.contains(orwell));
+        assertEquals(0, store.docId(orwell));
+        assertSame(orwell, store.book(0));
+    }
+
+    @Test
+    void add_Negative() {
+        // Negative test: A different object with the same title and author is a duplicate
+        store.add(orwell);
+
+        assertFalse(store.add(new Book("1984", "George Orwell", "Fiction", 4.99)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void add_EdgeCase() {
+        // Edge test: Null books are never stored
+        assertFalse(store.add(null));
+        assertFalse(store.contains(null));
+        assertFalse(store.remove(null));
+    }
+
+    // ---------------------- remove Tests ----------------------
+
+    @Test
+    void remove_Positive() {
+        // Positive test: Removing by identity drops the stored instance
+        store.add(orwell);
+
+        assertTrue(store.remove(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+        assertFalse(store.contains(orwell));
+        assertNull(store.book(0));
+    }
+
+    @Test
+    void remove_Negative() {
+        // Negative test: Removing a book that is not stored
+        assertFalse(store.remove(orwell));
+    }
+
+    @Test
+    void remove_EdgeCase() {
+        // Edge test: Compaction renumbers documents but keeps insertion order
+        List<Book> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Book book = new Book("Title" + i, "Author", "Genre", i);
+            store.add(book);
+            if (i % 4 == 0) {
+                expected.add(book);
+            } else {
+                store.remove(book);
+            }
+        }
+
+        assertTrue(store.generation() > 0);
+        assertEquals(expected, store.stream().collect(Collectors.toList()));
+        assertEquals(expected.size(), store.size());
+        for (Book book : expected) {
+            assertSame(book, store.book(store.docId(book)));
+        }
+    }
+}
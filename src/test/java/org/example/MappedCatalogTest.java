@@ -0,0 +1,155 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("catalog.bin");
+        MappedCatalog.write(file, List.of(
+                new Book("1984", "George Orwell", "Dystopian", 9.99),
+                new Book("Animal Farm", "George Orwell", "Satire", 6.5),
+                new Book("Cien años de soledad", "Gabriel García Márquez", null, 12.0),
+                new Book("1984", "George Orwell", "Duplicate", 1.0)));
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // ---------------------- MappedCatalog Tests ----------------------
+
+    @Test
+    void open_RoundTripsColumns() throws IOException {
+        // Positive test: Every field reads back from the mapped file; duplicates were dropped
+        MappedCatalog catalog = MappedCatalog.open(file);
+
+        assertEquals(3, catalog.size());
+        Book book = catalog.book(2);
+        assertEquals("Cien años de soledad", book.getTitle());
+        assertEquals("Gabriel García Márquez", book.getAuthor());
+        assertNull(book.getGenre());
+        assertEquals(12.0, book.getPrice());
+        assertEquals("Dystopian", catalog.book(0).getGenre());
+    }
+
+    @Test
+    void find_ByTitleAndAuthor() throws IOException {
+        // Positive test: The hash table resolves title and author to the row
+        MappedCatalog catalog = MappedCatalog.open(file);
+
+        assertEquals(1, catalog.find("Animal Farm", "George Orwell"));
+        assertEquals(2, catalog.find("Cien años de soledad", "Gabriel García Márquez"));
+        assertEquals(-1, catalog.find("Animal Farm", "Someone Else"));
+    }
+
+    @Test
+    void open_RejectsOtherFiles() throws IOException {
+        // Negative test: A file that is not a catalog is refused
+        Path other = directory.resolve("other.bin");
+        Files.write(other, new byte[128]);
+
+        assertThrows(IOException.class, () -> MappedCatalog.open(other));
+    }
+
+    @Test
+    void mappedBook_ReadOnlyFieldsButReviewable() throws IOException {
+        // Edge test: Views are flyweights; reviews survive across views of the same row
+        MappedCatalog catalog = MappedCatalog.open(file);
+        Book first = catalog.book(0);
+        Book second = catalog.book(0);
+
+        assertEquals(first, second);
+        assertNotEquals(first, catalog.book(1));
+        assertThrows(UnsupportedOperationException.class, () -> first.setPrice(1));
+
+        assertTrue(second.getReviews().isEmpty());
+        first.getReviews().add("Chilling");
+        assertEquals(List.of("Chilling"), second.getReviews());
+    }
+
+    // ---------------------- MappedCatalogStore Tests ----------------------
+
+    @Test
+    void openCatalog_SearchAddRemove() throws IOException {
+        // Positive test: A mapped service searches the file and keeps changes in memory
+        BookService service = BookService.openCatalog(file);
+
+        assertEquals(List.of("1984", "Animal Farm"), titles(service.searchBook("Orwell")));
+        assertEquals(List.of("Cien años de soledad"), titles(service.searchBook("años")));
+
+        assertFalse(service.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+        assertTrue(service.addBook(new Book("Homage to Catalonia", "George Orwell", "Memoir", 8.0)));
+        assertTrue(service.removeBook(new Book("1984", "George Orwell", null, 0)));
+        assertFalse(service.removeBook(new Book("1984", "George Orwell", null, 0)));
+
+        assertEquals(List.of("Animal Farm", "Homage to Catalonia"), titles(service.searchBook("Orwell")));
+        assertEquals(3, service.searchBook("").size());
+        assertNull(service.findBook("1984", "George Orwell"));
+    }
+
+    @Test
+    void writeCatalog_RoundTripsThroughService() throws IOException {
+        // Positive test: A heap catalog written out maps back with the same books in order
+        BookService heap = new BookService();
+        for (int i = 0; i < 1000; i++) {
+            heap.addBook(new Book("Title" + i, "Author" + (i % 10), "Genre" + (i % 3), i));
+        }
+        Path written = directory.resolve("heap.bin");
+        heap.writeCatalog(written);
+
+        BookService mapped = BookService.openCatalog(written);
+        assertEquals(titles(heap.searchBook("Author7")), titles(mapped.searchBook("Author7")));
+        assertEquals(999.0, mapped.findBook("Title999", "Author9").getPrice());
+    }
+
+    @Test
+    void openCatalog_NoMatches() throws IOException {
+        // Negative test: A keyword in no dictionary string returns nothing
+        BookService service = BookService.openCatalog(file);
+
+        assertTrue(service.searchBook("Tolkien").isEmpty());
+    }
+
+    @Test
+    void openCatalog_TracksOnlyAddedBooks() throws IOException {
+        // Edge test: Mapped rows are read-only, so only books added in memory get listeners, and
+        // a rename of one of them still reaches the catalog
+        MappedCatalogStore store = new MappedCatalogStore(MappedCatalog.open(file));
+        Book homage = new Book("Homage to Catalonia", "George Orwell", "Memoir", 8.0);
+        BookService service = new BookService(store);
+        assertFalse(store.trackedBooks().iterator().hasNext());
+
+        service.addBook(homage);
+        assertSame(homage, store.trackedBooks().iterator().next());
+        homage.setTitle("Homage");
+        assertSame(homage, service.findBook("Homage", "George Orwell"));
+    }
+
+    @Test
+    void addBookReview_OnMappedBook() throws IOException {
+        // Edge test: A purchase made with one view lets the user review through another
+        BookService service = BookService.openCatalog(file);
+        User user = new User("john_doe", "password123", "john@example.com");
+        user.getPurchasedBooks().add(service.findBook("Animal Farm", "George Orwell"));
+
+        assertTrue(service.addBookReview(user, service.searchBook("Animal").get(0), "Short and sharp"));
+        assertEquals(List.of("Short and sharp"), service.findBook("Animal Farm", "George Orwell").getReviews());
+    }
+}
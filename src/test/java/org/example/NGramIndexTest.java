@@ -0,0 +1,81 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramIndexTest {
+
+    private NGramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NGramIndex();
+        index.add(0, new Book("1984", "George Orwell", "Dystopian", 9.99));
+        index.add(1, new Book("To Kill a Mockingbird", "Harper Lee", "Fiction", 14.99));
+        index.add(2, new Book("Brave New World", "Aldous Huxley", "Dystopian", 11.99));
+    }
+
+    private List<Integer> candidates(String keyword) {
+        PrimitiveIterator.OfInt it = index.candidates(keyword);
+        List<Integer> ids = new ArrayList<>();
+        while (it.hasNext()) {
+            ids.add(it.nextInt());
+        }
+        return ids;
+    }
+
+    // ---------------------- candidates Tests ----------------------
+
+    @Test
+    void candidates_Positive() {
+        // Positive test: Every book holding all trigrams comes back, in id order
+        assertEquals(List.of(0, 2), candidates("Dystop"));
+        assertEquals(List.of(1), candidates("Mockingbird"));
+        assertEquals(List.of(0), candidates("Orwell"));
+    }
+
+    @Test
+    void candidates_Negative() {
+        // Negative test: A trigram that appears in no book yields no candidates
+        assertTrue(candidates("zzz").isEmpty());
+        assertTrue(candidates("Orwellzzz").isEmpty());
+    }
+
+    @Test
+    void candidates_EdgeCase() {
+        // Edge test: Keywords shorter than a trigram cannot be answered by the index
+        assertNull(index.candidates(""));
+        assertNull(index.candidates("19"));
+
+        index.clear();
+        assertTrue(candidates("Dystop").isEmpty());
+    }
+
+    // ---------------------- BookService integration Tests ----------------------
+
+    @Test
+    void indexedSearch_MatchesLinearScan() {
+        // Heavy churn forces store compaction; indexed results must stay identical to a scan
+        BookService indexed = new BookService();
+        BookService scanned = new BookService(new ArrayList<>());
+        for (int i = 0; i < 6000; i++) {
+            Book book = new Book("Title" + i, "Author" + (i % 37), "Genre" + (i % 5), i);
+            indexed.addBook(book);
+            scanned.addBook(book);
+            if (i % 3 != 0) {
+                indexed.removeBook(book);
+                scanned.removeBook(book);
+            }
+        }
+
+        for (String keyword : List.of("Title12", "Author3", "Genre4", "itle", "thor1", "Nothing", "7")) {
+            assertEquals(scanned.searchBook(keyword), indexed.searchBook(keyword), keyword);
+        }
+    }
+}
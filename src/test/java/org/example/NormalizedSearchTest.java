@@ -0,0 +1,107 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedSearchTest {
+
+    private BookService service;
+    private Book orwell;
+    private Book zola;
+    private Book strasse;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        zola = new Book("Germinal", "Émile Zola", "Naturalism", 11.50);
+        strasse = new Book("Die Straße", "Ann Petry", "Fiction", 7.25);
+        service.addBooks(Arrays.asList(orwell, zola, strasse));
+    }
+
+    // ---------------------- searchNormalized Tests ----------------------
+
+    @Test
+    void searchNormalized_Positive() {
+        // Positive test: Case, accents and ß no longer get in the way
+        assertEquals(Collections.singletonList(orwell), service.searchNormalized("orwell"));
+        assertEquals(Collections.singletonList(zola), service.searchNormalized("EMILE zola"));
+        assertEquals(Collections.singletonList(zola), service.searchNormalized("émile"));
+        assertEquals(Collections.singletonList(strasse), service.searchNormalized("STRASSE"));
+        assertEquals(Collections.singletonList(orwell), service.searchNormalized("dystop"));
+        assertTrue(service.searchBook("orwell").isEmpty()); // searchBook stays exact
+        assertEquals("Émile Zola", service.autocomplete("emile", 1).get(0).getText()); // Type-ahead folds the same way
+    }
+
+    @Test
+    void searchNormalized_Negative() {
+        // Negative test: No match, no match across two fields, and no null keyword
+        assertTrue(service.searchNormalized("tolstoy").isEmpty());
+        assertTrue(service.searchNormalized("1984george").isEmpty());
+        assertTrue(service.searchNormalized("germinalémile").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.searchNormalized(null));
+    }
+
+    @Test
+    void searchNormalized_EdgeCase() {
+        // Edge test: Setter changes are seen, an empty keyword matches everything, and stores
+        // without document ids search the same way
+        assertEquals(1, service.searchNormalized("orwell").size());
+        orwell.setAuthor("Eric Blair");
+        assertTrue(service.searchNormalized("orwell").isEmpty());
+        assertEquals(Collections.singletonList(orwell), service.searchNormalized("ERIC"));
+        zola.setGenre("Roman naturaliste");
+        assertEquals(Collections.singletonList(zola), service.searchNormalized("naturaliste"));
+        assertEquals(3, service.searchNormalized("").size());
+
+        BookService listService = new BookService(new ArrayList<>());
+        listService.addBook(new Book("Les Misérables", "Victor Hugo", "Novel", 12.00));
+        assertEquals(1, listService.searchNormalized("miserables").size());
+    }
+
+    @Test
+    void searchNormalized_PreparedQuery() {
+        // Positive test: A prepared query runs against the catalog and single books
+        NormalizedQuery query = NormalizedQuery.of("Zola");
+        List<Book> matches = new ArrayList<>();
+        service.searchNormalized(query, matches::add);
+        service.searchNormalized(query, matches::add);
+        assertEquals(Arrays.asList(zola, zola), matches);
+        assertTrue(query.matches(zola));
+        assertFalse(query.matches(orwell));
+    }
+
+    // ---------------------- NormalizedQuery Tests ----------------------
+
+    @Test
+    void normalizedQuery_MatchesContains() {
+        // Edge test: Boyer-Moore-Horspool agrees with String.contains on random folded text,
+        // including multi-byte characters, repeats and patterns at the very start and end
+        Random random = new Random(3);
+        for (int round = 0; round < 2_000; round++) {
+            String text = randomText(random, random.nextInt(40));
+            String pattern = random.nextInt(4) == 0 && !text.isEmpty()
+                    ? text.substring(random.nextInt(text.length()))
+                    : randomText(random, 1 + random.nextInt(4));
+            boolean expected = TextFolding.fold(text).contains(TextFolding.fold(pattern));
+            assertEquals(expected, NormalizedQuery.of(pattern).matches(TextFolding.foldToBytes(text)),
+                    pattern + " in " + text);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append("aBø".charAt(random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private void fill(BookService service, int count) {
+        for (int i = 0; i < count; i++) {
+            service.addBook(new Book("Title" + i, "Author" + (i % 101), "Genre" + (i % 7), i));
+        }
+    }
+
+    private BookService parallel(BookService service) {
+        service.setSearchPool(pool);
+        service.setParallelThreshold(1000);
+        return service;
+    }
+
+    // ---------------------- searchBookParallel Tests ----------------------
+
+    @Test
+    void searchBookParallel_Positive() {
+        // Positive test: Parallel results equal the sequential ones, in the same order
+        BookService service = parallel(new BookService());
+        fill(service, 100_000);
+        for (int i = 0; i < 100_000; i += 3) {
+            service.removeBook(new Book("Title" + i, "Author" + (i % 101), "Genre", 0));
+        }
+
+        for (String keyword : List.of("9", "r4", "e6", "Title77", "")) {
+            assertEquals(service.searchBook(keyword), service.searchBookParallel(keyword), keyword);
+        }
+    }
+
+    @Test
+    void searchBookParallel_Negative() {
+        // Negative test: A keyword that matches nothing
+        BookService service = parallel(new BookService(new ConcurrentCatalogStore()));
+        fill(service, 50_000);
+
+        assertTrue(service.searchBookParallel("x").isEmpty());
+    }
+
+    @Test
+    void searchBookParallel_EdgeCase() {
+        // Edge test: Below the threshold the search stays on the calling thread, even for list adapters
+        List<Book> list = new ArrayList<>();
+        BookService service = parallel(new BookService(list));
+        fill(service, 500);
+
+        assertEquals(service.searchBook("1"), service.searchBookParallel("1"));
+        assertEquals(0, pool.getStealCount());
+    }
+
+    @Test
+    void searchBookParallel_Predicate() {
+        // Arbitrary filters scan in parallel and keep catalog order
+        BookService service = parallel(new BookService());
+        fill(service, 40_000);
+
+        List<Book> cheap = service.searchBookParallel(book -> book.getPrice() < 10 || book.getPrice() >= 39_990);
+        assertEquals(20, cheap.size());
+        assertEquals("Title0", cheap.get(0).getTitle());
+        assertEquals("Title39999", cheap.get(19).getTitle());
+    }
+}
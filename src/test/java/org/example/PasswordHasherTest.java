@@ -0,0 +1,107 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    void setUp() {
+        hasher = new PasswordHasher(1000);
+    }
+
+    // ---------------------- hash/verify Tests ----------------------
+
+    @Test
+    void verify_Positive() {
+        // Positive test: A hash verifies against the password it was made from
+        String hash = hasher.hash("password123");
+
+        assertTrue(PasswordHasher.isHash(hash));
+        assertTrue(hasher.verify("password123", hash));
+    }
+
+    @Test
+    void verify_Negative() {
+        // Negative test: Wrong passwords, plaintext and corrupt hashes never verify
+        String hash = hasher.hash("password123");
+
+        assertFalse(hasher.verify("password124", hash));
+        assertFalse(hasher.verify("password123", "password123"));
+        assertFalse(hasher.verify("password123", "pbkdf2-sha256$1000$%%%$%%%"));
+    }
+
+    @Test
+    void verify_EdgeCase() {
+        // Edge test: Salts differ per hash, and hashes of another cost still verify but need a rehash
+        String first = hasher.hash("");
+        String second = hasher.hash("");
+        String cheap = new PasswordHasher(10).hash("");
+
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("", cheap));
+        assertTrue(hasher.needsRehash(cheap));
+        assertFalse(hasher.needsRehash(first));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(0));
+    }
+
+    @Test
+    void verify_RejectsIterationCountsOutOfRange() {
+        // Negative test: A stored hash cannot make verification run more iterations than allowed
+        PasswordHasher capped = new PasswordHasher(1000, 2000);
+        String hash = capped.hash("password123");
+        String expensive = new PasswordHasher(5000).hash("password123");
+
+        assertTrue(capped.verify("password123", hash));
+        assertFalse(capped.verify("password123", expensive));
+        assertFalse(capped.verify("password123", hash.replace("$1000$", "$2147483647$")));
+        assertFalse(capped.verify("password123", hash.replace("$1000$", "$0$")));
+        assertFalse(capped.verify("password123", hash.replace("$1000$", "$-5$")));
+        assertFalse(capped.verify(null, hash));
+        assertThrows(IllegalArgumentException.class, () -> capped.hash(null));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(1000, 999));
+    }
+
+    // ---------------------- VerifiedLoginCache Tests ----------------------
+
+    @Test
+    void loginCache_RemembersUntilPasswordChanges() {
+        VerifiedLoginCache cache = new VerifiedLoginCache(60_000, 10);
+        User user = new User("john_doe", hasher.hash("password123"), "john@example.com");
+        cache.remember(user, "password123");
+
+        assertTrue(cache.isVerified(user, "password123"));
+        assertFalse(cache.isVerified(user, "wrong"));
+
+        user.setPassword(hasher.hash("changed"));
+        assertFalse(cache.isVerified(user, "password123"));
+    }
+
+    @Test
+    void loginCache_ExpiresAndStaysBounded() {
+        VerifiedLoginCache expired = new VerifiedLoginCache(0, 10);
+        User user = new User("john_doe", hasher.hash("password123"), "john@example.com");
+        expired.remember(user, "password123");
+        assertFalse(expired.isVerified(user, "password123"));
+
+        VerifiedLoginCache small = new VerifiedLoginCache(60_000, 2);
+        for (int i = 0; i < 5; i++) {
+            small.remember(new User("user" + i, "hash", "email"), "password");
+        }
+        assertEquals(2, small.size());
+
+        // The least recently used login makes room for a new one
+        User first = new User("first", "hash", "email");
+        User second = new User("second", "hash", "email");
+        small.remember(first, "password");
+        small.remember(second, "password");
+        assertTrue(small.isVerified(first, "password"));
+        small.remember(new User("third", "hash", "email"), "password");
+        assertTrue(small.isVerified(first, "password"));
+        assertFalse(small.isVerified(second, "password"));
+    }
+}
@@ -0,0 +1,367 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    private Persistence open(FsyncPolicy policy) throws IOException {
+        return Persistence.open(directory, policy, new BookService(), new UserService(new HashMap<>(), new PasswordHasher(1000)));
+    }
+
+    // Applies one of every journaled mutation
+    private void mutate(Persistence persistence) {
+        mutate(persistence.getBookService(), persistence.getUserService());
+    }
+
+    private void mutate(BookService books, UserService users) {
+        Book orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        books.addBook(orwell);
+        books.addBook(new Book("Brave New World", "Aldous Huxley", "Dystopian", 11.99));
+        books.addBook(new Book("Emma", "Jane Austen", "Romance", 7.99));
+        books.removeBook(new Book("Emma", "Jane Austen", null, 0));
+
+        User john = new User("john_doe", "password123", "john@example.com");
+        users.registerUser(john);
+        books.purchaseBook(john, orwell);
+        books.addBookReview(john, orwell, "Chilling", 5);
+        users.updateUserProfile(john, "johnny", "secret", "johnny@example.com");
+    }
+
+    private void assertRestored(Persistence persistence) {
+        BookService books = persistence.getBookService();
+        assertNotNull(books.findBook("Brave New World", "Aldous Huxley"));
+        assertNull(books.findBook("Emma", "Jane Austen"));
+        Book orwell = books.findBook("1984", "George Orwell");
+        assertEquals(List.of("Chilling"), orwell.getReviews());
+        assertEquals(1, books.getReviewStats(orwell).getCount());
+        assertEquals(5.0, books.getReviewStats(orwell).getAverageRating());
+
+        User johnny = persistence.getUserService().loginUser("johnny", "secret");
+        assertNotNull(johnny);
+        assertEquals("johnny@example.com", johnny.getEmail());
+        assertTrue(books.hasPurchased(johnny, orwell));
+    }
+
+    // ---------------------- open/replay Tests ----------------------
+
+    @Test
+    void open_ReplaysLog() throws IOException {
+        // Positive test: Every mutation survives a restart through log replay alone
+        try (Persistence persistence = open(FsyncPolicy.perOperation())) {
+            mutate(persistence);
+        }
+
+        try (Persistence restored = open(FsyncPolicy.perOperation())) {
+            assertRestored(restored);
+            assertEquals(2, restored.getBookService().searchBook("").size());
+            assertEquals(8, restored.getReplayedRecords());
+        }
+    }
+
+    @Test
+    void open_SnapshotPlusLog() throws IOException {
+        // Positive test: A checkpoint folds the log into the snapshot; later records replay on top
+        try (Persistence persistence = open(FsyncPolicy.batched(4))) {
+            mutate(persistence);
+            persistence.checkpoint();
+            persistence.getBookService().addBook(new Book("Dune", "Frank Herbert", "SciFi", 8.99));
+        }
+
+        try (Persistence restored = open(FsyncPolicy.interval(10))) {
+            assertRestored(restored);
+            assertEquals(1, restored.getReplayedRecords());
+            assertEquals(3, restored.getBookService().searchBook("").size());
+            assertNotNull(restored.getBookService().findBook("Dune", "Frank Herbert"));
+        }
+    }
+
+    @Test
+    void open_EmptyDirectory() throws IOException {
+        // Negative test: A fresh directory restores nothing
+        try (Persistence persistence = open(FsyncPolicy.perOperation())) {
+            assertTrue(persistence.getBookService().searchBook("").isEmpty());
+            assertEquals(0, persistence.getReplayedRecords());
+        }
+    }
+
+    @Test
+    void open_TornTailIsDropped() throws IOException {
+        // Edge test: A crash mid-append leaves a partial record; replay keeps everything before it
+        try (Persistence persistence = open(FsyncPolicy.perOperation())) {
+            mutate(persistence);
+        }
+        Path log = directory.resolve(Persistence.LOG_FILE);
+        long intact = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        try (Persistence restored = open(FsyncPolicy.perOperation())) {
+            assertRestored(restored);
+            assertEquals(intact, Files.size(log));
+
+            // New records follow the last good one and replay normally
+            restored.getBookService().addBook(new Book("Dune", "Frank Herbert", "SciFi", 8.99));
+        }
+        try (Persistence again = open(FsyncPolicy.perOperation())) {
+            assertNotNull(again.getBookService().findBook("Dune", "Frank Herbert"));
+        }
+    }
+
+    // ---------------------- checkpoint Tests ----------------------
+
+    @Test
+    void checkpoint_AppendsContinueWhileSnapshotIsWritten() throws Exception {
+        // Positive test: Another thread can append while the snapshot is written; its record stays
+        // in the log and everything logged before the checkpoint is dropped
+        Path file = directory.resolve(Persistence.LOG_FILE);
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.perOperation())) {
+            log.bookAdded(new Book("1984", "George Orwell", "Dystopian", 9.99));
+            log.checkpoint(coveredLsn -> {
+                Thread writer = new Thread(() -> log.bookAdded(new Book("Dune", "Frank Herbert", "SciFi", 8.99)));
+                writer.start();
+                try {
+                    writer.join(10_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(writer.isAlive());
+            });
+            log.bookAdded(new Book("Emma", "Jane Austen", "Romance", 7.99));
+        }
+        assertFalse(Files.exists(directory.resolve(Persistence.LOG_FILE + ".tmp")));
+
+        BookService books = new BookService();
+        assertEquals(2, WriteAheadLog.replay(file, books, new UserService(new HashMap<>(), new PasswordHasher(1000))).records);
+        assertNull(books.findBook("1984", "George Orwell"));
+        assertNotNull(books.findBook("Dune", "Frank Herbert"));
+        assertNotNull(books.findBook("Emma", "Jane Austen"));
+    }
+
+    @Test
+    void checkpoint_CrashBeforeLogIsRewrittenReplaysNothingTwice() throws IOException {
+        // Edge test: The snapshot is in place but the log still holds the records it covers;
+        // replay skips them by LSN instead of adding the review a second time
+        BookService books = new BookService();
+        UserService users = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        try (WriteAheadLog log = new WriteAheadLog(directory.resolve(Persistence.LOG_FILE), FsyncPolicy.perOperation())) {
+            books.setJournal(log);
+            users.setJournal(log);
+            mutate(books, users);
+            assertThrows(IOException.class, () -> log.checkpoint(coveredLsn -> {
+                SnapshotFile.write(directory.resolve(Persistence.SNAPSHOT_FILE), books, users, coveredLsn, log::lastLsn);
+                throw new IOException("Crashed before the log was rewritten");
+            }));
+        }
+
+        try (Persistence restored = open(FsyncPolicy.perOperation())) {
+            assertRestored(restored);
+            assertEquals(0, restored.getReplayedRecords());
+
+            // Numbering carries on past the snapshot, so later records are not skipped
+            restored.getBookService().addBook(new Book("Dune", "Frank Herbert", "SciFi", 8.99));
+        }
+        try (Persistence again = open(FsyncPolicy.perOperation())) {
+            assertNotNull(again.getBookService().findBook("Dune", "Frank Herbert"));
+            assertEquals(1, again.getReplayedRecords());
+        }
+    }
+
+    @Test
+    void checkpoint_ReviewPostedDuringSnapshotRestoredOnce() throws IOException {
+        // Edge test: A review posted while the snapshot is written ends up both in the snapshot
+        // and in the log tail; it is restored once, and a later review still replays
+        BookService books = new BookService();
+        UserService users = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        try (WriteAheadLog log = new WriteAheadLog(directory.resolve(Persistence.LOG_FILE), FsyncPolicy.perOperation())) {
+            books.setJournal(log);
+            users.setJournal(log);
+            mutate(books, users);
+            User johnny = users.findUser("johnny");
+            Book orwell = books.findBook("1984", "George Orwell");
+            log.checkpoint(coveredLsn -> {
+                books.addBookReview(johnny, orwell, "Still chilling", 4);
+                SnapshotFile.write(directory.resolve(Persistence.SNAPSHOT_FILE), books, users, coveredLsn, log::lastLsn);
+            });
+            books.addBookReview(johnny, orwell, "Third read", 5);
+        }
+
+        try (Persistence restored = open(FsyncPolicy.perOperation())) {
+            Book orwell = restored.getBookService().findBook("1984", "George Orwell");
+            assertEquals(List.of("Chilling", "Still chilling", "Third read"), orwell.getReviews());
+            assertEquals(3, restored.getBookService().getReviewStats(orwell).getCount());
+        }
+    }
+
+    @Test
+    void startPeriodicCheckpoints_ConcurrentServicesOnly() throws Exception {
+        // Negative test: Plain services cannot be snapshotted while requests change them; the
+        // concurrent ones checkpoint in the background
+        try (Persistence persistence = open(FsyncPolicy.perOperation())) {
+            assertThrows(IllegalStateException.class, () -> persistence.startPeriodicCheckpoints(10, e -> fail(e)));
+        }
+
+        List<IOException> failures = new CopyOnWriteArrayList<>();
+        try (Persistence persistence = Persistence.open(directory, FsyncPolicy.perOperation(),
+                new ConcurrentBookService(), new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1000)))) {
+            mutate(persistence);
+            persistence.startPeriodicCheckpoints(5, failures::add);
+            Path log = directory.resolve(Persistence.LOG_FILE);
+            for (int i = 0; i < 400 && Files.size(log) > 0; i++) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, Files.size(log));
+        }
+        assertTrue(failures.isEmpty());
+
+        try (Persistence restored = open(FsyncPolicy.perOperation())) {
+            assertRestored(restored);
+            assertEquals(0, restored.getReplayedRecords());
+        }
+    }
+
+    @Test
+    void log_FailedWriteIsKept() throws IOException {
+        // Edge test: A write that fails partway reaches its writer as an error, and its records
+        // are written ahead of the next ones instead of being lost
+        Path file = directory.resolve(Persistence.LOG_FILE);
+        FlakyChannel channel = new FlakyChannel(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+        try (WriteAheadLog log = new WriteAheadLog(file, channel, FsyncPolicy.perOperation(), 0)) {
+            channel.failNextWrite = true;
+            assertThrows(UncheckedIOException.class, () -> log.bookAdded(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+            log.bookAdded(new Book("Dune", "Frank Herbert", "SciFi", 8.99));
+        }
+
+        BookService books = new BookService();
+        assertEquals(2, WriteAheadLog.replay(file, books, new UserService(new HashMap<>(), new PasswordHasher(1000))).records);
+        assertNotNull(books.findBook("1984", "George Orwell"));
+        assertNotNull(books.findBook("Dune", "Frank Herbert"));
+    }
+
+    // Writes half of the buffer and then fails when asked to, like a disk running full
+    private static final class FlakyChannel extends FileChannel {
+        private final FileChannel delegate;
+        boolean failNextWrite;
+
+        FlakyChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                int written = delegate.write(half);
+                src.position(src.position() + written);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
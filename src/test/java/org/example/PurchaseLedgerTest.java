@@ -0,0 +1,170 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PurchaseLedgerTest {
+
+    private PurchaseLedger ledger;
+    private User john;
+    private User jane;
+    private Book orwell;
+    private Book huxley;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new PurchaseLedger();
+        john = new User("john_doe", "password123", "john@example.com");
+        jane = new User("jane_doe", "password456", "jane@example.com");
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        huxley = new Book("Brave New World", "Aldous Huxley", "Dystopian", 11.99);
+    }
+
+    // ---------------------- record/hasPurchased Tests ----------------------
+
+    @Test
+    void record_Positive() {
+        // Positive test: A recorded purchase is found both ways
+        assertTrue(ledger.record(john, orwell));
+        assertTrue(ledger.record(jane, orwell));
+
+        assertTrue(ledger.hasPurchased(john, orwell));
+        assertEquals(Set.of(john, jane), new HashSet<>(ledger.buyersOf(orwell)));
+        assertEquals(List.of(orwell), ledger.purchasesOf(john));
+        assertEquals(2, ledger.buyerCount(orwell));
+    }
+
+    @Test
+    void hasPurchased_Negative() {
+        // Negative test: Other users and other books are not purchases
+        ledger.record(john, orwell);
+
+        assertFalse(ledger.hasPurchased(john, huxley));
+        assertFalse(ledger.hasPurchased(jane, orwell));
+        assertFalse(ledger.hasPurchased(null, orwell));
+        assertTrue(ledger.buyersOf(huxley).isEmpty());
+    }
+
+    @Test
+    void record_EdgeCase() {
+        // Edge test: Buying twice is one purchase; a rename keeps the history; books match by key
+        assertTrue(ledger.record(john, orwell));
+        assertFalse(ledger.record(john, orwell));
+        john.setUsername("johnny");
+
+        assertTrue(ledger.hasPurchased(john, new Book("1984", "George Orwell", null, 0)));
+        assertEquals(1, ledger.buyerCount(orwell));
+    }
+
+    @Test
+    void record_ManyBooksAndConcurrentBuyers() throws Exception {
+        // Edge test: Sets grow past their initial size and concurrent buyers are all recorded
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<User> buyers = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            User buyer = new User("user" + t, "password", "user" + t + "@example.com");
+            buyers.add(buyer);
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ledger.record(buyer, new Book("Title" + i, "Author", "Genre", i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (User buyer : buyers) {
+            assertEquals(500, ledger.purchasesOf(buyer).size());
+        }
+        assertEquals(8, ledger.buyerCount(new Book("Title499", "Author", null, 0)));
+    }
+
+    @Test
+    void remove_ReleasesIds() {
+        // Edge test: A removed book is forgotten on both sides, a buyer left with nothing is
+        // dropped, and newcomers reuse the released ids instead of growing the ledger
+        ledger.record(john, orwell);
+        ledger.record(john, huxley);
+        ledger.record(jane, orwell);
+        ledger.remove(orwell);
+
+        assertFalse(ledger.hasPurchased(john, orwell));
+        assertFalse(ledger.hasPurchased(jane, orwell));
+        assertEquals(List.of(huxley), ledger.purchasesOf(john));
+        assertTrue(ledger.purchasesOf(jane).isEmpty());
+        assertEquals(List.of(john), ledger.buyersOf(huxley));
+
+        List<User> owners = new ArrayList<>();
+        ledger.forEach((user, books) -> owners.add(user));
+        assertEquals(List.of(john), owners);
+
+        // Churn through short-lived books and buyers: reused ids never mix up the histories
+        for (int i = 0; i < 1_000; i++) {
+            User buyer = new User("user" + i, "password", "user" + i + "@example.com");
+            Book book = new Book("Title" + i, "Author", "Genre", i);
+            assertTrue(ledger.record(buyer, book));
+            assertTrue(ledger.record(jane, book));
+            ledger.remove(book);
+        }
+        owners.clear();
+        ledger.forEach((user, books) -> owners.add(user));
+        assertEquals(List.of(john), owners);
+        assertEquals(List.of(john), ledger.buyersOf(huxley));
+        assertTrue(ledger.record(jane, orwell));
+        assertEquals(List.of(jane), ledger.buyersOf(orwell));
+        ledger.remove(new Book("Missing", "Nobody", null, 0)); // Never bought: nothing to release
+    }
+
+    // ---------------------- BookService Tests ----------------------
+
+    @Test
+    void purchaseBook_EnablesReview() {
+        // Positive test: A purchase through the service is enough to review the book
+        BookService service = new BookService();
+        service.addBook(orwell);
+
+        assertFalse(service.addBookReview(john, orwell, "Too early"));
+        assertTrue(service.purchaseBook(john, orwell));
+        assertTrue(service.addBookReview(john, orwell, "Chilling"));
+        assertEquals(List.of(john), service.getBuyers(orwell));
+    }
+
+    @Test
+    void purchaseBook_NotInCatalog() {
+        // Negative test: A book the catalog does not hold is not recorded
+        BookService service = new BookService();
+
+        assertFalse(service.purchaseBook(john, orwell));
+        assertFalse(service.hasPurchased(john, orwell));
+    }
+
+    @Test
+    void removeBook_ForgetsPurchases() {
+        // Negative test: Once the book leaves the catalog its buyers no longer count as buyers,
+        // also when it is added back
+        BookService service = new BookService();
+        service.addBooks(List.of(orwell, huxley));
+        service.purchaseBook(john, orwell);
+        service.removeBooks(List.of(orwell));
+
+        assertFalse(service.hasPurchased(john, orwell));
+        assertTrue(service.addBook(orwell));
+        assertTrue(service.getBuyers(orwell).isEmpty());
+        assertTrue(service.purchaseBook(john, orwell));
+        assertEquals(List.of(john), service.getBuyers(orwell));
+    }
+}
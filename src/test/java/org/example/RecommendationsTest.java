@@ -0,0 +1,156 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationsTest {
+
+    private BookService service;
+    private Book nineteen;
+    private Book farm;
+    private Book brave;
+    private Book dune;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        nineteen = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        farm = new Book("Animal Farm", "George Orwell", "Satire", 6.50);
+        brave = new Book("Brave New World", "Aldous Huxley", "Dystopian", 12.00);
+        dune = new Book("Dune", "Frank Herbert", "Science Fiction", 15.00);
+        service.addBooks(Arrays.asList(nineteen, farm, brave, dune));
+    }
+
+    // ---------------------- alsoBought Tests ----------------------
+
+    @Test
+    void alsoBought_Positive() {
+        // Positive test: The books bought most often with this one come first
+        service.enableRecommendations();
+        buy(user(1), nineteen, farm, brave);
+        buy(user(2), nineteen, farm);
+        buy(user(3), dune, nineteen);
+        buy(user(4), farm, brave);
+        assertEquals(Arrays.asList(farm, brave, dune), service.alsoBought(nineteen, 5));
+        assertEquals(Arrays.asList(farm), service.alsoBought(nineteen, 1));
+        assertEquals(Arrays.asList(nineteen, brave), service.alsoBought(farm, 2));
+        assertEquals(Collections.singletonList(nineteen), service.alsoBought(dune, 5));
+    }
+
+    @Test
+    void alsoBought_Negative() {
+        // Negative test: Unbought, uncataloged and repeated purchases add nothing, and removed
+        // books are neither recommended nor remembered when added back
+        User reader = user(1);
+        buy(reader, nineteen, farm);
+        assertFalse(service.purchaseBook(reader, new Book("Missing", "Nobody", "None", 1.00)));
+        buy(reader, farm); // Already bought: not counted again
+        assertTrue(service.alsoBought(dune, 5).isEmpty());
+        assertTrue(service.alsoBought(null, 5).isEmpty());
+        assertTrue(service.alsoBought(nineteen, 0).isEmpty());
+        assertEquals(Collections.singletonList(farm), service.alsoBought(nineteen, 5));
+        service.removeBook(farm);
+        assertTrue(service.alsoBought(nineteen, 5).isEmpty());
+
+        // A book removed and added again starts without co-purchases
+        Book reissued = new Book("Animal Farm", "George Orwell", "Satire", 7.50);
+        service.addBook(reissued);
+        assertTrue(service.alsoBought(nineteen, 5).isEmpty());
+        buy(reader, reissued);
+        assertSame(reissued, service.alsoBought(nineteen, 5).get(0));
+        assertThrows(IllegalArgumentException.class, () -> new BookService().enableRecommendations(0));
+    }
+
+    @Test
+    void alsoBought_EdgeCase() {
+        // Edge test: An index built from past purchases ranks like one kept up as they happened,
+        // and a renamed book keeps its co-purchases
+        BookService live = new BookService();
+        live.addBooks(Arrays.asList(nineteen, farm, brave, dune));
+        live.enableRecommendations();
+        User[] users = {user(1), user(2), user(3), user(4), user(5)};
+        Book[][] baskets = {{nineteen, farm, dune}, {farm, dune}, {brave, dune, farm}, {nineteen, farm}, {brave, dune}};
+        for (int u = 0; u < users.length; u++) {
+            buy(users[u], baskets[u]);
+            for (Book book : baskets[u]) {
+                live.purchaseBook(users[u], book);
+            }
+        }
+        for (Book book : Arrays.asList(nineteen, farm, brave, dune)) {
+            assertEquals(live.alsoBought(book, 5), service.alsoBought(book, 5), book.getTitle());
+        }
+        dune.setTitle("Dune Messiah");
+        assertEquals(Arrays.asList(dune, nineteen, brave), service.alsoBought(farm, 5));
+    }
+
+    // ---------------------- CoPurchaseIndex Tests ----------------------
+
+    @Test
+    void coPurchaseIndex_BoundedRows() {
+        // Edge test: Rows never hold more than perBook books, and a frequent co-purchase survives
+        // a long tail of one-off ones
+        CoPurchaseIndex index = new CoPurchaseIndex(4);
+        Random random = new Random(23);
+        for (int purchase = 0; purchase < 5_000; purchase++) {
+            int other = random.nextInt(3) == 0 ? 1 : 2 + random.nextInt(1_000);
+            index.purchased(0, new int[] {other});
+        }
+        assertEquals(4, index.top(0, 100).length);
+        assertEquals(1, index.top(0, 1)[0]);
+        assertTrue(index.count(0, 1) >= 1_500);
+        assertEquals(0, index.top(999_999, 5).length);
+    }
+
+    @Test
+    void coPurchaseIndex_History() {
+        // Positive test: A purchase pairs with at most MAX_HISTORY earlier books and skips itself;
+        // replaying a buyer counts each pair once in both directions
+        CoPurchaseIndex index = new CoPurchaseIndex(CoPurchaseIndex.MAX_HISTORY * 2);
+        int[] history = new int[CoPurchaseIndex.MAX_HISTORY * 2];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = i + 1;
+        }
+        index.purchased(0, history);
+        assertEquals(CoPurchaseIndex.MAX_HISTORY, index.top(0, Integer.MAX_VALUE).length);
+        index.purchased(500, new int[] {500});
+        assertEquals(0, index.top(500, 5).length);
+
+        CoPurchaseIndex replayed = new CoPurchaseIndex(8);
+        replayed.bought(new int[] {10, 11, 12});
+        assertEquals(1, replayed.count(10, 12));
+        assertEquals(1, replayed.count(12, 10));
+        assertEquals(2, replayed.top(11, 5).length);
+    }
+
+    @Test
+    void coPurchaseIndex_Remove() {
+        // Edge test: A removed book leaves its own row and every row that counted it, and the
+        // others keep their order
+        CoPurchaseIndex index = new CoPurchaseIndex(8);
+        index.bought(new int[] {1, 2, 3});
+        index.purchased(2, new int[] {1, 2});
+        index.remove(1, new int[] {2, 3});
+
+        assertEquals(0, index.top(1, 5).length);
+        assertArrayEquals(new int[] {3}, index.top(2, 5));
+        assertArrayEquals(new int[] {2}, index.top(3, 5));
+        assertEquals(0, index.count(2, 1));
+        index.remove(999, new int[0]);
+    }
+
+    private void buy(User user, Book... books) {
+        for (Book book : books) {
+            assertTrue(service.purchaseBook(user, book));
+        }
+    }
+
+    private static User user(int id) {
+        return new User("reader" + id, "password" + id, "reader" + id + "@example.com");
+    }
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestFrontEndTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BookService books;
+    private UserService users;
+
+    @BeforeEach
+    void setUp() {
+        // Searches for "block" hold their thread until the test releases them
+        books = new ConcurrentBookService() {
+            @Override
+            public List<Book> searchBook(String keyword) {
+                if (keyword.equals("block")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.searchBook(keyword);
+            }
+        };
+        users = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1000));
+        books.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    // ---------------------- submit Tests ----------------------
+
+    @Test
+    void submit_Positive() {
+        // Positive test: Every request type runs end to end against the services
+        try (RequestFrontEnd frontEnd = new RequestFrontEnd(books, users, 4, 5_000)) {
+            assertEquals(ServiceResponse.Status.OK, frontEnd.handle(ServiceRequest.register("john_doe", "password123", "john@example.com")).getStatus());
+            ServiceResponse login = frontEnd.handle(ServiceRequest.login("john_doe", "password123"));
+            assertEquals(ServiceResponse.Status.OK, login.getStatus());
+            assertSame(users.findUser("john_doe"), login.getResult());
+
+            ServiceResponse search = frontEnd.handle(ServiceRequest.search("Orwell"));
+            assertEquals(1, ((List<?>) search.getResult()).size());
+            assertEquals(ServiceResponse.Status.OK, frontEnd.handle(ServiceRequest.purchase("john_doe", "1984", "George Orwell")).getStatus());
+            assertEquals(ServiceResponse.Status.OK, frontEnd.handle(ServiceRequest.review("john_doe", "1984", "George Orwell", "Chilling", 5)).getStatus());
+            assertEquals(1, books.getReviewStats(books.findBook("1984", "George Orwell")).getCount());
+            assertEquals(5, frontEnd.getCompleted());
+            assertTrue(search.getLatencyNanos() > 0);
+        }
+    }
+
+    @Test
+    void submit_Negative() {
+        // Negative test: Refusals by the services are FAILED, exceptions are ERROR
+        try (RequestFrontEnd frontEnd = new RequestFrontEnd(books, users, 4, 5_000)) {
+            assertEquals(ServiceResponse.Status.FAILED, frontEnd.handle(ServiceRequest.login("nobody", "password")).getStatus());
+            assertEquals(ServiceResponse.Status.FAILED, frontEnd.handle(ServiceRequest.purchase("nobody", "1984", "George Orwell")).getStatus());
+
+            ServiceResponse failed = frontEnd.handle(ServiceRequest.search(null));
+            assertEquals(ServiceResponse.Status.ERROR, failed.getStatus());
+            assertTrue(failed.getError() instanceof NullPointerException);
+            assertEquals(0, frontEnd.getInFlight());
+        }
+    }
+
+    @Test
+    void submit_RejectsBeyondMaxInFlight() throws Exception {
+        // Edge test: Once maxInFlight requests are running, further ones are rejected at once
+        try (RequestFrontEnd frontEnd = new RequestFrontEnd(books, users, 2, 0)) {
+            CompletableFuture<ServiceResponse> first = frontEnd.submit(ServiceRequest.search("block"));
+            CompletableFuture<ServiceResponse> second = frontEnd.submit(ServiceRequest.search("block"));
+            ServiceResponse third = frontEnd.submit(ServiceRequest.search("Orwell")).getNow(null);
+
+            assertNotNull(third);
+            assertEquals(ServiceResponse.Status.REJECTED, third.getStatus());
+            assertEquals(2, frontEnd.getInFlight());
+            assertEquals(1, frontEnd.getRejected());
+
+            release.countDown();
+            assertEquals(ServiceResponse.Status.OK, first.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(ServiceResponse.Status.OK, second.get(5, TimeUnit.SECONDS).getStatus());
+        }
+    }
+
+    @Test
+    void submit_TimesOut() throws Exception {
+        // Edge test: A slow request is answered TIMED_OUT and keeps its slot until it finishes;
+        // after close every request is rejected
+        RequestFrontEnd frontEnd = new RequestFrontEnd(books, users, 1, 50);
+        ServiceResponse slow = frontEnd.submit(ServiceRequest.search("block")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(ServiceResponse.Status.TIMED_OUT, slow.getStatus());
+        assertTrue(slow.getLatencyNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, frontEnd.getTimedOut());
+        assertEquals(ServiceResponse.Status.REJECTED, frontEnd.handle(ServiceRequest.search("Orwell")).getStatus());
+
+        release.countDown();
+        frontEnd.close();
+        assertEquals(0, frontEnd.getInFlight());
+        assertEquals(ServiceResponse.Status.REJECTED, frontEnd.handle(ServiceRequest.search("Orwell")).getStatus());
+    }
+
+    // ---------------------- LoadGenerator Tests ----------------------
+
+    @Test
+    void loadGenerator_ReportsThroughput() throws InterruptedException {
+        // Positive test: A short replay runs every request type and reports what it saw
+        BookService catalog = new ConcurrentBookService();
+        LoadGenerator generator = new LoadGenerator(catalog, users, 1_000, 50, 42);
+        LoadGenerator.Report report;
+        try (RequestFrontEnd frontEnd = new RequestFrontEnd(catalog, users, 8, 5_000)) {
+            report = generator.run(frontEnd, 4, 500);
+        }
+
+        assertEquals(1_000, catalog.bookCount());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.count(ServiceRequest.Type.SEARCH) > 0);
+        assertEquals(0, report.count(ServiceResponse.Status.ERROR));
+        assertTrue(report.toString().startsWith("Throughput:"));
+    }
+}
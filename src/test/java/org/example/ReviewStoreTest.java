@@ -0,0 +1,153 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewStoreTest {
+
+    private ReviewStore store;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        store = new ReviewStore();
+        book = new Book("1984", "George Orwell", "Dystopian", 9.99);
+    }
+
+    private static List<String> texts(ReviewPage page) {
+        return page.getReviews().stream().map(Review::getText).collect(Collectors.toList());
+    }
+
+    private void post(int count) {
+        for (int i = 0; i < count; i++) {
+            store.add(book, new Review("user" + i, "review" + i, i % 5 + 1, i));
+        }
+    }
+
+    // ---------------------- page Tests ----------------------
+
+    @Test
+    void page_NewestFirstWithCursor() {
+        // Positive test: Pages walk from the newest review to the oldest
+        post(5);
+
+        ReviewPage first = store.page(book, ReviewStore.NEWEST, 2);
+        assertEquals(List.of("review4", "review3"), texts(first));
+        assertTrue(first.hasMore());
+
+        ReviewPage second = store.page(book, first.getNextCursor(), 2);
+        assertEquals(List.of("review2", "review1"), texts(second));
+
+        ReviewPage last = store.page(book, second.getNextCursor(), 2);
+        assertEquals(List.of("review0"), texts(last));
+        assertFalse(last.hasMore());
+    }
+
+    @Test
+    void page_UnreviewedBook() {
+        // Negative test: A book nobody reviewed has an empty last page
+        ReviewPage page = store.page(book, ReviewStore.NEWEST, 20);
+
+        assertTrue(page.getReviews().isEmpty());
+        assertFalse(page.hasMore());
+        assertThrows(IllegalArgumentException.class, () -> store.page(book, -1, 20));
+    }
+
+    @Test
+    void page_CursorStableWhileReviewsArrive() {
+        // Edge test: Reviews posted between pages do not shift or repeat older ones
+        post(4);
+        ReviewPage first = store.page(book, ReviewStore.NEWEST, 2);
+        store.add(book, new Review("late", "late review", Review.NO_RATING, 99));
+
+        assertEquals(List.of("review1", "review0"), texts(store.page(book, first.getNextCursor(), 2)));
+        assertEquals("late review", store.page(book, ReviewStore.NEWEST, 1).getReviews().get(0).getText());
+    }
+
+    // ---------------------- stats Tests ----------------------
+
+    @Test
+    void stats_CountAndRatings() {
+        // Positive test: Aggregates follow every review, unrated ones excluded from the average
+        store.add(book, new Review("a", "ok", 4, 0));
+        store.add(book, new Review("b", "great", 5, 0));
+        store.add(book, new Review("c", "no stars", Review.NO_RATING, 0));
+
+        ReviewStats stats = store.stats(book);
+        assertEquals(3, stats.getCount());
+        assertEquals(2, stats.getRatedCount());
+        assertEquals(4.5, stats.getAverageRating());
+        assertEquals(1, stats.getRatingCount(5));
+    }
+
+    @Test
+    void stats_RejectsBadRating() {
+        // Negative test: Ratings outside 0..MAX_RATING are refused
+        assertThrows(IllegalArgumentException.class, () -> new Review("a", "text", Review.MAX_RATING + 1, 0));
+        assertEquals(0, store.stats(book).getCount());
+    }
+
+    @Test
+    void add_ConcurrentReviewers() throws Exception {
+        // Edge test: Concurrent appends to one book are neither lost nor torn
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    store.add(book, new Review("user", "text", 3, i));
+                    store.page(book, ReviewStore.NEWEST, 20).getReviews().forEach(review -> assertNotNull(review.getText()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(8000, store.stats(book).getCount());
+        assertEquals(3.0, store.stats(book).getAverageRating());
+    }
+
+    // ---------------------- BookService Tests ----------------------
+
+    @Test
+    void addBookReview_StoredOffBook() {
+        // Positive test: With reviews off the book objects, only the store grows
+        BookService service = new BookService();
+        service.addBook(book);
+        service.setReviewsOnBooks(false);
+        User user = new User("john_doe", "password123", "john@example.com");
+        user.getPurchasedBooks().add(book);
+
+        assertTrue(service.addBookReview(user, book, "Chilling", 5));
+        assertTrue(book.getReviews().isEmpty());
+        assertEquals(List.of("Chilling"), texts(service.getReviews(book, ReviewStore.NEWEST, 20)));
+        assertEquals("john_doe", service.getReviews(book, ReviewStore.NEWEST, 1).getReviews().get(0).getUsername());
+    }
+
+    @Test
+    void removeBook_DropsReviews() {
+        // Edge test: A removed book leaves no reviews behind for a later book with its key
+        BookService service = new BookService();
+        service.addBook(book);
+        User user = new User("john_doe", "password123", "john@example.com");
+        user.getPurchasedBooks().add(book);
+        service.addBookReview(user, book, "Chilling", 5);
+
+        service.removeBook(book);
+        service.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99));
+
+        assertEquals(0, service.getReviewStats(book).getCount());
+    }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private BookService service;
+    private Book orwell;
+    private Book huxley;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookService();
+        orwell = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        huxley = new Book("Brave New World", "Aldous Huxley", "Dystopian", 8.99);
+        service.addBook(orwell);
+        service.addBook(huxley);
+        service.enableSearchCache(100);
+    }
+
+    // ---------------------- searchBook Tests ----------------------
+
+    @Test
+    void searchBook_Positive() {
+        // Positive test: A repeated keyword is answered from the cache with an equal, separate list
+        List<Book> first = service.searchBook("Dystopian");
+        List<Book> second = service.searchBook("Dystopian");
+
+        assertEquals(Arrays.asList(orwell, huxley), second);
+        assertNotSame(first, second);
+        second.clear();
+        assertEquals(2, service.searchBook("Dystopian").size());
+        assertEquals(2, service.getSearchCache().getHits());
+        assertEquals(1, service.getSearchCache().getMisses());
+    }
+
+    @Test
+    void searchBook_Negative() {
+        // Negative test: addBook and removeBook drop cached results
+        assertEquals(1, service.searchBook("Orwell").size());
+        Book animalFarm = new Book("Animal Farm", "George Orwell", "Satire", 5.99);
+        service.addBook(animalFarm);
+        assertEquals(Arrays.asList(orwell, animalFarm), service.searchBook("Orwell"));
+
+        service.removeBook(orwell);
+        assertEquals(Collections.singletonList(animalFarm), service.searchBook("Orwell"));
+        service.removeBooks(Collections.singletonList(animalFarm));
+        assertTrue(service.searchBook("Orwell").isEmpty());
+        assertEquals(0, service.getSearchCache().getHits());
+    }
+
+    @Test
+    void searchBook_EdgeCase() {
+        // Edge test: Changing a title, author or genre through a setter drops cached results
+        assertEquals(2, service.searchBook("Dystopian").size());
+        huxley.setGenre("Science Fiction");
+        assertEquals(Collections.singletonList(orwell), service.searchBook("Dystopian"));
+
+        assertEquals(1, service.searchBook("1984").size());
+        orwell.setTitle("Nineteen Eighty-Four");
+        assertTrue(service.searchBook("1984").isEmpty());
+
+        // A book this service does not catalog leaves its cache alone
+        Book elsewhere = new Book("Emma", "Jane Austen", "Romance", 7.99);
+        new BookService().addBook(elsewhere);
+        service.searchBook("Dystopian");
+        long hits = service.getSearchCache().getHits();
+        elsewhere.setGenre("Dystopian");
+        assertEquals(Collections.singletonList(orwell), service.searchBook("Dystopian"));
+        assertEquals(hits + 1, service.getSearchCache().getHits());
+    }
+
+    // ---------------------- eviction Tests ----------------------
+
+    @Test
+    void eviction_Positive() {
+        // Positive test: Keywords hit twice survive a stream of one-off keywords
+        SearchCache cache = new SearchCache(50);
+        List<Book> one = Collections.singletonList(orwell);
+        long epoch = cache.epoch();
+        cache.put("popular", one, epoch);
+        assertNotNull(cache.get("popular"));
+        for (int i = 0; i < 100; i++) {
+            cache.put("once " + i, one, epoch);
+        }
+
+        assertNotNull(cache.get("popular"));
+        assertTrue(cache.weight() <= 50);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    void eviction_Negative() {
+        // Negative test: A result computed before an invalidation is not cached
+        SearchCache cache = new SearchCache(50);
+        long epoch = cache.epoch();
+        cache.invalidate();
+        cache.put("stale", Collections.singletonList(orwell), epoch);
+
+        assertNull(cache.get("stale"));
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new SearchCache(0));
+    }
+
+    @Test
+    void eviction_EdgeCase() {
+        // Edge test: A result heavier than the probation segment is never cached
+        SearchCache cache = new SearchCache(10);
+        long epoch = cache.epoch();
+        cache.put("broad", Arrays.asList(orwell, huxley, orwell), epoch);
+        cache.put("narrow", Collections.singletonList(orwell), epoch);
+
+        assertNull(cache.get("broad"));
+        assertNotNull(cache.get("narrow"));
+        assertEquals(2, cache.weight());
+    }
+}
@@ -0,0 +1,166 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceMetricsTest {
+
+    // ---------------------- Histogram Tests ----------------------
+
+    @Test
+    void histogram_PercentilesWithinPrecision() {
+        // Positive test: Percentiles of a uniform spread land within the 1/32 bucket precision
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000_000, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_000.5, snapshot.getMean(), 1e-6);
+        assertEquals(500_000, snapshot.getValueAtPercentile(50), 500_000 / 32.0);
+        assertEquals(990_000, snapshot.getValueAtPercentile(99), 990_000 / 32.0);
+        assertEquals(999_000, snapshot.getValueAtPercentile(99.9), 999_000 / 32.0);
+        assertEquals(1_000_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    void histogram_Empty() {
+        // Negative test: An empty histogram reports zeros instead of sentinels
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    void histogram_BucketsCoverLongRange() {
+        // Edge test: Every value maps into a bucket whose top is not below it, up to Long.MAX_VALUE
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(bucket >= 0 && bucket < Histogram.BUCKETS, "bucket of " + value);
+            assertTrue(Histogram.highestValueIn(bucket) >= value);
+            assertTrue(bucket == 0 || Histogram.highestValueIn(bucket - 1) < value);
+        }
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucketOf(Long.MAX_VALUE));
+
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.snapshot().getMax());
+    }
+
+    // ---------------------- ServiceMetrics Tests ----------------------
+
+    @Test
+    void services_RecordOperations() {
+        // Positive test: Calls, failures and result sizes are recorded per operation
+        ServiceMetrics metrics = new ServiceMetrics();
+        BookService books = new BookService();
+        UserService users = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        books.setMetrics(metrics);
+        users.setMetrics(metrics);
+
+        books.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99));
+        books.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99));
+        books.searchBook("Orwell");
+        books.searchBook("Tolkien");
+        users.registerUser(new User("john_doe", "password123", "john@example.com"));
+        users.loginUser("john_doe", "password123");
+        users.loginUser("john_doe", "wrong");
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.get(ServiceMetrics.Operation.ADD_BOOK).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.ADD_BOOK).getFailures());
+        assertEquals(2, snapshot.get(ServiceMetrics.Operation.SEARCH_BOOK).getResultSizes().getCount());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.SEARCH_BOOK).getResultSizes().getMax());
+        assertEquals(2, snapshot.get(ServiceMetrics.Operation.LOGIN_USER).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.LOGIN_USER).getFailures());
+        assertTrue(snapshot.get(ServiceMetrics.Operation.LOGIN_USER).getLatency().getMax() > 0);
+        assertTrue(snapshot.toString().contains("LOGIN_USER"));
+    }
+
+    @Test
+    void services_SearchVariantsRecordedSeparately() {
+        // Positive test: Each search variant has its own latency, so their costs are not mixed
+        ServiceMetrics metrics = new ServiceMetrics();
+        BookService books = new BookService();
+        books.setMetrics(metrics);
+        books.addBook(new Book("1984", "George Orwell", "Dystopian", 9.99));
+
+        books.searchNormalized("orwell");
+        books.searchBookParallel("Orwell");
+        books.searchFuzzy("Orwel", 1);
+        books.searchFacets("Orwell");
+
+        ServiceMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.get(ServiceMetrics.Operation.SEARCH_BOOK).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.SEARCH_NORMALIZED).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.SEARCH_PARALLEL).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.SEARCH_FUZZY).getCalls());
+        assertEquals(1, snapshot.get(ServiceMetrics.Operation.SEARCH_FACETS).getCalls());
+    }
+
+    @Test
+    void services_DisabledRecordsNothing() {
+        // Negative test: Detaching the metrics stops recording
+        ServiceMetrics metrics = new ServiceMetrics();
+        ConcurrentUserService users = new ConcurrentUserService(new ConcurrentHashMap<>(), new PasswordHasher(1000));
+        users.setMetrics(metrics);
+        users.registerUser(new User("john_doe", "password123", "john@example.com"));
+        users.setMetrics(null);
+        users.registerUser(new User("jane_doe", "password456", "jane@example.com"));
+
+        assertEquals(1, metrics.snapshot().get(ServiceMetrics.Operation.REGISTER_USER).getCalls());
+        assertEquals(0, metrics.snapshot().get(ServiceMetrics.Operation.QUERY).getCalls());
+    }
+
+    @Test
+    void startExporting_PushesSnapshots() throws InterruptedException {
+        // Edge test: The exporter receives snapshots on its own thread until closed
+        AtomicReference<ServiceMetrics.Snapshot> exported = new AtomicReference<>();
+        CountDownLatch received = new CountDownLatch(2);
+        try (ServiceMetrics metrics = new ServiceMetrics()) {
+            metrics.record(ServiceMetrics.Operation.QUERY, System.nanoTime(), 3);
+            metrics.startExporting(snapshot -> {
+                exported.set(snapshot);
+                received.countDown();
+            }, 10, e -> fail(e));
+
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, exported.get().get(ServiceMetrics.Operation.QUERY).getCalls());
+    }
+
+    @Test
+    void startExporting_FailuresGoToHandler() throws InterruptedException {
+        // Negative test: An exporter that throws is reported to the handler and keeps being called
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch attempts = new CountDownLatch(2);
+        try (ServiceMetrics metrics = new ServiceMetrics()) {
+            metrics.startExporting(snapshot -> {
+                attempts.countDown();
+                throw new IllegalStateException("Exporter is down");
+            }, 10, failures::add);
+
+            assertTrue(attempts.await(5, TimeUnit.SECONDS));
+        }
+        assertFalse(failures.isEmpty());
+        assertEquals("Exporter is down", failures.get(0).getMessage());
+    }
+}
@@ -0,0 +1,366 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedBookServiceTest {
+
+    private ShardedBookService sharded;
+    private BookService reference;
+    private List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        reference = new BookService();
+        books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(new Book("Title " + i, "Author " + (i % 17), i % 3 == 0 ? "Dystopian" : "Fantasy", i));
+        }
+        reference.addBooks(books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sharded != null) {
+            sharded.close();
+        }
+    }
+
+    // ---------------------- searchBook Tests ----------------------
+
+    @Test
+    void searchBook_Positive() {
+        // Positive test: Four shards give the same books as one service, merged in title order
+        sharded = ShardedBookService.inProcess(4);
+        assertEquals(200, sharded.addBooks(books));
+        assertEquals(200, sharded.bookCount());
+
+        Set<Integer> used = new HashSet<>();
+        for (Book book : books) {
+            used.add(sharded.shardOf(BookKey.of(book)));
+        }
+        assertEquals(4, used.size());
+
+        assertEquals(sorted(reference.searchBook("Dystopian")), sharded.searchBook("Dystopian"));
+        assertEquals(sorted(reference.searchBook("Author 3")).subList(0, 5), sharded.searchBook("Author 3", 5));
+        assertTrue(sharded.searchBook("Nonexistent").isEmpty());
+    }
+
+    @Test
+    void searchBook_Negative() {
+        // Negative test: A shard whose replicas all fail fails the search, and a stuck one times out
+        CatalogShard broken = new FlakyShard(new LocalShard(), Integer.MAX_VALUE, null);
+        sharded = new ShardedBookService(Arrays.asList(new LocalShard(), broken));
+        sharded.setHedgeDelay(0);
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> sharded.searchBook("Title"));
+        assertEquals("shard down", failure.getMessage());
+        sharded.close();
+
+        CountDownLatch never = new CountDownLatch(1);
+        sharded = new ShardedBookService(Arrays.asList(new LocalShard(), new FlakyShard(new LocalShard(), 0, never)));
+        sharded.setHedgeDelay(0);
+        sharded.setTimeout(100);
+        failure = assertThrows(IllegalStateException.class, () -> sharded.searchBook("Title"));
+        assertTrue(failure.getMessage().contains("did not answer within 100 ms"));
+        never.countDown();
+    }
+
+    @Test
+    void searchBook_HedgesSlowShards() {
+        // Edge test: A replica stuck on a search is hedged by the other, and a failing one fails over
+        CountDownLatch release = new CountDownLatch(1);
+        LocalShard fast = new LocalShard();
+        FlakyShard slow = new FlakyShard(new LocalShard(), 0, release);
+        sharded = ShardedBookService.replicated(Arrays.asList(Arrays.asList(slow, fast)));
+        sharded.setHedgeDelay(20);
+        Book book = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        assertTrue(sharded.addBook(book));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(1, sharded.searchBook("Orwell").size()); // Every other search starts on the slow replica
+        }
+        assertTrue(sharded.getHedges() >= 1);
+        assertTrue(sharded.getHedgeWins() >= 1);
+        release.countDown();
+
+        sharded.close();
+        FlakyShard failing = new FlakyShard(new LocalShard(), 1, null);
+        sharded = ShardedBookService.replicated(Arrays.asList(Arrays.asList(failing, new LocalShard())));
+        sharded.setHedgeDelay(0);
+        sharded.addBook(book);
+        assertEquals(Arrays.asList(book), sharded.searchBook("1984"));
+        assertEquals(1, sharded.getHedgeWins());
+    }
+
+    // ---------------------- Book Placement Tests ----------------------
+
+    @Test
+    void addRemoveFind_EdgeCase() {
+        // Edge test: Books are found on their shard, duplicates are refused, removal is by key
+        sharded = ShardedBookService.inProcess(3);
+        Book book = new Book("1984", "George Orwell", "Dystopian", 9.99);
+        assertTrue(sharded.addBook(book));
+        assertFalse(sharded.addBook(new Book("1984", "George Orwell", "Fiction", 5.00)));
+        assertSame(book, sharded.findBook("1984", "George Orwell"));
+        assertNull(sharded.findBook("1984", "Someone Else"));
+
+        assertTrue(sharded.removeBook(new Book("1984", "George Orwell", null, 0)));
+        assertFalse(sharded.removeBook(book));
+        assertNull(sharded.findBook("1984", "George Orwell"));
+        assertEquals(0, sharded.bookCount());
+    }
+
+    @Test
+    void addBooks_StaleReplicaSkippedUntilRepaired() {
+        // Edge test: A replica that misses a write is skipped by reads until repair copies its
+        // shard back, and a shard with no working replica fails only after the others took theirs
+        FlakyShard flaky = new FlakyShard(new LocalShard(), 0, null);
+        sharded = ShardedBookService.replicated(Arrays.asList(Arrays.asList(flaky, new LocalShard())));
+        sharded.setHedgeDelay(0);
+        flaky.down = true;
+        assertEquals(200, sharded.addBooks(books));
+        assertEquals(1, sharded.staleReplicas());
+        flaky.down = false;
+
+        assertTrue(sharded.removeBook(books.get(0)));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(199, sharded.searchBook("").size());
+        }
+        assertEquals(199, sharded.bookCount());
+        sharded.repair();
+        assertEquals(0, sharded.staleReplicas());
+        assertEquals(199, flaky.size());
+
+        sharded.close();
+        FlakyShard lone = new FlakyShard(new LocalShard(), 0, null);
+        LocalShard other = new LocalShard();
+        sharded = new ShardedBookService(Arrays.asList(lone, other));
+        lone.down = true;
+        assertThrows(UncheckedIOException.class, () -> sharded.addBooks(books));
+        assertTrue(other.size() > 0);
+        assertEquals(0, sharded.staleReplicas());
+    }
+
+    // ---------------------- Remote Shard Tests ----------------------
+
+    @Test
+    void remoteShards_Positive() throws Exception {
+        // Positive test: Shards served over loopback behave like local ones
+        try (ShardServer first = new ShardServer(new LocalShard(), 0);
+             ShardServer second = new ShardServer(new LocalShard(), 0);
+             RemoteShard firstClient = new RemoteShard("localhost", first.getPort());
+             RemoteShard secondClient = new RemoteShard("localhost", second.getPort())) {
+            sharded = new ShardedBookService(Arrays.asList(firstClient, secondClient));
+            assertEquals(200, sharded.addBooks(books));
+            assertTrue(first.getShard().size() > 0 && second.getShard().size() > 0);
+
+            assertEquals(titles(sorted(reference.searchBook("Dystopian"))), titles(sharded.searchBook("Dystopian")));
+            assertEquals(titles(sorted(reference.searchBook("Fantasy")).subList(0, 7)), titles(sharded.searchBook("Fantasy", 7)));
+            Book found = sharded.findBook("Title 42", "Author 8");
+            assertEquals("Dystopian", found.getGenre());
+            assertEquals(42.0, found.getPrice());
+            assertTrue(sharded.removeBook(found));
+            assertEquals(199, sharded.bookCount());
+        }
+    }
+
+    @Test
+    void remoteShards_Negative() throws Exception {
+        // Negative test: A failing request is reported without breaking the connection, and a
+        // stopped server is reported as unreachable
+        ShardServer server = new ShardServer(new LocalShard(), 0);
+        try (RemoteShard client = new RemoteShard("localhost", server.getPort(), 1_000)) {
+            assertTrue(client.add(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+            IllegalStateException failure = assertThrows(IllegalStateException.class, () -> client.search(null, 10));
+            assertTrue(failure.getMessage().contains("failed"));
+            assertEquals(1, client.search("Orwell", 10).size());
+
+            server.close();
+            assertThrows(UncheckedIOException.class, () -> client.search("Orwell", 10));
+        }
+    }
+
+    @Test
+    void remoteShards_MalformedRequestDropsConnection() throws Exception {
+        // Edge test: A request whose arguments cannot be read is answered FAILED and the
+        // connection closed, since the rest of it would be read as the next request
+        try (ShardServer server = new ShardServer(new LocalShard(), 0);
+             Socket socket = new Socket("localhost", server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeByte(ShardServer.ADD_ALL);
+            out.writeInt(-1);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(ShardServer.FAILED, in.readByte());
+            assertTrue(BinaryIO.readString(in).contains("Negative book count"));
+            assertEquals(-1, in.read());
+
+            try (RemoteShard client = new RemoteShard("localhost", server.getPort())) {
+                assertTrue(client.add(new Book("1984", "George Orwell", "Dystopian", 9.99)));
+            }
+        }
+    }
+
+    @Test
+    void remoteShards_BadStringLengthDropsConnection() throws Exception {
+        // Negative test: A string length that is negative (other than null's -1) or too large is
+        // rejected before anything is allocated for it, and the connection dropped
+        try (ShardServer server = new ShardServer(new LocalShard(), 0);
+             Socket socket = new Socket("localhost", server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeByte(ShardServer.SEARCH);
+            out.writeInt(-2);
+            out.writeInt(10);
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+
+        byte[] oversized = ByteBuffer.allocate(4).putInt(BinaryIO.MAX_STRING_BYTES + 1).array();
+        IOException failure = assertThrows(IOException.class,
+                () -> BinaryIO.readString(new DataInputStream(new ByteArrayInputStream(oversized))));
+        assertTrue(failure.getMessage().contains("Bad string length"));
+    }
+
+    @Test
+    void remoteShards_SeparateProcesses() throws Exception {
+        // Edge test: Two shard JVMs on this machine serve one catalog
+        List<Process> processes = new ArrayList<>();
+        List<RemoteShard> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                Process process = startShardProcess();
+                processes.add(process);
+                BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                String line = out.readLine();
+                assertNotNull(line, "shard process exited");
+                clients.add(new RemoteShard("localhost", Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1))));
+            }
+            sharded = new ShardedBookService(clients);
+            assertEquals(200, sharded.addBooks(books));
+            assertEquals(titles(sorted(reference.searchBook("Author 5"))), titles(sharded.searchBook("Author 5")));
+            assertEquals(200, sharded.bookCount());
+        } finally {
+            for (RemoteShard client : clients) {
+                client.close();
+            }
+            for (Process process : processes) {
+                process.destroy();
+                process.waitFor(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static Process startShardProcess() throws Exception {
+        Path classes = Paths.get(ShardServer.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        return new ProcessBuilder(java.toString(), "-Xmx64m", "-cp", classes.toString(), "org.example.ShardServer", "0")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static List<Book> sorted(List<Book> books) {
+        List<Book> copy = new ArrayList<>(books);
+        copy.sort(ShardedBookService.ORDER);
+        return copy;
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // Throws on its first few searches, then blocks each search on the latch if there is one.
+    // While down, every call throws as an unreachable remote shard would.
+    private static final class FlakyShard implements CatalogShard {
+        private final CatalogShard delegate;
+        private int failures;
+        private final CountDownLatch latch;
+        volatile boolean down;
+
+        FlakyShard(CatalogShard delegate, int failures, CountDownLatch latch) {
+            this.delegate = delegate;
+            this.failures = failures;
+            this.latch = latch;
+        }
+
+        @Override
+        public List<Book> search(String keyword, int limit) {
+            checkUp();
+            synchronized (this) {
+                if (failures > 0) {
+                    failures--;
+                    throw new IllegalStateException("shard down");
+                }
+            }
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return delegate.search(keyword, limit);
+        }
+
+        @Override
+        public boolean add(Book book) {
+            checkUp();
+            return delegate.add(book);
+        }
+
+        @Override
+        public int addAll(Collection<Book> books) {
+            checkUp();
+            return delegate.addAll(books);
+        }
+
+        @Override
+        public boolean remove(BookKey key) {
+            checkUp();
+            return delegate.remove(key);
+        }
+
+        @Override
+        public Book find(BookKey key) {
+            checkUp();
+            return delegate.find(key);
+        }
+
+        @Override
+        public int size() {
+            checkUp();
+            return delegate.size();
+        }
+
+        private void checkUp() {
+            if (down) {
+                throw new UncheckedIOException(new IOException("Shard unreachable"));
+            }
+        }
+    }
+}
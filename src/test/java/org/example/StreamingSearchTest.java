@@ -0,0 +1,105 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSearchTest {
+
+    private BookService bookService;
+    private AtomicInteger titleReads;
+
+    @BeforeEach
+    void setUp() {
+        bookService = new BookService();
+        titleReads = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            // Count how many books the search actually looks at
+            bookService.addBook(new Book("Title" + i, "Author" + (i % 10), "Genre", 1000 - i) {
+                @Override
+                public String getTitle() {
+                    titleReads.incrementAndGet();
+                    return super.getTitle();
+                }
+            });
+        }
+        titleReads.set(0);
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+
+    // ---------------------- searchBook pagination Tests ----------------------
+
+    @Test
+    void searchBookPage_Positive() {
+        // Positive test: A page is the matching slice of the full result list
+        List<Book> all = bookService.searchBook("Title");
+
+        assertEquals(all.subList(20, 30), bookService.searchBook("Title", 20, 10));
+    }
+
+    @Test
+    void searchBookPage_Negative() {
+        // Negative test: Paging past the last match gives an empty page
+        assertTrue(bookService.searchBook("Title99", 50, 10).isEmpty());
+    }
+
+    @Test
+    void searchBookPage_EdgeCase() {
+        // Edge test: The scan stops as soon as the first page is full
+        bookService.searchBook("T", 0, 5);
+
+        assertEquals(5, titleReads.get());
+    }
+
+    // ---------------------- openSearch Tests ----------------------
+
+    @Test
+    void openSearch_PagesContinueWhereTheyStopped() {
+        SearchCursor cursor = bookService.openSearch("Title99");
+        List<Book> seen = new ArrayList<>();
+        while (cursor.hasNext()) {
+            List<Book> page = cursor.nextPage(4);
+            assertTrue(page.size() <= 4);
+            seen.addAll(page);
+        }
+
+        assertEquals(bookService.searchBook("Title99"), seen);
+        assertTrue(cursor.nextPage(4).isEmpty());
+    }
+
+    // ---------------------- searchTopK Tests ----------------------
+
+    @Test
+    void searchTopK_Positive() {
+        // Positive test: The cheapest matches come back cheapest first
+        List<Book> cheapest = bookService.searchTopK("Author3", 3, Comparator.comparingDouble(Book::getPrice));
+
+        assertEquals(List.of("Title993", "Title983", "Title973"), titles(cheapest));
+    }
+
+    @Test
+    void searchTopK_Negative() {
+        // Negative test: No matches, or k of zero, give an empty list
+        assertTrue(bookService.searchTopK("Nobody", 5, Comparator.comparingDouble(Book::getPrice)).isEmpty());
+        assertTrue(bookService.searchTopK("Title", 0, Comparator.comparingDouble(Book::getPrice)).isEmpty());
+    }
+
+    @Test
+    void searchTopK_EdgeCase() {
+        // Edge test: Ties keep catalog order, and k larger than the matches returns them all
+        List<Book> byAuthor = bookService.searchTopK("Title1", 3, Comparator.comparing(Book::getAuthor));
+        assertEquals(List.of("Title10", "Title100", "Title110"), titles(byAuthor));
+
+        assertEquals(111, bookService.searchTopK("Title1", 500, Comparator.comparing(Book::getAuthor)).size());
+    }
+}
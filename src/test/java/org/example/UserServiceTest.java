@@ -5,7 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -100,4 +107,127 @@ public class UserServiceTest {
         // Assert: Verify the result
         assertNull(result); // Expect the login to fail due to the incorrect password
     }
+
+    @Test
+    public void testRegisterUser_StoresPasswordHash() {
+        // Arrange: A real service with a cheap hashing cost
+        UserService service = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        User newUser = new User("john_doe", "password123", "john@example.com");
+
+        // Act: Register, then log in with the original password
+        service.registerUser(newUser);
+        User result = service.loginUser("john_doe", "password123");
+
+        // Assert: Only a hash is stored, and it still accepts the right password
+        assertTrue(PasswordHasher.isHash(newUser.getPassword()));
+        assertEquals(newUser, result);
+        assertNull(service.loginUser("john_doe", newUser.getPassword())); // The hash itself is not a password
+    }
+
+    @Test
+    public void testRegisterUser_ClientSuppliedHashIsHashedAgain() {
+        // Arrange: A client registers with a password that looks like a hash naming a huge cost
+        UserService service = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        String forged = "pbkdf2-sha256$2147483647$c2FsdA$aGFzaA";
+        User newUser = new User("mallory", forged, "mallory@example.com");
+
+        // Act: Register, then log in
+        service.registerUser(newUser);
+        User result = service.loginUser("mallory", forged);
+
+        // Assert: The value was hashed like any password, so logins run the configured cost
+        assertNotEquals(forged, newUser.getPassword());
+        assertEquals(newUser, result);
+        assertNull(service.loginUser("mallory", null));
+    }
+
+    @Test
+    public void testUpdateUserProfile_MissingPasswordChangesNothing() {
+        // Arrange: A registered user
+        UserService service = new UserService(new HashMap<>(), new PasswordHasher(1000));
+        User user = new User("john_doe", "password123", "john@example.com");
+        service.registerUser(user);
+
+        // Act & Assert: Updates and registrations without a password are rejected up front
+        assertFalse(service.updateUserProfile(user, "johnny", null, "johnny@example.com"));
+        assertFalse(service.updateUserProfile(user, "johnny", "", "johnny@example.com"));
+        assertFalse(service.updateUserProfile(user, null, "secret", "johnny@example.com"));
+        assertFalse(service.registerUser(new User("jane_doe", null, "jane@example.com")));
+
+        // The user is untouched and still logs in under the old name
+        assertEquals("john_doe", user.getUsername());
+        assertEquals("john@example.com", user.getEmail());
+        assertNull(service.findUser("johnny"));
+        assertSame(user, service.loginUser("john_doe", "password123"));
+        assertNull(service.findUser("jane_doe"));
+    }
+
+    @Test
+    public void testLoginUser_PlaintextUserIsUpgraded() {
+        // Arrange: A user stored before hashing existed
+        User legacy = new User("jane_doe", "password456", "jane@example.com");
+        when(userDatabaseMock.get("jane_doe")).thenReturn(legacy);
+        UserService service = new UserService(userDatabaseMock, new PasswordHasher(1000));
+
+        // Act: Log in once with the right password
+        User result = service.loginUser("jane_doe", "password456");
+
+        // Assert: The login works and the stored password is now a hash
+        assertEquals(legacy, result);
+        assertTrue(PasswordHasher.isHash(legacy.getPassword()));
+        assertNotNull(service.loginUser("jane_doe", "password456"));
+    }
+
+    @Test
+    public void testLoginUser_CacheSkipsKdfOnRepeatLogin() {
+        // Arrange: A hasher that counts verifications, with the login cache on
+        AtomicInteger verifications = new AtomicInteger();
+        PasswordHasher countingHasher = new PasswordHasher(1000) {
+            @Override
+            public boolean verify(String password, String stored) {
+                verifications.incrementAndGet();
+                return super.verify(password, stored);
+            }
+        };
+        UserService service = new UserService(new HashMap<>(), countingHasher);
+        service.enableLoginCache(60_000, 100);
+        service.registerUser(new User("john_doe", "password123", "john@example.com"));
+
+        // Act: Log in three times, then once with a wrong password
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(service.loginUser("john_doe", "password123"));
+        }
+        assertNull(service.loginUser("john_doe", "wrong"));
+
+        // Assert: Only the first login and the wrong password ran the KDF
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    public void testLoginUserAsync_RejectsWhenExecutorIsFull() throws Exception {
+        // Arrange: One login thread with no queue, kept busy by a blocked task
+        ExecutorService executor = UserService.newLoginExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> {
+                release.await();
+                return null;
+            });
+            executor.submit(() -> null); // Fills the queue
+
+            // Act: A login burst arrives while the executor is saturated
+            User existingUser = new User("john_doe", "password123", "john@example.com");
+            when(userDatabaseMock.get("john_doe")).thenReturn(existingUser);
+
+            CompletableFuture<User> login = userServiceSpy.loginUserAsync("john_doe", "password123", executor);
+
+            // Assert: The login is shed immediately instead of waiting
+            assertTrue(login.isCompletedExceptionally());
+            ExecutionException failure = assertThrows(ExecutionException.class, login::get);
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
 }